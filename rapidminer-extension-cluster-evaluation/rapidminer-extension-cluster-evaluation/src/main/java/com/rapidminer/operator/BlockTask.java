@@ -0,0 +1,86 @@
+package com.rapidminer.operator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Work over a range of indices which is split into blocks processed on a fork/join pool.
+ * The range is cut into several blocks per thread, so idle threads steal remaining blocks
+ * when the cost of indices differs. Every index is processed exactly once by one thread.
+ * @author Jan Jake
+ *
+ */
+public abstract class BlockTask {
+
+	/** Number of blocks created for every thread. */
+	private static final int BLOCKS_PER_THREAD = 8;
+
+	/** Minimum number of indices in one block. */
+	private int minimumBlockSize;
+
+	/**
+	 * Constructs a new instance.
+	 * @param minimumBlockSize minimum number of indices in one block
+	 */
+	public BlockTask(int minimumBlockSize) {
+		this.minimumBlockSize = Math.max(1, minimumBlockSize);
+	}
+
+	/**
+	 * Processes one block of indices.
+	 * @param from first index of block
+	 * @param to index after the last index of block
+	 */
+	protected abstract void process(int from, int to);
+
+	/**
+	 * Processes all indices of range.
+	 * @param size number of indices
+	 * @param numberOfThreads number of threads, one thread processes the range in the calling thread
+	 */
+	public void execute(int size, int numberOfThreads) {
+		if (numberOfThreads <= 1 || size <= minimumBlockSize) {
+			process(0, size);
+			return;
+		}
+		final int blockSize = Math.max(minimumBlockSize, size / (numberOfThreads * BLOCKS_PER_THREAD));
+		final ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+		try {
+			pool.invoke(new BlockAction(0, size, blockSize));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/** Recursively halves the range until blocks are small enough. */
+	private class BlockAction extends RecursiveAction {
+
+		/** Version. */
+		private static final long serialVersionUID = 1L;
+
+		/** First index. */
+		private final int from;
+
+		/** Index after the last index. */
+		private final int to;
+
+		/** Maximum number of indices processed without splitting. */
+		private final int blockSize;
+
+		private BlockAction(int from, int to, int blockSize) {
+			this.from = from;
+			this.to = to;
+			this.blockSize = blockSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= blockSize) {
+				process(from, to);
+			} else {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new BlockAction(from, middle, blockSize), new BlockAction(middle, to, blockSize));
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.rapidminer.operator;
+
+/**
+ * Class for calculating Calinski-Harabasz index, the ratio of between-cluster and within-cluster
+ * dispersion of a clustering with Euclidean distance.
+ * @author Jan Jake
+ *
+ */
+public class CalinskiHarabaszData {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Value of Calinski-Harabasz index. */
+	private double calinskiHarabaszIndex;
+
+	/** Sum of squared distances of examples to centroids of their clusters. */
+	private double withinSumOfSquares;
+
+	/** Weighted sum of squared distances of centroids of clusters to the centroid of dataset. */
+	private double betweenSumOfSquares;
+
+	/** Number of clusters. */
+	private int numberOfClusters;
+
+	/** Number of examples. */
+	private long numberOfExamples;
+
+	/** Constructs a new instance. */
+	public CalinskiHarabaszData() { }
+
+	/**
+	 * Calculates Calinski-Harabasz index value.
+	 * @param statistics statistics of clusters
+	 */
+	public void calculateCalinskiHarabaszIndex(ClusterStatistics statistics) {
+		this.numberOfClusters = statistics.getNumberOfClusters();
+		this.numberOfExamples = 0;
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			numberOfExamples += statistics.getClusterSize(cluster);
+		}
+		this.withinSumOfSquares = statistics.getWithinSumOfSquares();
+		this.betweenSumOfSquares = statistics.getBetweenSumOfSquares();
+		this.calinskiHarabaszIndex = getCalinskiHarabaszIndex(betweenSumOfSquares, withinSumOfSquares);
+	}
+
+	/**
+	 * Returns calculated Calinski-Harabasz index.
+	 * @param betweenSumOfSquares between-cluster sum of squares
+	 * @param withinSumOfSquares within-cluster sum of squares
+	 * @return index, 0 for less than two clusters or no degree of freedom within clusters,
+	 *         infinity for clusters without dispersion
+	 */
+	private double getCalinskiHarabaszIndex(double betweenSumOfSquares, double withinSumOfSquares) {
+		if (numberOfClusters < 2 || numberOfExamples <= numberOfClusters) {
+			return 0.0;
+		}
+		if (withinSumOfSquares == 0.0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return (betweenSumOfSquares / (numberOfClusters - 1)) / (withinSumOfSquares / (numberOfExamples - numberOfClusters));
+	}
+
+	public double getCalinskiHarabaszIndex() {
+		return calinskiHarabaszIndex;
+	}
+
+	public double getWithinSumOfSquares() {
+		return withinSumOfSquares;
+	}
+
+	public double getBetweenSumOfSquares() {
+		return betweenSumOfSquares;
+	}
+
+	public int getNumberOfClusters() {
+		return numberOfClusters;
+	}
+
+	public long getNumberOfExamples() {
+		return numberOfExamples;
+	}
+}
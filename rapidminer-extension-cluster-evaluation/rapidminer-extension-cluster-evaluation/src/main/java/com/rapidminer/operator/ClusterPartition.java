@@ -0,0 +1,177 @@
+package com.rapidminer.operator;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.NominalMapping;
+
+/**
+ * Class for dividing the data by clusters.
+ * Examples are identified by their row index in the clustered dataset and clusters by a dense
+ * index taken from the nominal mapping of the cluster attribute. Members of clusters are stored
+ * in one array grouped by clusters, the offsets array points to the first member of every cluster.
+ * @author Jan Jake
+ *
+ */
+public class ClusterPartition {
+
+	/** Clustered dataset. */
+	private ExampleSet clusterSet;
+
+	/** Names of clusters. */
+	private String[] clusterNames;
+
+	/** Cluster index of every example. */
+	private int[] clusterIds;
+
+	/** Position of the first member of every cluster, the last entry is the number of examples. */
+	private int[] offsets;
+
+	/** Row indices of examples grouped by clusters. */
+	private int[] members;
+
+	/**
+	 * Constructs a new instance.
+	 * @param clusterSet clustered dataset
+	 */
+	public ClusterPartition(ExampleSet clusterSet) {
+		this(clusterSet, clusterSet.getAttributes().get("cluster"));
+	}
+
+	/**
+	 * Constructs a new instance with clusters given by a nominal attribute.
+	 * @param clusterSet clustered dataset
+	 * @param cluster nominal attribute holding the cluster of every example
+	 */
+	public ClusterPartition(ExampleSet clusterSet, Attribute cluster) {
+		this.clusterSet = clusterSet;
+		final NominalMapping mapping = cluster.getMapping();
+		final int missingIndex = mapping.size();
+
+		// mapping index of every example, missing values get their own cluster
+		final String[] names = new String[missingIndex + 1];
+		for (int index = 0; index < missingIndex; index++) {
+			names[index] = mapping.mapIndex(index);
+		}
+		names[missingIndex] = Attribute.MISSING_NOMINAL_VALUE;
+		final int[] ids = new int[clusterSet.size()];
+		int row = 0;
+		for (Example example : clusterSet) {
+			final double value = example.getValue(cluster);
+			ids[row] = Double.isNaN(value) ? missingIndex : (int) value;
+			row++;
+		}
+		separateClusters(ids, names);
+	}
+
+	/**
+	 * Constructs a new instance with clusters given for every example.
+	 * @param clusterSet dataset
+	 * @param clusterIds index of cluster of every example of dataset, the array is reused
+	 * @param clusterNames names of clusters
+	 */
+	public ClusterPartition(ExampleSet clusterSet, int[] clusterIds, String[] clusterNames) {
+		this.clusterSet = clusterSet;
+		separateClusters(clusterIds, clusterNames);
+	}
+
+	/**
+	 * Divides examples by clusters.
+	 * @param ids index of cluster of every example, replaced by indices of clusters with examples
+	 * @param names names of clusters
+	 */
+	private void separateClusters(int[] ids, String[] names) {
+		final int numberOfExamples = ids.length;
+		final int[] counts = new int[names.length];
+		this.clusterIds = ids;
+		for (int id : ids) {
+			counts[id]++;
+		}
+
+		// only clusters with at least one example are kept
+		int numberOfClusters = 0;
+		for (int count : counts) {
+			if (count > 0) {
+				numberOfClusters++;
+			}
+		}
+		final int[] denseIndex = new int[counts.length];
+		this.clusterNames = new String[numberOfClusters];
+		this.offsets = new int[numberOfClusters + 1];
+		int clusterIndex = 0;
+		for (int index = 0; index < counts.length; index++) {
+			if (counts[index] > 0) {
+				denseIndex[index] = clusterIndex;
+				this.clusterNames[clusterIndex] = names[index];
+				this.offsets[clusterIndex + 1] = this.offsets[clusterIndex] + counts[index];
+				clusterIndex++;
+			}
+		}
+
+		final int[] cursors = new int[numberOfClusters];
+		System.arraycopy(this.offsets, 0, cursors, 0, numberOfClusters);
+		this.members = new int[numberOfExamples];
+		for (int row = 0; row < numberOfExamples; row++) {
+			final int id = denseIndex[this.clusterIds[row]];
+			this.clusterIds[row] = id;
+			this.members[cursors[id]++] = row;
+		}
+	}
+
+	/**
+	 * Returns example of clustered dataset.
+	 * @param row row index of example
+	 * @return {@link Example}
+	 */
+	public Example getExample(int row) {
+		return clusterSet.getExample(row);
+	}
+
+	public ExampleSet getClusterSet() {
+		return clusterSet;
+	}
+
+	public int getNumberOfClusters() {
+		return clusterNames.length;
+	}
+
+	public int getNumberOfExamples() {
+		return members.length;
+	}
+
+	public String getClusterName(int cluster) {
+		return clusterNames[cluster];
+	}
+
+	public int getClusterSize(int cluster) {
+		return offsets[cluster + 1] - offsets[cluster];
+	}
+
+	public int getClusterStart(int cluster) {
+		return offsets[cluster];
+	}
+
+	public int getClusterEnd(int cluster) {
+		return offsets[cluster + 1];
+	}
+
+	public int getClusterId(int row) {
+		return clusterIds[row];
+	}
+
+	public int getMember(int position) {
+		return members[position];
+	}
+
+	public int[] getClusterIds() {
+		return clusterIds;
+	}
+
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	public int[] getMembers() {
+		return members;
+	}
+}
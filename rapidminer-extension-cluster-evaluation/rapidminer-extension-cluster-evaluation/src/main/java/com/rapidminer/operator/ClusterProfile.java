@@ -0,0 +1,654 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.table.NumericalAttribute;
+
+/**
+ * Profile of all attributes of a clustered dataset collected in one pass over examples, it gives
+ * typical values of clusters and of the whole dataset without further passes. Examples are read in
+ * batches of rows transposed to columns, every column of a batch is added by one tight loop over
+ * the counts or sketches of its attribute. The exact profile
+ * counts nominal values in arrays indexed by their nominal mapping and stores numerical values by
+ * columns, the approximate profile keeps mergeable sketches of every cluster and merges them for
+ * the whole dataset.
+ * @author Jan Jake
+ *
+ */
+public abstract class ClusterProfile {
+
+	/** Minimum number of occurrences of a typical nominal value. */
+	private static final int MIN_NOMINAL_COUNT = 3;
+
+	/** Number of examples read into columns before they are added to the profile. */
+	private static final int BATCH_SIZE = 1024;
+
+	/** Examples divided by clusters. */
+	protected ClusterPartition partition;
+
+	/** Nominal and numerical attributes in the order of {@link com.rapidminer.example.Attributes#allAttributes()}. */
+	protected Attribute[] attributes;
+
+	/**
+	 * Constructs a new instance.
+	 * @param partition examples divided by clusters
+	 */
+	private ClusterProfile(ClusterPartition partition) {
+		this.partition = partition;
+		final List<Attribute> profiledAttributes = new ArrayList<>();
+		final Iterator<Attribute> attributeIterator = partition.getClusterSet().getAttributes().allAttributes();
+		while (attributeIterator.hasNext()) {
+			final Attribute attribute = attributeIterator.next();
+			if (attribute.isNominal() || attribute.isNumerical()) {
+				profiledAttributes.add(attribute);
+			}
+		}
+		this.attributes = profiledAttributes.toArray(new Attribute[profiledAttributes.size()]);
+	}
+
+	/**
+	 * Creates exact profile of clustered dataset in one pass over its examples.
+	 * @param partition examples divided by clusters
+	 * @return {@link ClusterProfile}
+	 */
+	public static ClusterProfile create(ClusterPartition partition) {
+		final ClusterProfile profile = new ExactProfile(partition);
+		profile.scan();
+		return profile;
+	}
+
+	/**
+	 * Creates approximate profile of clustered dataset in one pass over its examples, its memory
+	 * does not grow with the number of examples.
+	 * @param partition examples divided by clusters
+	 * @param rankError maximum normalized rank error of medians, reached with probability 99%
+	 * @param frequencyError maximum error of counts of nominal values relative to the number of examples
+	 * @param random random generator of quantile sketches
+	 * @return {@link ClusterProfile}
+	 */
+	public static ClusterProfile createSketches(ClusterPartition partition, double rankError, double frequencyError, Random random) {
+		final ClusterProfile profile = new SketchProfile(partition, QuantileSketch.getCapacity(rankError),
+				FrequencySketch.getNumberOfCounters(frequencyError), random);
+		profile.scan();
+		return profile;
+	}
+
+	/** Adds all examples to profile by batches of columns. */
+	private void scan() {
+		final int[] members = partition.getMembers();
+		final int[] positionOfRow = new int[members.length];
+		for (int position = 0; position < members.length; position++) {
+			positionOfRow[members[position]] = position;
+		}
+		final double[][] columns = new double[attributes.length][BATCH_SIZE];
+		final int[] clusters = new int[BATCH_SIZE];
+		final int[] positions = new int[BATCH_SIZE];
+		int row = 0;
+		int size = 0;
+		for (Example example : partition.getClusterSet()) {
+			for (int attribute = 0; attribute < attributes.length; attribute++) {
+				columns[attribute][size] = example.getValue(attributes[attribute]);
+			}
+			clusters[size] = partition.getClusterId(row);
+			positions[size] = positionOfRow[row];
+			row++;
+			size++;
+			if (size == BATCH_SIZE) {
+				addColumns(columns, clusters, positions, size);
+				size = 0;
+			}
+		}
+		addColumns(columns, clusters, positions, size);
+		finish();
+	}
+
+	/**
+	 * Adds batch of examples column by column.
+	 * @param columns values of batch indexed by attribute and example
+	 * @param clusters index of cluster of every example
+	 * @param positions position in partition of every example
+	 * @param size number of examples of batch
+	 */
+	private void addColumns(double[][] columns, int[] clusters, int[] positions, int size) {
+		for (int attribute = 0; attribute < attributes.length; attribute++) {
+			addColumn(attribute, columns[attribute], clusters, positions, size);
+		}
+	}
+
+	/** Completes profile after all examples are added. */
+	protected void finish() {
+		// nothing to complete by default
+	}
+
+	/**
+	 * Adds values of one attribute of a batch of examples to profile.
+	 * @param attribute index of attribute
+	 * @param values values of examples
+	 * @param clusters index of cluster of every example
+	 * @param positions position in partition of every example
+	 * @param size number of examples
+	 */
+	protected abstract void addColumn(int attribute, double[] values, int[] clusters, int[] positions, int size);
+
+	/**
+	 * Returns typical values of attribute in the whole dataset.
+	 * @param attribute index of attribute
+	 * @return typical values, see {@link #getTypicalValues(int, int)}
+	 */
+	public abstract List<String> getTypicalValues(int attribute);
+
+	/**
+	 * Returns typical values of attribute in cluster. Typical values of a nominal attribute are all
+	 * its most frequent values occurring at least {@value #MIN_NOMINAL_COUNT} times, the missing value
+	 * included. The typical value of a numerical attribute is its median, the lower center for an even
+	 * number of values.
+	 * @param attribute index of attribute
+	 * @param cluster index of cluster
+	 * @return typical values
+	 */
+	public abstract List<String> getTypicalValues(int attribute, int cluster);
+
+	/**
+	 * Returns statistics of attribute in the whole dataset.
+	 * @param attribute index of attribute
+	 * @return statistics, see {@link #getStatistics(int, int)}
+	 */
+	public abstract ProfileStatistics getStatistics(int attribute);
+
+	/**
+	 * Returns statistics of attribute in cluster, missing values are skipped. Quartiles and the median
+	 * are values of rank ceil(p * n) - 1 of sorted values, the variance is the sample variance and the
+	 * entropy is in bits.
+	 * @param attribute index of attribute
+	 * @param cluster index of cluster
+	 * @return statistics
+	 */
+	public abstract ProfileStatistics getStatistics(int attribute, int cluster);
+
+	/**
+	 * Returns error bound of typical values of attribute in the whole dataset.
+	 * @param attribute index of attribute
+	 * @return error bound, see {@link #getErrorBound(int, int)}
+	 */
+	public double getErrorBound(int attribute) {
+		return 0.0;
+	}
+
+	/**
+	 * Returns error bound of typical values of attribute in cluster, the maximum difference of rank
+	 * of a median from the exact rank or of a count of nominal value from the exact count.
+	 * @param attribute index of attribute
+	 * @param cluster index of cluster
+	 * @return error in number of examples, 0 for exact values
+	 */
+	public double getErrorBound(int attribute, int cluster) {
+		return 0.0;
+	}
+
+	/**
+	 * Returns whether typical values are approximate.
+	 * @return true for profile of sketches
+	 */
+	public boolean isApproximate() {
+		return false;
+	}
+
+	/**
+	 * Returns the most frequent nominal values in the order of nominal mapping.
+	 * @param attribute index of attribute
+	 * @param counts counts of indices of values, the index after the nominal mapping is missing
+	 * @return typical values
+	 */
+	protected List<String> getNominalTypicalValues(int attribute, Map<Integer, Integer> counts) {
+		int maxCount = MIN_NOMINAL_COUNT;
+		for (int count : counts.values()) {
+			maxCount = Math.max(maxCount, count);
+		}
+		final List<String> typicalValues = new ArrayList<>();
+		for (Map.Entry<Integer, Integer> entry : new TreeMap<>(counts).entrySet()) {
+			if (entry.getValue() == maxCount) {
+				typicalValues.add(getNominalValue(attribute, entry.getKey()));
+			}
+		}
+		return typicalValues;
+	}
+
+	/**
+	 * Returns the most frequent nominal values in the order of nominal mapping.
+	 * @param attribute index of attribute
+	 * @param counts counts of values, the last value is missing
+	 * @return typical values
+	 */
+	protected List<String> getNominalTypicalValues(int attribute, int[] counts) {
+		int maxCount = MIN_NOMINAL_COUNT;
+		for (int count : counts) {
+			maxCount = Math.max(maxCount, count);
+		}
+		final List<String> typicalValues = new ArrayList<>();
+		for (int value = 0; value < counts.length; value++) {
+			if (counts[value] == maxCount) {
+				typicalValues.add(getNominalValue(attribute, value));
+			}
+		}
+		return typicalValues;
+	}
+
+	/**
+	 * Returns statistics of nominal values, the mode is the first of the most frequent values in the
+	 * order of nominal mapping.
+	 * @param attribute index of attribute
+	 * @param counts counts of values, the last value is missing
+	 * @return statistics
+	 */
+	protected ProfileStatistics getNominalStatistics(int attribute, int[] counts) {
+		int mode = -1;
+		long total = 0;
+		for (int value = 0; value < counts.length - 1; value++) {
+			total += counts[value];
+			if (counts[value] > 0 && (mode < 0 || counts[value] > counts[mode])) {
+				mode = value;
+			}
+		}
+		if (mode < 0) {
+			return new ProfileStatistics(Double.NaN, Double.NaN, Double.NaN, Double.NaN, null, 0.0, Double.NaN);
+		}
+		double entropy = 0.0;
+		for (int value = 0; value < counts.length - 1; value++) {
+			if (counts[value] > 0) {
+				final double probability = (double) counts[value] / total;
+				entropy -= probability * Math.log(probability) / Math.log(2.0);
+			}
+		}
+		return new ProfileStatistics(Double.NaN, Double.NaN, Double.NaN, Double.NaN, getNominalValue(attribute, mode), counts[mode], entropy);
+	}
+
+	/**
+	 * Returns statistics of nominal values.
+	 * @param attribute index of attribute
+	 * @param counts counts of indices of values, the index after the nominal mapping is missing
+	 * @return statistics, see {@link #getNominalStatistics(int, int[])}
+	 */
+	protected ProfileStatistics getNominalStatistics(int attribute, Map<Integer, Integer> counts) {
+		final int[] countArray = new int[attributes[attribute].getMapping().size() + 1];
+		for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+			countArray[entry.getKey()] = entry.getValue();
+		}
+		return getNominalStatistics(attribute, countArray);
+	}
+
+	/**
+	 * Returns nominal value of index.
+	 * @param attribute index of attribute
+	 * @param value index of value, the index after the nominal mapping is missing
+	 * @return nominal value
+	 */
+	private String getNominalValue(int attribute, int value) {
+		final Attribute nominalAttribute = attributes[attribute];
+		return value == nominalAttribute.getMapping().size() ? Attribute.MISSING_NOMINAL_VALUE : nominalAttribute.getMapping().mapIndex(value);
+	}
+
+	/**
+	 * Returns numerical typical value formatted by attribute.
+	 * @param attribute index of attribute
+	 * @param value median
+	 * @return typical values
+	 */
+	protected List<String> getNumericalTypicalValues(int attribute, double value) {
+		final List<String> typicalValues = new ArrayList<>();
+		typicalValues.add(attributes[attribute].getAsString(value, NumericalAttribute.UNLIMITED_NUMBER_OF_DIGITS, false));
+		return typicalValues;
+	}
+
+	/**
+	 * Returns index of nominal value of example.
+	 * @param attribute nominal attribute
+	 * @param value value of example
+	 * @return index of value, the size of nominal mapping for missing value
+	 */
+	private static int getNominalIndex(Attribute attribute, double value) {
+		return Double.isNaN(value) ? attribute.getMapping().size() : (int) value;
+	}
+
+	public ClusterPartition getPartition() {
+		return partition;
+	}
+
+	public Attribute[] getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Exact profile, nominal values are counted in arrays indexed by the nominal mapping and numerical
+	 * values are stored by columns with rows ordered by clusters.
+	 */
+	private static class ExactProfile extends ClusterProfile {
+
+		/** Counts of values of nominal attributes indexed by attribute, cluster and value, the last value is missing. Null for numerical attributes. */
+		private int[][][] nominalCounts;
+
+		/** Values of numerical attributes indexed by attribute and position of row. Null for nominal attributes. */
+		private double[][] numericalValues;
+
+		private ExactProfile(ClusterPartition partition) {
+			super(partition);
+			this.nominalCounts = new int[attributes.length][][];
+			this.numericalValues = new double[attributes.length][];
+			for (int i = 0; i < attributes.length; i++) {
+				if (attributes[i].isNominal()) {
+					nominalCounts[i] = new int[partition.getNumberOfClusters()][attributes[i].getMapping().size() + 1];
+				} else {
+					numericalValues[i] = new double[partition.getNumberOfExamples()];
+				}
+			}
+		}
+
+		@Override
+		protected void addColumn(int attribute, double[] values, int[] clusters, int[] positions, int size) {
+			if (nominalCounts[attribute] != null) {
+				final int[][] counts = nominalCounts[attribute];
+				final Attribute nominalAttribute = attributes[attribute];
+				for (int i = 0; i < size; i++) {
+					counts[clusters[i]][getNominalIndex(nominalAttribute, values[i])]++;
+				}
+			} else {
+				final double[] column = numericalValues[attribute];
+				for (int i = 0; i < size; i++) {
+					column[positions[i]] = values[i];
+				}
+			}
+		}
+
+		@Override
+		public List<String> getTypicalValues(int attribute) {
+			if (nominalCounts[attribute] != null) {
+				return getNominalTypicalValues(attribute, getDatasetCounts(attribute));
+			}
+			return getNumericalTypicalValues(attribute, 0, partition.getNumberOfExamples());
+		}
+
+		@Override
+		public List<String> getTypicalValues(int attribute, int cluster) {
+			if (nominalCounts[attribute] != null) {
+				return getNominalTypicalValues(attribute, nominalCounts[attribute][cluster]);
+			}
+			return getNumericalTypicalValues(attribute, partition.getClusterStart(cluster), partition.getClusterEnd(cluster));
+		}
+
+		@Override
+		public ProfileStatistics getStatistics(int attribute) {
+			if (nominalCounts[attribute] != null) {
+				return getNominalStatistics(attribute, getDatasetCounts(attribute));
+			}
+			return getNumericalStatistics(attribute, 0, partition.getNumberOfExamples());
+		}
+
+		@Override
+		public ProfileStatistics getStatistics(int attribute, int cluster) {
+			if (nominalCounts[attribute] != null) {
+				return getNominalStatistics(attribute, nominalCounts[attribute][cluster]);
+			}
+			return getNumericalStatistics(attribute, partition.getClusterStart(cluster), partition.getClusterEnd(cluster));
+		}
+
+		/**
+		 * Returns counts of nominal values in the whole dataset.
+		 * @param attribute index of attribute
+		 * @return sums of counts of clusters
+		 */
+		private int[] getDatasetCounts(int attribute) {
+			final int[] counts = new int[nominalCounts[attribute][0].length];
+			for (int[] clusterCounts : nominalCounts[attribute]) {
+				for (int value = 0; value < counts.length; value++) {
+					counts[value] += clusterCounts[value];
+				}
+			}
+			return counts;
+		}
+
+		/**
+		 * Returns statistics of numerical values of range without missing values.
+		 * @param attribute index of attribute
+		 * @param start first position of range
+		 * @param end position after the last position of range
+		 * @return statistics
+		 */
+		private ProfileStatistics getNumericalStatistics(int attribute, int start, int end) {
+			final double[] values = new double[end - start];
+			int size = 0;
+			double sum = 0.0;
+			for (int position = start; position < end; position++) {
+				final double value = numericalValues[attribute][position];
+				if (!Double.isNaN(value)) {
+					values[size++] = value;
+					sum += value;
+				}
+			}
+			final double mean = size > 0 ? sum / size : Double.NaN;
+			double squares = 0.0;
+			for (int i = 0; i < size; i++) {
+				squares += (values[i] - mean) * (values[i] - mean);
+			}
+			final double variance = size > 1 ? squares / (size - 1) : Double.NaN;
+			final double firstQuartile = OrderStatistics.quantile(values, 0, size, 0.25);
+			final double thirdQuartile = OrderStatistics.quantile(values, 0, size, 0.75);
+			final double median = OrderStatistics.median(values, 0, size);
+			return new ProfileStatistics(median, mean, variance, thirdQuartile - firstQuartile, null, Double.NaN, Double.NaN);
+		}
+
+		/**
+		 * Returns median of numerical values selected from a copy of the range, so the profile is not reordered.
+		 * @param attribute index of attribute
+		 * @param start first position of range
+		 * @param end position after the last position of range
+		 * @return median formatted by attribute
+		 */
+		private List<String> getNumericalTypicalValues(int attribute, int start, int end) {
+			final double[] values = Arrays.copyOfRange(numericalValues[attribute], start, end);
+			return getNumericalTypicalValues(attribute, OrderStatistics.median(values, 0, values.length));
+		}
+	}
+
+	/**
+	 * Approximate profile of a {@link QuantileSketch} of every numerical attribute and a {@link FrequencySketch}
+	 * of every nominal attribute in every cluster. Sketches of the whole dataset are merged from sketches of
+	 * clusters after the pass, in the order of attributes, so the random generator is used in the same order
+	 * and typical values may be read by several threads.
+	 */
+	private static class SketchProfile extends ClusterProfile {
+
+		/** Sketches of nominal attributes indexed by attribute and cluster. Null for numerical attributes. */
+		private FrequencySketch[][] frequencySketches;
+
+		/** Sketches of numerical attributes indexed by attribute and cluster. Null for nominal attributes. */
+		private QuantileSketch[][] quantileSketches;
+
+		/** Merged sketches of nominal attributes of the whole dataset. */
+		private FrequencySketch[] mergedFrequencySketches;
+
+		/** Merged sketches of numerical attributes of the whole dataset. */
+		private QuantileSketch[] mergedQuantileSketches;
+
+		/** Numbers of non-missing values of numerical attributes indexed by attribute and cluster, the last index is the whole dataset. */
+		private long[][] valueCounts;
+
+		/** Running means of numerical attributes indexed like {@link #valueCounts}. */
+		private double[][] means;
+
+		/** Running sums of squared deviations from means of numerical attributes indexed like {@link #valueCounts}. */
+		private double[][] squaredDeviations;
+
+		/** Capacity of quantile sketches. */
+		private int k;
+
+		/** Number of counters of frequency sketches. */
+		private int numberOfCounters;
+
+		/** Random generator of quantile sketches. */
+		private Random random;
+
+		private SketchProfile(ClusterPartition partition, int k, int numberOfCounters, Random random) {
+			super(partition);
+			this.k = k;
+			this.numberOfCounters = numberOfCounters;
+			this.random = random;
+			final int numberOfClusters = partition.getNumberOfClusters();
+			this.frequencySketches = new FrequencySketch[attributes.length][];
+			this.quantileSketches = new QuantileSketch[attributes.length][];
+			this.mergedFrequencySketches = new FrequencySketch[attributes.length];
+			this.mergedQuantileSketches = new QuantileSketch[attributes.length];
+			this.valueCounts = new long[attributes.length][];
+			this.means = new double[attributes.length][];
+			this.squaredDeviations = new double[attributes.length][];
+			for (int i = 0; i < attributes.length; i++) {
+				if (attributes[i].isNominal()) {
+					frequencySketches[i] = new FrequencySketch[numberOfClusters];
+					for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+						frequencySketches[i][cluster] = new FrequencySketch(numberOfCounters);
+					}
+				} else {
+					quantileSketches[i] = new QuantileSketch[numberOfClusters];
+					valueCounts[i] = new long[numberOfClusters + 1];
+					means[i] = new double[numberOfClusters + 1];
+					squaredDeviations[i] = new double[numberOfClusters + 1];
+					for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+						quantileSketches[i][cluster] = new QuantileSketch(k, random);
+					}
+				}
+			}
+		}
+
+		@Override
+		protected void addColumn(int attribute, double[] values, int[] clusters, int[] positions, int size) {
+			if (frequencySketches[attribute] != null) {
+				final FrequencySketch[] sketches = frequencySketches[attribute];
+				final Attribute nominalAttribute = attributes[attribute];
+				for (int i = 0; i < size; i++) {
+					sketches[clusters[i]].add(getNominalIndex(nominalAttribute, values[i]));
+				}
+				return;
+			}
+			final QuantileSketch[] sketches = quantileSketches[attribute];
+			final long[] counts = valueCounts[attribute];
+			final double[] attributeMeans = means[attribute];
+			final double[] deviations = squaredDeviations[attribute];
+			for (int i = 0; i < size; i++) {
+				final double value = values[i];
+				final int cluster = clusters[i];
+				sketches[cluster].add(value);
+				if (!Double.isNaN(value)) {
+					counts[cluster]++;
+					final double delta = value - attributeMeans[cluster];
+					attributeMeans[cluster] += delta / counts[cluster];
+					deviations[cluster] += delta * (value - attributeMeans[cluster]);
+				}
+			}
+		}
+
+		/** Merges sketches of clusters into sketches of the whole dataset. */
+		@Override
+		protected void finish() {
+			for (int i = 0; i < attributes.length; i++) {
+				if (frequencySketches[i] != null) {
+					final FrequencySketch merged = new FrequencySketch(numberOfCounters);
+					for (FrequencySketch sketch : frequencySketches[i]) {
+						merged.merge(sketch);
+					}
+					mergedFrequencySketches[i] = merged;
+				} else {
+					final QuantileSketch merged = new QuantileSketch(k, random);
+					for (QuantileSketch sketch : quantileSketches[i]) {
+						merged.merge(sketch);
+					}
+					mergedQuantileSketches[i] = merged;
+					final int dataset = quantileSketches[i].length;
+					for (int cluster = 0; cluster < dataset; cluster++) {
+						final long count = valueCounts[i][dataset] + valueCounts[i][cluster];
+						if (valueCounts[i][cluster] > 0) {
+							final double delta = means[i][cluster] - means[i][dataset];
+							means[i][dataset] += delta * valueCounts[i][cluster] / count;
+							squaredDeviations[i][dataset] += squaredDeviations[i][cluster]
+									+ delta * delta * valueCounts[i][dataset] * valueCounts[i][cluster] / count;
+							valueCounts[i][dataset] = count;
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		public List<String> getTypicalValues(int attribute) {
+			if (frequencySketches[attribute] != null) {
+				return getNominalTypicalValues(attribute, mergedFrequencySketches[attribute].getCounts());
+			}
+			return getNumericalTypicalValues(attribute, mergedQuantileSketches[attribute].getMedian());
+		}
+
+		@Override
+		public List<String> getTypicalValues(int attribute, int cluster) {
+			if (frequencySketches[attribute] != null) {
+				return getNominalTypicalValues(attribute, frequencySketches[attribute][cluster].getCounts());
+			}
+			return getNumericalTypicalValues(attribute, quantileSketches[attribute][cluster].getMedian());
+		}
+
+		@Override
+		public ProfileStatistics getStatistics(int attribute) {
+			if (frequencySketches[attribute] != null) {
+				return getNominalStatistics(attribute, mergedFrequencySketches[attribute].getCounts());
+			}
+			return getNumericalStatistics(mergedQuantileSketches[attribute], attribute, quantileSketches[attribute].length);
+		}
+
+		@Override
+		public ProfileStatistics getStatistics(int attribute, int cluster) {
+			if (frequencySketches[attribute] != null) {
+				return getNominalStatistics(attribute, frequencySketches[attribute][cluster].getCounts());
+			}
+			return getNumericalStatistics(quantileSketches[attribute][cluster], attribute, cluster);
+		}
+
+		/**
+		 * Returns statistics of numerical values, quantiles are approximate and moments are exact.
+		 * @param sketch sketch of values
+		 * @param attribute index of attribute
+		 * @param index index of cluster or the number of clusters for the whole dataset
+		 * @return statistics
+		 */
+		private ProfileStatistics getNumericalStatistics(QuantileSketch sketch, int attribute, int index) {
+			final long count = valueCounts[attribute][index];
+			final double mean = count > 0 ? means[attribute][index] : Double.NaN;
+			final double variance = count > 1 ? squaredDeviations[attribute][index] / (count - 1) : Double.NaN;
+			return new ProfileStatistics(sketch.getQuantile(0.5), mean, variance, sketch.getQuantile(0.75) - sketch.getQuantile(0.25), null,
+					Double.NaN, Double.NaN);
+		}
+
+		@Override
+		public double getErrorBound(int attribute) {
+			if (frequencySketches[attribute] != null) {
+				return mergedFrequencySketches[attribute].getCountErrorBound();
+			}
+			return mergedQuantileSketches[attribute].getRankErrorBound();
+		}
+
+		@Override
+		public double getErrorBound(int attribute, int cluster) {
+			if (frequencySketches[attribute] != null) {
+				return frequencySketches[attribute][cluster].getCountErrorBound();
+			}
+			return quantileSketches[attribute][cluster].getRankErrorBound();
+		}
+
+		@Override
+		public boolean isApproximate() {
+			return true;
+		}
+	}
+}
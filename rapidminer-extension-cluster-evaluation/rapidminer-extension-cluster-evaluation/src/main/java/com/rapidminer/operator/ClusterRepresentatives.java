@@ -0,0 +1,236 @@
+package com.rapidminer.operator;
+
+import java.util.Arrays;
+
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+
+/**
+ * One representative of every cluster, either the centroid or the medoid of its members.
+ * Representatives keep their own working buffers, so every thread has to use its own
+ * instance obtained by {@link #copy()}.
+ * @author Jan Jake
+ *
+ */
+public abstract class ClusterRepresentatives {
+
+	/** Maximum number of members of one cluster tried as its medoid. */
+	private static final int MAX_MEDOID_CANDIDATES = 1000;
+
+	/** Minimum number of candidates processed by one thread at once. */
+	private static final int MIN_BLOCK_SIZE = 4;
+
+	/**
+	 * Returns distance of example to representative of cluster.
+	 * @param position position of example
+	 * @param cluster index of cluster
+	 * @return distance
+	 */
+	public abstract double distance(int position, int cluster);
+
+	/**
+	 * Returns distance of representatives of two clusters.
+	 * @param cluster index of cluster
+	 * @param other index of other cluster
+	 * @return distance
+	 */
+	public abstract double distanceBetween(int cluster, int other);
+
+	/**
+	 * Returns new instance with the same representatives and own working buffers.
+	 * @return {@link ClusterRepresentatives}
+	 */
+	public abstract ClusterRepresentatives copy();
+
+	/**
+	 * Returns name of the kind of representatives.
+	 * @return centroids or medoids
+	 */
+	public abstract String getName();
+
+	/**
+	 * Creates representatives suitable for measure, centroids if the centroid is a meaningful
+	 * representative for its {@link DistanceFamily}, medoids otherwise.
+	 * @param matrix values of examples
+	 * @param measure initialized measure
+	 * @param numberOfThreads number of threads finding medoids
+	 * @return {@link ClusterRepresentatives}
+	 */
+	public static ClusterRepresentatives create(FeatureMatrix matrix, DistanceMeasure measure, int numberOfThreads) {
+		if (DistanceFamily.of(measure).hasCentroid()) {
+			return createCentroids(matrix, measure);
+		}
+		return createMedoids(matrix.getPartition(), DistanceKernel.create(matrix, measure), numberOfThreads);
+	}
+
+	/**
+	 * Creates centroids of clusters, missing values are skipped.
+	 * @param matrix values of examples
+	 * @param measure initialized measure
+	 * @return {@link ClusterRepresentatives}
+	 */
+	public static ClusterRepresentatives createCentroids(FeatureMatrix matrix, DistanceMeasure measure) {
+		final ClusterPartition partition = matrix.getPartition();
+		final int dimensions = matrix.getNumberOfColumns();
+		final double[][] centroids = new double[partition.getNumberOfClusters()][dimensions];
+		final int[] counts = new int[dimensions];
+		for (int cluster = 0; cluster < partition.getNumberOfClusters(); cluster++) {
+			Arrays.fill(counts, 0);
+			for (int position = partition.getClusterStart(cluster); position < partition.getClusterEnd(cluster); position++) {
+				for (int column = 0; column < dimensions; column++) {
+					final double value = matrix.getValue(position, column);
+					if (!Double.isNaN(value)) {
+						centroids[cluster][column] += value;
+						counts[column]++;
+					}
+				}
+			}
+			for (int column = 0; column < dimensions; column++) {
+				centroids[cluster][column] = counts[column] > 0 ? centroids[cluster][column] / counts[column] : Double.NaN;
+			}
+		}
+		return new Centroids(matrix, measure, centroids);
+	}
+
+	/**
+	 * Creates medoids of clusters, the members with minimum sum of distances to other members.
+	 * Clusters larger than {@value #MAX_MEDOID_CANDIDATES} members choose the medoid among
+	 * evenly spaced candidates, so the cost is at most linear in the size of cluster.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples addressed by positions of partition
+	 * @param numberOfThreads number of threads
+	 * @return {@link ClusterRepresentatives}
+	 */
+	public static ClusterRepresentatives createMedoids(final ClusterPartition partition, final DistanceKernel kernel, int numberOfThreads) {
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final int[] candidateOffsets = new int[numberOfClusters + 1];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			candidateOffsets[cluster + 1] = candidateOffsets[cluster] + Math.min(MAX_MEDOID_CANDIDATES, partition.getClusterSize(cluster));
+		}
+		final int[] candidates = new int[candidateOffsets[numberOfClusters]];
+		final int[] candidateClusters = new int[candidates.length];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			final int numberOfCandidates = candidateOffsets[cluster + 1] - candidateOffsets[cluster];
+			for (int i = 0; i < numberOfCandidates; i++) {
+				candidates[candidateOffsets[cluster] + i] = partition.getClusterStart(cluster)
+						+ (int) ((long) i * partition.getClusterSize(cluster) / numberOfCandidates);
+				candidateClusters[candidateOffsets[cluster] + i] = cluster;
+			}
+		}
+
+		final double[] distanceSums = new double[candidates.length];
+		new BlockTask(MIN_BLOCK_SIZE) {
+
+			@Override
+			protected void process(int from, int to) {
+				final DistanceKernel blockKernel = kernel.copy();
+				for (int i = from; i < to; i++) {
+					final int cluster = candidateClusters[i];
+					double sum = 0.0;
+					for (int position = partition.getClusterStart(cluster); position < partition.getClusterEnd(cluster); position++) {
+						if (position != candidates[i]) {
+							sum += blockKernel.distance(position, candidates[i]);
+						}
+					}
+					distanceSums[i] = sum;
+				}
+			}
+		}.execute(candidates.length, numberOfThreads);
+
+		final int[] medoids = new int[numberOfClusters];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			int best = candidateOffsets[cluster];
+			for (int i = candidateOffsets[cluster] + 1; i < candidateOffsets[cluster + 1]; i++) {
+				if (distanceSums[i] < distanceSums[best]) {
+					best = i;
+				}
+			}
+			medoids[cluster] = candidates[best];
+		}
+		return new Medoids(kernel, medoids);
+	}
+
+	/** Centroids compared to examples by {@link DistanceMeasure#calculateDistance(double[], double[])}. */
+	private static class Centroids extends ClusterRepresentatives {
+
+		/** Values of examples. */
+		private FeatureMatrix matrix;
+
+		/** Selected measure. */
+		private DistanceMeasure measure;
+
+		/** Centroid of every cluster. */
+		private double[][] centroids;
+
+		/** Values of example. */
+		private double[] values;
+
+		/** Position of example held in buffer. */
+		private int valuesPosition = -1;
+
+		private Centroids(FeatureMatrix matrix, DistanceMeasure measure, double[][] centroids) {
+			this.matrix = matrix;
+			this.measure = measure;
+			this.centroids = centroids;
+			this.values = new double[matrix.getNumberOfColumns()];
+		}
+
+		@Override
+		public double distance(int position, int cluster) {
+			if (position != valuesPosition) {
+				matrix.copyRow(position, values);
+				valuesPosition = position;
+			}
+			return measure.calculateDistance(values, centroids[cluster]);
+		}
+
+		@Override
+		public double distanceBetween(int cluster, int other) {
+			return measure.calculateDistance(centroids[cluster], centroids[other]);
+		}
+
+		@Override
+		public ClusterRepresentatives copy() {
+			return new Centroids(matrix, measure, centroids);
+		}
+
+		@Override
+		public String getName() {
+			return "centroids";
+		}
+	}
+
+	/** Medoids compared to examples by a {@link DistanceKernel}. */
+	private static class Medoids extends ClusterRepresentatives {
+
+		/** Distances of examples. */
+		private DistanceKernel kernel;
+
+		/** Position of medoid of every cluster. */
+		private int[] medoids;
+
+		private Medoids(DistanceKernel kernel, int[] medoids) {
+			this.kernel = kernel;
+			this.medoids = medoids;
+		}
+
+		@Override
+		public double distance(int position, int cluster) {
+			return kernel.distance(position, medoids[cluster]);
+		}
+
+		@Override
+		public double distanceBetween(int cluster, int other) {
+			return kernel.distance(medoids[cluster], medoids[other]);
+		}
+
+		@Override
+		public ClusterRepresentatives copy() {
+			return new Medoids(kernel.copy(), medoids);
+		}
+
+		@Override
+		public String getName() {
+			return "medoids";
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.MappedExampleSet;
+import com.rapidminer.operator.gui.ClusterStabilityIOObject;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.operator.ports.metadata.ExampleSetPrecondition;
+import com.rapidminer.operator.ports.metadata.SubprocessTransformRule;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeCategory;
+import com.rapidminer.parameter.ParameterTypeDouble;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.conditions.EqualTypeCondition;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.RandomGenerator;
+
+/**
+ * Class represent Cluster Stability operator. The nested clustering process clusters the whole
+ * dataset to get the reference clustering and then bootstrap samples or subsamples of the dataset.
+ * Every replicate is compared with the reference clustering on the examples present in both,
+ * examples are matched by ids. Resampling and clustering of replicates is serial, the nested process
+ * clusters one replicate after another as it cannot run concurrently. Only the comparisons of the
+ * replicates with the reference clustering run in parallel, by {@link #PARAMETER_NUMBER_OF_COMPARISON_THREADS}.
+ * @author Jan Jake
+ *
+ */
+public class ClusterStability extends OperatorChain {
+
+	/** The parameter name for &quot;Number of resampled clusterings.&quot; */
+	public static final String PARAMETER_NUMBER_OF_REPLICATES = "number_of_replicates";
+
+	/** The parameter name for &quot;Method of resampling of dataset.&quot; */
+	public static final String PARAMETER_SAMPLING = "sampling";
+
+	/** The parameter name for &quot;Fraction of examples of every subsample.&quot; */
+	public static final String PARAMETER_SAMPLE_RATIO = "sample_ratio";
+
+	/** The parameter name for &quot;External index of overall stability.&quot; */
+	public static final String PARAMETER_INDEX = "index";
+
+	/** The parameter name for &quot;Confidence level of intervals of stability.&quot; */
+	public static final String PARAMETER_CONFIDENCE_LEVEL = "confidence_level";
+
+	/** The parameter name for &quot;Number of threads comparing replicates with the reference clustering.&quot; */
+	public static final String PARAMETER_NUMBER_OF_COMPARISON_THREADS = "number_of_comparison_threads";
+
+	/** Methods of resampling. */
+	public static final String[] SAMPLINGS = { "bootstrap", "subsample" };
+
+	/** Index of sampling with replacement. */
+	public static final int SAMPLING_BOOTSTRAP = 0;
+
+	/** Index of sampling without replacement. */
+	public static final int SAMPLING_SUBSAMPLE = 1;
+
+	/** Input port. */
+	private InputPort exampleSetInput = getInputPorts().createPort("example set");
+
+	/** Output port. */
+	private OutputPort stabilityOutput = getOutputPorts().createPort("stability");
+
+	/** Output port of reference clustering. */
+	private OutputPort clusterSetOutput = getOutputPorts().createPort("cluster set");
+
+	/** Inner port delivering dataset to clustering process. */
+	private OutputPort exampleSetInnerSource = getSubprocess(0).getInnerSources().createPort("example set");
+
+	/** Inner port receiving clustered dataset. */
+	private InputPort clusterSetInnerSink = getSubprocess(0).getInnerSinks().createPort("cluster set");
+
+	/**
+	 * Constructs a new instance.
+	 * @param description {@link OperatorDescription}
+	 */
+	public ClusterStability(OperatorDescription description) {
+		super(description, "Clustering");
+
+		exampleSetInput.addPrecondition(new ExampleSetPrecondition(exampleSetInput, Ontology.ATTRIBUTE_VALUE, Attributes.ID_NAME));
+		clusterSetInnerSink.addPrecondition(new ExampleSetPrecondition(clusterSetInnerSink, new String[] { "cluster" },
+				Ontology.ATTRIBUTE_VALUE, Attributes.ID_NAME));
+
+		getTransformer().addPassThroughRule(exampleSetInput, exampleSetInnerSource);
+		getTransformer().addRule(new SubprocessTransformRule(getSubprocess(0)));
+		getTransformer().addPassThroughRule(clusterSetInnerSink, clusterSetOutput);
+		getTransformer().addGenerationRule(stabilityOutput, ClusterStabilityIOObject.class);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		final ExampleSet exampleSet = exampleSetInput.getData(ExampleSet.class);
+		if (exampleSet.getAttributes().getId() == null) {
+			throw new UserError(this, "cluster_evaluation.stability_id");
+		}
+		final int numberOfReplicates = getParameterAsInt(PARAMETER_NUMBER_OF_REPLICATES);
+		final int sampling = getParameterAsInt(PARAMETER_SAMPLING);
+		final int sampleSize = sampling == SAMPLING_BOOTSTRAP ? exampleSet.size()
+				: Math.max(1, (int) Math.round(getParameterAsDouble(PARAMETER_SAMPLE_RATIO) * exampleSet.size()));
+		final RandomGenerator random = RandomGenerator.getRandomGenerator(this);
+
+		final ExampleSet clusterSet = cluster(exampleSet);
+		final ClusterPartition reference = new ClusterPartition(clusterSet);
+		final Map<Double, Integer> rowsOfIds = getRowsOfIds(clusterSet);
+
+		// the nested process cannot run concurrently, only the labels of replicates are kept
+		final List<int[]> replicateRows = new ArrayList<>(numberOfReplicates);
+		final List<int[]> replicateClusters = new ArrayList<>(numberOfReplicates);
+		final List<String[]> replicateNames = new ArrayList<>(numberOfReplicates);
+		for (int replicate = 0; replicate < numberOfReplicates; replicate++) {
+			checkForStop();
+			final int[] mapping = sampling == SAMPLING_BOOTSTRAP
+					? MappedExampleSet.createBootstrappingMapping(exampleSet, sampleSize, random)
+					: createSubsampleMapping(exampleSet.size(), sampleSize, random);
+			readReplicate(cluster(new MappedExampleSet(exampleSet, mapping, true)), rowsOfIds, replicateRows,
+					replicateClusters, replicateNames);
+		}
+
+		final ClusterStabilityData stabilityData = new ClusterStabilityData();
+		stabilityData.calculateStability(reference, replicateRows, replicateClusters, replicateNames,
+				getParameterAsInt(PARAMETER_INDEX), getParameterAsDouble(PARAMETER_CONFIDENCE_LEVEL),
+				getParameterAsInt(PARAMETER_NUMBER_OF_COMPARISON_THREADS));
+
+		stabilityOutput.deliver(new ClusterStabilityIOObject(stabilityData));
+		clusterSetOutput.deliver(clusterSet);
+	}
+
+	/**
+	 * Runs clustering process.
+	 * @param exampleSet dataset
+	 * @return clustered dataset
+	 * @throws OperatorException if the process fails or does not deliver ids and clusters
+	 */
+	private ExampleSet cluster(ExampleSet exampleSet) throws OperatorException {
+		exampleSetInnerSource.deliver(exampleSet);
+		getSubprocess(0).execute();
+		final ExampleSet clusterSet = clusterSetInnerSink.getData(ExampleSet.class);
+		if (clusterSet.getAttributes().getId() == null || clusterSet.getAttributes().get("cluster") == null) {
+			throw new UserError(this, "cluster_evaluation.stability_output");
+		}
+		return clusterSet;
+	}
+
+	/**
+	 * Returns row of every id of reference clustering.
+	 * @param clusterSet clustered dataset
+	 * @return map of ids and rows
+	 */
+	private static Map<Double, Integer> getRowsOfIds(ExampleSet clusterSet) {
+		final Attribute id = clusterSet.getAttributes().getId();
+		final Map<Double, Integer> rowsOfIds = new HashMap<>();
+		int row = 0;
+		for (Example example : clusterSet) {
+			rowsOfIds.put(example.getValue(id), row);
+			row++;
+		}
+		return rowsOfIds;
+	}
+
+	/**
+	 * Reads clusters of distinct examples of a replicate which are present in the reference clustering.
+	 * @param clusterSet clustered sample
+	 * @param rowsOfIds rows of ids in reference clustering
+	 * @param replicateRows rows of reference clustering of every replicate
+	 * @param replicateClusters clusters of examples of every replicate
+	 * @param replicateNames names of clusters of every replicate
+	 */
+	private static void readReplicate(ExampleSet clusterSet, Map<Double, Integer> rowsOfIds, List<int[]> replicateRows,
+			List<int[]> replicateClusters, List<String[]> replicateNames) {
+		final ClusterPartition partition = new ClusterPartition(clusterSet);
+		final Attribute id = clusterSet.getAttributes().getId();
+		final boolean[] read = new boolean[rowsOfIds.size()];
+		final int[] rows = new int[clusterSet.size()];
+		final int[] clusters = new int[clusterSet.size()];
+		int numberOfExamples = 0;
+		int row = 0;
+		for (Example example : clusterSet) {
+			final Integer referenceRow = rowsOfIds.get(example.getValue(id));
+			// bootstrap samples contain examples several times, every example is compared once
+			if (referenceRow != null && !read[referenceRow]) {
+				read[referenceRow] = true;
+				rows[numberOfExamples] = referenceRow;
+				clusters[numberOfExamples] = partition.getClusterId(row);
+				numberOfExamples++;
+			}
+			row++;
+		}
+		replicateRows.add(Arrays.copyOf(rows, numberOfExamples));
+		replicateClusters.add(Arrays.copyOf(clusters, numberOfExamples));
+		replicateNames.add(ContingencyTable.getClusterNames(partition));
+	}
+
+	/**
+	 * Creates sorted rows of a sample without replacement by partial Fisher-Yates shuffle.
+	 * @param numberOfExamples number of examples of dataset
+	 * @param sampleSize number of examples of sample
+	 * @param random random generator
+	 * @return sorted rows
+	 */
+	private static int[] createSubsampleMapping(int numberOfExamples, int sampleSize, RandomGenerator random) {
+		final int[] rows = new int[numberOfExamples];
+		for (int row = 0; row < numberOfExamples; row++) {
+			rows[row] = row;
+		}
+		for (int position = 0; position < sampleSize; position++) {
+			final int other = position + random.nextInt(numberOfExamples - position);
+			final int row = rows[other];
+			rows[other] = rows[position];
+			rows[position] = row;
+		}
+		final int[] mapping = Arrays.copyOf(rows, sampleSize);
+		Arrays.sort(mapping);
+		return mapping;
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		final List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_REPLICATES, "Number of resampled clusterings.", 2, Integer.MAX_VALUE, 50));
+		types.add(new ParameterTypeCategory(PARAMETER_SAMPLING, "Method of resampling of dataset.", SAMPLINGS, SAMPLING_BOOTSTRAP));
+		ParameterType type = new ParameterTypeDouble(PARAMETER_SAMPLE_RATIO, "Fraction of examples of every subsample.", 0.01, 1.0, 0.8);
+		type.registerDependencyCondition(new EqualTypeCondition(this, PARAMETER_SAMPLING, SAMPLINGS, false, SAMPLING_SUBSAMPLE));
+		types.add(type);
+		types.add(new ParameterTypeCategory(PARAMETER_INDEX, "External index of overall stability.", ClusteringComparisonData.INDICES, 0));
+		types.add(new ParameterTypeDouble(PARAMETER_CONFIDENCE_LEVEL, "Confidence level of intervals of stability.", 0.5, 0.9999, 0.95));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_COMPARISON_THREADS, "Number of threads comparing replicates with the reference clustering. Replicates are resampled and clustered serially, the nested clustering process runs one replicate at a time.", 1, Integer.MAX_VALUE, 1));
+		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
+		return types;
+	}
+
+}
@@ -0,0 +1,177 @@
+package com.rapidminer.operator;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for calculating stability of a clustering from clusterings of resampled data.
+ * Every replicate is compared with the reference clustering on the examples present in both,
+ * overall stability is the average external index and stability of a cluster is the average
+ * Jaccard coefficient of the cluster and its most similar cluster of the replicate.
+ * @author Jan Jake
+ *
+ */
+public class ClusterStabilityData {
+
+	/** Name of external index of overall stability. */
+	private String indexName;
+
+	/** Number of compared replicates. */
+	private int numberOfReplicates;
+
+	/** Confidence level of intervals. */
+	private double confidenceLevel;
+
+	/** Average index of all replicates. */
+	private double averageIndex;
+
+	/** Half-width of confidence interval of average index. */
+	private double averageHalfWidth;
+
+	/** Average Jaccard coefficient of clusters. */
+	private Map<String, Double> mapOfStability = new LinkedHashMap<>();
+
+	/** Half-widths of confidence intervals of clusters. */
+	private Map<String, Double> mapOfHalfWidth = new LinkedHashMap<>();
+
+	/** Number of replicates containing examples of clusters. */
+	private Map<String, Integer> mapOfReplicates = new LinkedHashMap<>();
+
+	/** Constructs a new instance. */
+	public ClusterStabilityData() { }
+
+	/**
+	 * Calculates stability, replicates are compared in parallel.
+	 * @param reference reference clustering
+	 * @param replicateRows rows of reference clustering of distinct examples of every replicate
+	 * @param replicateClusters clusters of these examples in every replicate
+	 * @param replicateNames names of clusters of every replicate
+	 * @param index index of external index in {@link ClusteringComparisonData#INDICES}
+	 * @param confidenceLevel confidence level of intervals
+	 * @param numberOfThreads number of threads
+	 */
+	public void calculateStability(final ClusterPartition reference, final List<int[]> replicateRows,
+			final List<int[]> replicateClusters, final List<String[]> replicateNames, final int index,
+			double confidenceLevel, int numberOfThreads) {
+		final int numberOfClusters = reference.getNumberOfClusters();
+		final String[] referenceNames = ContingencyTable.getClusterNames(reference);
+		this.numberOfReplicates = replicateRows.size();
+		this.indexName = ClusteringComparisonData.INDICES[index];
+		this.confidenceLevel = confidenceLevel;
+
+		// values of every replicate, clusters without examples in the replicate are NaN
+		final double[] indices = new double[numberOfReplicates];
+		final double[][] jaccards = new double[numberOfReplicates][];
+		new BlockTask(1) {
+
+			@Override
+			protected void process(int from, int to) {
+				for (int replicate = from; replicate < to; replicate++) {
+					final int[] rows = replicateRows.get(replicate);
+					final int[] clusters = replicateClusters.get(replicate);
+					final ContingencyTable table = new ContingencyTable(referenceNames, replicateNames.get(replicate));
+					for (int example = 0; example < rows.length; example++) {
+						table.add(reference.getClusterId(rows[example]), clusters[example]);
+					}
+					final RandIndexData data = new RandIndexData();
+					data.calculateRandIndex(table);
+					indices[replicate] = ClusteringComparisonData.getIndex(data, index);
+					jaccards[replicate] = getJaccards(table);
+				}
+			}
+		}.execute(numberOfReplicates, numberOfThreads);
+
+		// replicates are accumulated in order, so the result does not depend on the number of threads
+		final double quantile = RunningStatistics.getNormalQuantile(0.5 + confidenceLevel / 2);
+		final RunningStatistics indexStatistics = new RunningStatistics();
+		for (double value : indices) {
+			indexStatistics.add(value);
+		}
+		this.averageIndex = indexStatistics.getMean();
+		this.averageHalfWidth = getHalfWidth(indexStatistics, quantile);
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			final RunningStatistics clusterStatistics = new RunningStatistics();
+			for (double[] jaccard : jaccards) {
+				if (!Double.isNaN(jaccard[cluster])) {
+					clusterStatistics.add(jaccard[cluster]);
+				}
+			}
+			final String name = referenceNames[cluster];
+			mapOfStability.put(name, clusterStatistics.getCount() > 0 ? clusterStatistics.getMean() : Double.NaN);
+			mapOfHalfWidth.put(name, getHalfWidth(clusterStatistics, quantile));
+			mapOfReplicates.put(name, (int) clusterStatistics.getCount());
+		}
+	}
+
+	/**
+	 * Returns the highest Jaccard coefficient of every row cluster and any column cluster.
+	 * @param table table of reference (rows) and replicate (columns)
+	 * @return coefficient of every row, NaN for rows without examples
+	 */
+	private static double[] getJaccards(ContingencyTable table) {
+		final double[] jaccards = new double[table.getNumberOfRows()];
+		Arrays.fill(jaccards, Double.NaN);
+		for (int row = 0; row < jaccards.length; row++) {
+			final long rowSum = table.getRowSum(row);
+			if (rowSum == 0) {
+				continue;
+			}
+			double best = 0.0;
+			for (int column = 0; column < table.getNumberOfColumns(); column++) {
+				final long count = table.getCount(row, column);
+				if (count > 0) {
+					best = Math.max(best, (double) count / (rowSum + table.getColumnSum(column) - count));
+				}
+			}
+			jaccards[row] = best;
+		}
+		return jaccards;
+	}
+
+	/**
+	 * Returns half-width of normal confidence interval of mean.
+	 * @param statistics statistics of values
+	 * @param quantile quantile of standard normal distribution
+	 * @return half-width, 0 for less than two values
+	 */
+	private static double getHalfWidth(RunningStatistics statistics, double quantile) {
+		if (statistics.getCount() < 2) {
+			return 0.0;
+		}
+		return quantile * Math.sqrt(statistics.getVariance() / statistics.getCount());
+	}
+
+	public String getIndexName() {
+		return indexName;
+	}
+
+	public int getNumberOfReplicates() {
+		return numberOfReplicates;
+	}
+
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+
+	public double getAverageIndex() {
+		return averageIndex;
+	}
+
+	public double getAverageHalfWidth() {
+		return averageHalfWidth;
+	}
+
+	public Map<String, Double> getClusterStability() {
+		return mapOfStability;
+	}
+
+	public Map<String, Double> getClusterHalfWidth() {
+		return mapOfHalfWidth;
+	}
+
+	public Map<String, Integer> getClusterReplicates() {
+		return mapOfReplicates;
+	}
+}
@@ -0,0 +1,241 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+
+/**
+ * Means and sums of squared deviations of numerical attributes in every cluster, accumulated in one
+ * pass over the clustered dataset by Welford's method. Blocks of examples of fixed size are accumulated
+ * by different threads and merged in the order of blocks, so the result does not depend on the number
+ * of threads. Missing values are skipped for their attribute only.
+ * All derived quantities use the Euclidean distance.
+ * @author Jan Jake
+ *
+ */
+public class ClusterStatistics {
+
+	/** Number of examples of one block, it does not depend on the number of threads. */
+	private static final int BLOCK_SIZE = 4096;
+
+	/** Maximum number of blocks accumulated before they are merged, it bounds the memory of blocks. */
+	private static final int MAX_BLOCKS_PER_BATCH = 64;
+
+	/** Numerical attributes. */
+	private Attribute[] attributes;
+
+	/** Number of values of every attribute in every cluster, stored cluster by cluster. */
+	private long[] counts;
+
+	/** Mean of every attribute in every cluster. */
+	private double[] means;
+
+	/** Sum of squared deviations from the mean of every attribute in every cluster. */
+	private double[] squaredDeviations;
+
+	/** Number of examples of every cluster. */
+	private long[] sizes;
+
+	/**
+	 * Constructs empty statistics.
+	 * @param attributes numerical attributes
+	 * @param numberOfClusters number of clusters
+	 */
+	private ClusterStatistics(Attribute[] attributes, int numberOfClusters) {
+		this.attributes = attributes;
+		this.counts = new long[numberOfClusters * attributes.length];
+		this.means = new double[numberOfClusters * attributes.length];
+		this.squaredDeviations = new double[numberOfClusters * attributes.length];
+		this.sizes = new long[numberOfClusters];
+	}
+
+	/**
+	 * Accumulates statistics of all clusters. Batches of blocks of {@link #BLOCK_SIZE} examples are
+	 * processed in parallel and merged in the order of blocks.
+	 * @param partition examples divided by clusters
+	 * @param numberOfThreads number of threads
+	 * @return {@link ClusterStatistics}
+	 */
+	public static ClusterStatistics create(final ClusterPartition partition, int numberOfThreads) {
+		final ExampleSet clusterSet = partition.getClusterSet();
+		final Attribute[] attributes = getNumericalAttributes(clusterSet);
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final int numberOfExamples = partition.getNumberOfExamples();
+		final int numberOfBlocks = (int) (((long) numberOfExamples + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		final ClusterStatistics statistics = new ClusterStatistics(attributes, numberOfClusters);
+		for (int batchStart = 0; batchStart < numberOfBlocks; batchStart += MAX_BLOCKS_PER_BATCH) {
+			final int firstBlock = batchStart;
+			final ClusterStatistics[] blocks = new ClusterStatistics[Math.min(MAX_BLOCKS_PER_BATCH, numberOfBlocks - batchStart)];
+			new BlockTask(1) {
+
+				@Override
+				protected void process(int from, int to) {
+					for (int index = from; index < to; index++) {
+						final ClusterStatistics block = new ClusterStatistics(attributes, numberOfClusters);
+						final int start = (firstBlock + index) * BLOCK_SIZE;
+						final int end = (int) Math.min(numberOfExamples, (long) start + BLOCK_SIZE);
+						for (int row = start; row < end; row++) {
+							block.add(partition.getClusterId(row), clusterSet.getExample(row));
+						}
+						blocks[index] = block;
+					}
+				}
+			}.execute(blocks.length, numberOfThreads);
+			for (ClusterStatistics block : blocks) {
+				statistics.merge(block);
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns numerical regular attributes of dataset.
+	 * @param exampleSet dataset
+	 * @return numerical attributes
+	 */
+	private static Attribute[] getNumericalAttributes(ExampleSet exampleSet) {
+		final List<Attribute> numericalAttributes = new ArrayList<>();
+		for (Attribute attribute : exampleSet.getAttributes()) {
+			if (attribute.isNumerical()) {
+				numericalAttributes.add(attribute);
+			}
+		}
+		return numericalAttributes.toArray(new Attribute[numericalAttributes.size()]);
+	}
+
+	/**
+	 * Adds example.
+	 * @param cluster index of cluster of example
+	 * @param example example
+	 */
+	private void add(int cluster, Example example) {
+		sizes[cluster]++;
+		final int offset = cluster * attributes.length;
+		for (int column = 0; column < attributes.length; column++) {
+			final double value = example.getValue(attributes[column]);
+			if (Double.isNaN(value)) {
+				continue;
+			}
+			final int cell = offset + column;
+			counts[cell]++;
+			final double delta = value - means[cell];
+			means[cell] += delta / counts[cell];
+			squaredDeviations[cell] += delta * (value - means[cell]);
+		}
+	}
+
+	/**
+	 * Adds all examples of other statistics by the parallel variant of Welford's method.
+	 * @param other statistics of disjoint examples
+	 */
+	private void merge(ClusterStatistics other) {
+		for (int cluster = 0; cluster < sizes.length; cluster++) {
+			sizes[cluster] += other.sizes[cluster];
+		}
+		for (int cell = 0; cell < counts.length; cell++) {
+			if (other.counts[cell] == 0) {
+				continue;
+			}
+			final long total = counts[cell] + other.counts[cell];
+			final double delta = other.means[cell] - means[cell];
+			means[cell] += delta * other.counts[cell] / total;
+			squaredDeviations[cell] += other.squaredDeviations[cell] + delta * delta * counts[cell] * other.counts[cell] / total;
+			counts[cell] = total;
+		}
+	}
+
+	/**
+	 * Returns sum of squared Euclidean distances of members of cluster to its centroid.
+	 * @param cluster index of cluster
+	 * @return within-cluster sum of squares
+	 */
+	public double getWithinSumOfSquares(int cluster) {
+		double sum = 0.0;
+		final int offset = cluster * attributes.length;
+		for (int column = 0; column < attributes.length; column++) {
+			sum += squaredDeviations[offset + column];
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns sum of squared Euclidean distances of all examples to centroids of their clusters.
+	 * @return within-cluster sum of squares
+	 */
+	public double getWithinSumOfSquares() {
+		double sum = 0.0;
+		for (int cluster = 0; cluster < sizes.length; cluster++) {
+			sum += getWithinSumOfSquares(cluster);
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns sum of squared Euclidean distances of centroids to the centroid of dataset,
+	 * weighted by the number of values.
+	 * @return between-cluster sum of squares
+	 */
+	public double getBetweenSumOfSquares() {
+		double sum = 0.0;
+		for (int column = 0; column < attributes.length; column++) {
+			long count = 0;
+			double mean = 0.0;
+			for (int cluster = 0; cluster < sizes.length; cluster++) {
+				final int cell = cluster * attributes.length + column;
+				if (counts[cell] > 0) {
+					count += counts[cell];
+					mean += (means[cell] - mean) * counts[cell] / count;
+				}
+			}
+			for (int cluster = 0; cluster < sizes.length; cluster++) {
+				final int cell = cluster * attributes.length + column;
+				final double delta = means[cell] - mean;
+				sum += counts[cell] * delta * delta;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns root mean squared Euclidean distance of members of cluster to its centroid.
+	 * @param cluster index of cluster
+	 * @return scatter of cluster, 0 for empty cluster
+	 */
+	public double getScatter(int cluster) {
+		return sizes[cluster] == 0 ? 0.0 : Math.sqrt(getWithinSumOfSquares(cluster) / sizes[cluster]);
+	}
+
+	/**
+	 * Returns Euclidean distance of centroids of two clusters, attributes missing in one of them are skipped.
+	 * @param cluster index of cluster
+	 * @param other index of other cluster
+	 * @return distance of centroids
+	 */
+	public double getCentroidDistance(int cluster, int other) {
+		double sum = 0.0;
+		for (int column = 0; column < attributes.length; column++) {
+			final int cell = cluster * attributes.length + column;
+			final int otherCell = other * attributes.length + column;
+			if (counts[cell] > 0 && counts[otherCell] > 0) {
+				final double delta = means[cell] - means[otherCell];
+				sum += delta * delta;
+			}
+		}
+		return Math.sqrt(sum);
+	}
+
+	public int getNumberOfClusters() {
+		return sizes.length;
+	}
+
+	public long getClusterSize(int cluster) {
+		return sizes[cluster];
+	}
+
+	public int getNumberOfAttributes() {
+		return attributes.length;
+	}
+}
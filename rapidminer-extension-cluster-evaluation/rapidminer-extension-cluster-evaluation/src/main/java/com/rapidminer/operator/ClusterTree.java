@@ -0,0 +1,449 @@
+package com.rapidminer.operator;
+
+import java.util.Arrays;
+
+/**
+ * Search tree over the members of one cluster answering the distance of the nearest member to
+ * a query row. Every node keeps a bounding volume of its members, so subtrees farther from the
+ * query than the nearest member found so far are skipped, and the bounding volumes of two roots
+ * give a lower bound of the distance of two clusters. Distances of members are always calculated
+ * by the kernel, so the nearest distance is the same as found by comparing all members.
+ * @author Jan Jake
+ *
+ */
+public abstract class ClusterTree {
+
+	/** Maximum number of members of leaf. */
+	private static final int LEAF_SIZE = 16;
+
+	/** Distances of rows. */
+	protected DistanceKernel kernel;
+
+	/** Positions of members ordered by nodes. */
+	protected int[] positions;
+
+	/** First member of every node. */
+	protected int[] starts = new int[16];
+
+	/** Member after the last member of every node. */
+	protected int[] ends = new int[16];
+
+	/** Left child of every node, -1 for leaves. */
+	protected int[] lefts = new int[16];
+
+	/** Right child of every node, -1 for leaves. */
+	protected int[] rights = new int[16];
+
+	/** Number of nodes. */
+	protected int numberOfNodes;
+
+	/**
+	 * Constructs a new instance.
+	 * @param kernel distances of rows
+	 * @param start first position of cluster
+	 * @param end position after the last member of cluster
+	 */
+	protected ClusterTree(DistanceKernel kernel, int start, int end) {
+		this.kernel = kernel;
+		this.positions = new int[end - start];
+		for (int member = 0; member < positions.length; member++) {
+			positions[member] = start + member;
+		}
+	}
+
+	/**
+	 * Returns distance of the nearest member to given row if it is lower than the bound.
+	 * @param query position of row
+	 * @param bound distance of the nearest row found so far
+	 * @return distance of the nearest member, or the bound if no member is nearer
+	 */
+	public abstract double nearest(int query, double bound);
+
+	/**
+	 * Returns lower bound of distance of any member of this tree to any member of other tree.
+	 * @param other tree of the same type
+	 * @return lower bound of distance
+	 */
+	public abstract double lowerBound(ClusterTree other);
+
+	/**
+	 * Returns number of members.
+	 * @return number of members
+	 */
+	public int size() {
+		return positions.length;
+	}
+
+	/**
+	 * Creates KD-tree for Euclidean distance. Nodes are bounded by boxes and split at the
+	 * median of their widest dimension.
+	 * @param matrix values of rows, without missing values
+	 * @param kernel Euclidean distances of rows
+	 * @param start first position of cluster
+	 * @param end position after the last member of cluster
+	 * @return {@link ClusterTree}
+	 */
+	public static ClusterTree createKdTree(FeatureMatrix matrix, DistanceKernel kernel, int start, int end) {
+		return new KdTree(matrix, kernel, start, end);
+	}
+
+	/**
+	 * Creates vantage-point tree for metric distances. Nodes are bounded by balls around their
+	 * vantage points and split at the median distance to the vantage point.
+	 * @param kernel distances of rows satisfying the triangle inequality
+	 * @param start first position of cluster
+	 * @param end position after the last member of cluster
+	 * @return {@link ClusterTree}
+	 */
+	public static ClusterTree createVantagePointTree(DistanceKernel kernel, int start, int end) {
+		return new VantagePointTree(kernel, start, end);
+	}
+
+	/**
+	 * Adds node with given members.
+	 * @param from first member
+	 * @param to member after the last member
+	 * @return index of node
+	 */
+	protected int addNode(int from, int to) {
+		if (numberOfNodes == starts.length) {
+			final int capacity = numberOfNodes * 2;
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			lefts = Arrays.copyOf(lefts, capacity);
+			rights = Arrays.copyOf(rights, capacity);
+			growNodes(capacity);
+		}
+		starts[numberOfNodes] = from;
+		ends[numberOfNodes] = to;
+		lefts[numberOfNodes] = -1;
+		rights[numberOfNodes] = -1;
+		return numberOfNodes++;
+	}
+
+	/**
+	 * Grows arrays of bounding volumes of nodes.
+	 * @param capacity new number of nodes
+	 */
+	protected abstract void growNodes(int capacity);
+
+	/**
+	 * Reorders members, so the member at given index is the one which belongs there in ascending
+	 * order of keys, lower keys are before it and higher keys after it.
+	 * @param keys key of every member, reordered together with members
+	 * @param from first member
+	 * @param to member after the last member
+	 * @param index index of selected member
+	 */
+	protected void select(double[] keys, int from, int to, int index) {
+		int left = from;
+		int right = to - 1;
+		while (left < right) {
+			final double pivot = keys[(left + right) >>> 1];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(keys, i, j);
+					i++;
+					j--;
+				}
+			}
+			if (index <= j) {
+				right = j;
+			} else if (index >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Swaps two members and their keys.
+	 * @param keys key of every member
+	 * @param first first member
+	 * @param second second member
+	 */
+	private void swap(double[] keys, int first, int second) {
+		final double key = keys[first];
+		keys[first] = keys[second];
+		keys[second] = key;
+		final int position = positions[first];
+		positions[first] = positions[second];
+		positions[second] = position;
+	}
+
+	/**
+	 * Returns distance of the nearest member of leaf.
+	 * @param node leaf
+	 * @param query position of row
+	 * @param bound distance of the nearest row found so far
+	 * @return distance of the nearest member, or the bound if no member is nearer
+	 */
+	protected double nearestInLeaf(int node, int query, double bound) {
+		double nearest = bound;
+		for (int member = starts[node]; member < ends[node]; member++) {
+			final double distance = kernel.distance(query, positions[member]);
+			if (distance < nearest) {
+				nearest = distance;
+			}
+		}
+		return nearest;
+	}
+
+	/** Tree of boxes split by coordinates. */
+	private static class KdTree extends ClusterTree {
+
+		/** Values of rows. */
+		private double[] values;
+
+		/** Number of columns. */
+		private int dimensions;
+
+		/** Lowest value of every column of every node. */
+		private double[] minima;
+
+		/** Highest value of every column of every node. */
+		private double[] maxima;
+
+		/** Values of query row. */
+		private double[] queryValues;
+
+		private KdTree(FeatureMatrix matrix, DistanceKernel kernel, int start, int end) {
+			super(kernel, start, end);
+			this.values = matrix.getValues();
+			this.dimensions = matrix.getNumberOfColumns();
+			this.minima = new double[starts.length * dimensions];
+			this.maxima = new double[starts.length * dimensions];
+			this.queryValues = new double[dimensions];
+			if (positions.length > 0) {
+				build(0, positions.length, new double[positions.length]);
+			}
+		}
+
+		@Override
+		protected void growNodes(int capacity) {
+			minima = Arrays.copyOf(minima, capacity * dimensions);
+			maxima = Arrays.copyOf(maxima, capacity * dimensions);
+		}
+
+		/**
+		 * Builds subtree of given members.
+		 * @param from first member
+		 * @param to member after the last member
+		 * @param keys working array of keys of all members
+		 * @return index of node
+		 */
+		private int build(int from, int to, double[] keys) {
+			final int node = addNode(from, to);
+			final int offset = node * dimensions;
+			Arrays.fill(minima, offset, offset + dimensions, Double.POSITIVE_INFINITY);
+			Arrays.fill(maxima, offset, offset + dimensions, Double.NEGATIVE_INFINITY);
+			for (int member = from; member < to; member++) {
+				final int row = positions[member] * dimensions;
+				for (int column = 0; column < dimensions; column++) {
+					minima[offset + column] = Math.min(minima[offset + column], values[row + column]);
+					maxima[offset + column] = Math.max(maxima[offset + column], values[row + column]);
+				}
+			}
+			if (to - from <= LEAF_SIZE) {
+				return node;
+			}
+			int widest = 0;
+			for (int column = 1; column < dimensions; column++) {
+				if (maxima[offset + column] - minima[offset + column] > maxima[offset + widest] - minima[offset + widest]) {
+					widest = column;
+				}
+			}
+			if (dimensions == 0 || maxima[offset + widest] == minima[offset + widest]) {
+				// all members are equal
+				return node;
+			}
+			for (int member = from; member < to; member++) {
+				keys[member] = values[positions[member] * dimensions + widest];
+			}
+			final int middle = (from + to) >>> 1;
+			select(keys, from, to, middle);
+			final int left = build(from, middle, keys);
+			final int right = build(middle, to, keys);
+			lefts[node] = left;
+			rights[node] = right;
+			return node;
+		}
+
+		@Override
+		public double nearest(int query, double bound) {
+			if (positions.length == 0) {
+				return bound;
+			}
+			System.arraycopy(values, query * dimensions, queryValues, 0, dimensions);
+			return nearest(0, query, bound);
+		}
+
+		/**
+		 * Returns distance of the nearest member of subtree.
+		 * @param node root of subtree
+		 * @param query position of row
+		 * @param bound distance of the nearest row found so far
+		 * @return distance of the nearest member, or the bound if no member is nearer
+		 */
+		private double nearest(int node, int query, double bound) {
+			if (lefts[node] < 0) {
+				return nearestInLeaf(node, query, bound);
+			}
+			final double leftDistance = getSquaredDistance(lefts[node]);
+			final double rightDistance = getSquaredDistance(rights[node]);
+			final int nearer = leftDistance <= rightDistance ? lefts[node] : rights[node];
+			final int farther = leftDistance <= rightDistance ? rights[node] : lefts[node];
+			double nearest = bound;
+			if (Math.min(leftDistance, rightDistance) <= nearest * nearest) {
+				nearest = nearest(nearer, query, nearest);
+			}
+			if (Math.max(leftDistance, rightDistance) <= nearest * nearest) {
+				nearest = nearest(farther, query, nearest);
+			}
+			return nearest;
+		}
+
+		/**
+		 * Returns squared distance of query row to box of node.
+		 * @param node node
+		 * @return squared distance, 0 inside the box
+		 */
+		private double getSquaredDistance(int node) {
+			final int offset = node * dimensions;
+			double sum = 0.0;
+			for (int column = 0; column < dimensions; column++) {
+				final double value = queryValues[column];
+				final double gap = value < minima[offset + column] ? minima[offset + column] - value
+						: value > maxima[offset + column] ? value - maxima[offset + column] : 0.0;
+				sum += gap * gap;
+			}
+			return sum;
+		}
+
+		@Override
+		public double lowerBound(ClusterTree other) {
+			final KdTree tree = (KdTree) other;
+			if (positions.length == 0 || tree.positions.length == 0) {
+				return Double.POSITIVE_INFINITY;
+			}
+			double sum = 0.0;
+			for (int column = 0; column < dimensions; column++) {
+				final double gap = Math.max(0.0, Math.max(minima[column] - tree.maxima[column], tree.minima[column] - maxima[column]));
+				sum += gap * gap;
+			}
+			return Math.sqrt(sum);
+		}
+	}
+
+	/** Tree of balls around vantage points split by the median distance. */
+	private static class VantagePointTree extends ClusterTree {
+
+		/** Median distance of members to the vantage point of every node. */
+		private double[] medians;
+
+		/** Maximum distance of members to the vantage point of every node. */
+		private double[] radii;
+
+		private VantagePointTree(DistanceKernel kernel, int start, int end) {
+			super(kernel, start, end);
+			this.medians = new double[starts.length];
+			this.radii = new double[starts.length];
+			if (positions.length > 0) {
+				build(0, positions.length, new double[positions.length]);
+			}
+		}
+
+		@Override
+		protected void growNodes(int capacity) {
+			medians = Arrays.copyOf(medians, capacity);
+			radii = Arrays.copyOf(radii, capacity);
+		}
+
+		/**
+		 * Builds subtree of given members, the first member is the vantage point.
+		 * @param from first member
+		 * @param to member after the last member
+		 * @param keys working array of distances of all members
+		 * @return index of node
+		 */
+		private int build(int from, int to, double[] keys) {
+			final int node = addNode(from, to);
+			final int vantagePoint = positions[from];
+			double radius = 0.0;
+			for (int member = from + 1; member < to; member++) {
+				keys[member] = kernel.distance(vantagePoint, positions[member]);
+				radius = Math.max(radius, keys[member]);
+			}
+			radii[node] = radius;
+			if (to - from <= LEAF_SIZE) {
+				return node;
+			}
+			// members nearer than the median go to the left child, the vantage point stays in the node
+			final int middle = (from + 1 + to) >>> 1;
+			select(keys, from + 1, to, middle);
+			medians[node] = keys[middle];
+			final int left = build(from + 1, middle, keys);
+			final int right = build(middle, to, keys);
+			lefts[node] = left;
+			rights[node] = right;
+			return node;
+		}
+
+		@Override
+		public double nearest(int query, double bound) {
+			if (positions.length == 0) {
+				return bound;
+			}
+			return nearest(0, query, bound);
+		}
+
+		/**
+		 * Returns distance of the nearest member of subtree.
+		 * @param node root of subtree
+		 * @param query position of row
+		 * @param bound distance of the nearest row found so far
+		 * @return distance of the nearest member, or the bound if no member is nearer
+		 */
+		private double nearest(int node, int query, double bound) {
+			if (lefts[node] < 0) {
+				return nearestInLeaf(node, query, bound);
+			}
+			final double distance = kernel.distance(query, positions[starts[node]]);
+			double nearest = Math.min(bound, distance);
+			if (distance - radii[node] > nearest) {
+				return nearest;
+			}
+			// members of the left child are at most the median from the vantage point, of the right one at least
+			if (distance <= medians[node]) {
+				nearest = nearest(lefts[node], query, nearest);
+				if (medians[node] - distance <= nearest) {
+					nearest = nearest(rights[node], query, nearest);
+				}
+			} else {
+				nearest = nearest(rights[node], query, nearest);
+				if (distance - medians[node] <= nearest) {
+					nearest = nearest(lefts[node], query, nearest);
+				}
+			}
+			return nearest;
+		}
+
+		@Override
+		public double lowerBound(ClusterTree other) {
+			final VantagePointTree tree = (VantagePointTree) other;
+			if (positions.length == 0 || tree.positions.length == 0) {
+				return Double.POSITIVE_INFINITY;
+			}
+			return Math.max(0.0, kernel.distance(positions[0], tree.positions[0]) - radii[0] - tree.radii[0]);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeAttributes;
+import com.rapidminer.parameter.ParameterTypeCategory;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Class represent Clustering Comparison operator. It compares every pair of several clusterings
+ * of the same examples and delivers the matrix of an external index as an example set.
+ * Clusterings are given either as a collection of cluster sets or as several nominal attributes
+ * of one example set.
+ * @author Jan Jake
+ *
+ */
+public class ClusteringComparison extends Operator {
+
+	/** The parameter name for &quot;Cluster attributes compared when the input is one example set.&quot; */
+	public static final String PARAMETER_CLUSTER_ATTRIBUTES = "cluster_attributes";
+
+	/** The parameter name for &quot;External index of the matrix.&quot; */
+	public static final String PARAMETER_INDEX = "index";
+
+	/** The parameter name for &quot;Number of threads used for calculation.&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** Name of attribute with names of clusterings. */
+	private static final String NAME_ATTRIBUTE = "clustering";
+
+	/** Input port. */
+	private InputPort clusteringsInput = getInputPorts().createPort("clusterings");
+
+	/** Output port. */
+	private OutputPort matrixOutput = getOutputPorts().createPort("comparison matrix");
+
+	/** Output port. */
+	private OutputPort clusteringsOutput = getOutputPorts().createPort("original clusterings");
+
+	/**
+	 * Constructs a new instance.
+	 * @param description {@link OperatorDescription}
+	 */
+	public ClusteringComparison(OperatorDescription description) {
+		super(description);
+
+		getTransformer().addGenerationRule(matrixOutput, ExampleSet.class);
+		getTransformer().addPassThroughRule(clusteringsInput, clusteringsOutput);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		final IOObject clusteringsObject = clusteringsInput.getData(IOObject.class);
+		final Clusterings clusterings = Clusterings.read(this, clusteringsObject, getParameterAsString(PARAMETER_CLUSTER_ATTRIBUTES));
+
+		final ClusteringComparisonData comparisonData = new ClusteringComparisonData();
+		comparisonData.calculateMatrix(clusterings.getNames(), clusterings.getClusters(), clusterings.getClusterNames(),
+				getParameterAsInt(PARAMETER_INDEX), getParameterAsInt(PARAMETER_NUMBER_OF_THREADS));
+
+		matrixOutput.deliver(createMatrixSet(comparisonData));
+		clusteringsOutput.deliver(clusteringsObject);
+	}
+
+	/**
+	 * Creates example set of matrix, one example and one attribute for every clustering.
+	 * @param comparisonData calculated matrix
+	 * @return example set
+	 */
+	private ExampleSet createMatrixSet(ClusteringComparisonData comparisonData) {
+		final String[] names = comparisonData.getNames();
+		final double[][] matrix = comparisonData.getMatrix();
+		final List<Attribute> attributes = new ArrayList<>();
+		final Attribute nameAttribute = AttributeFactory.createAttribute(NAME_ATTRIBUTE, Ontology.NOMINAL);
+		attributes.add(nameAttribute);
+		for (String name : names) {
+			attributes.add(AttributeFactory.createAttribute(name, Ontology.REAL));
+		}
+		final MemoryExampleTable table = new MemoryExampleTable(attributes);
+		for (int first = 0; first < names.length; first++) {
+			final double[] values = new double[names.length + 1];
+			values[0] = nameAttribute.getMapping().mapString(names[first]);
+			System.arraycopy(matrix[first], 0, values, 1, names.length);
+			table.addDataRow(new DoubleArrayDataRow(values));
+		}
+		final ExampleSet matrixSet = table.createExampleSet();
+		matrixSet.getAttributes().setId(nameAttribute);
+		return matrixSet;
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		final List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeAttributes(PARAMETER_CLUSTER_ATTRIBUTES, "Cluster attributes compared when the input is one example set.", clusteringsInput, true, Ontology.NOMINAL));
+		types.add(new ParameterTypeCategory(PARAMETER_INDEX, "External index of the matrix.", ClusteringComparisonData.INDICES, 0));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "Number of threads used for calculation.", 1, Integer.MAX_VALUE, 1));
+		return types;
+	}
+
+}
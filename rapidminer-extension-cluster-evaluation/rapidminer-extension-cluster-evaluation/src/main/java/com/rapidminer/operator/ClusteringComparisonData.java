@@ -0,0 +1,103 @@
+package com.rapidminer.operator;
+
+import java.util.List;
+
+/**
+ * Class for calculating external index of every pair of several clusterings of the same examples.
+ * @author Jan Jake
+ *
+ */
+public class ClusteringComparisonData {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Names of external indices. */
+	public static final String[] INDICES = { "adjusted_rand_index", "rand_index", "jaccard_index", "fowlkes_mallows_index",
+			"normalized_mutual_information", "variation_of_information", "v_measure" };
+
+	/** Names of clusterings. */
+	private String[] names;
+
+	/** Index of every pair of clusterings. */
+	private double[][] matrix;
+
+	/** Constructs a new instance. */
+	public ClusteringComparisonData() { }
+
+	/**
+	 * Calculates index of every pair of clusterings, pairs are processed in parallel.
+	 * @param names names of clusterings
+	 * @param clusters cluster of every matched example for every clustering
+	 * @param clusterNames names of clusters for every clustering
+	 * @param index index of selected external index in {@link #INDICES}
+	 * @param numberOfThreads number of threads
+	 */
+	public void calculateMatrix(String[] names, final List<int[]> clusters, final List<String[]> clusterNames,
+			final int index, int numberOfThreads) {
+		final int numberOfClusterings = names.length;
+		this.names = names;
+		this.matrix = new double[numberOfClusterings][numberOfClusterings];
+		// pairs (i, j) with i <= j, including the diagonal
+		final int numberOfPairs = numberOfClusterings * (numberOfClusterings + 1) / 2;
+		final int[] firstOfPair = new int[numberOfPairs];
+		final int[] secondOfPair = new int[numberOfPairs];
+		int pair = 0;
+		for (int first = 0; first < numberOfClusterings; first++) {
+			for (int second = first; second < numberOfClusterings; second++) {
+				firstOfPair[pair] = first;
+				secondOfPair[pair] = second;
+				pair++;
+			}
+		}
+		new BlockTask(1) {
+
+			@Override
+			protected void process(int from, int to) {
+				for (int pair = from; pair < to; pair++) {
+					final int first = firstOfPair[pair];
+					final int second = secondOfPair[pair];
+					final ContingencyTable table = ContingencyTable.create(clusters.get(first), clusterNames.get(first),
+							clusters.get(second), clusterNames.get(second));
+					final RandIndexData data = new RandIndexData();
+					data.calculateRandIndex(table);
+					matrix[first][second] = getIndex(data, index);
+					matrix[second][first] = matrix[first][second];
+				}
+			}
+		}.execute(numberOfPairs, numberOfThreads);
+	}
+
+	/**
+	 * Returns selected index.
+	 * @param data calculated indices
+	 * @param index index of selected external index in {@link #INDICES}
+	 * @return value of index
+	 */
+	static double getIndex(RandIndexData data, int index) {
+		switch (index) {
+			case 0:
+				return data.getAdjustedRandIndex();
+			case 1:
+				return data.getRandIndex();
+			case 2:
+				return data.getJaccardIndex();
+			case 3:
+				return data.getFowlkesMallowsIndex();
+			case 4:
+				return data.getNormalizedMutualInformation();
+			case 5:
+				return data.getVariationOfInformation();
+			default:
+				return data.getVMeasure();
+		}
+	}
+
+	public String[] getNames() {
+		return names;
+	}
+
+	public double[][] getMatrix() {
+		return matrix;
+	}
+}
@@ -0,0 +1,308 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.gui.DistanceMatrixIOObject;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.operator.ports.metadata.MetaData;
+import com.rapidminer.operator.ports.metadata.SimplePrecondition;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeAttributes;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
+import com.rapidminer.tools.math.similarity.DistanceMeasures;
+
+/**
+ * Class represent Clustering Sweep operator. It evaluates several clusterings of the same examples,
+ * typically one for every tried number of clusters, by Silhouette, Dunn, Calinski-Harabasz and
+ * Davies-Bouldin index. Distances of examples are calculated once for all clusterings, or taken
+ * from the optional distance matrix input. A memory mapped matrix is read sequentially in one pass,
+ * which evaluates Silhouette and Dunn index of all clusterings together.
+ * @author Jan Jake
+ *
+ */
+public class ClusteringSweep extends Operator {
+
+	/** The parameter name for &quot;Cluster attributes evaluated when the input is one example set.&quot; */
+	public static final String PARAMETER_CLUSTER_ATTRIBUTES = "cluster_attributes";
+
+	/** The parameter name for &quot;Number of threads used for calculation.&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** Name of attribute with names of clusterings. */
+	private static final String NAME_ATTRIBUTE = "clustering";
+
+	/**
+	 * Maximum number of sums of distances of Silhouette of one range of rows kept in one pass over a
+	 * memory mapped matrix, clusterings whose sums exceed it together are evaluated in further passes.
+	 */
+	private static final long MAX_SUMS_PER_PASS = 1L << 25;
+
+	/** Names of attributes with evaluation of clusterings. */
+	private static final String[] VALUE_ATTRIBUTES = { "number of clusters", "silhouette", "dunn index",
+			"calinski harabasz index", "davies bouldin index" };
+
+	/** Input port. */
+	private InputPort clusteringsInput = getInputPorts().createPort("clusterings");
+
+	/** Optional input port of precomputed distances. */
+	private InputPort distanceMatrixInput = getInputPorts().createPort("distance matrix");
+
+	/** Output port. */
+	private OutputPort indicesOutput = getOutputPorts().createPort("indices");
+
+	/** Output port. */
+	private OutputPort distanceMatrixOutput = getOutputPorts().createPort("distance matrix");
+
+	/** Output port. */
+	private OutputPort clusteringsOutput = getOutputPorts().createPort("original clusterings");
+
+	/** {@link DistanceMeasureHelper} */
+	private DistanceMeasureHelper measureHelper = new DistanceMeasureHelper(this);
+
+	/** Matrices calculated by executions of this operator, owned by it and released when the process finishes. */
+	private List<DistanceMatrixData> calculatedMatrices = new ArrayList<>();
+
+	/**
+	 * Constructs a new instance.
+	 * @param description {@link OperatorDescription}
+	 */
+	public ClusteringSweep(OperatorDescription description) {
+		super(description);
+
+		distanceMatrixInput.addPrecondition(new SimplePrecondition(distanceMatrixInput, new MetaData(DistanceMatrixIOObject.class), false));
+
+		getTransformer().addGenerationRule(indicesOutput, ExampleSet.class);
+		getTransformer().addGenerationRule(distanceMatrixOutput, DistanceMatrixIOObject.class);
+		getTransformer().addPassThroughRule(clusteringsInput, clusteringsOutput);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		final IOObject clusteringsObject = clusteringsInput.getData(IOObject.class);
+		final Clusterings clusterings = Clusterings.read(this, clusteringsObject, getParameterAsString(PARAMETER_CLUSTER_ATTRIBUTES));
+		final int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+
+		DistanceMatrixIOObject distanceMatrix = distanceMatrixInput.getDataOrNull(DistanceMatrixIOObject.class);
+		if (distanceMatrix != null) {
+			distanceMatrix.getDistanceMatrix().checkSize(this, clusterings.getExampleSet());
+		} else {
+			final ExampleSet valueSet = clusterings.getValueSet();
+			final DistanceMeasure measure = measureHelper.getInitializedMeasure(valueSet);
+			distanceMatrix = new DistanceMatrixIOObject(DistanceMatrix.calculateDistanceMatrix(this, valueSet, measure));
+			calculatedMatrices.add(distanceMatrix.getDistanceMatrix());
+		}
+
+		final DistanceMatrixData matrix = distanceMatrix.getDistanceMatrix();
+		final double[][] values;
+		if (matrix.isSequential()) {
+			values = evaluateSequentially(clusterings, matrix, numberOfThreads);
+		} else {
+			values = evaluate(clusterings, matrix, numberOfThreads);
+		}
+
+		indicesOutput.deliver(createIndicesSet(clusterings.getNames(), values));
+		distanceMatrixOutput.deliver(distanceMatrix);
+		clusteringsOutput.deliver(clusteringsObject);
+	}
+
+	/**
+	 * Releases calculated matrices, e.g. deletes temporary files of memory mapped matrices. Operators
+	 * which received a delivered matrix have finished too, so the matrices are released even when
+	 * the output is connected.
+	 */
+	@Override
+	public void processFinished() throws OperatorException {
+		super.processFinished();
+		for (DistanceMatrixData matrix : calculatedMatrices) {
+			matrix.close();
+		}
+		calculatedMatrices.clear();
+	}
+
+	/**
+	 * Evaluates every clustering by all indices, clusterings are processed by threads in parallel.
+	 * @param clusterings evaluated clusterings
+	 * @param matrix distances of examples
+	 * @param numberOfThreads number of threads
+	 * @return values of {@link #VALUE_ATTRIBUTES} for every clustering
+	 */
+	private double[][] evaluate(final Clusterings clusterings, final DistanceMatrixData matrix, int numberOfThreads) {
+		final double[][] values = new double[clusterings.size()][];
+		new BlockTask(1) {
+
+			@Override
+			protected void process(int from, int to) {
+				for (int clustering = from; clustering < to; clustering++) {
+					final ClusterPartition partition = clusterings.createPartition(clustering);
+					final DistanceKernel kernel = DistanceKernel.create(matrix, partition);
+
+					final SilhouetteData silhouetteData = new SilhouetteData();
+					silhouetteData.calculateSilhouette(partition, kernel, 1);
+					final DunnIndexData dunnIndexData = new DunnIndexData();
+					dunnIndexData.calculateDunnIndex(partition, kernel);
+					values[clustering] = getValues(partition, silhouetteData, dunnIndexData, 1);
+				}
+			}
+		}.execute(clusterings.size(), numberOfThreads);
+		return values;
+	}
+
+	/**
+	 * Evaluates clusterings by all indices in sequential passes over the distance matrix. One pass
+	 * accumulates sums of distances of Silhouette and extremes of distances of Dunn index of all
+	 * clusterings, unless their sums exceed {@link #MAX_SUMS_PER_PASS}. Threads visit ranges of the
+	 * matrix, their number depends only on the sums of the pass as in Silhouette, so the result does not
+	 * depend on the number of threads. Ranges share sums of an asymmetric matrix.
+	 * @param clusterings evaluated clusterings
+	 * @param matrix distances of examples read in the order of storage
+	 * @param numberOfThreads number of threads
+	 * @return values of {@link #VALUE_ATTRIBUTES} for every clustering
+	 */
+	private double[][] evaluateSequentially(Clusterings clusterings, DistanceMatrixData matrix, int numberOfThreads) {
+		final ClusterPartition[] partitions = new ClusterPartition[clusterings.size()];
+		for (int clustering = 0; clustering < partitions.length; clustering++) {
+			partitions[clustering] = clusterings.createPartition(clustering);
+		}
+		final double[][] values = new double[partitions.length][];
+		int first = 0;
+		while (first < partitions.length) {
+			// clusterings of one pass, at least one
+			int end = first + 1;
+			long numberOfSums = SilhouetteData.getNumberOfSums(partitions[first]);
+			while (end < partitions.length) {
+				final long numberOfPassSums = numberOfSums + SilhouetteData.getNumberOfSums(partitions[end]);
+				if (numberOfPassSums > MAX_SUMS_PER_PASS) {
+					break;
+				}
+				numberOfSums = numberOfPassSums;
+				end++;
+			}
+			final int numberOfRanges = SilhouetteData.getNumberOfRanges(matrix.isSymmetric(), numberOfSums);
+
+			final SilhouetteData.DistanceSums[][] sums = new SilhouetteData.DistanceSums[end - first][numberOfRanges];
+			final DunnIndexData.DistanceExtremes[][] extremes = new DunnIndexData.DistanceExtremes[end - first][numberOfRanges];
+			for (int clustering = first; clustering < end; clustering++) {
+				final int index = clustering - first;
+				for (int range = 0; range < numberOfRanges; range++) {
+					sums[index][range] = range == 0 ? new SilhouetteData.DistanceSums(partitions[clustering], matrix.isSymmetric())
+							: sums[index][0].copy();
+					extremes[index][range] = range == 0 ? new DunnIndexData.DistanceExtremes(partitions[clustering])
+							: extremes[index][0].copy();
+				}
+			}
+			final DistanceMatrixData.DistanceVisitor[] visitors = new DistanceMatrixData.DistanceVisitor[numberOfRanges];
+			for (int range = 0; range < numberOfRanges; range++) {
+				final DistanceMatrixData.DistanceVisitor[] rangeVisitors = new DistanceMatrixData.DistanceVisitor[2 * (end - first)];
+				for (int index = 0; index < end - first; index++) {
+					rangeVisitors[2 * index] = sums[index][range];
+					rangeVisitors[2 * index + 1] = extremes[index][range];
+				}
+				visitors[range] = new CombinedVisitor(rangeVisitors);
+			}
+			matrix.visitDistances(visitors, numberOfThreads);
+
+			for (int clustering = first; clustering < end; clustering++) {
+				final SilhouetteData silhouetteData = new SilhouetteData();
+				silhouetteData.calculateSilhouette(partitions[clustering], sums[clustering - first]);
+				final DunnIndexData dunnIndexData = new DunnIndexData();
+				dunnIndexData.calculateDunnIndex(extremes[clustering - first]);
+				values[clustering] = getValues(partitions[clustering], silhouetteData, dunnIndexData, numberOfThreads);
+			}
+			first = end;
+		}
+		return values;
+	}
+
+	/**
+	 * Returns values of all indices, Calinski-Harabasz and Davies-Bouldin index are calculated from one pass of statistics.
+	 * @param partition examples divided by clusters
+	 * @param silhouetteData calculated silhouette
+	 * @param dunnIndexData calculated Dunn index
+	 * @param numberOfThreads number of threads
+	 * @return values of {@link #VALUE_ATTRIBUTES}
+	 */
+	private static double[] getValues(ClusterPartition partition, SilhouetteData silhouetteData, DunnIndexData dunnIndexData,
+			int numberOfThreads) {
+		final ClusterStatistics statistics = ClusterStatistics.create(partition, numberOfThreads);
+		final CalinskiHarabaszData calinskiHarabaszData = new CalinskiHarabaszData();
+		calinskiHarabaszData.calculateCalinskiHarabaszIndex(statistics);
+		final DaviesBouldinData daviesBouldinData = new DaviesBouldinData();
+		daviesBouldinData.calculateDaviesBouldinIndex(partition, statistics);
+		return new double[] { partition.getNumberOfClusters(), silhouetteData.getAverageSilhouette(),
+				dunnIndexData.getDunnIndex(), calinskiHarabaszData.getCalinskiHarabaszIndex(),
+				daviesBouldinData.getDaviesBouldinIndex() };
+	}
+
+	/**
+	 * Creates example set with one example for every clustering.
+	 * @param names names of clusterings
+	 * @param values values of {@link #VALUE_ATTRIBUTES} for every clustering
+	 * @return example set
+	 */
+	private ExampleSet createIndicesSet(String[] names, double[][] values) {
+		final List<Attribute> attributes = new ArrayList<>();
+		final Attribute nameAttribute = AttributeFactory.createAttribute(NAME_ATTRIBUTE, Ontology.NOMINAL);
+		attributes.add(nameAttribute);
+		attributes.add(AttributeFactory.createAttribute(VALUE_ATTRIBUTES[0], Ontology.INTEGER));
+		for (int i = 1; i < VALUE_ATTRIBUTES.length; i++) {
+			attributes.add(AttributeFactory.createAttribute(VALUE_ATTRIBUTES[i], Ontology.REAL));
+		}
+		final MemoryExampleTable table = new MemoryExampleTable(attributes);
+		for (int clustering = 0; clustering < names.length; clustering++) {
+			final double[] row = new double[VALUE_ATTRIBUTES.length + 1];
+			row[0] = nameAttribute.getMapping().mapString(names[clustering]);
+			System.arraycopy(values[clustering], 0, row, 1, VALUE_ATTRIBUTES.length);
+			table.addDataRow(new DoubleArrayDataRow(row));
+		}
+		final ExampleSet indicesSet = table.createExampleSet();
+		indicesSet.getAttributes().setId(nameAttribute);
+		return indicesSet;
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		final List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeAttributes(PARAMETER_CLUSTER_ATTRIBUTES, "Cluster attributes evaluated when the input is one example set.", clusteringsInput, true, Ontology.NOMINAL));
+		for(ParameterType a : DistanceMeasures.getParameterTypes(this)) {
+			if (a.getKey() == DistanceMeasures.PARAMETER_MEASURE_TYPES) {
+				a.setDefaultValue(DistanceMeasures.DIVERGENCES_TYPE);
+			}
+			if (a.getKey() == DistanceMeasures.PARAMETER_DIVERGENCE) {
+				a.setDefaultValue(6);
+			}
+			types.add(a);
+		}
+		types.addAll(DistanceMatrix.getStorageParameterTypes(this));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "Number of threads used for calculation.", 1, Integer.MAX_VALUE, 1));
+		return types;
+	}
+
+	/** Visitor passing every distance to several visitors of the same range of rows. */
+	private static class CombinedVisitor implements DistanceMatrixData.DistanceVisitor {
+
+		/** Combined visitors. */
+		private DistanceMatrixData.DistanceVisitor[] visitors;
+
+		private CombinedVisitor(DistanceMatrixData.DistanceVisitor[] visitors) {
+			this.visitors = visitors;
+		}
+
+		@Override
+		public void visit(int firstRow, int secondRow, double distance) {
+			for (DistanceMatrixData.DistanceVisitor visitor : visitors) {
+				visitor.visit(firstRow, secondRow, distance);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+
+/**
+ * Several clusterings of the same examples, given either by a collection of cluster sets or by
+ * nominal attributes of one example set. Clusters of every clustering are stored for the rows of
+ * one reference example set, cluster sets of a collection are matched with the first one by ids
+ * or, without ids, by the order of examples.
+ * @author Jan Jake
+ *
+ */
+public class Clusterings {
+
+	/** Example set whose rows are clustered. */
+	private ExampleSet exampleSet;
+
+	/** Names of clusterings. */
+	private List<String> names = new ArrayList<>();
+
+	/** Cluster of every row for every clustering. */
+	private List<int[]> clusters = new ArrayList<>();
+
+	/** Names of clusters for every clustering. */
+	private List<String[]> clusterNames = new ArrayList<>();
+
+	/** Attributes of example set holding clusters, empty for a collection. */
+	private List<Attribute> clusterAttributes = new ArrayList<>();
+
+	/** Example set without cluster attributes, created on demand. */
+	private ExampleSet valueSet;
+
+	/** Constructs a new instance. */
+	private Clusterings() { }
+
+	/**
+	 * Reads clusterings of a collection of cluster sets or of attributes of one example set.
+	 * @param operator operator reporting errors
+	 * @param input collection of cluster sets or example set
+	 * @param attributeNames names of cluster attributes separated by |, used for example set
+	 * @return {@link Clusterings}
+	 * @throws UserError if the input is neither, the examples cannot be matched, the attributes are
+	 *         not nominal attributes of the example set or there are less than two clusterings
+	 */
+	public static Clusterings read(Operator operator, IOObject input, String attributeNames) throws UserError {
+		final Clusterings clusterings = new Clusterings();
+		if (input instanceof IOObjectCollection) {
+			clusterings.readCollection(operator, (IOObjectCollection<?>) input);
+		} else if (input instanceof ExampleSet) {
+			clusterings.readAttributes(operator, (ExampleSet) input, attributeNames == null ? "" : attributeNames);
+		} else {
+			throw new UserError(operator, "cluster_evaluation.clusterings_input");
+		}
+		if (clusterings.names.size() < 2) {
+			throw new UserError(operator, "cluster_evaluation.too_few_clusterings");
+		}
+		return clusterings;
+	}
+
+	/**
+	 * Reads clusterings of a collection of cluster sets, examples are matched with the first cluster set.
+	 * @param operator operator reporting errors
+	 * @param collection collection of cluster sets
+	 * @throws UserError if an object is not a cluster set or the examples cannot be matched
+	 */
+	private void readCollection(Operator operator, IOObjectCollection<?> collection) throws UserError {
+		for (IOObject object : collection.getObjectsRecursive()) {
+			if (!(object instanceof ExampleSet) || ((ExampleSet) object).getAttributes().get("cluster") == null) {
+				throw new UserError(operator, "cluster_evaluation.clusterings_input");
+			}
+			final ExampleSet clusterSet = (ExampleSet) object;
+			final ClusterPartition partition = new ClusterPartition(clusterSet);
+			int[] matchedRows = null;
+			if (exampleSet != null) {
+				if (exampleSet.size() == clusterSet.size()) {
+					matchedRows = ContingencyTable.matchRows(exampleSet, clusterSet);
+				}
+				if (matchedRows == null) {
+					throw new UserError(operator, "cluster_evaluation.unmatched_clusterings", names.size() + 1);
+				}
+			}
+			final int[] matchedClusters = new int[clusterSet.size()];
+			for (int row = 0; row < matchedClusters.length; row++) {
+				matchedClusters[row] = partition.getClusterId(matchedRows == null ? row : matchedRows[row]);
+			}
+			if (exampleSet == null) {
+				exampleSet = clusterSet;
+			}
+			names.add("cluster set " + (names.size() + 1));
+			clusters.add(matchedClusters);
+			clusterNames.add(ContingencyTable.getClusterNames(partition));
+		}
+	}
+
+	/**
+	 * Reads clusterings given by nominal attributes of one example set.
+	 * @param operator operator reporting errors
+	 * @param exampleSet example set
+	 * @param attributeNames names of cluster attributes separated by |
+	 * @throws UserError if the attributes do not exist or are not nominal
+	 */
+	private void readAttributes(Operator operator, ExampleSet exampleSet, String attributeNames) throws UserError {
+		this.exampleSet = exampleSet;
+		for (String name : attributeNames.split("\\|")) {
+			if (name.isEmpty()) {
+				continue;
+			}
+			final Attribute attribute = exampleSet.getAttributes().get(name);
+			if (attribute == null || !attribute.isNominal()) {
+				throw new UserError(operator, "cluster_evaluation.cluster_attribute", name);
+			}
+			final ClusterPartition partition = new ClusterPartition(exampleSet, attribute);
+			names.add(name);
+			clusters.add(partition.getClusterIds());
+			clusterNames.add(ContingencyTable.getClusterNames(partition));
+			clusterAttributes.add(attribute);
+		}
+	}
+
+	/**
+	 * Creates partition of rows of {@link #getValueSet()} by given clustering.
+	 * @param clustering index of clustering
+	 * @return {@link ClusterPartition}
+	 */
+	public ClusterPartition createPartition(int clustering) {
+		return new ClusterPartition(getValueSet(), clusters.get(clustering).clone(), clusterNames.get(clustering));
+	}
+
+	/**
+	 * Returns example set without cluster attributes, so only the clustered values are regular attributes.
+	 * @return example set of clustered values
+	 */
+	public synchronized ExampleSet getValueSet() {
+		if (valueSet == null) {
+			valueSet = (ExampleSet) exampleSet.clone();
+			for (Attribute attribute : clusterAttributes) {
+				valueSet.getAttributes().remove(attribute);
+			}
+		}
+		return valueSet;
+	}
+
+	public ExampleSet getExampleSet() {
+		return exampleSet;
+	}
+
+	public int size() {
+		return names.size();
+	}
+
+	public String[] getNames() {
+		return names.toArray(new String[names.size()]);
+	}
+
+	public List<int[]> getClusters() {
+		return clusters;
+	}
+
+	public List<String[]> getClusterNames() {
+		return clusterNames;
+	}
+}
@@ -0,0 +1,441 @@
+package com.rapidminer.operator;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.NominalMapping;
+
+/**
+ * Contingency table of two clusterings of the same examples. Cell (i, j) counts the examples which
+ * belong to cluster i of the first clustering and to cluster j of the second one. All pair-counting
+ * indices follow from the counts, so two clusterings are compared in linear time.
+ * @author Jan Jake
+ *
+ */
+public class ContingencyTable {
+
+	/** Names of clusters of the first clustering. */
+	private String[] rowNames;
+
+	/** Names of clusters of the second clustering. */
+	private String[] columnNames;
+
+	/** Counts of cells stored row by row. */
+	private long[] counts;
+
+	/** Counts of rows. */
+	private long[] rowSums;
+
+	/** Counts of columns. */
+	private long[] columnSums;
+
+	/** Number of examples. */
+	private long total;
+
+	/** Number of examples of the first clustering without a match in the second one. */
+	private long unmatchedRows;
+
+	/** Number of examples of the second clustering without a match in the first one. */
+	private long unmatchedColumns;
+
+	/**
+	 * Constructs a new empty table.
+	 * @param rowNames names of clusters of the first clustering
+	 * @param columnNames names of clusters of the second clustering
+	 */
+	public ContingencyTable(String[] rowNames, String[] columnNames) {
+		this.rowNames = rowNames;
+		this.columnNames = columnNames;
+		this.counts = new long[rowNames.length * columnNames.length];
+		this.rowSums = new long[rowNames.length];
+		this.columnSums = new long[columnNames.length];
+	}
+
+	/**
+	 * Creates table of two clusterings of the same examples. Examples are matched by the id attribute
+	 * if both datasets have it, otherwise by their order. Matching by ids costs one pass when ids of
+	 * both datasets are in the same order and one hash join otherwise.
+	 * @param first examples divided by clusters of the first clustering
+	 * @param second examples divided by clusters of the second clustering
+	 * @return table, null if the datasets differ in size or an id of the first dataset is missing in the second one
+	 */
+	public static ContingencyTable create(ClusterPartition first, ClusterPartition second) {
+		final int numberOfExamples = first.getNumberOfExamples();
+		if (numberOfExamples != second.getNumberOfExamples()) {
+			return null;
+		}
+		final int[] matchedRows = matchRows(first.getClusterSet(), second.getClusterSet());
+		if (matchedRows == null) {
+			return null;
+		}
+		final int[] secondClusters = new int[numberOfExamples];
+		for (int row = 0; row < numberOfExamples; row++) {
+			secondClusters[row] = second.getClusterId(matchedRows[row]);
+		}
+		return create(first.getClusterIds(), getClusterNames(first), secondClusters, getClusterNames(second));
+	}
+
+	/**
+	 * Creates table of two clusterings given by clusters of matched examples.
+	 * @param firstClusters cluster of every example in the first clustering
+	 * @param firstNames names of clusters of the first clustering
+	 * @param secondClusters cluster of every example in the second clustering
+	 * @param secondNames names of clusters of the second clustering
+	 * @return table
+	 */
+	public static ContingencyTable create(int[] firstClusters, String[] firstNames, int[] secondClusters, String[] secondNames) {
+		final ContingencyTable table = new ContingencyTable(firstNames, secondNames);
+		for (int row = 0; row < firstClusters.length; row++) {
+			table.add(firstClusters[row], secondClusters[row]);
+		}
+		return table;
+	}
+
+	/**
+	 * Creates table of two clusterings by merging datasets sorted by ascending ids. Both datasets are
+	 * read once by their iterators and only the counts are kept, so the memory does not depend on the
+	 * number of examples. Examples with ids present in only one dataset or with missing ids are
+	 * counted as unmatched, equal ids are matched in the order of occurrence.
+	 * @param operator operator reporting errors
+	 * @param first dataset of the first clustering
+	 * @param second dataset of the second clustering
+	 * @return table without empty clusters
+	 * @throws UserError if a dataset has no id attribute or its ids are not sorted
+	 */
+	public static ContingencyTable createFromSortedIds(Operator operator, ExampleSet first, ExampleSet second) throws UserError {
+		final Attribute firstId = getIdAttribute(operator, first);
+		final Attribute secondId = getIdAttribute(operator, second);
+		final Attribute firstCluster = first.getAttributes().get("cluster");
+		final Attribute secondCluster = second.getAttributes().get("cluster");
+		final ContingencyTable table = new ContingencyTable(getMappingNames(firstCluster.getMapping()), getMappingNames(secondCluster.getMapping()));
+
+		final Iterator<Example> firstIterator = first.iterator();
+		final Iterator<Example> secondIterator = second.iterator();
+		Example firstExample = next(firstIterator);
+		Example secondExample = next(secondIterator);
+		double lastFirstId = Double.NEGATIVE_INFINITY;
+		double lastSecondId = Double.NEGATIVE_INFINITY;
+		while (firstExample != null && secondExample != null) {
+			final double firstValue = firstExample.getValue(firstId);
+			final double secondValue = secondExample.getValue(secondId);
+			if (Double.isNaN(firstValue)) {
+				table.unmatchedRows++;
+				firstExample = next(firstIterator);
+				continue;
+			}
+			if (Double.isNaN(secondValue)) {
+				table.unmatchedColumns++;
+				secondExample = next(secondIterator);
+				continue;
+			}
+			if (firstValue < lastFirstId || secondValue < lastSecondId) {
+				throw new UserError(operator, "cluster_evaluation.unsorted_ids");
+			}
+			lastFirstId = firstValue;
+			lastSecondId = secondValue;
+			if (firstValue < secondValue) {
+				table.unmatchedRows++;
+				firstExample = next(firstIterator);
+			} else if (firstValue > secondValue) {
+				table.unmatchedColumns++;
+				secondExample = next(secondIterator);
+			} else {
+				table.add(getClusterIndex(firstExample, firstCluster), getClusterIndex(secondExample, secondCluster));
+				firstExample = next(firstIterator);
+				secondExample = next(secondIterator);
+			}
+		}
+		for (; firstExample != null; firstExample = next(firstIterator)) {
+			table.unmatchedRows++;
+		}
+		for (; secondExample != null; secondExample = next(secondIterator)) {
+			table.unmatchedColumns++;
+		}
+		return table.withoutEmptyClusters();
+	}
+
+	/**
+	 * Returns id attribute of dataset.
+	 * @param operator operator reporting errors
+	 * @param exampleSet dataset
+	 * @return id attribute
+	 * @throws UserError if dataset has no id attribute
+	 */
+	private static Attribute getIdAttribute(Operator operator, ExampleSet exampleSet) throws UserError {
+		final Attribute id = exampleSet.getAttributes().getId();
+		if (id == null) {
+			throw new UserError(operator, "cluster_evaluation.missing_id");
+		}
+		return id;
+	}
+
+	/**
+	 * Returns next example of iterator.
+	 * @param iterator iterator of examples
+	 * @return example, null at the end
+	 */
+	private static Example next(Iterator<Example> iterator) {
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+
+	/**
+	 * Returns names of values of nominal mapping followed by the missing value.
+	 * @param mapping nominal mapping of cluster attribute
+	 * @return names of clusters
+	 */
+	private static String[] getMappingNames(NominalMapping mapping) {
+		final String[] names = new String[mapping.size() + 1];
+		for (int index = 0; index < mapping.size(); index++) {
+			names[index] = mapping.mapIndex(index);
+		}
+		names[mapping.size()] = Attribute.MISSING_NOMINAL_VALUE;
+		return names;
+	}
+
+	/**
+	 * Returns index of cluster of example in names of {@link #getMappingNames(NominalMapping)}.
+	 * @param example example
+	 * @param cluster cluster attribute
+	 * @return index of cluster
+	 */
+	private static int getClusterIndex(Example example, Attribute cluster) {
+		final double value = example.getValue(cluster);
+		return Double.isNaN(value) ? cluster.getMapping().size() : (int) value;
+	}
+
+	/**
+	 * Returns table without rows and columns of empty clusters.
+	 * @return new table with the same counts of nonempty clusters
+	 */
+	public ContingencyTable withoutEmptyClusters() {
+		final int[] rows = getNonzero(rowSums);
+		final int[] columns = getNonzero(columnSums);
+		final String[] newRowNames = new String[rows.length];
+		for (int row = 0; row < rows.length; row++) {
+			newRowNames[row] = rowNames[rows[row]];
+		}
+		final String[] newColumnNames = new String[columns.length];
+		for (int column = 0; column < columns.length; column++) {
+			newColumnNames[column] = columnNames[columns[column]];
+		}
+		final ContingencyTable table = new ContingencyTable(newRowNames, newColumnNames);
+		for (int row = 0; row < rows.length; row++) {
+			for (int column = 0; column < columns.length; column++) {
+				table.counts[row * columns.length + column] = getCount(rows[row], columns[column]);
+			}
+			table.rowSums[row] = rowSums[rows[row]];
+		}
+		for (int column = 0; column < columns.length; column++) {
+			table.columnSums[column] = columnSums[columns[column]];
+		}
+		table.total = total;
+		table.unmatchedRows = unmatchedRows;
+		table.unmatchedColumns = unmatchedColumns;
+		return table;
+	}
+
+	/**
+	 * Returns indices of nonzero values.
+	 * @param values values
+	 * @return indices in ascending order
+	 */
+	private static int[] getNonzero(long[] values) {
+		int count = 0;
+		for (long value : values) {
+			if (value > 0) {
+				count++;
+			}
+		}
+		final int[] indices = new int[count];
+		count = 0;
+		for (int index = 0; index < values.length; index++) {
+			if (values[index] > 0) {
+				indices[count++] = index;
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Returns names of clusters of partition.
+	 * @param partition examples divided by clusters
+	 * @return names of clusters
+	 */
+	static String[] getClusterNames(ClusterPartition partition) {
+		final String[] names = new String[partition.getNumberOfClusters()];
+		for (int cluster = 0; cluster < names.length; cluster++) {
+			names[cluster] = partition.getClusterName(cluster);
+		}
+		return names;
+	}
+
+	/**
+	 * Matches examples of two datasets of the same size.
+	 * @param first first dataset
+	 * @param second second dataset
+	 * @return row of the second dataset for every row of the first one, null if an id is missing in the second dataset
+	 */
+	static int[] matchRows(ExampleSet first, ExampleSet second) {
+		final int numberOfExamples = first.size();
+		final int[] matchedRows = new int[numberOfExamples];
+		final Attribute firstId = first.getAttributes().getId();
+		final Attribute secondId = second.getAttributes().getId();
+		if (firstId == null || secondId == null) {
+			for (int row = 0; row < numberOfExamples; row++) {
+				matchedRows[row] = row;
+			}
+			return matchedRows;
+		}
+		final double[] firstIds = getIds(first, firstId);
+		final double[] secondIds = getIds(second, secondId);
+		Map<Double, Integer> rowsOfIds = null;
+		for (int row = 0; row < numberOfExamples; row++) {
+			if (firstIds[row] == secondIds[row]) {
+				matchedRows[row] = row;
+			} else {
+				if (rowsOfIds == null) {
+					rowsOfIds = new HashMap<>();
+					for (int secondRow = numberOfExamples - 1; secondRow >= 0; secondRow--) {
+						rowsOfIds.put(secondIds[secondRow], secondRow);
+					}
+				}
+				final Integer secondRow = rowsOfIds.get(firstIds[row]);
+				if (secondRow == null) {
+					return null;
+				}
+				matchedRows[row] = secondRow;
+			}
+		}
+		return matchedRows;
+	}
+
+	/**
+	 * Returns ids of all examples.
+	 * @param exampleSet dataset
+	 * @param idAttribute id attribute
+	 * @return ids indexed by row
+	 */
+	private static double[] getIds(ExampleSet exampleSet, Attribute idAttribute) {
+		final double[] ids = new double[exampleSet.size()];
+		int row = 0;
+		for (Example example : exampleSet) {
+			ids[row++] = example.getValue(idAttribute);
+		}
+		return ids;
+	}
+
+	/**
+	 * Adds one example.
+	 * @param row cluster of the first clustering
+	 * @param column cluster of the second clustering
+	 */
+	public void add(int row, int column) {
+		counts[row * columnNames.length + column]++;
+		rowSums[row]++;
+		columnSums[column]++;
+		total++;
+	}
+
+	/**
+	 * Returns number of pairs of n objects.
+	 * @param n number of objects
+	 * @return n(n-1)/2
+	 */
+	private static long pairs(long n) {
+		return n * (n - 1) / 2;
+	}
+
+	/**
+	 * Returns number of pairs of examples.
+	 * @return number of pairs
+	 */
+	public long getNumberOfPairs() {
+		return pairs(total);
+	}
+
+	/**
+	 * Returns number of pairs of examples which are in the same cluster in both clusterings.
+	 * @return number of pairs
+	 */
+	public long getPairsTogetherInBoth() {
+		long sum = 0;
+		for (long count : counts) {
+			sum += pairs(count);
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns number of pairs of examples which are in the same cluster in the first clustering.
+	 * @return number of pairs
+	 */
+	public long getPairsTogetherInRows() {
+		long sum = 0;
+		for (long count : rowSums) {
+			sum += pairs(count);
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns number of pairs of examples which are in the same cluster in the second clustering.
+	 * @return number of pairs
+	 */
+	public long getPairsTogetherInColumns() {
+		long sum = 0;
+		for (long count : columnSums) {
+			sum += pairs(count);
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns count of cell.
+	 * @param row cluster of the first clustering
+	 * @param column cluster of the second clustering
+	 * @return number of examples
+	 */
+	public long getCount(int row, int column) {
+		return counts[row * columnNames.length + column];
+	}
+
+	public long getRowSum(int row) {
+		return rowSums[row];
+	}
+
+	public long getColumnSum(int column) {
+		return columnSums[column];
+	}
+
+	public int getNumberOfRows() {
+		return rowNames.length;
+	}
+
+	public int getNumberOfColumns() {
+		return columnNames.length;
+	}
+
+	public String getRowName(int row) {
+		return rowNames[row];
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getUnmatchedRows() {
+		return unmatchedRows;
+	}
+
+	public long getUnmatchedColumns() {
+		return unmatchedColumns;
+	}
+}
@@ -0,0 +1,79 @@
+package com.rapidminer.operator;
+
+import java.util.List;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.gui.DaviesBouldinIOObject;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
+import com.rapidminer.operator.ports.metadata.ExampleSetPassThroughRule;
+import com.rapidminer.operator.ports.metadata.ExampleSetPrecondition;
+import com.rapidminer.operator.ports.metadata.SetRelation;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Class represent Davies-Bouldin Index operator. The index uses Euclidean distance of numerical attributes
+ * and is calculated from statistics of clusters accumulated in one pass over the dataset.
+ * @author Jan Jake
+ *
+ */
+public class DaviesBouldin extends Operator {
+
+	/** The parameter name for &quot;Number of threads used for calculation.&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** Input port. */
+	private InputPort exampleSetInput = getInputPorts().createPort("cluster set");
+
+	/** Output port. */
+	private OutputPort indexOutput = getOutputPorts().createPort("davies bouldin index");
+
+	/** Output port. */
+	private OutputPort exampleSetOutput = getOutputPorts().createPort("original cluster set");
+
+	/**
+	 * Constructs a new instance.
+	 * @param description {@link OperatorDescription}
+	 */
+	public DaviesBouldin(OperatorDescription description) {
+		super(description);
+
+		exampleSetInput.addPrecondition(new ExampleSetPrecondition(exampleSetInput, new String[] { "cluster" },
+				Ontology.ATTRIBUTE_VALUE));
+
+		getTransformer().addGenerationRule(indexOutput, DaviesBouldinIOObject.class);
+
+		getTransformer().addRule(new ExampleSetPassThroughRule(exampleSetInput, exampleSetOutput, SetRelation.EQUAL) {
+
+			@Override
+			public ExampleSetMetaData modifyExampleSet(ExampleSetMetaData metaData) throws UndefinedParameterError {
+				return metaData;
+			}
+		});
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		final ExampleSet clusterSet = exampleSetInput.getData(ExampleSet.class);
+		final ClusterPartition partition = new ClusterPartition(clusterSet);
+		final ClusterStatistics statistics = ClusterStatistics.create(partition, getParameterAsInt(PARAMETER_NUMBER_OF_THREADS));
+
+		final DaviesBouldinData daviesBouldinData = new DaviesBouldinData();
+		daviesBouldinData.calculateDaviesBouldinIndex(partition, statistics);
+
+		indexOutput.deliver(new DaviesBouldinIOObject(daviesBouldinData));
+		exampleSetOutput.deliver(clusterSet);
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		final List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "Number of threads used for calculation.", 1, Integer.MAX_VALUE, 1));
+		return types;
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.rapidminer.operator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class for calculating Davies-Bouldin index with Euclidean distance. Scatter of a cluster is the
+ * root mean squared distance of its members to the centroid (the second-order scatter of the
+ * original definition), so the index needs only means and sums of squares of clusters.
+ * @author Jan Jake
+ *
+ */
+public class DaviesBouldinData {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Value of Davies-Bouldin index. */
+	private double daviesBouldinIndex;
+
+	/** Highest similarity of every cluster to another cluster. */
+	private Map<String, Double> mapOfSimilarity = new LinkedHashMap<>();
+
+	/** Scatter of every cluster. */
+	private Map<String, Double> mapOfScatter = new LinkedHashMap<>();
+
+	/** Constructs a new instance. */
+	public DaviesBouldinData() { }
+
+	/**
+	 * Calculates Davies-Bouldin index value.
+	 * @param partition examples divided by clusters
+	 * @param statistics statistics of clusters
+	 */
+	public void calculateDaviesBouldinIndex(ClusterPartition partition, ClusterStatistics statistics) {
+		final int numberOfClusters = statistics.getNumberOfClusters();
+		final double[] scatters = new double[numberOfClusters];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			scatters[cluster] = statistics.getScatter(cluster);
+			mapOfScatter.put(partition.getClusterName(cluster), scatters[cluster]);
+		}
+		if (numberOfClusters < 2) {
+			this.daviesBouldinIndex = 0.0;
+			return;
+		}
+		double sum = 0.0;
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			double maxSimilarity = 0.0;
+			for (int other = 0; other < numberOfClusters; other++) {
+				if (other != cluster) {
+					maxSimilarity = Math.max(maxSimilarity, getSimilarity(scatters[cluster] + scatters[other],
+							statistics.getCentroidDistance(cluster, other)));
+				}
+			}
+			mapOfSimilarity.put(partition.getClusterName(cluster), maxSimilarity);
+			sum += maxSimilarity;
+		}
+		this.daviesBouldinIndex = sum / numberOfClusters;
+	}
+
+	/**
+	 * Returns similarity of two clusters.
+	 * @param scatter sum of scatters of clusters
+	 * @param distance distance of centroids
+	 * @return similarity, infinity for distinct clusters with the same centroid
+	 */
+	private double getSimilarity(double scatter, double distance) {
+		if (distance == 0.0) {
+			return scatter == 0.0 ? 0.0 : Double.POSITIVE_INFINITY;
+		}
+		return scatter / distance;
+	}
+
+	public double getDaviesBouldinIndex() {
+		return daviesBouldinIndex;
+	}
+
+	public Map<String, Double> getClusterSimilarity() {
+		return mapOfSimilarity;
+	}
+
+	public Map<String, Double> getClusterScatter() {
+		return mapOfScatter;
+	}
+}
@@ -1,6 +1,13 @@
 package com.rapidminer.operator;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.operator.gui.DensityIOObject;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
@@ -8,12 +15,21 @@ import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetPassThroughRule;
 import com.rapidminer.operator.ports.metadata.ExampleSetPrecondition;
 import com.rapidminer.operator.ports.metadata.SetRelation;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeDouble;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.RandomGenerator;
 
 
 /**
- * Class represent Density operator.
+ * Class represent Density operator. Besides typical values it delivers typed statistics of every
+ * attribute of the whole dataset and of every cluster as an example set. Statistics skip missing
+ * values, while the typical value of a numerical attribute counts missing values as the largest
+ * ones, so the two medians differ for attributes with missing values.
  * @author Jan Jake
  *
  */
@@ -21,6 +37,29 @@ public class Density extends Operator {
 	
 	/** The parameter name for &quot;Indicates the direction of the sorting.&quot; */
 	public static final String PARAMETER_SORTING_DIRECTION = "sorting_direction";
+
+	/** The parameter name for &quot;Find typical values approximately by sketches of bounded memory in one pass.&quot; */
+	public static final String PARAMETER_APPROXIMATE = "approximate";
+
+	/** The parameter name for &quot;Maximum rank error of medians relative to the number of values.&quot; */
+	public static final String PARAMETER_RANK_ERROR = "rank_error";
+
+	/** The parameter name for &quot;Maximum error of counts of nominal values relative to the number of values.&quot; */
+	public static final String PARAMETER_FREQUENCY_ERROR = "frequency_error";
+
+	/** The parameter name for &quot;Number of threads used for calculation.&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** Name of attribute of profiles with the most frequent nominal value. */
+	private static final String MODE_ATTRIBUTE = "mode";
+
+	/** Names of attributes of profiles after the cluster and attribute names, in the order of {@link #getProfileValues(ProfileStatistics, double, Attribute)}. */
+	private static final String[] PROFILE_ATTRIBUTES = { "median", "mean", "variance", "interquartile range", MODE_ATTRIBUTE,
+			"mode frequency", "entropy", "error bound" };
+
+	/** Value types of attributes of profiles. */
+	private static final int[] PROFILE_TYPES = { Ontology.REAL, Ontology.REAL, Ontology.REAL, Ontology.REAL, Ontology.NOMINAL,
+			Ontology.INTEGER, Ontology.REAL, Ontology.REAL };
 	
 	/** Input port. */
 	private InputPort exampleSetInput = getInputPorts().createPort("cluster set");
@@ -30,6 +69,9 @@ public class Density extends Operator {
 	
 	/** Output port. */
 	private OutputPort exampleSetOutput = getOutputPorts().createPort("original cluster set");
+
+	/** Output port of statistics of attributes, their median skips missing values unlike the typical value. */
+	private OutputPort profileOutput = getOutputPorts().createPort("cluster profiles");
 	
 	
 	/**
@@ -44,6 +86,7 @@ public class Density extends Operator {
 		
 		
 		getTransformer().addGenerationRule(densityOutput, DensityIOObject.class);
+		getTransformer().addGenerationRule(profileOutput, ExampleSet.class);
 		getTransformer().addRule(new ExampleSetPassThroughRule(exampleSetInput, exampleSetOutput, SetRelation.EQUAL) {
 
 			@Override			
@@ -58,12 +101,86 @@ public class Density extends Operator {
 	public void doWork() throws OperatorException {
 		final ExampleSet exampleSet = exampleSetInput.getData(ExampleSet.class);
 		
-		final DensityData densityData = new DensityData(exampleSet);
+		final int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+		final DensityData densityData;
+		if (getParameterAsBoolean(PARAMETER_APPROXIMATE)) {
+			final ClusterPartition partition = new ClusterPartition(exampleSet);
+			densityData = new DensityData(ClusterProfile.createSketches(partition, getParameterAsDouble(PARAMETER_RANK_ERROR),
+					getParameterAsDouble(PARAMETER_FREQUENCY_ERROR), RandomGenerator.getRandomGenerator(this)), numberOfThreads);
+		} else {
+			densityData = new DensityData(exampleSet, numberOfThreads);
+		}
 		
 		final DensityIOObject densityIOObject = new DensityIOObject(densityData);				
 		
 		densityOutput.deliver(densityIOObject);
 		exampleSetOutput.deliver(exampleSet);
+		profileOutput.deliver(createProfileSet(densityData));
+	}
+
+	/**
+	 * Creates example set of typed statistics, one example for every attribute of the whole dataset
+	 * and of every cluster.
+	 * @param densityData calculated typical values and statistics
+	 * @return example set
+	 */
+	static ExampleSet createProfileSet(DensityData densityData) {
+		final Attribute[] profiledAttributes = densityData.getProfile().getAttributes();
+		final List<Attribute> attributes = new ArrayList<>();
+		final Attribute clusterAttribute = AttributeFactory.createAttribute("cluster", Ontology.NOMINAL);
+		final Attribute nameAttribute = AttributeFactory.createAttribute("attribute", Ontology.NOMINAL);
+		attributes.add(clusterAttribute);
+		attributes.add(nameAttribute);
+		Attribute modeAttribute = null;
+		for (int i = 0; i < PROFILE_ATTRIBUTES.length; i++) {
+			final Attribute profileAttribute = AttributeFactory.createAttribute(PROFILE_ATTRIBUTES[i], PROFILE_TYPES[i]);
+			if (PROFILE_ATTRIBUTES[i].equals(MODE_ATTRIBUTE)) {
+				modeAttribute = profileAttribute;
+			}
+			attributes.add(profileAttribute);
+		}
+		final MemoryExampleTable table = new MemoryExampleTable(attributes);
+		for (int row = 0; row < densityData.getNumberOfProfileRows(); row++) {
+			final double[] profileValues = getProfileValues(densityData.getProfileStatistics(row), densityData.getProfileErrorBound(row),
+					modeAttribute);
+			final double[] values = new double[attributes.size()];
+			values[0] = clusterAttribute.getMapping().mapString(densityData.getProfileClusterName(row));
+			values[1] = nameAttribute.getMapping().mapString(profiledAttributes[densityData.getProfileAttribute(row)].getName());
+			System.arraycopy(profileValues, 0, values, values.length - profileValues.length, profileValues.length);
+			table.addDataRow(new DoubleArrayDataRow(values));
+		}
+		return table.createExampleSet();
+	}
+
+	/**
+	 * Returns values of one example of profiles in the order of {@link #PROFILE_ATTRIBUTES}.
+	 * @param statistics statistics of attribute
+	 * @param errorBound error bound of typical values of attribute
+	 * @param modeAttribute attribute with the most frequent nominal value
+	 * @return values
+	 */
+	private static double[] getProfileValues(ProfileStatistics statistics, double errorBound, Attribute modeAttribute) {
+		return new double[] { statistics.getMedian(), statistics.getMean(), statistics.getVariance(), statistics.getInterquartileRange(),
+				statistics.getMode() == null ? Double.NaN : modeAttribute.getMapping().mapString(statistics.getMode()),
+				statistics.getModeFrequency(), statistics.getEntropy(), errorBound };
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		final List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "Number of threads used for calculation.", 1, Integer.MAX_VALUE, 1));
+		types.add(new ParameterTypeBoolean(PARAMETER_APPROXIMATE, "Find typical values approximately by sketches of bounded memory in one pass, for example sets too large for exact medians.", false));
+		ParameterType type = new ParameterTypeDouble(PARAMETER_RANK_ERROR, "Maximum rank error of medians relative to the number of values, reached with probability 99%.", 0.0001, 0.5, 0.01);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_APPROXIMATE, false, true));
+		types.add(type);
+		type = new ParameterTypeDouble(PARAMETER_FREQUENCY_ERROR, "Maximum error of counts of nominal values relative to the number of values.", 0.00001, 0.5, 0.001);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_APPROXIMATE, false, true));
+		types.add(type);
+		for (ParameterType randomType : RandomGenerator.getRandomGeneratorParameters(this)) {
+			randomType.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_APPROXIMATE, false, true));
+			types.add(randomType);
+		}
+		return types;
 	}
 }
 
@@ -1,18 +1,11 @@
 package com.rapidminer.operator;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import com.rapidminer.example.Attribute;
-import com.rapidminer.example.Attributes;
-import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.set.SortedExampleSet;
 
 /**
  * Class for finding typical values.
@@ -23,226 +16,249 @@ public class DensityData {
 
 	/** Version. */
 	private static final long serialVersionUID = 1L;
+
+	/** Minimum average number of values summarized by one block of cells processed by one thread. */
+	private static final int MIN_BLOCK_VALUES = 10000;
+
+	/** Name of the whole dataset in the cluster column of the profile table. */
+	public static final String DATASET_NAME = "dataset";
 	
 	/** Complete dataset. */ 
 	private ExampleSet exampleSet;
 	
-	/** Map of object by clusters.  */
-	private Map<String, List <Example>> separatedMap;
+	/** Examples divided by clusters. */
+	private ClusterPartition partition;
+	
+	/** Profile of attributes collected in one pass. */
+	private ClusterProfile profile;
 	
 	/** Map of typical values of complete dataset. */
 	private Map<String, List<String>> typicalValues;
 
 	/** Map of typical values of clusters */
 	private Map<String, Map<String, List<String>>> typicalValuesOfCluster;
+
+	/** Map of error bounds of typical values of complete dataset, in number of examples. */
+	private Map<String, Double> errorBounds;
+
+	/** Map of error bounds of typical values of clusters, in number of examples. */
+	private Map<String, Map<String, Double>> errorBoundsOfCluster;
+
+	/** Statistics of attributes of complete dataset, in the order of attributes of profile. */
+	private ProfileStatistics[] statistics;
+
+	/** Statistics of attributes of clusters indexed by cluster and attribute of profile. */
+	private ProfileStatistics[][] statisticsOfCluster;
+
+	/** Typical values of rows of the profile table, see {@link #getNumberOfProfileRows()}. */
+	private List<String>[] typicalValuesOfRow;
 	
 	/** Constructs a new instance. */
 	public DensityData(ExampleSet exampleSet) {
-		this.exampleSet = exampleSet;
-		final ClusterSeparator clusterSeparator = new ClusterSeparator(this.exampleSet);
-		this.separatedMap = clusterSeparator.getSeparatedClusters();
-		calculateTypicalValues(this.exampleSet);
-		calculateTypicalValuesOfClusters(this.separatedMap, this.exampleSet.getAttributes());
+		this(exampleSet, 1);
 	}
-	
-	
-	
+
 	/**
-	 * Finds all typical values.
-	 * @param separatedMap map of object by clusters.
-	 * @param attributes @link{Attributes} attributes of dataset
+	 * Constructs a new instance.
+	 * @param exampleSet clustered dataset
+	 * @param numberOfThreads number of threads finding typical values
 	 */
-	private void calculateTypicalValuesOfClusters(Map<String, List <Example>> separatedMap, Attributes attributes) {
-		this.typicalValuesOfCluster = new HashMap<>();
-		for (String key : separatedMap.keySet()) {
-			this.typicalValuesOfCluster.put(key, getTypicalValuesOfCluster(separatedMap.get(key), attributes));
-		}
+	public DensityData(ExampleSet exampleSet, int numberOfThreads) {
+		this(ClusterProfile.create(new ClusterPartition(exampleSet)), numberOfThreads);
 	}
-	
-	
+
 	/**
-	 * Finds typical values of clusters.
-	 * @param cluster objects of cluster
-	 * @param attributes @link{Attributes} attributes of dataset
-	 * @return map of typical values of cluster
+	 * Constructs a new instance from an already collected profile.
+	 * @param profile exact or approximate profile of clustered dataset
 	 */
-	private Map<String, List<String>> getTypicalValuesOfCluster(List<Example> cluster, Attributes attributes) {		
-		Map<String, List<String>> typicalValues = new HashMap<String, List<String>>();
-		Iterator<Attribute> attributeIterator = attributes.allAttributes();
-		while (attributeIterator.hasNext()) {
-			Attribute attribute = attributeIterator.next();
-			if (attribute.isNominal()) {
-				typicalValues.put(attribute.getName(), getNominalTypicalValueOfCluster(cluster, attribute));
-			} else if (attribute.isNumerical()) {
-				typicalValues.put(attribute.getName(), getNumericalTypicalValueOfCluster(cluster, attribute));
-			}
-		}
-		return typicalValues;
+	public DensityData(ClusterProfile profile) {
+		this(profile, 1);
+	}
+
+	/**
+	 * Constructs a new instance from an already collected profile.
+	 * @param profile exact or approximate profile of clustered dataset
+	 * @param numberOfThreads number of threads finding typical values
+	 */
+	public DensityData(ClusterProfile profile, int numberOfThreads) {
+		this.partition = profile.getPartition();
+		this.exampleSet = this.partition.getClusterSet();
+		this.profile = profile;
+		calculateTypicalValues(numberOfThreads);
 	}
 	
 	
 	/**
-	 * Finds typical value of cluster for nominal attribute.
-	 * @param cluster objects of cluster
-	 * @param attribute selected attribute
-	 * @return list of nominal typical values
+	 * Finds typical values and statistics of dataset and of clusters from the profile of attributes. Every pair
+	 * of attribute and cluster is an independent cell, cells are computed in parallel in blocks of
+	 * consecutive cells of one or more attributes, so cells of small clusters are batched together.
+	 * Maps are filled afterwards in the same order as by one thread.
+	 * @param numberOfThreads number of threads
 	 */
-	private List<String> getNominalTypicalValueOfCluster(List<Example> cluster, Attribute attribute) {
-		final Map<String, Integer> nominalCount = new HashMap<>(); 
-		for (int i = 0; i < cluster.size(); i++) {
-			final Example example = cluster.get(i);
-			final String attributeValue = example.getNominalValue(attribute);	
-			if (nominalCount.containsKey(attributeValue)) {
-				Integer count = nominalCount.get(attributeValue);
-				count++;
-				nominalCount.put(attributeValue, count);
-			} else {
-				nominalCount.put(attributeValue, 0);
+	@SuppressWarnings("unchecked")
+	private void calculateTypicalValues(int numberOfThreads) {
+		final Attribute[] attributes = profile.getAttributes();
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final int cellsPerAttribute = numberOfClusters + 1;
+		final int numberOfCells = attributes.length * cellsPerAttribute;
+		final List<String>[] cellValues = new List[numberOfCells];
+		final double[] cellBounds = new double[numberOfCells];
+		final ProfileStatistics[] cellStatistics = new ProfileStatistics[numberOfCells];
+		final long valuesPerCell = Math.max(1L, 2L * partition.getNumberOfExamples() / cellsPerAttribute);
+		new BlockTask((int) Math.min(numberOfCells, MIN_BLOCK_VALUES / valuesPerCell + 1)) {
+
+			@Override
+			protected void process(int from, int to) {
+				for (int cell = from; cell < to; cell++) {
+					final int attribute = cell / cellsPerAttribute;
+					final int cluster = cell % cellsPerAttribute - 1;
+					if (cluster < 0) {
+						cellValues[cell] = profile.getTypicalValues(attribute);
+						cellBounds[cell] = profile.getErrorBound(attribute);
+						cellStatistics[cell] = profile.getStatistics(attribute);
+					} else {
+						cellValues[cell] = profile.getTypicalValues(attribute, cluster);
+						cellBounds[cell] = profile.getErrorBound(attribute, cluster);
+						cellStatistics[cell] = profile.getStatistics(attribute, cluster);
+					}
+				}
 			}
+		}.execute(numberOfCells, numberOfThreads);
+
+		this.typicalValues = new HashMap<>();
+		this.errorBounds = new HashMap<>();
+		this.statistics = new ProfileStatistics[attributes.length];
+		for (int attribute = 0; attribute < attributes.length; attribute++) {
+			this.statistics[attribute] = cellStatistics[attribute * cellsPerAttribute];
+			this.typicalValues.put(attributes[attribute].getName(), cellValues[attribute * cellsPerAttribute]);
+			this.errorBounds.put(attributes[attribute].getName(), cellBounds[attribute * cellsPerAttribute]);
 		}
-		List<String> typicalValue = new ArrayList<>();
-		Integer maxCount = 2;
-		for (String key : nominalCount.keySet()) {
-			final Integer count = nominalCount.get(key);
-			if (maxCount < count) {
-				typicalValue = new ArrayList<>();
-				typicalValue.add(key);
-				maxCount = count;
-			} else if (maxCount == count) {
-				typicalValue.add(key);
+		this.typicalValuesOfRow = new List[numberOfCells];
+		for (int row = 0; row < numberOfCells; row++) {
+			this.typicalValuesOfRow[row] = cellValues[(row % attributes.length) * cellsPerAttribute + row / attributes.length];
+		}
+		this.typicalValuesOfCluster = new HashMap<>();
+		this.errorBoundsOfCluster = new HashMap<>();
+		this.statisticsOfCluster = new ProfileStatistics[numberOfClusters][attributes.length];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			final Map<String, List<String>> clusterValues = new HashMap<>();
+			final Map<String, Double> clusterBounds = new HashMap<>();
+			for (int attribute = 0; attribute < attributes.length; attribute++) {
+				clusterValues.put(attributes[attribute].getName(), cellValues[attribute * cellsPerAttribute + cluster + 1]);
+				clusterBounds.put(attributes[attribute].getName(), cellBounds[attribute * cellsPerAttribute + cluster + 1]);
+				this.statisticsOfCluster[cluster][attribute] = cellStatistics[attribute * cellsPerAttribute + cluster + 1];
 			}
+			this.typicalValuesOfCluster.put(partition.getClusterName(cluster), clusterValues);
+			this.errorBoundsOfCluster.put(partition.getClusterName(cluster), clusterBounds);
 		}
-		return typicalValue;
 	}
 	
 	
-	/**
-	 * Finds typical value of cluster for numerical attribute.
-	 * @param cluster objects of cluster
-	 * @param attribute selected attribute
-	 * @return list of numerical typical values for given attribute
-	 */
-	private List<String> getNumericalTypicalValueOfCluster(List<Example> cluster, Attribute attribute) {
-		Collections.sort(cluster, new ExampleComparator(attribute));
-		final Integer centerIndex;		
-		if (cluster.size() != 0 && (cluster.size() % 2) == 0) {
-			centerIndex = (cluster.size() / 2) - 1;
-		} else {
-			centerIndex = cluster.size() / 2;
-		}
-		List<String> typicalValue = new ArrayList<>();
-		typicalValue.add(cluster.get(centerIndex).getValueAsString(attribute));
-		return typicalValue;
+	public ExampleSet getExampleSet() {
+		return this.exampleSet;
+	}	
+
+	public ClusterPartition getPartition() {
+		return this.partition;
 	}
 	
+	public Map<String, List<String>> getTypicalValues() {
+		return this.typicalValues;
+	}
 	
+	public Map<String, Map<String, List<String>>> getTypicalValuesOfCluster() {
+		return this.typicalValuesOfCluster;
+	}
+	
+	public ClusterProfile getProfile() {
+		return this.profile;
+	}
+
+	public Map<String, Double> getErrorBounds() {
+		return this.errorBounds;
+	}
+
+	public Map<String, Map<String, Double>> getErrorBoundsOfCluster() {
+		return this.errorBoundsOfCluster;
+	}
+
+	public ProfileStatistics[] getStatistics() {
+		return this.statistics;
+	}
+
+	public ProfileStatistics[][] getStatisticsOfCluster() {
+		return this.statisticsOfCluster;
+	}
+
+	public boolean isApproximate() {
+		return this.profile.isApproximate();
+	}
+
 	/**
-	 * Finds typical values of dataset.
-	 * @param exampleSet dataset
+	 * Returns number of rows of the profile table, one for every attribute of the whole dataset
+	 * followed by one for every attribute of every cluster, so a view may page over them.
+	 * @return number of rows
 	 */
-	private void calculateTypicalValues(ExampleSet exampleSet) {
-		this.typicalValues = new HashMap<String, List<String>>();
-		final Attributes attributes = exampleSet.getAttributes();
-		Iterator<Attribute> attributeIterator = attributes.allAttributes();
-		while (attributeIterator.hasNext()) {
-			Attribute attribute = attributeIterator.next();
-			if (attribute.isNominal()) {
-				this.typicalValues.put(attribute.getName(), getNominalTypicalValue(exampleSet, attribute));
-			} else if (attribute.isNumerical()) {
-				this.typicalValues.put(attribute.getName(), getNumericalTypicalValue(exampleSet, attribute));
-			}
-		}
+	public int getNumberOfProfileRows() {
+		return this.typicalValuesOfRow.length;
 	}
-	
-	
+
 	/**
-	 * Finds typical value of dataset for nominal attribute.
-	 * @param exampleSet dataset
-	 * @param attribute selected attribute
-	 * @return list of nominal typical value for given attribute
+	 * Returns cluster of row of the profile table.
+	 * @param row row of the profile table
+	 * @return index of cluster, -1 for the whole dataset
 	 */
-	private List<String> getNominalTypicalValue(ExampleSet exampleSet, Attribute attribute) {
-		final Map<String, Integer> nominalCount = new HashMap<>(); 
-		for (int i = 0; i < exampleSet.size(); i++) {
-			final Example example = exampleSet.getExample(i);
-			final String attributeValue = example.getNominalValue(attribute);	
-			if (nominalCount.containsKey(attributeValue)) {
-				Integer count = nominalCount.get(attributeValue);
-				count++;
-				nominalCount.put(attributeValue, count);				
-			} else {
-				nominalCount.put(attributeValue, 0);
-			}
-		}
-		
-		List<String> typicalValue = new ArrayList<>();
-		Integer maxCount = 2;
-		for (String key : nominalCount.keySet()) {
-			final Integer count = nominalCount.get(key);
-			if (maxCount < count) {
-				typicalValue = new ArrayList<>();
-				typicalValue.add(key);
-				maxCount = count;
-			} else if (maxCount == count) {
-				typicalValue.add(key);
-			}
-		}
-		return typicalValue;
+	public int getProfileCluster(int row) {
+		return row / this.statistics.length - 1;
 	}
-	
-	
+
 	/**
-	 * Finds typical value of dataset for numerical attribute.
-	 * @param exampleSet dataset
-	 * @param attribute selected attribute
-	 * @return list of numerical typical value for given attribute
+	 * Returns attribute of row of the profile table.
+	 * @param row row of the profile table
+	 * @return index of attribute of profile
 	 */
-	private List<String> getNumericalTypicalValue(ExampleSet exampleSet, Attribute attribute) { 
-		final ExampleSet sortedExampleSet = new SortedExampleSet(exampleSet, attribute, SortedExampleSet.INCREASING);
-		final Integer centerIndex;
-		if (sortedExampleSet.size() != 0 && (sortedExampleSet.size() % 2) == 0) {
-			centerIndex = (sortedExampleSet.size() / 2) - 1;
-		} else {
-			centerIndex = sortedExampleSet.size() / 2;
-		}
-		List<String> typicalValue = new ArrayList<>();
-		typicalValue.add(sortedExampleSet.getExample(centerIndex).getValueAsString(attribute));
-		return typicalValue;
+	public int getProfileAttribute(int row) {
+		return row % this.statistics.length;
 	}
-	
-	
+
 	/**
-	 *  Example comparator for numerical attributes.
-	 * @author Jan Jake
-	 *
+	 * Returns name of cluster of row of the profile table.
+	 * @param row row of the profile table
+	 * @return name of cluster, {@link #DATASET_NAME} for the whole dataset
 	 */
-	class ExampleComparator implements Comparator<Example> {		
-		private Attribute attribute;
-		
-		public ExampleComparator(Attribute attribute) {
-			this.attribute = attribute;
-		}
-		
-	    @Override
-	    public int compare(Example e1, Example e2) {
-	        return ((Double) e1.getNumericalValue(attribute)).compareTo(((Double) e2.getNumericalValue(attribute)));
-	    }
+	public String getProfileClusterName(int row) {
+		final int cluster = getProfileCluster(row);
+		return cluster < 0 ? DATASET_NAME : this.partition.getClusterName(cluster);
 	}
-	
-	public ExampleSet getExampleSet() {
-		return this.exampleSet;
-	}	
 
-	public Map<String, List <Example>> getSeparatedMap() {
-		return this.separatedMap;
+	/**
+	 * Returns statistics of row of the profile table.
+	 * @param row row of the profile table
+	 * @return {@link ProfileStatistics}
+	 */
+	public ProfileStatistics getProfileStatistics(int row) {
+		final int cluster = getProfileCluster(row);
+		return cluster < 0 ? this.statistics[getProfileAttribute(row)] : this.statisticsOfCluster[cluster][getProfileAttribute(row)];
 	}
-	
-	public Map<String, List<String>> getTypicalValues() {
-		return this.typicalValues;
+
+	/**
+	 * Returns typical values of row of the profile table.
+	 * @param row row of the profile table
+	 * @return typical values, empty if there is none
+	 */
+	public List<String> getProfileTypicalValues(int row) {
+		return this.typicalValuesOfRow[row];
 	}
-	
-	public Map<String, Map<String, List<String>>> getTypicalValuesOfCluster() {
-		return this.typicalValuesOfCluster;
+
+	/**
+	 * Returns error bound of typical values of row of the profile table.
+	 * @param row row of the profile table
+	 * @return error in number of examples, 0 for exact values
+	 */
+	public double getProfileErrorBound(int row) {
+		final int cluster = getProfileCluster(row);
+		return cluster < 0 ? this.profile.getErrorBound(getProfileAttribute(row))
+				: this.profile.getErrorBound(getProfileAttribute(row), cluster);
 	}
 	
 }
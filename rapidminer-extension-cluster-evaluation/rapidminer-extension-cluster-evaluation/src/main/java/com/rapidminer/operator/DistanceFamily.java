@@ -0,0 +1,106 @@
+package com.rapidminer.operator;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.divergences.BregmanDivergence;
+import com.rapidminer.tools.math.similarity.divergences.MahalanobisDistance;
+import com.rapidminer.tools.math.similarity.divergences.SquaredEuclideanDistance;
+import com.rapidminer.tools.math.similarity.divergences.SquaredLoss;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+/**
+ * Families of distance measures with properties evaluation may rely on.
+ * @author Jan Jake
+ *
+ */
+public enum DistanceFamily {
+
+	/** Euclidean distance, a metric whose natural cluster representative is the centroid. */
+	EUCLIDEAN(true, true),
+
+	/** Other metrics, e.g. Manhattan or Chebychev distance. */
+	METRIC(true, false),
+
+	/** Bregman divergences, the centroid minimizes the sum of divergences of cluster members to it. */
+	BREGMAN(false, true),
+
+	/** Measures without known properties. */
+	OTHER(false, false);
+
+	/** Divergences which are symmetric, most of them are not. */
+	private static final Set<Class<? extends DistanceMeasure>> SYMMETRIC_DIVERGENCES = new HashSet<Class<? extends DistanceMeasure>>(
+			Arrays.asList(SquaredEuclideanDistance.class, MahalanobisDistance.class, SquaredLoss.class));
+
+	/** Triangle inequality holds. */
+	private boolean metric;
+
+	/** Centroid is a meaningful representative of cluster. */
+	private boolean centroid;
+
+	private DistanceFamily(boolean metric, boolean centroid) {
+		this.metric = metric;
+		this.centroid = centroid;
+	}
+
+	/**
+	 * Returns whether the triangle inequality holds.
+	 * @return true for metrics
+	 */
+	public boolean isMetric() {
+		return metric;
+	}
+
+	/**
+	 * Returns whether centroid is a meaningful representative of cluster.
+	 * @return true if distances to centroids may replace distances to members
+	 */
+	public boolean hasCentroid() {
+		return centroid;
+	}
+
+	/**
+	 * Returns family of given measure. Metrics are recognized by their exact class, so a subclass
+	 * changing the distance is not taken for a metric, divergences by their common superclass.
+	 * @param measure selected measure
+	 * @return {@link DistanceFamily}
+	 */
+	public static DistanceFamily of(DistanceMeasure measure) {
+		if (isMeasure(measure, EuclideanDistance.class)) {
+			return EUCLIDEAN;
+		}
+		if (isMeasure(measure, ManhattanDistance.class) || isMeasure(measure, ChebychevNumericalDistance.class)) {
+			return METRIC;
+		}
+		if (measure instanceof BregmanDivergence) {
+			return BREGMAN;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * Returns whether measure is exactly of given class, not of its subclass.
+	 * @param measure selected measure
+	 * @param measureClass class of measure
+	 * @return true if the class of measure is the given class
+	 */
+	public static boolean isMeasure(DistanceMeasure measure, Class<? extends DistanceMeasure> measureClass) {
+		return measure.getClass() == measureClass;
+	}
+
+	/**
+	 * Returns whether given measure is symmetric, all measures except most divergences are.
+	 * @param measure selected measure
+	 * @return true for symmetric measure
+	 */
+	public static boolean isSymmetric(DistanceMeasure measure) {
+		if (measure instanceof BregmanDivergence) {
+			return SYMMETRIC_DIVERGENCES.contains(measure.getClass());
+		}
+		return true;
+	}
+}
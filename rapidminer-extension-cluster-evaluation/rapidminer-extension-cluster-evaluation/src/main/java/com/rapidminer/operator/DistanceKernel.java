@@ -0,0 +1,336 @@
+package com.rapidminer.operator;
+
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.divergences.SquaredEuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.CosineSimilarity;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+/**
+ * Distance between rows of a {@link FeatureMatrix} addressed by their positions.
+ * Kernels keep their own working buffers, so every thread has to use its own instance
+ * obtained by {@link #copy()}.
+ * @author Jan Jake
+ *
+ */
+public abstract class DistanceKernel {
+
+	/**
+	 * Returns distance of two rows.
+	 * @param first position of first row
+	 * @param second position of second row
+	 * @return distance
+	 */
+	public abstract double distance(int first, int second);
+
+	/**
+	 * Returns new kernel with the same distances and own working buffers.
+	 * @return {@link DistanceKernel}
+	 */
+	public abstract DistanceKernel copy();
+
+	/**
+	 * Returns whether distance(i, j) equals distance(j, i), so every distance may be used for both rows.
+	 * @return true for symmetric distances
+	 */
+	public abstract boolean isSymmetric();
+
+	/**
+	 * Creates kernel for given measure. Euclidean, squared Euclidean, Manhattan, Chebychev and cosine
+	 * distance are calculated by specialized kernels directly from values of the matrix, other measures
+	 * by {@link DistanceMeasure#calculateDistance(double[], double[])}. Kernels are selected by the class
+	 * of measure, see {@link DistanceFamily}.
+	 * @param matrix values of examples
+	 * @param measure initialized measure
+	 * @return {@link DistanceKernel}
+	 */
+	public static DistanceKernel create(FeatureMatrix matrix, DistanceMeasure measure) {
+		final DistanceKernel valueKernel = createValueKernel(matrix, measure);
+		return valueKernel != null ? valueKernel : new MeasureKernel(matrix, measure);
+	}
+
+	/**
+	 * Creates specialized kernel of given measure.
+	 * @param matrix values of examples
+	 * @param measure initialized measure
+	 * @return {@link DistanceKernel}, null if the measure has no specialized kernel
+	 */
+	private static DistanceKernel createValueKernel(FeatureMatrix matrix, DistanceMeasure measure) {
+		if (DistanceFamily.isMeasure(measure, EuclideanDistance.class)) {
+			return new EuclideanKernel(matrix);
+		}
+		if (DistanceFamily.isMeasure(measure, SquaredEuclideanDistance.class)) {
+			return new SquaredEuclideanKernel(matrix);
+		}
+		if (DistanceFamily.isMeasure(measure, ManhattanDistance.class)) {
+			return new ManhattanKernel(matrix);
+		}
+		if (DistanceFamily.isMeasure(measure, ChebychevNumericalDistance.class)) {
+			return new ChebychevKernel(matrix);
+		}
+		if (DistanceFamily.isMeasure(measure, CosineSimilarity.class)) {
+			return new CosineKernel(matrix);
+		}
+		return null;
+	}
+
+	/**
+	 * Creates kernel reading precomputed distances.
+	 * @param matrix distances of examples addressed by row indices
+	 * @param partition examples divided by clusters, positions are mapped to rows by its members
+	 * @return {@link DistanceKernel}
+	 */
+	public static DistanceKernel create(DistanceMatrixData matrix, ClusterPartition partition) {
+		return new MatrixKernel(matrix, partition.getMembers());
+	}
+
+	/**
+	 * Kernel delegating to {@link DistanceMeasure#calculateDistance(double[], double[])}.
+	 * Rows are copied to reused buffers, the first row only when it changes.
+	 */
+	private static class MeasureKernel extends DistanceKernel {
+
+		/** Values of examples. */
+		private FeatureMatrix matrix;
+
+		/** Selected measure. */
+		private DistanceMeasure measure;
+
+		/** Values of first row. */
+		private double[] firstValues;
+
+		/** Values of second row. */
+		private double[] secondValues;
+
+		/** Position of row held in first buffer. */
+		private int firstPosition = -1;
+
+		/** Symmetry of measure. */
+		private boolean symmetric;
+
+		private MeasureKernel(FeatureMatrix matrix, DistanceMeasure measure) {
+			this.matrix = matrix;
+			this.measure = measure;
+			this.symmetric = DistanceFamily.isSymmetric(measure);
+			this.firstValues = new double[matrix.getNumberOfColumns()];
+			this.secondValues = new double[matrix.getNumberOfColumns()];
+		}
+
+		@Override
+		public double distance(int first, int second) {
+			if (first != firstPosition) {
+				matrix.copyRow(first, firstValues);
+				firstPosition = first;
+			}
+			matrix.copyRow(second, secondValues);
+			return measure.calculateDistance(firstValues, secondValues);
+		}
+
+		@Override
+		public DistanceKernel copy() {
+			return new MeasureKernel(matrix, measure);
+		}
+
+		@Override
+		public boolean isSymmetric() {
+			return symmetric;
+		}
+	}
+
+	/**
+	 * Kernel calculating distances directly from values of a {@link FeatureMatrix}, it has no working buffers.
+	 * Missing values are skipped as {@link DistanceMeasure} does, the distance of rows without a common
+	 * value is missing.
+	 */
+	private abstract static class ValueKernel extends DistanceKernel {
+
+		/** Values of rows. */
+		protected final double[] values;
+
+		/** Number of values of one row. */
+		protected final int dimensions;
+
+		private ValueKernel(FeatureMatrix matrix) {
+			this.values = matrix.getValues();
+			this.dimensions = matrix.getNumberOfColumns();
+		}
+
+		@Override
+		public DistanceKernel copy() {
+			return this;
+		}
+
+		@Override
+		public boolean isSymmetric() {
+			return true;
+		}
+	}
+
+	/** Euclidean distance. */
+	private static final class EuclideanKernel extends ValueKernel {
+
+		private EuclideanKernel(FeatureMatrix matrix) {
+			super(matrix);
+		}
+
+		@Override
+		public double distance(int first, int second) {
+			final int firstOffset = first * dimensions;
+			final int secondOffset = second * dimensions;
+			double sum = 0.0;
+			int counter = 0;
+			for (int column = 0; column < dimensions; column++) {
+				final double firstValue = values[firstOffset + column];
+				final double secondValue = values[secondOffset + column];
+				if (!Double.isNaN(firstValue) && !Double.isNaN(secondValue)) {
+					final double difference = firstValue - secondValue;
+					sum += difference * difference;
+					counter++;
+				}
+			}
+			return counter > 0 ? Math.sqrt(sum) : Double.NaN;
+		}
+	}
+
+	/** Squared Euclidean distance, the Bregman divergence of squared norm. */
+	private static final class SquaredEuclideanKernel extends ValueKernel {
+
+		private SquaredEuclideanKernel(FeatureMatrix matrix) {
+			super(matrix);
+		}
+
+		@Override
+		public double distance(int first, int second) {
+			final int firstOffset = first * dimensions;
+			final int secondOffset = second * dimensions;
+			double sum = 0.0;
+			int counter = 0;
+			for (int column = 0; column < dimensions; column++) {
+				final double firstValue = values[firstOffset + column];
+				final double secondValue = values[secondOffset + column];
+				if (!Double.isNaN(firstValue) && !Double.isNaN(secondValue)) {
+					final double difference = firstValue - secondValue;
+					sum += difference * difference;
+					counter++;
+				}
+			}
+			return counter > 0 ? sum : Double.NaN;
+		}
+	}
+
+	/** Manhattan distance. */
+	private static final class ManhattanKernel extends ValueKernel {
+
+		private ManhattanKernel(FeatureMatrix matrix) {
+			super(matrix);
+		}
+
+		@Override
+		public double distance(int first, int second) {
+			final int firstOffset = first * dimensions;
+			final int secondOffset = second * dimensions;
+			double sum = 0.0;
+			int counter = 0;
+			for (int column = 0; column < dimensions; column++) {
+				final double firstValue = values[firstOffset + column];
+				final double secondValue = values[secondOffset + column];
+				if (!Double.isNaN(firstValue) && !Double.isNaN(secondValue)) {
+					sum += Math.abs(firstValue - secondValue);
+					counter++;
+				}
+			}
+			return counter > 0 ? sum : Double.NaN;
+		}
+	}
+
+	/** Chebychev distance, the maximum difference of values. */
+	private static final class ChebychevKernel extends ValueKernel {
+
+		private ChebychevKernel(FeatureMatrix matrix) {
+			super(matrix);
+		}
+
+		@Override
+		public double distance(int first, int second) {
+			final int firstOffset = first * dimensions;
+			final int secondOffset = second * dimensions;
+			double max = Double.NEGATIVE_INFINITY;
+			int counter = 0;
+			for (int column = 0; column < dimensions; column++) {
+				final double firstValue = values[firstOffset + column];
+				final double secondValue = values[secondOffset + column];
+				if (!Double.isNaN(firstValue) && !Double.isNaN(secondValue)) {
+					max = Math.max(max, Math.abs(firstValue - secondValue));
+					counter++;
+				}
+			}
+			return counter > 0 ? max : Double.NaN;
+		}
+	}
+
+	/** Cosine distance, the angle of rows as vectors. */
+	private static final class CosineKernel extends ValueKernel {
+
+		private CosineKernel(FeatureMatrix matrix) {
+			super(matrix);
+		}
+
+		@Override
+		public double distance(int first, int second) {
+			final int firstOffset = first * dimensions;
+			final int secondOffset = second * dimensions;
+			double product = 0.0;
+			double firstSquares = 0.0;
+			double secondSquares = 0.0;
+			for (int column = 0; column < dimensions; column++) {
+				final double firstValue = values[firstOffset + column];
+				final double secondValue = values[secondOffset + column];
+				if (!Double.isNaN(firstValue) && !Double.isNaN(secondValue)) {
+					product += firstValue * secondValue;
+					firstSquares += firstValue * firstValue;
+					secondSquares += secondValue * secondValue;
+				}
+			}
+			final double similarity;
+			if (firstSquares > 0 && secondSquares > 0) {
+				similarity = Math.min(Math.max(product / (Math.sqrt(firstSquares) * Math.sqrt(secondSquares)), -1.0), 1.0);
+			} else if (firstSquares == 0 && secondSquares == 0) {
+				similarity = 1.0;
+			} else {
+				similarity = 0.0;
+			}
+			return Math.acos(similarity);
+		}
+	}
+
+	/** Kernel reading distances from a {@link DistanceMatrixData}, it has no working buffers. */
+	private static class MatrixKernel extends DistanceKernel {
+
+		/** Precomputed distances. */
+		private DistanceMatrixData matrix;
+
+		/** Row index of every position. */
+		private int[] members;
+
+		private MatrixKernel(DistanceMatrixData matrix, int[] members) {
+			this.matrix = matrix;
+			this.members = members;
+		}
+
+		@Override
+		public double distance(int first, int second) {
+			return matrix.getDistance(members[first], members[second]);
+		}
+
+		@Override
+		public DistanceKernel copy() {
+			return this;
+		}
+
+		@Override
+		public boolean isSymmetric() {
+			return matrix.isSymmetric();
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package com.rapidminer.operator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.gui.DistanceMatrixIOObject;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
+import com.rapidminer.operator.ports.metadata.ExampleSetPassThroughRule;
+import com.rapidminer.operator.ports.metadata.ExampleSetPrecondition;
+import com.rapidminer.operator.ports.metadata.SetRelation;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeDirectory;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
+import com.rapidminer.tools.math.similarity.DistanceMeasures;
+
+/**
+ * Class represent Distance Matrix operator. The matrix is calculated once and may be passed
+ * to Silhouette, Dunn Index and other evaluation operators instead of a measure. Matrices larger
+ * than the heap are stored in a file mapped into memory.
+ * @author Jan Jake
+ *
+ */
+public class DistanceMatrix extends Operator {
+
+	/** The parameter name for &quot;Store distances as float values.&quot; */
+	public static final String PARAMETER_SINGLE_PRECISION = "single_precision";
+
+	/** The parameter name for &quot;Store distances in a temporary file mapped into memory instead of the heap.&quot; */
+	public static final String PARAMETER_MEMORY_MAPPED = "memory_mapped";
+
+	/** The parameter name for &quot;Directory of the temporary file of distances.&quot; */
+	public static final String PARAMETER_MATRIX_DIRECTORY = "matrix_directory";
+
+	/** The parameter name for &quot;Number of threads used for calculation.&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** Input port. */
+	private InputPort exampleSetInput = getInputPorts().createPort("example set");
+
+	/** Output port. */
+	private OutputPort distanceMatrixOutput = getOutputPorts().createPort("distance matrix");
+
+	/** Output port. */
+	private OutputPort exampleSetOutput = getOutputPorts().createPort("original example set");
+
+	/** {@link DistanceMeasureHelper} */
+	private DistanceMeasureHelper measureHelper = new DistanceMeasureHelper(this);
+
+	/** Matrices calculated by executions of this operator, owned by it and released when the process finishes. */
+	private List<DistanceMatrixData> calculatedMatrices = new ArrayList<>();
+
+	/**
+	 * Constructs a new instance.
+	 * @param description {@link OperatorDescription}
+	 */
+	public DistanceMatrix(OperatorDescription description) {
+		super(description);
+
+		exampleSetInput.addPrecondition(new ExampleSetPrecondition(exampleSetInput));
+
+		getTransformer().addGenerationRule(distanceMatrixOutput, DistanceMatrixIOObject.class);
+
+		getTransformer().addRule(new ExampleSetPassThroughRule(exampleSetInput, exampleSetOutput, SetRelation.EQUAL) {
+
+			@Override
+			public ExampleSetMetaData modifyExampleSet(ExampleSetMetaData metaData) throws UndefinedParameterError {
+				return metaData;
+			}
+		});
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		final ExampleSet exampleSet = exampleSetInput.getData(ExampleSet.class);
+		final DistanceMeasure measure = measureHelper.getInitializedMeasure(exampleSet);
+		final DistanceMatrixData distanceMatrix = calculateDistanceMatrix(this, exampleSet, measure);
+		calculatedMatrices.add(distanceMatrix);
+
+		distanceMatrixOutput.deliver(new DistanceMatrixIOObject(distanceMatrix));
+		exampleSetOutput.deliver(exampleSet);
+	}
+
+	/**
+	 * Releases calculated matrices, e.g. deletes temporary files of memory mapped matrices. Operators
+	 * which received a delivered matrix have finished too, so the matrices are released even when
+	 * the output is connected.
+	 */
+	@Override
+	public void processFinished() throws OperatorException {
+		super.processFinished();
+		for (DistanceMatrixData matrix : calculatedMatrices) {
+			matrix.close();
+		}
+		calculatedMatrices.clear();
+	}
+
+	/**
+	 * Calculates distance matrix of dataset, it is stored as the storage parameters of given operator select.
+	 * @param operator operator with parameters of {@link #getStorageParameterTypes(Operator)} and number of threads
+	 * @param exampleSet dataset
+	 * @param measure initialized measure
+	 * @return {@link DistanceMatrixData}
+	 * @throws OperatorException if a parameter is not defined or the file cannot be created
+	 */
+	static DistanceMatrixData calculateDistanceMatrix(Operator operator, ExampleSet exampleSet, DistanceMeasure measure)
+			throws OperatorException {
+		final DistanceKernel kernel = DistanceKernel.create(new FeatureMatrix(exampleSet), measure);
+		final String measureName = measure.getClass().getSimpleName();
+		final boolean singlePrecision = operator.getParameterAsBoolean(PARAMETER_SINGLE_PRECISION);
+		final DistanceMatrixData distanceMatrix;
+		if (operator.getParameterAsBoolean(PARAMETER_MEMORY_MAPPED)) {
+			final String directoryName = operator.getParameterAsString(PARAMETER_MATRIX_DIRECTORY);
+			final File directory = directoryName == null || directoryName.isEmpty() ? null : new File(directoryName);
+			try {
+				distanceMatrix = new MappedDistanceMatrixData(exampleSet.size(), kernel.isSymmetric(), measureName, singlePrecision, directory);
+			} catch (IOException e) {
+				throw new UserError(operator, e, "cluster_evaluation.distance_matrix_file",
+						directory == null ? System.getProperty("java.io.tmpdir") : directoryName, e.getMessage());
+			}
+		} else {
+			distanceMatrix = new PackedDistanceMatrixData(exampleSet.size(), kernel.isSymmetric(), measureName, singlePrecision);
+		}
+		try {
+			distanceMatrix.calculateDistances(kernel, operator.getParameterAsInt(PARAMETER_NUMBER_OF_THREADS));
+		} catch (RuntimeException e) {
+			distanceMatrix.close();
+			throw e;
+		}
+		return distanceMatrix;
+	}
+
+	/**
+	 * Returns parameters of storage of distance matrix.
+	 * @param operator operator with the parameters
+	 * @return parameter types
+	 */
+	static List<ParameterType> getStorageParameterTypes(Operator operator) {
+		final List<ParameterType> types = new ArrayList<>();
+		types.add(new ParameterTypeBoolean(PARAMETER_SINGLE_PRECISION, "Store distances as float values, which halves the memory but rounds the distances.", false));
+		types.add(new ParameterTypeBoolean(PARAMETER_MEMORY_MAPPED, "Store distances in a temporary file mapped into memory instead of the heap, for matrices larger than the heap. Evaluation operators read such a matrix sequentially. The file is deleted when the process finishes, so the matrix can be used only in the same process and cannot be stored in a repository.", false));
+		final ParameterType type = new ParameterTypeDirectory(PARAMETER_MATRIX_DIRECTORY, "Directory of the temporary file of distances, the default temporary directory if empty.", true);
+		type.registerDependencyCondition(new BooleanParameterCondition(operator, PARAMETER_MEMORY_MAPPED, false, true));
+		types.add(type);
+		return types;
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		final List<ParameterType> types = super.getParameterTypes();
+		for(ParameterType a : DistanceMeasures.getParameterTypes(this)) {
+			if (a.getKey() == DistanceMeasures.PARAMETER_MEASURE_TYPES) {
+				a.setDefaultValue(DistanceMeasures.DIVERGENCES_TYPE);
+			}
+			if (a.getKey() == DistanceMeasures.PARAMETER_DIVERGENCE) {
+				a.setDefaultValue(6);
+			}
+			types.add(a);
+		}
+		types.addAll(getStorageParameterTypes(this));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "Number of threads used for calculation.", 1, Integer.MAX_VALUE, 1));
+		return types;
+	}
+
+}
@@ -0,0 +1,246 @@
+package com.rapidminer.operator;
+
+import java.io.Serializable;
+
+import com.rapidminer.example.ExampleSet;
+
+/**
+ * Distances between all examples of a dataset addressed by their row indices.
+ * Symmetric distances are stored once for every pair as a packed upper triangle without diagonal,
+ * other distances are stored for both orders of every pair. Distance of an example to itself is 0.
+ * @author Jan Jake
+ *
+ */
+public abstract class DistanceMatrixData implements Serializable {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Minimum number of rows processed by one thread at once. */
+	private static final int MIN_BLOCK_SIZE = 16;
+
+	/** Number of rows. */
+	private int numberOfRows;
+
+	/** Symmetry of stored distances. */
+	private boolean symmetric;
+
+	/** Name of measure. */
+	private String measureName;
+
+	/**
+	 * Constructs a new instance.
+	 * @param numberOfRows number of rows
+	 * @param symmetric true if distance(i, j) equals distance(j, i)
+	 * @param measureName name of measure
+	 */
+	protected DistanceMatrixData(int numberOfRows, boolean symmetric, String measureName) {
+		this.numberOfRows = numberOfRows;
+		this.symmetric = symmetric;
+		this.measureName = measureName;
+	}
+
+	/**
+	 * Returns stored value.
+	 * @param index index of value
+	 * @return distance
+	 */
+	protected abstract double getValue(long index);
+
+	/**
+	 * Stores value.
+	 * @param index index of value
+	 * @param distance distance
+	 */
+	protected abstract void setValue(long index, double distance);
+
+	/**
+	 * Returns whether distances are stored as float values.
+	 * @return true for single precision
+	 */
+	public abstract boolean isSinglePrecision();
+
+	/**
+	 * Returns whether distances should be read in the order of storage by {@link #visitDistances(DistanceVisitor[])}
+	 * instead of random access, which is the case of matrices larger than the memory.
+	 * @return true if random access is slow
+	 */
+	public boolean isSequential() {
+		return false;
+	}
+
+	/**
+	 * Releases resources held outside the heap, the matrix must not be used afterwards.
+	 * Matrices stored in the heap hold no such resources.
+	 */
+	public void close() {
+		// nothing to release in the heap
+	}
+
+	/**
+	 * Returns whether the matrix was closed and its distances are no longer available.
+	 * @return true after {@link #close()} released stored distances
+	 */
+	public boolean isClosed() {
+		return false;
+	}
+
+	/**
+	 * Calculates and stores all distances.
+	 * @param kernel distances of rows of a {@link FeatureMatrix} in the order of the dataset
+	 * @param numberOfThreads number of threads
+	 */
+	public void calculateDistances(final DistanceKernel kernel, int numberOfThreads) {
+		new BlockTask(MIN_BLOCK_SIZE) {
+
+			@Override
+			protected void process(int from, int to) {
+				final DistanceKernel blockKernel = kernel.copy();
+				for (int firstRow = from; firstRow < to; firstRow++) {
+					for (int secondRow = symmetric ? firstRow + 1 : 0; secondRow < numberOfRows; secondRow++) {
+						if (secondRow != firstRow) {
+							setValue(getIndex(firstRow, secondRow), blockKernel.distance(firstRow, secondRow));
+						}
+					}
+				}
+			}
+		}.execute(numberOfRows, numberOfThreads);
+	}
+
+	/**
+	 * Passes all stored distances to visitors in the order of storage by one thread for every visitor.
+	 * @param visitors visitors of ranges of rows in their order
+	 * @see #visitDistances(DistanceVisitor[], int)
+	 */
+	public void visitDistances(DistanceVisitor[] visitors) {
+		visitDistances(visitors, visitors.length);
+	}
+
+	/**
+	 * Passes all stored distances to visitors in the order of storage, so a matrix on disk is read
+	 * sequentially. Rows are split into one range for every visitor with about the same number of
+	 * distances, ranges are visited in parallel and every visitor is used by one thread only.
+	 * Ranges depend only on the number of visitors, not on the number of threads.
+	 * A symmetric distance is visited once, with the first row less than the second one.
+	 * @param visitors visitors of ranges of rows in their order
+	 * @param numberOfThreads number of threads, at most one for every visitor is used
+	 */
+	public void visitDistances(final DistanceVisitor[] visitors, int numberOfThreads) {
+		final int[] rangeStarts = new int[visitors.length + 1];
+		final long numberOfDistances = getNumberOfDistances();
+		int row = 0;
+		for (int range = 1; range < visitors.length; range++) {
+			final long target = numberOfDistances / visitors.length * range;
+			while (row < numberOfRows && getRowStart(row) < target) {
+				row++;
+			}
+			rangeStarts[range] = row;
+		}
+		rangeStarts[visitors.length] = numberOfRows;
+		new BlockTask(1) {
+
+			@Override
+			protected void process(int from, int to) {
+				for (int range = from; range < to; range++) {
+					final DistanceVisitor visitor = visitors[range];
+					for (int firstRow = rangeStarts[range]; firstRow < rangeStarts[range + 1]; firstRow++) {
+						long index = getRowStart(firstRow);
+						for (int secondRow = symmetric ? firstRow + 1 : 0; secondRow < numberOfRows; secondRow++) {
+							if (secondRow != firstRow) {
+								visitor.visit(firstRow, secondRow, getValue(index++));
+							}
+						}
+					}
+				}
+			}
+		}.execute(visitors.length, Math.min(numberOfThreads, visitors.length));
+	}
+
+	/**
+	 * Returns index of the first stored distance of row, distances of one row are stored together.
+	 * @param row row index
+	 * @return index of value, number of distances for the row after the last one
+	 */
+	private long getRowStart(int row) {
+		if (symmetric) {
+			return (long) row * (2L * numberOfRows - row - 1) / 2;
+		}
+		return (long) row * (numberOfRows - 1);
+	}
+
+	/**
+	 * Returns distance of two examples.
+	 * @param firstRow row index of first example
+	 * @param secondRow row index of second example
+	 * @return distance
+	 */
+	public double getDistance(int firstRow, int secondRow) {
+		if (firstRow == secondRow) {
+			return 0.0;
+		}
+		return getValue(getIndex(firstRow, secondRow));
+	}
+
+	/**
+	 * Returns index of stored distance of two different rows.
+	 * @param firstRow row index of first example
+	 * @param secondRow row index of second example
+	 * @return index of value
+	 */
+	protected long getIndex(int firstRow, int secondRow) {
+		if (symmetric) {
+			final long lower = Math.min(firstRow, secondRow);
+			final long upper = Math.max(firstRow, secondRow);
+			return lower * (2L * numberOfRows - lower - 1) / 2 + (upper - lower - 1);
+		}
+		return (long) firstRow * (numberOfRows - 1) + (secondRow < firstRow ? secondRow : secondRow - 1);
+	}
+
+	/**
+	 * Returns number of stored distances.
+	 * @return n(n-1)/2 for symmetric distances, n(n-1) otherwise
+	 */
+	public long getNumberOfDistances() {
+		final long pairs = (long) numberOfRows * (numberOfRows - 1);
+		return symmetric ? pairs / 2 : pairs;
+	}
+
+	/**
+	 * Checks that matrix is open and was calculated for a dataset with the same number of examples.
+	 * @param operator operator using the matrix
+	 * @param exampleSet dataset
+	 * @throws UserError if the matrix was closed or number of examples differs
+	 */
+	public void checkSize(Operator operator, ExampleSet exampleSet) throws UserError {
+		if (isClosed()) {
+			throw new UserError(operator, "cluster_evaluation.distance_matrix_closed");
+		}
+		if (exampleSet.size() != numberOfRows) {
+			throw new UserError(operator, "cluster_evaluation.distance_matrix_size", numberOfRows, exampleSet.size());
+		}
+	}
+
+	public int getNumberOfRows() {
+		return numberOfRows;
+	}
+
+	public boolean isSymmetric() {
+		return symmetric;
+	}
+
+	public String getMeasureName() {
+		return measureName;
+	}
+
+	/** Receiver of stored distances passed by {@link DistanceMatrixData#visitDistances(DistanceVisitor[])}. */
+	public interface DistanceVisitor {
+
+		/**
+		 * Receives distance of two rows.
+		 * @param firstRow row index of first example
+		 * @param secondRow row index of second example
+		 * @param distance distance
+		 */
+		void visit(int firstRow, int secondRow, double distance);
+	}
+}
@@ -1,19 +1,24 @@
 package com.rapidminer.operator;
 
 import java.util.List;
-import java.util.Map;
 
-import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.gui.DistanceMatrixIOObject;
 import com.rapidminer.operator.gui.DunnIndexIOObject;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetPassThroughRule;
 import com.rapidminer.operator.ports.metadata.ExampleSetPrecondition;
+import com.rapidminer.operator.ports.metadata.MetaData;
 import com.rapidminer.operator.ports.metadata.SetRelation;
+import com.rapidminer.operator.ports.metadata.SimplePrecondition;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeCategory;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.parameter.conditions.EqualTypeCondition;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
@@ -26,9 +31,33 @@ import com.rapidminer.tools.math.similarity.DistanceMeasures;
  */
 public class DunnIndex extends Operator {
 
+	/** The parameter name for &quot;Approximate maximum distance in clusters by farthest points, at least half of the exact value.&quot; */
+	public static final String PARAMETER_APPROXIMATE_DIAMETER = "approximate_diameter";
+	
+	/** The parameter name for &quot;Definition of distance of clusters and of their diameter.&quot; */
+	public static final String PARAMETER_VARIANT = "variant";
+	
+	/** The parameter name for &quot;Number of threads used for calculation.&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+	
+	/** Definitions of Dunn index. */
+	public static final String[] VARIANTS = { "single_linkage", "representative_distance", "representative_linkage" };
+	
+	/** Index of the minimum distance of members of clusters over the maximum distance in clusters. */
+	public static final int VARIANT_SINGLE_LINKAGE = 0;
+	
+	/** Index of the distance of representatives over twice the average distance to representative. */
+	public static final int VARIANT_REPRESENTATIVE_DISTANCE = 1;
+	
+	/** Index of the average distance to representative of other cluster over twice the average distance to representative. */
+	public static final int VARIANT_REPRESENTATIVE_LINKAGE = 2;
+
 	/** Input port. */
 	private InputPort exampleSetInput = getInputPorts().createPort("cluster set");
 	
+	/** Optional input port of precomputed distances. */
+	private InputPort distanceMatrixInput = getInputPorts().createPort("distance matrix");
+	
 	/** Output port. */
 	private OutputPort dunnIndexOutput = getOutputPorts().createPort("dunn index");
 	
@@ -51,6 +80,7 @@ public class DunnIndex extends Operator {
 		
 		exampleSetInput.addPrecondition(new ExampleSetPrecondition(exampleSetInput, new String[] { "cluster" },
 				Ontology.ATTRIBUTE_VALUE));
+		distanceMatrixInput.addPrecondition(new SimplePrecondition(distanceMatrixInput, new MetaData(DistanceMatrixIOObject.class), false));
 		
 		getTransformer().addGenerationRule(dunnIndexOutput, DunnIndexIOObject.class);
 		
@@ -67,19 +97,46 @@ public class DunnIndex extends Operator {
 	@Override
 	public void doWork() throws OperatorException {
 		final ExampleSet clusterSet = exampleSetInput.getData(ExampleSet.class);		
-		final ClusterSeparator clusterSeparator = new ClusterSeparator(clusterSet);
-		final Map<String, List <Example>> separatedMap = clusterSeparator.getSeparatedClusters();
+		final ClusterPartition partition = new ClusterPartition(clusterSet);
 		
-		final DistanceMeasure measure;
-		if (presetMeasure != null) {
-			measure = presetMeasure;
-			measure.init(clusterSet);
+		final DunnIndexData dunnIndexData = new DunnIndexData();
+		final DistanceMatrixIOObject distanceMatrix = distanceMatrixInput.getDataOrNull(DistanceMatrixIOObject.class);
+		final int variant = getParameterAsInt(PARAMETER_VARIANT);
+		if (variant != VARIANT_SINGLE_LINKAGE) {
+			final int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+			final ClusterRepresentatives representatives;
+			if (distanceMatrix != null) {
+				distanceMatrix.getDistanceMatrix().checkSize(this, clusterSet);
+				representatives = ClusterRepresentatives.createMedoids(partition,
+						DistanceKernel.create(distanceMatrix.getDistanceMatrix(), partition), numberOfThreads);
+			} else {
+				representatives = ClusterRepresentatives.create(new FeatureMatrix(partition), getMeasure(clusterSet), numberOfThreads);
+			}
+			dunnIndexData.calculateGeneralizedDunnIndex(partition, representatives, variant == VARIANT_REPRESENTATIVE_LINKAGE,
+					numberOfThreads);
+		} else if (distanceMatrix != null) {
+			distanceMatrix.getDistanceMatrix().checkSize(this, clusterSet);
+			if (distanceMatrix.getDistanceMatrix().isSequential()) {
+				dunnIndexData.calculateDunnIndex(partition, distanceMatrix.getDistanceMatrix(), getParameterAsInt(PARAMETER_NUMBER_OF_THREADS));
+			} else {
+				dunnIndexData.calculateDunnIndex(partition, DistanceKernel.create(distanceMatrix.getDistanceMatrix(), partition));
+			}
 		} else {
-			measure = measureHelper.getInitializedMeasure(clusterSet);
+			final DistanceMeasure measure = getMeasure(clusterSet);
+			final FeatureMatrix matrix = new FeatureMatrix(partition);
+			dunnIndexData.calculateDunnIndex(partition, matrix, DistanceKernel.create(matrix, measure), DistanceFamily.of(measure),
+					getParameterAsBoolean(PARAMETER_APPROXIMATE_DIAMETER));
+			if (dunnIndexData.getTreeName() != null) {
+				logNote("Nearest clusters found by " + dunnIndexData.getTreeName() + ", " + dunnIndexData.getNumberOfPrunedPairs()
+						+ " pairs of clusters pruned.");
+			}
+		}
+		if (dunnIndexData.isDiameterPruned()) {
+			logNote("Maximum distance in clusters: " + dunnIndexData.getDiameterMethod() + ", "
+					+ dunnIndexData.getNumberOfPrunedClusters() + " clusters pruned.");
+		} else if (dunnIndexData.getDiameterMethod() != null) {
+			logNote("Maximum distance in clusters: " + dunnIndexData.getDiameterMethod() + ".");
 		}
-		
-		final DunnIndexData dunnIndexData = new DunnIndexData();
-		dunnIndexData.calculateDunnIndex(separatedMap, measure);
 		DunnIndexIOObject dunnIndexIOObject = new DunnIndexIOObject(dunnIndexData);
 		
 		dunnIndexOutput.deliver(dunnIndexIOObject);
@@ -87,6 +144,23 @@ public class DunnIndex extends Operator {
 	}
 	
 
+	/**
+	 * Returns selected measure initialized for given dataset.
+	 * @param clusterSet clustered dataset
+	 * @return {@link DistanceMeasure}
+	 * @throws OperatorException if the measure cannot be initialized
+	 */
+	private DistanceMeasure getMeasure(ExampleSet clusterSet) throws OperatorException {
+		final DistanceMeasure measure;
+		if (presetMeasure != null) {
+			measure = presetMeasure;
+			measure.init(clusterSet);
+		} else {
+			measure = measureHelper.getInitializedMeasure(clusterSet);
+		}
+		return measure;
+	}
+	
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		final List<ParameterType> types = super.getParameterTypes();
@@ -99,6 +173,11 @@ public class DunnIndex extends Operator {
 	        }
 			types.add(a);
 		}
+		types.add(new ParameterTypeCategory(PARAMETER_VARIANT, "Definition of distance of clusters and of their diameter. Variants with representatives use centroids for Euclidean distance and Bregman divergences and medoids for other measures and for a distance matrix.", VARIANTS, VARIANT_SINGLE_LINKAGE));
+		ParameterType type = new ParameterTypeBoolean(PARAMETER_APPROXIMATE_DIAMETER, "Approximate maximum distance in clusters by farthest points, at least half of the exact value. Used only for metrics of values without missing values.", false);
+		type.registerDependencyCondition(new EqualTypeCondition(this, PARAMETER_VARIANT, VARIANTS, false, VARIANT_SINGLE_LINKAGE));
+		types.add(type);
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "Number of threads used for calculation.", 1, Integer.MAX_VALUE, 1));
 		return types;
 	}
 	
@@ -1,12 +1,7 @@
 package com.rapidminer.operator;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-import com.rapidminer.example.Example;
-import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * Class for calculating Dunn index.
@@ -18,24 +13,203 @@ public class DunnIndexData {
 	/** Version. */
 	private static final long serialVersionUID = 1L;
 	
+	/** Method of diameter comparing all pairs of examples of clusters. */
+	public static final String DIAMETER_ALL_PAIRS = "exact, all pairs of examples";
+	
+	/** Method of diameter skipping pairs by bounds from distances to farthest points. */
+	public static final String DIAMETER_PRUNED = "exact, pairs pruned by farthest-point bounds";
+	
+	/** Method of diameter by iterated farthest points. */
+	public static final String DIAMETER_APPROXIMATE = "approximate, at least half of the exact diameter";
+	
+	/** Separation of clusters by distance of their representatives. */
+	public static final String SEPARATION_REPRESENTATIVES = "distance of %s";
+	
+	/** Separation of clusters by average distance of members to the representative of the other cluster. */
+	public static final String SEPARATION_LINKAGE = "average distance of members to %s of other clusters";
+	
+	/** Cohesion of clusters by distances of members to their representative. */
+	public static final String DIAMETER_REPRESENTATIVES = "twice the average distance of members to %s of their clusters";
+	
+	/** Maximum number of iterations of farthest-point search. */
+	private static final int MAX_FARTHEST_POINT_ITERATIONS = 10;
+	
 	/** Value of Dunn index. */
 	private Double dunnIndex;
 	
+	/** Number of pairs of clusters skipped because their bounding volumes are too far. */
+	private long numberOfPrunedPairs;
+	
+	/** Name of search trees of clusters, null if all pairs of examples were compared. */
+	private String treeName;
+	
+	/** Method of calculation of maximum distance in clusters, null if it was not needed. */
+	private String diameterMethod;
+	
+	/** Number of clusters skipped because their bounding balls are smaller than the maximum distance. */
+	private int numberOfPrunedClusters;
+	
+	/** Method of calculation of distance of clusters, null for the minimum distance of their members. */
+	private String separationMethod;
+	
 	/** Constructs a new instance. */
 	public DunnIndexData() { }	
 	
 	
 	/**
 	 * Calculates Dunn index value.
-	 * @param separatedMap map of object by clusters
-	 * @param measure selected measure
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples addressed by positions of partition
+	 */
+	public void calculateDunnIndex(ClusterPartition partition, DistanceKernel kernel) {
+		calculateDunnIndex(partition, kernel, getMinBetweenDistance(partition, kernel), false, false);
+	}
+	
+	/**
+	 * Calculates Dunn index value in one pass over a distance matrix in the order of its storage,
+	 * which suits matrices larger than the memory. Every thread visits one range of rows and keeps
+	 * its own minimum distance of clusters and maximum distance in clusters.
+	 * @param partition examples divided by clusters
+	 * @param matrix distances of examples addressed by row indices
+	 * @param numberOfThreads number of threads
+	 */
+	public void calculateDunnIndex(ClusterPartition partition, DistanceMatrixData matrix, int numberOfThreads) {
+		final DistanceExtremes[] rangeExtremes = new DistanceExtremes[Math.max(1, numberOfThreads)];
+		rangeExtremes[0] = new DistanceExtremes(partition);
+		for (int range = 1; range < rangeExtremes.length; range++) {
+			rangeExtremes[range] = rangeExtremes[0].copy();
+		}
+		matrix.visitDistances(rangeExtremes);
+		calculateDunnIndex(rangeExtremes);
+	}
+	
+	/**
+	 * Calculates Dunn index value from extremes of distances found in a pass over a distance matrix,
+	 * e.g. together with other indices or clusterings.
+	 * @param rangeExtremes extremes of distances of visitors of ranges of rows
+	 */
+	public void calculateDunnIndex(DistanceExtremes[] rangeExtremes) {
+		double minBetweenDistance = Double.MAX_VALUE;
+		double maxIntraDistance = 0.0;
+		for (DistanceExtremes extremes : rangeExtremes) {
+			minBetweenDistance = Math.min(minBetweenDistance, extremes.minBetweenDistance);
+			maxIntraDistance = Math.max(maxIntraDistance, extremes.maxIntraDistance);
+		}
+		this.diameterMethod = DIAMETER_ALL_PAIRS;
+		this.dunnIndex = minBetweenDistance == 0.0 ? 0.0 : getDunnIndex(minBetweenDistance, maxIntraDistance);
+	}
+	
+	/**
+	 * Calculates Dunn index value, the nearest clusters are found by search trees of clusters.
+	 * KD-trees are used for Euclidean distance, vantage-point trees for other metrics. Diameters
+	 * of clusters of metrics are bounded by distances to farthest points, either to skip pairs of
+	 * the exact search or as an approximation at least half of the exact diameter. All pairs of
+	 * examples are compared for other measures and for values with missing values, because
+	 * measures skip missing values and their distances do not satisfy the triangle inequality.
+	 * @param partition examples divided by clusters
+	 * @param matrix values of examples ordered by clusters
+	 * @param kernel distances of examples addressed by positions of partition
+	 * @param family family of measure of kernel
+	 * @param approximateDiameter approximate diameters of clusters of metrics without missing values
+	 */
+	public void calculateDunnIndex(ClusterPartition partition, FeatureMatrix matrix, DistanceKernel kernel, DistanceFamily family,
+			boolean approximateDiameter) {
+		if (!family.isMetric() || matrix.hasMissingValues()) {
+			calculateDunnIndex(partition, kernel);
+			return;
+		}
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final ClusterTree[] trees = new ClusterTree[numberOfClusters];
+		if (family == DistanceFamily.EUCLIDEAN) {
+			for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+				trees[cluster] = ClusterTree.createKdTree(matrix, kernel, partition.getClusterStart(cluster), partition.getClusterEnd(cluster));
+			}
+			this.treeName = "KD-trees";
+		} else {
+			for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+				trees[cluster] = ClusterTree.createVantagePointTree(kernel, partition.getClusterStart(cluster), partition.getClusterEnd(cluster));
+			}
+			this.treeName = "vantage-point trees";
+		}
+		calculateDunnIndex(partition, kernel, getMinBetweenDistance(partition, trees), true, approximateDiameter);
+	}
+	
+	/**
+	 * Calculates generalized Dunn index value from distances of examples to representatives of clusters,
+	 * which needs one pass over examples comparing them with the representative of their cluster and,
+	 * for the linkage separation, with representatives of all clusters. Cohesion of a cluster is twice
+	 * the average distance of members to its representative, separation of two clusters is either the
+	 * distance of their representatives or the average distance of members of both clusters to the
+	 * representative of the other one. Clusters are processed in parallel.
+	 * @param partition examples divided by clusters
+	 * @param representatives representatives of clusters
+	 * @param linkage separate clusters by average distances of members to representatives of other clusters
+	 * @param numberOfThreads number of threads
 	 */
-	public void calculateDunnIndex(Map<String, List <Example>> separatedMap, DistanceMeasure measure) {
-		final Double minBetweenDistance = getMinBetweenDistance(separatedMap, measure);
+	public void calculateGeneralizedDunnIndex(final ClusterPartition partition, final ClusterRepresentatives representatives,
+			final boolean linkage, int numberOfThreads) {
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final double[] cohesionSums = new double[numberOfClusters];
+		final double[][] linkageSums = new double[numberOfClusters][];
+		new BlockTask(1) {
+
+			@Override
+			protected void process(int from, int to) {
+				final ClusterRepresentatives blockRepresentatives = representatives.copy();
+				for (int cluster = from; cluster < to; cluster++) {
+					final double[] sums = new double[linkage ? numberOfClusters : 0];
+					for (int position = partition.getClusterStart(cluster); position < partition.getClusterEnd(cluster); position++) {
+						cohesionSums[cluster] += blockRepresentatives.distance(position, cluster);
+						for (int other = 0; other < sums.length; other++) {
+							if (other != cluster) {
+								sums[other] += blockRepresentatives.distance(position, other);
+							}
+						}
+					}
+					linkageSums[cluster] = sums;
+				}
+			}
+		}.execute(numberOfClusters, numberOfThreads);
+		
+		double minBetweenDistance = Double.MAX_VALUE;
+		double maxIntraDistance = 0.0;
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			maxIntraDistance = Math.max(maxIntraDistance, 2 * cohesionSums[cluster] / partition.getClusterSize(cluster));
+			for (int clusterOut = cluster + 1; clusterOut < numberOfClusters; clusterOut++) {
+				final double distance = linkage
+						? (linkageSums[cluster][clusterOut] + linkageSums[clusterOut][cluster])
+								/ (partition.getClusterSize(cluster) + partition.getClusterSize(clusterOut))
+						: representatives.distanceBetween(cluster, clusterOut);
+				minBetweenDistance = Math.min(minBetweenDistance, distance);
+			}
+		}
+		this.separationMethod = String.format(linkage ? SEPARATION_LINKAGE : SEPARATION_REPRESENTATIVES, representatives.getName());
+		this.diameterMethod = String.format(DIAMETER_REPRESENTATIVES, representatives.getName());
+		this.dunnIndex = getDunnIndex(minBetweenDistance, maxIntraDistance);
+	}
+	
+	/**
+	 * Calculates Dunn index value from the minimum distance of clusters.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples
+	 * @param minBetweenDistance minimum distance of the nearest clusters
+	 * @param metric distances satisfy the triangle inequality
+	 * @param approximateDiameter approximate diameters of clusters of metrics
+	 */
+	private void calculateDunnIndex(ClusterPartition partition, DistanceKernel kernel, double minBetweenDistance,
+			boolean metric, boolean approximateDiameter) {
 		if (minBetweenDistance == 0.0) {
 			this.dunnIndex = 0.0;
+			return;
+		}
+		final double maxIntraDistance;
+		if (metric) {
+			maxIntraDistance = getMaxIntraDistance(partition, kernel, approximateDiameter);
+			this.diameterMethod = approximateDiameter ? DIAMETER_APPROXIMATE : DIAMETER_PRUNED;
+		} else {
+			maxIntraDistance = getMaxIntraDistance(partition, kernel);
+			this.diameterMethod = DIAMETER_ALL_PAIRS;
 		}
-		final Double maxIntraDistance = getMaxIntraDistance(separatedMap, measure);	
 		this.dunnIndex = getDunnIndex(minBetweenDistance, maxIntraDistance);
 	}
 	
@@ -45,7 +219,7 @@ public class DunnIndexData {
 	 * @param maxIntraDistance maximum distance of two objects in the same cluster
 	 * @return Dunn index
 	 */
-	private Double getDunnIndex(Double minBetweenDistance, Double maxIntraDistance) {		
+	private double getDunnIndex(double minBetweenDistance, double maxIntraDistance) {		
 		if (maxIntraDistance == 0.0) {
 			return 0.0;
 		}		
@@ -54,20 +228,17 @@ public class DunnIndexData {
 	
 	/** 
 	 * Returns minimum distance of the nearest clusters.
-	 * @param separatedMap map of object by clusters
-	 * @param measure selected measure
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples
 	 * @return minimum distance of the nearest clusters
 	 */
-	private Double getMinBetweenDistance(Map<String, List<Example>> separatedMap,
-			DistanceMeasure measure) {
-		Double minBetweenDistance = Double.MAX_VALUE;
-		final Set<String> unusedKeys = new HashSet<>(separatedMap.keySet()); 
-		for (String key : separatedMap.keySet()) {
-			unusedKeys.remove(key);
-			final List<Example> cluster = separatedMap.get(key);
-			for (String keyOut : unusedKeys) {
-				final List<Example> clusterOut = separatedMap.get(keyOut); 
-				final Double distance = getMinBetweenDistance(cluster, clusterOut, measure);				
+	private double getMinBetweenDistance(ClusterPartition partition, DistanceKernel kernel) {
+		final int[] offsets = partition.getOffsets();
+		double minBetweenDistance = Double.MAX_VALUE;
+		for (int cluster = 0; cluster < partition.getNumberOfClusters(); cluster++) {
+			for (int clusterOut = cluster + 1; clusterOut < partition.getNumberOfClusters(); clusterOut++) {
+				final double distance = getMinBetweenDistance(offsets[cluster], offsets[cluster + 1],
+						offsets[clusterOut], offsets[clusterOut + 1], kernel);				
 				if (distance < minBetweenDistance) {				
 					minBetweenDistance = distance;
 				}
@@ -76,18 +247,72 @@ public class DunnIndexData {
 		return minBetweenDistance;
 	}
 	
+	/**
+	 * Returns minimum distance of the nearest clusters by nearest neighbour queries of search trees.
+	 * Pairs of clusters are processed in ascending order of lower bounds of their distances, so
+	 * once a lower bound exceeds the minimum found so far all remaining pairs are skipped.
+	 * @param partition examples divided by clusters
+	 * @param trees search tree of every cluster
+	 * @return minimum distance of the nearest clusters
+	 */
+	private double getMinBetweenDistance(ClusterPartition partition, ClusterTree[] trees) {
+		final int numberOfClusters = trees.length;
+		final int numberOfPairs = numberOfClusters * (numberOfClusters - 1) / 2;
+		final Integer[] pairs = new Integer[numberOfPairs];
+		final int[] firstOfPair = new int[numberOfPairs];
+		final int[] secondOfPair = new int[numberOfPairs];
+		final double[] lowerBounds = new double[numberOfPairs];
+		int pair = 0;
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			for (int clusterOut = cluster + 1; clusterOut < numberOfClusters; clusterOut++) {
+				pairs[pair] = pair;
+				firstOfPair[pair] = cluster;
+				secondOfPair[pair] = clusterOut;
+				lowerBounds[pair] = trees[cluster].lowerBound(trees[clusterOut]);
+				pair++;
+			}
+		}
+		Arrays.sort(pairs, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Double.compare(lowerBounds[first], lowerBounds[second]);
+			}
+		});
+		
+		double minBetweenDistance = Double.MAX_VALUE;
+		for (int index = 0; index < numberOfPairs; index++) {
+			final int current = pairs[index];
+			if (lowerBounds[current] > minBetweenDistance) {
+				this.numberOfPrunedPairs = numberOfPairs - index;
+				break;
+			}
+			// members of the smaller cluster query the tree of the larger one
+			final boolean firstSmaller = trees[firstOfPair[current]].size() <= trees[secondOfPair[current]].size();
+			final int queryCluster = firstSmaller ? firstOfPair[current] : secondOfPair[current];
+			final ClusterTree tree = trees[firstSmaller ? secondOfPair[current] : firstOfPair[current]];
+			final int end = partition.getClusterEnd(queryCluster);
+			for (int position = partition.getClusterStart(queryCluster); position < end; position++) {
+				minBetweenDistance = tree.nearest(position, minBetweenDistance);
+			}
+		}
+		return minBetweenDistance;
+	}
+	
 	/**
 	 * Returns distance of two clusters.
-	 * @param cluster cluster
-	 * @param clusterOut cluster
-	 * @param measure selected measure
+	 * @param start first position of cluster
+	 * @param end position after the last member of cluster
+	 * @param startOut first position of other cluster
+	 * @param endOut position after the last member of other cluster
+	 * @param kernel distances of examples
 	 * @return distance of two clusters
 	 */
-	private Double getMinBetweenDistance(List<Example> cluster, List<Example> clusterOut, DistanceMeasure measure) {
-		Double minBetweenDistance = Double.MAX_VALUE;
-		for (Example example : cluster) {
-			for (Example exampleOut : clusterOut) {
-				final Double distance = measure.calculateDistance(example, exampleOut);
+	private double getMinBetweenDistance(int start, int end, int startOut, int endOut, DistanceKernel kernel) {
+		double minBetweenDistance = Double.MAX_VALUE;
+		for (int i = start; i < end; i++) {
+			for (int j = startOut; j < endOut; j++) {
+				final double distance = kernel.distance(i, j);
 				if (distance < minBetweenDistance) {
 					minBetweenDistance = distance;
 				}
@@ -98,18 +323,18 @@ public class DunnIndexData {
 	
 	/**
 	 * Returns maximum distance of two objects in the same cluster
-	 * @param separatedMap map of object by clusters
-	 * @param measure selected measure
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples
 	 * @return maximum distance of two objects in the same cluster
 	 */
-	private Double getMaxIntraDistance(Map<String, List<Example>> separatedMap,
-			DistanceMeasure measure) {
-		Double maxIntraDistance = 0.0;
-		for (String key : separatedMap.keySet()) {
-			final List<Example> cluster = separatedMap.get(key);
-			for (int i = 0; i < cluster.size(); i++) {
-				for (int j = i + 1; j < cluster.size(); j++) {
-					final Double distance = measure.calculateDistance(cluster.get(i), cluster.get(j));
+	private double getMaxIntraDistance(ClusterPartition partition, DistanceKernel kernel) {
+		final int[] offsets = partition.getOffsets();
+		double maxIntraDistance = 0.0;
+		for (int cluster = 0; cluster < partition.getNumberOfClusters(); cluster++) {
+			final int end = offsets[cluster + 1];
+			for (int i = offsets[cluster]; i < end; i++) {
+				for (int j = i + 1; j < end; j++) {
+					final double distance = kernel.distance(i, j);
 					if (distance > maxIntraDistance) {
 						maxIntraDistance = distance;
 					}
@@ -119,7 +344,237 @@ public class DunnIndexData {
 		return maxIntraDistance;
 	}
 	
+	/**
+	 * Returns maximum distance of two objects in the same cluster of a metric. Every cluster is
+	 * bounded by a ball around its first member, clusters whose ball diameter does not exceed the
+	 * maximum found so far are skipped, so clusters are processed from the largest ball.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples satisfying the triangle inequality
+	 * @param approximate approximate diameters by farthest points
+	 * @return maximum distance of two objects in the same cluster, or its approximation
+	 */
+	private double getMaxIntraDistance(ClusterPartition partition, DistanceKernel kernel, boolean approximate) {
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final double[][] distancesToFirst = new double[numberOfClusters][];
+		final double[] radii = new double[numberOfClusters];
+		final Integer[] clusters = new Integer[numberOfClusters];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			clusters[cluster] = cluster;
+			distancesToFirst[cluster] = getDistances(partition.getClusterStart(cluster), partition.getClusterStart(cluster),
+					partition.getClusterEnd(cluster), kernel);
+			radii[cluster] = max(distancesToFirst[cluster]);
+		}
+		Arrays.sort(clusters, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Double.compare(radii[second], radii[first]);
+			}
+		});
+		
+		double maxIntraDistance = 0.0;
+		for (int index = 0; index < numberOfClusters; index++) {
+			final int cluster = clusters[index];
+			if (2 * radii[cluster] <= maxIntraDistance) {
+				this.numberOfPrunedClusters = numberOfClusters - index;
+				break;
+			}
+			maxIntraDistance = Math.max(maxIntraDistance, getDiameter(partition.getClusterStart(cluster),
+					partition.getClusterEnd(cluster), distancesToFirst[cluster], kernel, maxIntraDistance, approximate));
+		}
+		return maxIntraDistance;
+	}
+	
+	/**
+	 * Returns diameter of cluster of a metric. Farthest points are searched repeatedly starting from
+	 * the farthest member from the first one, the distance of the last two farthest points is at least
+	 * half of the diameter. The exact search compares only pairs whose distance may exceed the
+	 * maximum found so far according to the distances to the first member and the last farthest point.
+	 * @param start first position of cluster
+	 * @param end position after the last member of cluster
+	 * @param distancesToFirst distances of members to the first member
+	 * @param kernel distances of examples satisfying the triangle inequality
+	 * @param lowerBound maximum distance found in other clusters
+	 * @param approximate return the distance of farthest points
+	 * @return diameter if it exceeds the lower bound, its approximation, or a value not exceeding the lower bound
+	 */
+	private double getDiameter(int start, int end, final double[] distancesToFirst, DistanceKernel kernel, double lowerBound,
+			boolean approximate) {
+		int farthest = start + argmax(distancesToFirst);
+		double diameter = distancesToFirst[farthest - start];
+		double[] distancesToFarthest = getDistances(farthest, start, end, kernel);
+		for (int iteration = 0; iteration < MAX_FARTHEST_POINT_ITERATIONS; iteration++) {
+			final int next = start + argmax(distancesToFarthest);
+			if (distancesToFarthest[next - start] <= diameter) {
+				break;
+			}
+			diameter = distancesToFarthest[next - start];
+			farthest = next;
+			distancesToFarthest = getDistances(farthest, start, end, kernel);
+		}
+		if (approximate) {
+			return diameter;
+		}
+		
+		// members sorted by descending distance to the first member, d(i, j) <= d(i, first) + d(j, first)
+		final int size = end - start;
+		final Integer[] members = new Integer[size];
+		for (int member = 0; member < size; member++) {
+			members[member] = member;
+		}
+		Arrays.sort(members, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Double.compare(distancesToFirst[second], distancesToFirst[first]);
+			}
+		});
+		double maxDistance = Math.max(diameter, lowerBound);
+		for (int i = 1; i < size; i++) {
+			final int member = members[i];
+			if (distancesToFirst[member] + distancesToFirst[members[0]] <= maxDistance) {
+				break;
+			}
+			for (int j = 0; j < i; j++) {
+				final int other = members[j];
+				if (distancesToFirst[member] + distancesToFirst[other] <= maxDistance) {
+					break;
+				}
+				if (distancesToFarthest[member] + distancesToFarthest[other] <= maxDistance) {
+					continue;
+				}
+				final double distance = kernel.distance(start + member, start + other);
+				if (distance > maxDistance) {
+					maxDistance = distance;
+				}
+			}
+		}
+		return maxDistance;
+	}
+	
+	/**
+	 * Returns distances of members of cluster to given example.
+	 * @param position position of example
+	 * @param start first position of cluster
+	 * @param end position after the last member of cluster
+	 * @param kernel distances of examples
+	 * @return distance of every member
+	 */
+	private static double[] getDistances(int position, int start, int end, DistanceKernel kernel) {
+		final double[] distances = new double[end - start];
+		for (int member = start; member < end; member++) {
+			distances[member - start] = kernel.distance(position, member);
+		}
+		return distances;
+	}
+	
+	/**
+	 * Returns index of the highest value.
+	 * @param values values
+	 * @return index of the first highest value
+	 */
+	private static int argmax(double[] values) {
+		int index = 0;
+		for (int i = 1; i < values.length; i++) {
+			if (values[i] > values[index]) {
+				index = i;
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns the highest value.
+	 * @param values values
+	 * @return highest value, 0 for no values
+	 */
+	private static double max(double[] values) {
+		return values.length == 0 ? 0.0 : values[argmax(values)];
+	}
+	
 	public Double getDunnIndex () {
 		return this.dunnIndex;
 	}
+	
+	public long getNumberOfPrunedPairs() {
+		return numberOfPrunedPairs;
+	}
+	
+	public String getTreeName() {
+		return treeName;
+	}
+	
+	public String getSeparationMethod() {
+		return separationMethod;
+	}
+	
+	public String getDiameterMethod() {
+		return diameterMethod;
+	}
+	
+	public int getNumberOfPrunedClusters() {
+		return numberOfPrunedClusters;
+	}
+
+	/**
+	 * Returns whether clusters were pruned by their bounding balls in calculation of maximum distance
+	 * in clusters.
+	 * @return true for the pruned and the approximate diameter
+	 */
+	public boolean isDiameterPruned() {
+		return DIAMETER_PRUNED.equals(diameterMethod) || DIAMETER_APPROXIMATE.equals(diameterMethod);
+	}
+
+	/**
+	 * Visitor finding the minimum distance of examples of different clusters and the maximum distance
+	 * of examples of the same cluster in a pass over a distance matrix. Every visitor is used by one
+	 * thread only, so every range of rows has its own copy.
+	 */
+	public static final class DistanceExtremes implements DistanceMatrixData.DistanceVisitor {
+
+		/** Cluster index of every row of the matrix. */
+		private final int[] clusterOfRow;
+
+		/** Minimum distance of examples of different clusters. */
+		private double minBetweenDistance = Double.MAX_VALUE;
+
+		/** Maximum distance of examples of the same cluster. */
+		private double maxIntraDistance;
+
+		/**
+		 * Constructs a new instance before any distance is visited.
+		 * @param partition examples divided by clusters
+		 */
+		public DistanceExtremes(ClusterPartition partition) {
+			this.clusterOfRow = new int[partition.getNumberOfExamples()];
+			for (int cluster = 0; cluster < partition.getNumberOfClusters(); cluster++) {
+				for (int position = partition.getClusterStart(cluster); position < partition.getClusterEnd(cluster); position++) {
+					clusterOfRow[partition.getMember(position)] = cluster;
+				}
+			}
+		}
+
+		private DistanceExtremes(int[] clusterOfRow) {
+			this.clusterOfRow = clusterOfRow;
+		}
+
+		/**
+		 * Returns new visitor of the same partition before any distance is visited.
+		 * @return {@link DistanceExtremes}
+		 */
+		public DistanceExtremes copy() {
+			return new DistanceExtremes(clusterOfRow);
+		}
+
+		@Override
+		public void visit(int firstRow, int secondRow, double distance) {
+			if (clusterOfRow[firstRow] != clusterOfRow[secondRow]) {
+				if (distance < minBetweenDistance) {
+					minBetweenDistance = distance;
+				}
+			} else if (distance > maxIntraDistance) {
+				maxIntraDistance = distance;
+			}
+		}
+	}
 }
@@ -0,0 +1,153 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+
+/**
+ * Dense snapshot of attribute values of a clustered dataset.
+ * Values are stored row-major in one array and rows are ordered by clusters, so the row at
+ * position p belongs to the example {@link ClusterPartition#getMember(int)} of the partition.
+ * A matrix created without partition keeps rows in the order of the dataset.
+ * @author Jan Jake
+ *
+ */
+public class FeatureMatrix {
+
+	/** Examples divided by clusters, null if rows are in the order of the dataset. */
+	private ClusterPartition partition;
+
+	/** Dataset of rows. */
+	private ExampleSet exampleSet;
+
+	/** Attributes of columns. */
+	private Attribute[] attributes;
+
+	/** Values of rows ordered by clusters. */
+	private double[] values;
+
+	/**
+	 * Constructs a new instance with all regular attributes, the same values a
+	 * {@link com.rapidminer.tools.math.similarity.DistanceMeasure} reads from examples.
+	 * @param partition examples divided by clusters
+	 */
+	public FeatureMatrix(ClusterPartition partition) {
+		this(partition, getRegularAttributes(partition.getClusterSet()));
+	}
+
+	/**
+	 * Constructs a new instance.
+	 * @param partition examples divided by clusters
+	 * @param attributes attributes of columns
+	 */
+	public FeatureMatrix(ClusterPartition partition, Attribute[] attributes) {
+		this.partition = partition;
+		this.exampleSet = partition.getClusterSet();
+		this.attributes = attributes;
+		final int[] members = partition.getMembers();
+		final int[] positions = new int[members.length];
+		for (int position = 0; position < members.length; position++) {
+			positions[members[position]] = position;
+		}
+		extractValues(positions);
+	}
+
+	/**
+	 * Constructs a new instance with rows in the order of the dataset and all regular attributes.
+	 * @param exampleSet dataset
+	 */
+	public FeatureMatrix(ExampleSet exampleSet) {
+		this.exampleSet = exampleSet;
+		this.attributes = getRegularAttributes(exampleSet);
+		extractValues(null);
+	}
+
+	/**
+	 * Copies values of all examples in one pass over the dataset.
+	 * @param positions position of every row, null to keep the order of the dataset
+	 */
+	private void extractValues(int[] positions) {
+		final int dimensions = attributes.length;
+		this.values = new double[exampleSet.size() * dimensions];
+		int row = 0;
+		for (Example example : exampleSet) {
+			final int offset = (positions == null ? row : positions[row]) * dimensions;
+			for (int column = 0; column < dimensions; column++) {
+				values[offset + column] = example.getValue(attributes[column]);
+			}
+			row++;
+		}
+	}
+
+	/**
+	 * Returns regular attributes of dataset.
+	 * @param exampleSet dataset
+	 * @return regular attributes
+	 */
+	private static Attribute[] getRegularAttributes(ExampleSet exampleSet) {
+		final List<Attribute> regularAttributes = new ArrayList<>();
+		for (Attribute attribute : exampleSet.getAttributes()) {
+			regularAttributes.add(attribute);
+		}
+		return regularAttributes.toArray(new Attribute[regularAttributes.size()]);
+	}
+
+	/**
+	 * Copies values of row to given array.
+	 * @param position position of row
+	 * @param target array of length {@link #getNumberOfColumns()}
+	 */
+	public void copyRow(int position, double[] target) {
+		System.arraycopy(values, position * attributes.length, target, 0, attributes.length);
+	}
+
+	/**
+	 * Returns value of given cell.
+	 * @param position position of row
+	 * @param column index of column
+	 * @return value
+	 */
+	public double getValue(int position, int column) {
+		return values[position * attributes.length + column];
+	}
+
+	/**
+	 * Returns whether some value is missing.
+	 * @return true if a value is missing
+	 */
+	public boolean hasMissingValues() {
+		for (double value : values) {
+			if (Double.isNaN(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public ClusterPartition getPartition() {
+		return partition;
+	}
+
+	public ExampleSet getExampleSet() {
+		return exampleSet;
+	}
+
+	public Attribute[] getAttributes() {
+		return attributes;
+	}
+
+	public int getNumberOfRows() {
+		return exampleSet.size();
+	}
+
+	public int getNumberOfColumns() {
+		return attributes.length;
+	}
+
+	public double[] getValues() {
+		return values;
+	}
+}
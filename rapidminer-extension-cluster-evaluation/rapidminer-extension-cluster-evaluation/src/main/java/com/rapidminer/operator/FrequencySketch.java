@@ -0,0 +1,135 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mergeable sketch of frequent values (Misra-Gries summary) of indices of nominal values.
+ * At most a given number of values are counted, when a new value does not fit, all counts are
+ * decreased. A count is lower than the exact count by at most {@link #getCountErrorBound()},
+ * which is at most the number of values divided by the number of counters plus one.
+ * @author Jan Jake
+ *
+ */
+public class FrequencySketch {
+
+	/** Maximum number of counted values. */
+	private int numberOfCounters;
+
+	/** Count of every counted value. */
+	private Map<Integer, Integer> counts = new HashMap<>();
+
+	/** Number of all values. */
+	private long size;
+
+	/**
+	 * Constructs a new empty instance.
+	 * @param numberOfCounters maximum number of counted values, see {@link #getNumberOfCounters(double)}
+	 */
+	public FrequencySketch(int numberOfCounters) {
+		this.numberOfCounters = Math.max(1, numberOfCounters);
+	}
+
+	/**
+	 * Returns number of counters whose error is at most the given fraction of the number of values.
+	 * @param frequencyError maximum error of counts relative to the number of values
+	 * @return number of counters
+	 */
+	public static int getNumberOfCounters(double frequencyError) {
+		return Math.max(1, (int) Math.ceil(1 / frequencyError) - 1);
+	}
+
+	/**
+	 * Adds value to sketch.
+	 * @param value index of value
+	 */
+	public void add(int value) {
+		size++;
+		final Integer count = counts.get(value);
+		if (count != null) {
+			counts.put(value, count + 1);
+		} else if (counts.size() < numberOfCounters) {
+			counts.put(value, 1);
+		} else {
+			// the new value and every counted value lose one occurrence
+			final List<Integer> removed = new ArrayList<>();
+			for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+				if (entry.getValue() == 1) {
+					removed.add(entry.getKey());
+				} else {
+					entry.setValue(entry.getValue() - 1);
+				}
+			}
+			for (Integer key : removed) {
+				counts.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Adds all values of other sketch, the other sketch is not changed. If there are too many
+	 * counted values, the count of the first value beyond the number of counters is subtracted
+	 * from all counts.
+	 * @param other sketch of other values
+	 */
+	public void merge(FrequencySketch other) {
+		size += other.size;
+		for (Map.Entry<Integer, Integer> entry : other.counts.entrySet()) {
+			final Integer count = counts.get(entry.getKey());
+			counts.put(entry.getKey(), count == null ? entry.getValue() : count + entry.getValue());
+		}
+		if (counts.size() > numberOfCounters) {
+			final int[] sortedCounts = new int[counts.size()];
+			int i = 0;
+			for (int count : counts.values()) {
+				sortedCounts[i++] = count;
+			}
+			Arrays.sort(sortedCounts);
+			final int decrement = sortedCounts[sortedCounts.length - 1 - numberOfCounters];
+			final List<Integer> removed = new ArrayList<>();
+			for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+				if (entry.getValue() <= decrement) {
+					removed.add(entry.getKey());
+				} else {
+					entry.setValue(entry.getValue() - decrement);
+				}
+			}
+			for (Integer key : removed) {
+				counts.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Returns counts of counted values, a value which is not counted has count at most {@link #getCountErrorBound()}.
+	 * @return map of index of value to its count
+	 */
+	public Map<Integer, Integer> getCounts() {
+		return counts;
+	}
+
+	/**
+	 * Returns maximum difference of counts from the exact counts. Every decrease of counts removes
+	 * the number of counters plus one occurrences, so the number of decreases follows from the
+	 * number of lost occurrences.
+	 * @return count error in number of values
+	 */
+	public long getCountErrorBound() {
+		long countedSize = 0;
+		for (int count : counts.values()) {
+			countedSize += count;
+		}
+		return (size - countedSize) / (numberOfCounters + 1);
+	}
+
+	/**
+	 * Returns number of all values.
+	 * @return number of values
+	 */
+	public long getSize() {
+		return size;
+	}
+}
@@ -0,0 +1,196 @@
+package com.rapidminer.operator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+
+import com.rapidminer.tools.LogService;
+
+/**
+ * Distance matrix stored in a file mapped into memory, so it is limited by the disk instead of
+ * the heap. The file is mapped in segments of fixed size, the operating system keeps in memory only
+ * the recently used pages. Rows are stored one after another, so calculation of a block of rows
+ * writes one contiguous part of the file and {@link #visitDistances(DistanceMatrixData.DistanceVisitor[])}
+ * reads the file sequentially.
+ * <p>
+ * The file is temporary. The operator which created the matrix deletes it by {@link #close()} when
+ * the process finishes, whether the matrix was delivered or not, so the matrix can be used only by
+ * operators of the same process. A file which cannot be deleted then is deleted when the virtual
+ * machine exits. The matrix refers to the file, so it cannot be serialized and stored in a repository.
+ * @author Jan Jake
+ *
+ */
+public class MappedDistanceMatrixData extends DistanceMatrixData {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Number of bits of byte offset within one segment. */
+	private static final int SEGMENT_BITS = 30;
+
+	/** Mask of byte offset within one segment. */
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+	/** File of distances. */
+	private File file;
+
+	/** Number of bits of byte length of one value, 2 for float and 3 for double values. */
+	private int valueBits;
+
+	/** Mapped segments of file, null after the matrix is closed. */
+	private transient ByteBuffer[] segments;
+
+	/**
+	 * Constructs a new instance with all distances 0 stored in a new temporary file, which is
+	 * deleted by {@link #close()} or when the virtual machine exits.
+	 * @param numberOfRows number of rows
+	 * @param symmetric true if distance(i, j) equals distance(j, i)
+	 * @param measureName name of measure
+	 * @param singlePrecision true to store distances as float values
+	 * @param directory directory of file, null for the default temporary directory
+	 * @throws IOException if the file cannot be created or mapped
+	 */
+	public MappedDistanceMatrixData(int numberOfRows, boolean symmetric, String measureName, boolean singlePrecision,
+			File directory) throws IOException {
+		super(numberOfRows, symmetric, measureName);
+		this.valueBits = singlePrecision ? 2 : 3;
+		this.file = File.createTempFile("distance-matrix", ".bin", directory);
+		this.file.deleteOnExit();
+		try {
+			mapFile();
+		} catch (IOException e) {
+			this.file.delete();
+			throw e;
+		}
+	}
+
+	/**
+	 * Maps all segments of file of the length of all values.
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private void mapFile() throws IOException {
+		final long length = getNumberOfDistances() << valueBits;
+		final int numberOfSegments = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+		final ByteBuffer[] mappedSegments = new ByteBuffer[numberOfSegments];
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(length);
+			// mapped buffers stay valid after the channel is closed
+			final FileChannel channel = randomAccessFile.getChannel();
+			for (int segment = 0; segment < numberOfSegments; segment++) {
+				final long position = (long) segment << SEGMENT_BITS;
+				mappedSegments[segment] = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(SEGMENT_MASK + 1, length - position))
+						.order(ByteOrder.nativeOrder());
+			}
+		}
+		this.segments = mappedSegments;
+	}
+
+	/**
+	 * Refuses serialization, the temporary file does not outlive the virtual machine.
+	 * @param out stream
+	 * @throws IOException always
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		throw new NotSerializableException("Memory mapped distance matrix refers to temporary file " + file + " and cannot be stored.");
+	}
+
+	/**
+	 * Unmaps segments and deletes the file. Segments are unmapped explicitly where the virtual
+	 * machine allows it, so the file can be deleted on systems which lock mapped files, otherwise
+	 * a warning is logged and the file is left for deletion on exit.
+	 */
+	@Override
+	public synchronized void close() {
+		if (segments == null) {
+			return;
+		}
+		try {
+			for (ByteBuffer segment : segments) {
+				unmap(segment);
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LogService.getRoot().log(Level.WARNING, "Cannot unmap distance matrix file " + file
+					+ ", the mapping is released by garbage collection.", e);
+		}
+		segments = null;
+		if (!file.delete()) {
+			LogService.getRoot().log(Level.WARNING, "Cannot delete distance matrix file " + file + ", it is deleted on exit.");
+		}
+	}
+
+	/**
+	 * Releases mapping of buffer without waiting for garbage collection, by Unsafe.invokeCleaner
+	 * since Java 9 and by the cleaner of buffer in Java 8.
+	 * @param buffer mapped buffer
+	 * @throws ReflectiveOperationException if the virtual machine provides neither way
+	 */
+	private static void unmap(ByteBuffer buffer) throws ReflectiveOperationException {
+		final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+		Method invokeCleanerMethod = null;
+		try {
+			invokeCleanerMethod = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (NoSuchMethodException e) {
+			// Java 8
+		}
+		if (invokeCleanerMethod != null) {
+			final Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			invokeCleanerMethod.invoke(unsafeField.get(null), buffer);
+			return;
+		}
+		final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+		cleanerMethod.setAccessible(true);
+		final Object cleaner = cleanerMethod.invoke(buffer);
+		if (cleaner != null) {
+			cleaner.getClass().getMethod("clean").invoke(cleaner);
+		}
+	}
+
+	@Override
+	public synchronized boolean isClosed() {
+		return segments == null;
+	}
+
+	@Override
+	protected double getValue(long index) {
+		final long offset = index << valueBits;
+		final ByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+		if (valueBits == 2) {
+			return segment.getFloat((int) (offset & SEGMENT_MASK));
+		}
+		return segment.getDouble((int) (offset & SEGMENT_MASK));
+	}
+
+	@Override
+	protected void setValue(long index, double distance) {
+		final long offset = index << valueBits;
+		final ByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+		if (valueBits == 2) {
+			segment.putFloat((int) (offset & SEGMENT_MASK), (float) distance);
+		} else {
+			segment.putDouble((int) (offset & SEGMENT_MASK), distance);
+		}
+	}
+
+	@Override
+	public boolean isSinglePrecision() {
+		return valueBits == 2;
+	}
+
+	@Override
+	public boolean isSequential() {
+		return true;
+	}
+
+	public File getFile() {
+		return file;
+	}
+}
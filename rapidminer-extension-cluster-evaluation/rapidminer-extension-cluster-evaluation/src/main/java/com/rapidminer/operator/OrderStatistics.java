@@ -0,0 +1,153 @@
+package com.rapidminer.operator;
+
+import java.util.Arrays;
+
+/**
+ * Selection of order statistics from arrays of values by introselect, quickselect whose depth is
+ * limited, so the expected time is linear and the worst case is that of sorting. Missing values
+ * are ordered after all other values as {@link Arrays#sort(double[])} orders them.
+ * @author Jan Jake
+ *
+ */
+public class OrderStatistics {
+
+	/** Constructs a new instance. */
+	private OrderStatistics() { }
+
+	/**
+	 * Returns index of the center of sorted values, the lower one of the two centers for an even number of values.
+	 * @param size number of values
+	 * @return index of center
+	 */
+	public static int getCenterIndex(int size) {
+		if (size != 0 && size % 2 == 0) {
+			return size / 2 - 1;
+		}
+		return size / 2;
+	}
+
+	/**
+	 * Returns median of values, the value at {@link #getCenterIndex(int)} of sorted values. Values of the
+	 * range are reordered.
+	 * @param values values
+	 * @param from first index of range
+	 * @param to index after the last index of range
+	 * @return median, missing for an empty range
+	 */
+	public static double median(double[] values, int from, int to) {
+		if (from == to) {
+			return Double.NaN;
+		}
+		return select(values, from, to, getCenterIndex(to - from));
+	}
+
+	/**
+	 * Returns quantile of values, the value at index ceil(p * n) - 1 of sorted values, which is the
+	 * median for p = 0.5. Values of the range are reordered.
+	 * @param values values
+	 * @param from first index of range
+	 * @param to index after the last index of range
+	 * @param quantile probability of quantile between 0 and 1
+	 * @return quantile, missing for an empty range
+	 */
+	public static double quantile(double[] values, int from, int to, double quantile) {
+		if (from == to) {
+			return Double.NaN;
+		}
+		final int rank = (int) Math.ceil(quantile * (to - from)) - 1;
+		return select(values, from, to, Math.max(0, Math.min(to - from - 1, rank)));
+	}
+
+	/**
+	 * Returns value of given rank, the value at index from + rank of sorted range. Missing values are
+	 * moved to the end of range, other values are reordered so that smaller values precede the
+	 * selected one and larger values follow it.
+	 * @param values values
+	 * @param from first index of range
+	 * @param to index after the last index of range
+	 * @param rank rank of value within range
+	 * @return selected value
+	 */
+	public static double select(double[] values, int from, int to, int rank) {
+		int end = to;
+		for (int i = from; i < end; i++) {
+			if (Double.isNaN(values[i])) {
+				end--;
+				values[i] = values[end];
+				values[end] = Double.NaN;
+				i--;
+			}
+		}
+		final int index = from + rank;
+		if (index >= end) {
+			return Double.NaN;
+		}
+		int left = from;
+		int right = end - 1;
+		int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(end - from));
+		while (left < right) {
+			if (depthLimit-- == 0) {
+				// too many bad pivots, the rest of the range is sorted
+				Arrays.sort(values, left, right + 1);
+				return values[index];
+			}
+			final int middle = (left + right) >>> 1;
+			sortThree(values, left, middle, right);
+			final double pivot = values[middle];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (values[i] < pivot) {
+					i++;
+				}
+				while (values[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(values, i, j);
+					i++;
+					j--;
+				}
+			}
+			if (index <= j) {
+				right = j;
+			} else if (index >= i) {
+				left = i;
+			} else {
+				break;
+			}
+		}
+		return values[index];
+	}
+
+	/**
+	 * Sorts three values, so the middle one is the median of them and a good pivot.
+	 * @param values values
+	 * @param first index of first value
+	 * @param second index of second value
+	 * @param third index of third value
+	 */
+	private static void sortThree(double[] values, int first, int second, int third) {
+		if (values[second] < values[first]) {
+			swap(values, first, second);
+		}
+		if (values[third] < values[second]) {
+			swap(values, second, third);
+			if (values[second] < values[first]) {
+				swap(values, first, second);
+			}
+		}
+	}
+
+	/**
+	 * Swaps two values.
+	 * @param values values
+	 * @param first index of first value
+	 * @param second index of second value
+	 */
+	private static void swap(double[] values, int first, int second) {
+		final double value = values[first];
+		values[first] = values[second];
+		values[second] = value;
+	}
+}
@@ -0,0 +1,80 @@
+package com.rapidminer.operator;
+
+/**
+ * Distance matrix held in memory. Values are stored in blocks of fixed size, so the matrix is not
+ * limited by the maximum length of an array.
+ * @author Jan Jake
+ *
+ */
+public class PackedDistanceMatrixData extends DistanceMatrixData {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Number of bits of index within one block. */
+	private static final int BLOCK_BITS = 20;
+
+	/** Number of values in one block. */
+	private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+	/** Mask of index within one block. */
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+	/** Blocks of single precision values, null for double precision. */
+	private float[][] floatBlocks;
+
+	/** Blocks of double precision values, null for single precision. */
+	private double[][] doubleBlocks;
+
+	/**
+	 * Constructs a new instance with all distances 0.
+	 * @param numberOfRows number of rows
+	 * @param symmetric true if distance(i, j) equals distance(j, i)
+	 * @param measureName name of measure
+	 * @param singlePrecision true to store distances as float values
+	 */
+	public PackedDistanceMatrixData(int numberOfRows, boolean symmetric, String measureName, boolean singlePrecision) {
+		super(numberOfRows, symmetric, measureName);
+		final long numberOfDistances = getNumberOfDistances();
+		final int numberOfBlocks = (int) ((numberOfDistances + BLOCK_SIZE - 1) >>> BLOCK_BITS);
+		if (singlePrecision) {
+			this.floatBlocks = new float[numberOfBlocks][];
+		} else {
+			this.doubleBlocks = new double[numberOfBlocks][];
+		}
+		for (int block = 0; block < numberOfBlocks; block++) {
+			final int blockLength = (int) Math.min(BLOCK_SIZE, numberOfDistances - ((long) block << BLOCK_BITS));
+			if (singlePrecision) {
+				this.floatBlocks[block] = new float[blockLength];
+			} else {
+				this.doubleBlocks[block] = new double[blockLength];
+			}
+		}
+	}
+
+	@Override
+	protected double getValue(long index) {
+		final int block = (int) (index >>> BLOCK_BITS);
+		final int offset = (int) index & BLOCK_MASK;
+		if (floatBlocks != null) {
+			return floatBlocks[block][offset];
+		}
+		return doubleBlocks[block][offset];
+	}
+
+	@Override
+	protected void setValue(long index, double distance) {
+		final int block = (int) (index >>> BLOCK_BITS);
+		final int offset = (int) index & BLOCK_MASK;
+		if (floatBlocks != null) {
+			floatBlocks[block][offset] = (float) distance;
+		} else {
+			doubleBlocks[block][offset] = distance;
+		}
+	}
+
+	@Override
+	public boolean isSinglePrecision() {
+		return floatBlocks != null;
+	}
+}
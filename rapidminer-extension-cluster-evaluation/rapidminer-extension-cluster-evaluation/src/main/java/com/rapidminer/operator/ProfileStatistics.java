@@ -0,0 +1,81 @@
+package com.rapidminer.operator;
+
+/**
+ * Typed statistics of one attribute in one cluster or in the whole dataset. Numerical statistics
+ * are missing for nominal attributes and nominal statistics are missing for numerical attributes,
+ * missing values of examples are skipped.
+ * @author Jan Jake
+ *
+ */
+public class ProfileStatistics {
+
+	/** Median of numerical values without missing ones, unlike the typical value which orders missing values last. */
+	private double median;
+
+	/** Mean of numerical values. */
+	private double mean;
+
+	/** Sample variance of numerical values. */
+	private double variance;
+
+	/** Difference of the third and the first quartile of numerical values. */
+	private double interquartileRange;
+
+	/** The most frequent nominal value, null for numerical attributes. */
+	private String mode;
+
+	/** Number of occurrences of the most frequent nominal value. */
+	private double modeFrequency;
+
+	/** Entropy of nominal values in bits. */
+	private double entropy;
+
+	/**
+	 * Constructs a new instance.
+	 * @param median median of numerical values
+	 * @param mean mean of numerical values
+	 * @param variance sample variance of numerical values
+	 * @param interquartileRange difference of quartiles of numerical values
+	 * @param mode the most frequent nominal value
+	 * @param modeFrequency number of occurrences of mode
+	 * @param entropy entropy of nominal values in bits
+	 */
+	public ProfileStatistics(double median, double mean, double variance, double interquartileRange, String mode, double modeFrequency,
+			double entropy) {
+		this.median = median;
+		this.mean = mean;
+		this.variance = variance;
+		this.interquartileRange = interquartileRange;
+		this.mode = mode;
+		this.modeFrequency = modeFrequency;
+		this.entropy = entropy;
+	}
+
+	public double getMedian() {
+		return median;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getVariance() {
+		return variance;
+	}
+
+	public double getInterquartileRange() {
+		return interquartileRange;
+	}
+
+	public String getMode() {
+		return mode;
+	}
+
+	public double getModeFrequency() {
+		return modeFrequency;
+	}
+
+	public double getEntropy() {
+		return entropy;
+	}
+}
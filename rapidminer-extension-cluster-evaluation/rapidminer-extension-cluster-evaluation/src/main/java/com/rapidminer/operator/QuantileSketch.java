@@ -0,0 +1,267 @@
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mergeable sketch of quantiles of numerical values (KLL sketch). Values are kept in compactors
+ * of levels, a value of level h stands for 2^h values. A full compactor sorts its values and
+ * passes every other one, starting at a random offset, to the next level, capacities decrease
+ * geometrically towards lower levels. The rank of a quantile differs from the exact rank by at
+ * most {@link #getRankError(int)} times the number of values with probability 99%. Missing values
+ * are counted exactly and ordered after all other values.
+ * @author Jan Jake
+ *
+ */
+public class QuantileSketch {
+
+	/** Ratio of capacities of two neighbouring levels. */
+	private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+	/** Minimum capacity of one level. */
+	private static final int MIN_CAPACITY = 2;
+
+	/** Capacity of the highest level, it controls the error. */
+	private int k;
+
+	/** Random generator of offsets of compaction. */
+	private Random random;
+
+	/** Values of levels, level h holds values of weight 2^h. */
+	private List<double[]> levels = new ArrayList<>();
+
+	/** Number of values of levels. */
+	private List<Integer> sizes = new ArrayList<>();
+
+	/** Number of values without missing ones. */
+	private long count;
+
+	/** Number of missing values. */
+	private long missingCount;
+
+	/**
+	 * Constructs a new empty instance.
+	 * @param k capacity of the highest level, see {@link #getCapacity(double)}
+	 * @param random random generator of compaction
+	 */
+	public QuantileSketch(int k, Random random) {
+		this.k = Math.max(MIN_CAPACITY, k);
+		this.random = random;
+		addLevel();
+	}
+
+	/**
+	 * Returns capacity of the highest level which gives the required normalized rank error
+	 * with probability 99%, by the empirical error of KLL sketches 2.296 / k^0.9723.
+	 * @param rankError maximum normalized rank error
+	 * @return capacity k
+	 */
+	public static int getCapacity(double rankError) {
+		return (int) Math.ceil(Math.pow(2.296 / rankError, 1 / 0.9723));
+	}
+
+	/**
+	 * Returns normalized rank error of sketch with given capacity, reached with probability 99%.
+	 * @param k capacity of the highest level
+	 * @return normalized rank error
+	 */
+	public static double getRankError(int k) {
+		return 2.296 / Math.pow(k, 0.9723);
+	}
+
+	/**
+	 * Adds value to sketch.
+	 * @param value value, possibly missing
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value)) {
+			missingCount++;
+			return;
+		}
+		append(0, value);
+		count++;
+		compress();
+	}
+
+	/**
+	 * Adds all values of other sketch, the other sketch is not changed.
+	 * @param other sketch of other values
+	 */
+	public void merge(QuantileSketch other) {
+		while (levels.size() < other.levels.size()) {
+			addLevel();
+		}
+		for (int level = 0; level < other.levels.size(); level++) {
+			final double[] otherValues = other.levels.get(level);
+			for (int i = 0; i < other.sizes.get(level); i++) {
+				append(level, otherValues[i]);
+			}
+		}
+		count += other.count;
+		missingCount += other.missingCount;
+		compress();
+	}
+
+	/**
+	 * Returns value of given rank of sorted values, missing values are ordered last.
+	 * @param rank rank of value, from 0 to the number of all values minus one
+	 * @return value of approximately the given rank
+	 */
+	public double getValue(long rank) {
+		if (rank >= count) {
+			return Double.NaN;
+		}
+		int numberOfValues = 0;
+		for (int size : sizes) {
+			numberOfValues += size;
+		}
+		final double[] values = new double[numberOfValues];
+		final long[] weights = new long[numberOfValues];
+		final Integer[] order = new Integer[numberOfValues];
+		int index = 0;
+		for (int level = 0; level < levels.size(); level++) {
+			for (int i = 0; i < sizes.get(level); i++) {
+				values[index] = levels.get(level)[i];
+				weights[index] = 1L << level;
+				order[index] = index;
+				index++;
+			}
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Double.compare(values[first], values[second]);
+			}
+		});
+		long cumulativeWeight = 0;
+		for (Integer i : order) {
+			cumulativeWeight += weights[i];
+			if (cumulativeWeight > rank) {
+				return values[i];
+			}
+		}
+		return values[order[numberOfValues - 1]];
+	}
+
+	/**
+	 * Returns median, the value at {@link OrderStatistics#getCenterIndex(int)} of all sorted values.
+	 * @return approximate median, missing for no values
+	 */
+	public double getMedian() {
+		final long size = getSize();
+		if (size == 0) {
+			return Double.NaN;
+		}
+		return getValue(size % 2 == 0 ? size / 2 - 1 : size / 2);
+	}
+
+	/**
+	 * Returns quantile of values without missing ones, the value of rank ceil(p * n) - 1 as by
+	 * {@link OrderStatistics#quantile(double[], int, int, double)}.
+	 * @param quantile probability of quantile between 0 and 1
+	 * @return approximate quantile, missing for no values
+	 */
+	public double getQuantile(double quantile) {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		final long rank = (long) Math.ceil(quantile * count) - 1;
+		return getValue(Math.max(0, Math.min(count - 1, rank)));
+	}
+
+	/**
+	 * Returns maximum difference of rank of returned values from the exact rank, reached with probability 99%.
+	 * @return rank error in number of values, 0 while no values were compacted
+	 */
+	public double getRankErrorBound() {
+		return levels.size() == 1 ? 0.0 : Math.ceil(getRankError(k) * count);
+	}
+
+	/**
+	 * Returns number of all values.
+	 * @return number of values including missing ones
+	 */
+	public long getSize() {
+		return count + missingCount;
+	}
+
+	/**
+	 * Appends value to level.
+	 * @param level level
+	 * @param value value
+	 */
+	private void append(int level, double value) {
+		double[] values = levels.get(level);
+		final int size = sizes.get(level);
+		if (size == values.length) {
+			values = Arrays.copyOf(values, Math.max(MIN_CAPACITY, 2 * values.length));
+			levels.set(level, values);
+		}
+		values[size] = value;
+		sizes.set(level, size + 1);
+	}
+
+	/** Adds empty highest level. */
+	private void addLevel() {
+		levels.add(new double[MIN_CAPACITY]);
+		sizes.add(0);
+	}
+
+	/**
+	 * Returns capacity of level.
+	 * @param level level
+	 * @return capacity
+	 */
+	private int getCapacity(int level) {
+		final int depth = levels.size() - 1 - level;
+		return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+	}
+
+	/** Compacts the lowest full levels until all values fit into capacities of levels. */
+	private void compress() {
+		while (true) {
+			int totalSize = 0;
+			int totalCapacity = 0;
+			for (int level = 0; level < levels.size(); level++) {
+				totalSize += sizes.get(level);
+				totalCapacity += getCapacity(level);
+			}
+			if (totalSize <= totalCapacity) {
+				return;
+			}
+			for (int level = 0; level < levels.size(); level++) {
+				if (sizes.get(level) >= getCapacity(level)) {
+					compact(level);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Passes every other sorted value of level to the next level, an odd value stays.
+	 * @param level compacted level
+	 */
+	private void compact(int level) {
+		if (level == levels.size() - 1) {
+			addLevel();
+		}
+		final double[] values = levels.get(level);
+		final int size = sizes.get(level);
+		final int pairs = size / 2;
+		Arrays.sort(values, 0, size);
+		// the largest value stays for an odd size
+		final int offset = random.nextBoolean() ? 1 : 0;
+		for (int i = 0; i < pairs; i++) {
+			append(level + 1, values[2 * i + offset]);
+		}
+		if (size % 2 == 1) {
+			values[0] = values[size - 1];
+		}
+		sizes.set(level, size % 2);
+	}
+}
@@ -1,5 +1,7 @@
 package com.rapidminer.operator;
 
+import java.util.List;
+
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.gui.RandIndexIOObject;
 import com.rapidminer.operator.ports.InputPort;
@@ -8,6 +10,8 @@ import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetPassThroughRule;
 import com.rapidminer.operator.ports.metadata.ExampleSetPrecondition;
 import com.rapidminer.operator.ports.metadata.SetRelation;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.Ontology;
 
@@ -18,6 +22,9 @@ import com.rapidminer.tools.Ontology;
  */
 public class RandIndex extends Operator {
 	
+	/** The parameter name for &quot;Both cluster sets are sorted by ascending id and are merged in one streaming pass.&quot; */
+	public static final String PARAMETER_SORTED_BY_ID = "sorted_by_id";
+	
 	/** Input port. */
 	private InputPort exampleSetInputA = getInputPorts().createPort("cluster set A");
 	
@@ -69,7 +76,15 @@ public class RandIndex extends Operator {
 
 		
 		final RandIndexData randIndexData = new RandIndexData();
-		randIndexData.calculateRandIndex(clusterSetA, clusterSetB);
+		if (getParameterAsBoolean(PARAMETER_SORTED_BY_ID)) {
+			randIndexData.calculateRandIndex(ContingencyTable.createFromSortedIds(this, clusterSetA, clusterSetB));
+			if (randIndexData.getUnmatchedA() > 0 || randIndexData.getUnmatchedB() > 0) {
+				logWarning("Examples without a match: " + randIndexData.getUnmatchedA() + " in cluster set A, "
+						+ randIndexData.getUnmatchedB() + " in cluster set B.");
+			}
+		} else {
+			randIndexData.calculateRandIndex(clusterSetA, clusterSetB);
+		}
 		final RandIndexIOObject randIndexIOObject = new RandIndexIOObject(randIndexData);
 				
 		randIndexOutput.deliver(randIndexIOObject);
@@ -77,4 +92,11 @@ public class RandIndex extends Operator {
 		exampleSetOutputB.deliver(clusterSetB);
 	}
 	
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		final List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeBoolean(PARAMETER_SORTED_BY_ID, "Both cluster sets are sorted by ascending id and are merged in one streaming pass. Examples present in only one set are counted instead of failing the comparison.", false));
+		return types;
+	}
+	
 }
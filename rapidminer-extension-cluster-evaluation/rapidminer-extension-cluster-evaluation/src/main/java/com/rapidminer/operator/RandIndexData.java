@@ -1,12 +1,11 @@
 package com.rapidminer.operator;
 
-import com.rapidminer.example.Attribute;
-import com.rapidminer.example.Attributes;
-import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 
 /**
- * Class for calculating Rand index.
+ * Class for calculating Rand index and other external indices comparing two clusterings.
+ * Indices which need a reference take clustering A as the reference classes and clustering B
+ * as the evaluated clusters. Entropies use natural logarithm.
  * @author Jan Jake
  *
  */
@@ -18,77 +17,192 @@ public class RandIndexData {
 	/** Value of Rand index. */
 	private Double randIndex;
 	
+	/** Number of examples of A without a match in B. */
+	private long unmatchedA;
+	
+	/** Number of examples of B without a match in A. */
+	private long unmatchedB;
+	
+	/** Value of Adjusted Rand index. */
+	private double adjustedRandIndex = Double.NaN;
+	
+	/** Value of Jaccard index. */
+	private double jaccardIndex = Double.NaN;
+	
+	/** Value of Fowlkes-Mallows index. */
+	private double fowlkesMallowsIndex = Double.NaN;
+	
+	/** Normalized mutual information, normalized by the geometric mean of entropies. */
+	private double normalizedMutualInformation = Double.NaN;
+	
+	/** Variation of information. */
+	private double variationOfInformation = Double.NaN;
+	
+	/** Homogeneity of clusters of B with respect to classes of A. */
+	private double homogeneity = Double.NaN;
+	
+	/** Completeness of clusters of B with respect to classes of A. */
+	private double completeness = Double.NaN;
+	
+	/** V-measure, harmonic mean of homogeneity and completeness. */
+	private double vMeasure = Double.NaN;
+	
+	/** Purity of clusters of B with respect to classes of A. */
+	private double purity = Double.NaN;
+	
+	/** F-measure of clusters of B with respect to classes of A. */
+	private double fMeasure = Double.NaN;
+	
 	/** Constructs a new instance. */
 	public RandIndexData() { }	
 	
 	
 	/**
-	 * Calculates Rand index value.
+	 * Calculates Rand index value from the contingency table of both clusterings.
 	 * @param clusterSetA clustered dataset A
 	 * @param clusterSetB clustered dataset B
 	 */
 	public void calculateRandIndex(ExampleSet clusterSetA, ExampleSet clusterSetB) {
 		if (clusterSetA.size() == clusterSetB.size()) {
-			final Attributes attributes = clusterSetA.getAttributes();
-			final Attribute clusterAtt = attributes.get("cluster");
-			
-			double a = 0;
-			double b = 0; 
-			double c = 0;
-			double d = 0;
-			
-			for (int i = 0; i < clusterSetA.size(); i++) {
-				for (int j = i + 1; j < clusterSetA.size(); j++) {
-					Example exampleA1 = clusterSetA.getExample(i);
-					Example exampleA2 = clusterSetA.getExample(j);
-					Example exampleB1 = clusterSetB.getExample(i);
-					Example exampleB2 = clusterSetB.getExample(j);
-					
-					if (exampleA1.getId() != exampleB1.getId()) {
-						exampleB1 = clusterSetB.getExampleFromId(exampleA1.getId());
-					} 
-					if  (exampleA2.getId() != exampleB2.getId()) {
-						exampleB2 = clusterSetB.getExampleFromId(exampleA2.getId());
-					}
-					if (exampleB1 == null || exampleB2 == null) {
-						this.randIndex = -2.0;
-						return;
-					}
-					
-					final String pairA1 = exampleA1.getValueAsString(clusterAtt);
-					final String pairA2 = exampleA2.getValueAsString(clusterAtt);				
-					final String pairB1 = exampleB1.getValueAsString(clusterAtt);
-					final String pairB2 = exampleB2.getValueAsString(clusterAtt);
-					
-					
-					final Boolean pairA = comparePair(pairA1, pairA2);
-					final Boolean pairB = comparePair(pairB1, pairB2);
-					
-					if (pairA == true && pairB == true) {
-						a++;
-					} else if (pairA == true && pairB == false) {
-						c++;
-					} else if (pairA == false && pairB == true) {
-						d++;
-					} else if (pairA == false && pairB == false) {
-						b++;
-					}
-				}
+			final ContingencyTable table = ContingencyTable.create(new ClusterPartition(clusterSetA), new ClusterPartition(clusterSetB));
+			if (table == null) {
+				this.randIndex = -2.0;
+				return;
 			}
-			this.randIndex = getRandIntex(a, b, c, d);
+			calculateRandIndex(table);
 		} else {
 			this.randIndex = -1.0;
 		} 
 	}
 	
 	/**
-	 * Compare pair of values.
-	 * @param pair1 value 
-	 * @param pair2 value
-	 * @return
+	 * Calculates Rand index and other external indices from contingency table.
+	 * @param table contingency table of two clusterings, rows belong to clustering A
+	 */
+	public void calculateRandIndex(ContingencyTable table) {
+		this.unmatchedA = table.getUnmatchedRows();
+		this.unmatchedB = table.getUnmatchedColumns();
+		final long a = table.getPairsTogetherInBoth();
+		final long c = table.getPairsTogetherInRows() - a;
+		final long d = table.getPairsTogetherInColumns() - a;
+		final long b = table.getNumberOfPairs() - a - c - d;
+		this.randIndex = getRandIntex(a, b, c, d);
+		calculatePairIndices(table);
+		calculateInformationIndices(table);
+		calculateMatchingIndices(table);
+	}
+	
+	/**
+	 * Calculates Adjusted Rand, Jaccard and Fowlkes-Mallows index. Trivial clusterings which leave
+	 * an index undefined get 1 if they are equal.
+	 * @param table contingency table of two clusterings
+	 */
+	private void calculatePairIndices(ContingencyTable table) {
+		final double together = table.getPairsTogetherInBoth();
+		final double togetherA = table.getPairsTogetherInRows();
+		final double togetherB = table.getPairsTogetherInColumns();
+		final double pairs = table.getNumberOfPairs();
+		
+		final double expected = pairs > 0 ? togetherA * togetherB / pairs : 0.0;
+		final double maximum = (togetherA + togetherB) / 2;
+		this.adjustedRandIndex = maximum == expected ? 1.0 : (together - expected) / (maximum - expected);
+		
+		final double union = togetherA + togetherB - together;
+		this.jaccardIndex = union == 0 ? 1.0 : together / union;
+		
+		if (togetherA == 0 && togetherB == 0) {
+			this.fowlkesMallowsIndex = 1.0;
+		} else if (togetherA == 0 || togetherB == 0) {
+			this.fowlkesMallowsIndex = 0.0;
+		} else {
+			this.fowlkesMallowsIndex = together / Math.sqrt(togetherA * togetherB);
+		}
+	}
+	
+	/**
+	 * Calculates normalized mutual information, variation of information and V-measure.
+	 * @param table contingency table of two clusterings
+	 */
+	private void calculateInformationIndices(ContingencyTable table) {
+		final double total = table.getTotal();
+		double entropyA = 0.0;
+		for (int row = 0; row < table.getNumberOfRows(); row++) {
+			entropyA -= entropyTerm(table.getRowSum(row), total);
+		}
+		double entropyB = 0.0;
+		for (int column = 0; column < table.getNumberOfColumns(); column++) {
+			entropyB -= entropyTerm(table.getColumnSum(column), total);
+		}
+		double mutualInformation = 0.0;
+		for (int row = 0; row < table.getNumberOfRows(); row++) {
+			for (int column = 0; column < table.getNumberOfColumns(); column++) {
+				final long count = table.getCount(row, column);
+				if (count > 0) {
+					mutualInformation += count / total
+							* Math.log(count * total / ((double) table.getRowSum(row) * table.getColumnSum(column)));
+				}
+			}
+		}
+		// rounding must not make information larger than entropies
+		mutualInformation = Math.max(0.0, Math.min(mutualInformation, Math.min(entropyA, entropyB)));
+		
+		if (entropyA == 0 && entropyB == 0) {
+			this.normalizedMutualInformation = 1.0;
+		} else if (entropyA == 0 || entropyB == 0) {
+			this.normalizedMutualInformation = 0.0;
+		} else {
+			this.normalizedMutualInformation = mutualInformation / Math.sqrt(entropyA * entropyB);
+		}
+		this.variationOfInformation = entropyA + entropyB - 2 * mutualInformation;
+		this.homogeneity = entropyA == 0 ? 1.0 : mutualInformation / entropyA;
+		this.completeness = entropyB == 0 ? 1.0 : mutualInformation / entropyB;
+		this.vMeasure = homogeneity + completeness == 0 ? 0.0 : 2 * homogeneity * completeness / (homogeneity + completeness);
+	}
+	
+	/**
+	 * Returns term p * log(p) of entropy.
+	 * @param count count of cluster
+	 * @param total number of examples
+	 * @return term of entropy, 0 for empty cluster
 	 */
-	private Boolean comparePair(String pair1, String pair2) {
-		return pair1.equals(pair2);
+	private double entropyTerm(long count, double total) {
+		if (count == 0) {
+			return 0.0;
+		}
+		final double probability = count / total;
+		return probability * Math.log(probability);
+	}
+	
+	/**
+	 * Calculates purity and F-measure of clusters of B with respect to classes of A.
+	 * @param table contingency table of two clusterings
+	 */
+	private void calculateMatchingIndices(ContingencyTable table) {
+		final double total = table.getTotal();
+		if (total == 0) {
+			return;
+		}
+		long matched = 0;
+		for (int column = 0; column < table.getNumberOfColumns(); column++) {
+			long maximum = 0;
+			for (int row = 0; row < table.getNumberOfRows(); row++) {
+				maximum = Math.max(maximum, table.getCount(row, column));
+			}
+			matched += maximum;
+		}
+		this.purity = matched / total;
+		
+		double sum = 0.0;
+		for (int row = 0; row < table.getNumberOfRows(); row++) {
+			double maximum = 0.0;
+			for (int column = 0; column < table.getNumberOfColumns(); column++) {
+				// F = 2PR / (P + R) with precision n_ij / b_j and recall n_ij / a_i
+				final double f = 2.0 * table.getCount(row, column) / (table.getRowSum(row) + table.getColumnSum(column));
+				maximum = Math.max(maximum, f);
+			}
+			sum += table.getRowSum(row) / total * maximum;
+		}
+		this.fMeasure = sum;
 	}
 	
 	/**
@@ -109,4 +223,52 @@ public class RandIndexData {
 	public Double getRandIndex () {
 		return this.randIndex;
 	}
+	
+	public long getUnmatchedA() {
+		return unmatchedA;
+	}
+	
+	public long getUnmatchedB() {
+		return unmatchedB;
+	}
+	
+	public double getAdjustedRandIndex() {
+		return adjustedRandIndex;
+	}
+	
+	public double getJaccardIndex() {
+		return jaccardIndex;
+	}
+	
+	public double getFowlkesMallowsIndex() {
+		return fowlkesMallowsIndex;
+	}
+	
+	public double getNormalizedMutualInformation() {
+		return normalizedMutualInformation;
+	}
+	
+	public double getVariationOfInformation() {
+		return variationOfInformation;
+	}
+	
+	public double getHomogeneity() {
+		return homogeneity;
+	}
+	
+	public double getCompleteness() {
+		return completeness;
+	}
+	
+	public double getVMeasure() {
+		return vMeasure;
+	}
+	
+	public double getPurity() {
+		return purity;
+	}
+	
+	public double getFMeasure() {
+		return fMeasure;
+	}
 }
@@ -0,0 +1,109 @@
+package com.rapidminer.operator;
+
+/**
+ * Mean and variance of a stream of values accumulated by Welford's method, which stays
+ * accurate when the mean is large compared to the spread of values. Statistics of disjoint
+ * parts of a stream may be merged, so parts can be accumulated by different threads.
+ * @author Jan Jake
+ *
+ */
+public class RunningStatistics {
+
+	/** Number of values. */
+	private long count;
+
+	/** Mean of values. */
+	private double mean;
+
+	/** Sum of squared differences from the mean. */
+	private double squaredDeviations;
+
+	/**
+	 * Adds value.
+	 * @param value value
+	 */
+	public void add(double value) {
+		count++;
+		final double delta = value - mean;
+		mean += delta / count;
+		squaredDeviations += delta * (value - mean);
+	}
+
+	/**
+	 * Adds all values of other statistics.
+	 * @param other statistics of disjoint values
+	 */
+	public void merge(RunningStatistics other) {
+		if (other.count == 0) {
+			return;
+		}
+		final long total = count + other.count;
+		final double delta = other.mean - mean;
+		mean += delta * other.count / total;
+		squaredDeviations += other.squaredDeviations + delta * delta * count * other.count / total;
+		count = total;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Returns sample variance of values.
+	 * @return variance, 0 for less than two values
+	 */
+	public double getVariance() {
+		if (count < 2) {
+			return 0.0;
+		}
+		return squaredDeviations / (count - 1);
+	}
+
+	/**
+	 * Returns variance of the mean of a simple random sample without replacement.
+	 * @param populationSize number of values the sample was drawn from
+	 * @return variance of the mean, 0 if the whole population is known
+	 */
+	public double getVarianceOfMean(long populationSize) {
+		if (count == 0 || count >= populationSize) {
+			return 0.0;
+		}
+		return getVariance() / count * (1.0 - (double) count / populationSize);
+	}
+
+	/**
+	 * Returns quantile of standard normal distribution, approximation by P. J. Acklam with
+	 * relative error below 1.15e-9.
+	 * @param probability probability in (0, 1)
+	 * @return quantile
+	 */
+	public static double getNormalQuantile(double probability) {
+		final double[] a = { -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+				1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00 };
+		final double[] b = { -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+				6.680131188771972e+01, -1.328068155288572e+01 };
+		final double[] c = { -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+				-2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00 };
+		final double[] d = { 7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+				3.754408661907416e+00 };
+		final double low = 0.02425;
+		if (probability < low) {
+			final double q = Math.sqrt(-2 * Math.log(probability));
+			return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+					/ ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+		}
+		if (probability > 1 - low) {
+			final double q = Math.sqrt(-2 * Math.log(1 - probability));
+			return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+					/ ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+		}
+		final double q = probability - 0.5;
+		final double r = q * q;
+		return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+				/ (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+	}
+}
@@ -1,26 +1,34 @@
 package com.rapidminer.operator;
 
 import java.util.List;
-import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.operator.gui.DistanceMatrixIOObject;
 import com.rapidminer.operator.gui.SilhouetteIOObject;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetPassThroughRule;
 import com.rapidminer.operator.ports.metadata.ExampleSetPrecondition;
+import com.rapidminer.operator.ports.metadata.MetaData;
 import com.rapidminer.operator.ports.metadata.SetRelation;
+import com.rapidminer.operator.ports.metadata.SimplePrecondition;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeCategory;
+import com.rapidminer.parameter.ParameterTypeDouble;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.parameter.conditions.EqualTypeCondition;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
+import com.rapidminer.tools.math.similarity.divergences.SquaredEuclideanDistance;
 
 /**
  * Class represent Silhouette operator.
@@ -29,9 +37,39 @@ import com.rapidminer.tools.math.similarity.DistanceMeasures;
  */
 public class Silhouette extends Operator {
 	
+	/** The parameter name for &quot;Number of threads used for calculation.&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+	
+	/** The parameter name for &quot;Method of calculation of silhouette.&quot; */
+	public static final String PARAMETER_MODE = "mode";
+	
+	/** The parameter name for &quot;Confidence level of intervals of estimated silhouette.&quot; */
+	public static final String PARAMETER_CONFIDENCE_LEVEL = "confidence_level";
+	
+	/** The parameter name for &quot;Maximum width of confidence interval of silhouette of every cluster.&quot; */
+	public static final String PARAMETER_MAXIMUM_INTERVAL_WIDTH = "maximum_interval_width";
+	
+	/** The parameter name for &quot;Maximum time of sampling in seconds, 0 means no limit.&quot; */
+	public static final String PARAMETER_TIME_LIMIT = "time_limit";
+	
+	/** Methods of calculation of silhouette. */
+	public static final String[] MODES = { "exact", "sampled", "simplified" };
+	
+	/** Index of exact method. */
+	public static final int MODE_EXACT = 0;
+	
+	/** Index of sampling method. */
+	public static final int MODE_SAMPLED = 1;
+	
+	/** Index of method comparing examples with centroids or medoids of clusters. */
+	public static final int MODE_SIMPLIFIED = 2;
+	
 	/** Input port. */
 	private InputPort exampleSetInput = getInputPorts().createPort("cluster set");
 	
+	/** Optional input port of precomputed distances. */
+	private InputPort distanceMatrixInput = getInputPorts().createPort("distance matrix");
+	
 	/** Output port. */
 	private OutputPort silhouetteSetOutput = getOutputPorts().createPort("silhouette set");
 	
@@ -53,6 +91,7 @@ public class Silhouette extends Operator {
 
 		exampleSetInput.addPrecondition(new ExampleSetPrecondition(exampleSetInput, new String[] { "cluster" },
 				Ontology.ATTRIBUTE_VALUE));
+		distanceMatrixInput.addPrecondition(new SimplePrecondition(distanceMatrixInput, new MetaData(DistanceMatrixIOObject.class), false));
 		
 		
 		getTransformer().addRule(new ExampleSetPassThroughRule(exampleSetInput, exampleSetOutput, SetRelation.EQUAL) {
@@ -69,18 +108,43 @@ public class Silhouette extends Operator {
 	@Override
 	public void doWork() throws OperatorException {							
 		final ExampleSet clusterSet = exampleSetInput.getData(ExampleSet.class);
-		final ClusterSeparator clusterSeparator = new ClusterSeparator(clusterSet);
-		final Map<String, List <Example>> separatedMap = clusterSeparator.getSeparatedClusters();		
-		final DistanceMeasure measure;
-		if (presetMeasure != null) {
-			measure = presetMeasure;
-			measure.init(clusterSet);
-		} else {
-			measure = measureHelper.getInitializedMeasure(clusterSet);
-		}
+		final ClusterPartition partition = new ClusterPartition(clusterSet);
 		logNote("Start Silhouette calculation ...");
 		final SilhouetteData silhouetteData = new SilhouetteData();
-		silhouetteData.calculateSilhouette(separatedMap, measure);
+		final int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+		final int mode = getParameterAsInt(PARAMETER_MODE);
+		if (mode == MODE_SIMPLIFIED) {
+			final ClusterRepresentatives representatives = createRepresentatives(clusterSet, partition, numberOfThreads);
+			silhouetteData.calculateSimplifiedSilhouette(partition, representatives, numberOfThreads);
+			logNote("Simplified silhouette calculated with " + representatives.getName() + " of clusters.");
+		} else if (mode == MODE_SAMPLED) {
+			silhouetteData.estimateSilhouette(partition, createKernel(clusterSet, partition), RandomGenerator.getRandomGenerator(this),
+					getParameterAsDouble(PARAMETER_CONFIDENCE_LEVEL), getParameterAsDouble(PARAMETER_MAXIMUM_INTERVAL_WIDTH),
+					getParameterAsInt(PARAMETER_TIME_LIMIT) * 1000L, numberOfThreads);
+			logNote("Silhouette estimated from " + silhouetteData.getNumberOfSampledExamples() + " of "
+					+ partition.getNumberOfExamples() + " examples.");
+		} else if (distanceMatrixInput.getDataOrNull(DistanceMatrixIOObject.class) != null) {
+			final DistanceMatrixData distanceMatrix = distanceMatrixInput.getData(DistanceMatrixIOObject.class).getDistanceMatrix();
+			if (distanceMatrix.isSequential()) {
+				distanceMatrix.checkSize(this, clusterSet);
+				silhouetteData.calculateSilhouette(partition, distanceMatrix, numberOfThreads);
+			} else {
+				silhouetteData.calculateSilhouette(partition, createKernel(clusterSet, partition), numberOfThreads);
+			}
+			logNote("Silhouette calculated by " + silhouetteData.getCalculationName() + ".");
+		} else {
+			calculateSilhouette(silhouetteData, partition, getMeasure(clusterSet), numberOfThreads);
+			logNote("Silhouette calculated by " + silhouetteData.getCalculationName() + ".");
+			if (!Double.isNaN(silhouetteData.getPruningCostRatio())) {
+				logNote("Pruning was estimated to need " + Math.round(100 * silhouetteData.getPruningCostRatio())
+						+ "% of the distances of the sweep.");
+			}
+			final long numberOfPrunedClusters = silhouetteData.getNumberOfPrunedClusters();
+			if (numberOfPrunedClusters > 0) {
+				logNote("Pruned " + numberOfPrunedClusters + " of " + (numberOfPrunedClusters + silhouetteData.getNumberOfClusterEvaluations())
+						+ " evaluations of the nearest cluster.");
+			}
+		}
 		silhouetteData.setClusterSet(clusterSet);
 		final SilhouetteIOObject silhouetteIOObject = new SilhouetteIOObject(silhouetteData);
 	
@@ -90,14 +154,11 @@ public class Silhouette extends Operator {
 		clusterSet.getExampleTable().addAttribute(silhouetteAtt);
 		attributes.setSpecialAttribute(silhouetteAtt, "Silhouette");
 		
-		final Map<String, Double[]> mapOfSilhouette = silhouetteData.getSilhouette();
-		for (String key : mapOfSilhouette.keySet()) {
-			int i = 0;
-			for (Double silhouette : mapOfSilhouette.get(key)) {
-				final Example example = separatedMap.get(key).get(i);
-				example.setValue(silhouetteAtt, silhouette);
-				i++;
-			}
+		final double[] silhouettes = silhouetteData.getSilhouette();
+		int row = 0;
+		for (Example example : clusterSet) {
+			example.setValue(silhouetteAtt, silhouettes[row]);
+			row++;
 		}
 		
 		silhouetteSetOutput.deliver(silhouetteIOObject);
@@ -105,6 +166,81 @@ public class Silhouette extends Operator {
 	}
 	
 	
+	/**
+	 * Calculates exact silhouette of examples by selected measure. Squared Euclidean distance uses
+	 * distances to centroids and metrics may prune clusters by centroids, both only if no value is
+	 * missing. Measures skip missing values, so with missing values the identity of squared
+	 * Euclidean distance and the triangle inequality do not hold.
+	 * @param silhouetteData receives silhouette
+	 * @param partition examples divided by clusters
+	 * @param measure initialized measure
+	 * @param numberOfThreads number of threads
+	 */
+	static void calculateSilhouette(SilhouetteData silhouetteData, ClusterPartition partition, DistanceMeasure measure, int numberOfThreads) {
+		final FeatureMatrix matrix = new FeatureMatrix(partition);
+		final boolean complete = !matrix.hasMissingValues();
+		if (complete && DistanceFamily.isMeasure(measure, SquaredEuclideanDistance.class)) {
+			// the mean squared distance to a cluster follows from the distance to its centroid
+			silhouetteData.calculateSquaredEuclideanSilhouette(partition, ClusterRepresentatives.createCentroids(matrix, measure), numberOfThreads);
+		} else {
+			// bounds from centroids are valid only for metrics
+			final ClusterRepresentatives centroids = complete && DistanceFamily.of(measure).isMetric()
+					? ClusterRepresentatives.createCentroids(matrix, measure) : null;
+			silhouetteData.calculateSilhouette(partition, DistanceKernel.create(matrix, measure), numberOfThreads, centroids);
+		}
+	}
+	
+	/**
+	 * Creates kernel reading the connected distance matrix or calculating distances by selected measure.
+	 * @param clusterSet clustered dataset
+	 * @param partition examples divided by clusters
+	 * @return {@link DistanceKernel}
+	 * @throws OperatorException if the measure cannot be initialized or the matrix does not fit the dataset
+	 */
+	private DistanceKernel createKernel(ExampleSet clusterSet, ClusterPartition partition) throws OperatorException {
+		final DistanceMatrixIOObject distanceMatrix = distanceMatrixInput.getDataOrNull(DistanceMatrixIOObject.class);
+		if (distanceMatrix != null) {
+			distanceMatrix.getDistanceMatrix().checkSize(this, clusterSet);
+			return DistanceKernel.create(distanceMatrix.getDistanceMatrix(), partition);
+		}
+		return DistanceKernel.create(new FeatureMatrix(partition), getMeasure(clusterSet));
+	}
+	
+	/**
+	 * Creates representatives of clusters for simplified silhouette. Centroids are used for
+	 * Euclidean distance and Bregman divergences, medoids for other measures and for the
+	 * connected distance matrix.
+	 * @param clusterSet clustered dataset
+	 * @param partition examples divided by clusters
+	 * @param numberOfThreads number of threads
+	 * @return {@link ClusterRepresentatives}
+	 * @throws OperatorException if the measure cannot be initialized or the matrix does not fit the dataset
+	 */
+	private ClusterRepresentatives createRepresentatives(ExampleSet clusterSet, ClusterPartition partition, int numberOfThreads)
+			throws OperatorException {
+		if (distanceMatrixInput.getDataOrNull(DistanceMatrixIOObject.class) != null) {
+			return ClusterRepresentatives.createMedoids(partition, createKernel(clusterSet, partition), numberOfThreads);
+		}
+		return ClusterRepresentatives.create(new FeatureMatrix(partition), getMeasure(clusterSet), numberOfThreads);
+	}
+	
+	/**
+	 * Returns selected measure initialized for given dataset.
+	 * @param clusterSet clustered dataset
+	 * @return {@link DistanceMeasure}
+	 * @throws OperatorException if the measure cannot be initialized
+	 */
+	private DistanceMeasure getMeasure(ExampleSet clusterSet) throws OperatorException {
+		final DistanceMeasure measure;
+		if (presetMeasure != null) {
+			measure = presetMeasure;
+			measure.init(clusterSet);
+		} else {
+			measure = measureHelper.getInitializedMeasure(clusterSet);
+		}
+		return measure;
+	}
+	
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		final List<ParameterType> types = super.getParameterTypes();
@@ -117,6 +253,22 @@ public class Silhouette extends Operator {
 	        }
 			types.add(a);
 		}
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "Number of threads used for calculation.", 1, Integer.MAX_VALUE, 1));
+		types.add(new ParameterTypeCategory(PARAMETER_MODE, "Method of calculation of silhouette.", MODES, MODE_EXACT));
+		
+		ParameterType type = new ParameterTypeDouble(PARAMETER_CONFIDENCE_LEVEL, "Confidence level of intervals of estimated silhouette.", 0.5, 0.9999, 0.95);
+		type.registerDependencyCondition(new EqualTypeCondition(this, PARAMETER_MODE, MODES, false, MODE_SAMPLED));
+		types.add(type);
+		type = new ParameterTypeDouble(PARAMETER_MAXIMUM_INTERVAL_WIDTH, "Maximum width of confidence interval of silhouette of every cluster.", 0.0001, 2.0, 0.05);
+		type.registerDependencyCondition(new EqualTypeCondition(this, PARAMETER_MODE, MODES, false, MODE_SAMPLED));
+		types.add(type);
+		type = new ParameterTypeInt(PARAMETER_TIME_LIMIT, "Maximum time of sampling in seconds, 0 means no limit.", 0, Integer.MAX_VALUE, 0);
+		type.registerDependencyCondition(new EqualTypeCondition(this, PARAMETER_MODE, MODES, false, MODE_SAMPLED));
+		types.add(type);
+		for (ParameterType randomType : RandomGenerator.getRandomGeneratorParameters(this)) {
+			randomType.registerDependencyCondition(new EqualTypeCondition(this, PARAMETER_MODE, MODES, false, MODE_SAMPLED));
+			types.add(randomType);
+		}
 		return types;
 	}
 	
@@ -1,13 +1,12 @@
 package com.rapidminer.operator;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.tools.math.similarity.DistanceMeasure;
 
 /**
  * Class for calculating silhouette.
@@ -19,241 +18,966 @@ public class SilhouetteData {
 	/** Version. */
 	private static final long serialVersionUID = 1L;
 	
-	/** Map of silhouette of examples. */
-	private Map<String, Double[]> mapOfSilhouette;
+	/** Minimum number of examples processed by one thread at once. */
+	private static final int MIN_BLOCK_SIZE = 16;
+	
+	/** Maximum number of blocks of positions of the symmetric sweep, every round pairs half of them. */
+	private static final int MAX_SWEEP_BLOCKS = 128;
+	
+	/** Maximum number of ranges of rows of a pass over a distance matrix, visited in parallel. */
+	static final int MAX_MATRIX_RANGES = 16;
+	
+	/** Maximum number of sums of distances of all ranges of rows of a pass over a symmetric distance matrix. */
+	static final long MAX_MATRIX_RANGE_SUMS = 1L << 24;
+	
+	/** Minimum size of sample of one cluster before its confidence interval is trusted. */
+	private static final int MIN_SAMPLE_SIZE = 30;
+	
+	/** Minimum number of clusters for pruning, with two clusters the only other cluster cannot be skipped. */
+	private static final int MIN_CLUSTERS_FOR_PRUNING = 3;
+	
+	/** Number of examples whose pruned search estimates the cost of pruning. */
+	private static final int PRUNING_SAMPLE_SIZE = 64;
+	
+	/** Name of calculation of exact silhouette by a sweep over all pairs of examples. */
+	public static final String CALCULATION_SWEEP = "a sweep over all pairs of examples";
+	
+	/** Name of calculation of exact silhouette by a sweep calculating every symmetric distance once. */
+	public static final String CALCULATION_SYMMETRIC_SWEEP = "a symmetric sweep over all pairs of examples";
+	
+	/** Name of calculation of exact silhouette with pruning of clusters by centroids. */
+	public static final String CALCULATION_PRUNING = "pruning of clusters by centroids";
+	
+	/** Name of calculation of exact silhouette of squared Euclidean distance from distances to centroids. */
+	public static final String CALCULATION_CENTROIDS = "distances to centroids";
+	
+	/** Name of calculation of exact silhouette in a pass over a distance matrix. */
+	public static final String CALCULATION_MATRIX = "a sequential pass over the distance matrix";
+	
+	/** Relative tolerance of lower bounds, it covers rounding errors of distances to centroids. */
+	private static final double BOUND_TOLERANCE = 1e-9;
+	
+	/** Silhouette of examples indexed by row. */
+	private double[] silhouettes;
 	
 	/** Map of silhouette of clusters. */
 	private Map<String, Double> mapOfAverageSilhouette;
 	
+	/** Map of half-widths of confidence intervals of silhouette of clusters, empty for exact silhouette. */
+	private Map<String, Double> mapOfHalfWidth;
+	
+	/** Average silhouette of all examples. */
+	private double averageSilhouette;
+	
+	/** Half-width of confidence interval of average silhouette of all examples. */
+	private double averageHalfWidth;
+	
+	/** Confidence level of intervals, 0 for exact silhouette. */
+	private double confidenceLevel;
+	
+	/** Number of examples whose silhouette was calculated. */
+	private int numberOfSampledExamples;
+	
+	/** Name of representatives of simplified silhouette, null for silhouette over all examples. */
+	private String representativesName;
+	
+	/** Number of average distances to other clusters which were needed for b(i). */
+	private long numberOfClusterEvaluations;
+	
+	/** Number of average distances to other clusters skipped by pruning. */
+	private long numberOfPrunedClusters;
+	
+	/** Name of calculation of exact silhouette, null for estimated and simplified silhouette. */
+	private String calculationName;
+	
+	/** Estimated number of distances of pruning relative to the sweep, NaN if pruning was not considered. */
+	private double pruningCostRatio = Double.NaN;
+	
 	/** Clustered dataset. */
 	private ExampleSet clusterSet;
 	
 	/** Constructs a new instance. */
 	public SilhouetteData() {
-		mapOfSilhouette = new HashMap<>(); 
+		silhouettes = new double[0];
 		mapOfAverageSilhouette = new HashMap<>();
+		mapOfHalfWidth = new HashMap<>();
 	}
 	
 	
 	/**
 	 * Calculates silhouette of examples of data set and silhouette of clusters
-	 * @param separatedElements map of object by clusters
-	 * @param measure selected measure
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples addressed by positions of partition
 	 */
-	public void calculateSilhouette(Map<String, List<Example>> separatedElements, DistanceMeasure measure) {
-		if (separatedElements.size() == 1) {
-			final String key = separatedElements.keySet().iterator().next();
-			this.mapOfAverageSilhouette.put(key, 0.0);
-		} else if (separatedElements.size() < 1) {
-
-		} else {
-			final Map<String, Double[]> mapOfAverageDistancesIn = calculateAverageDistancesIn(
-					separatedElements, measure);
-			final Map<String, Double[]> mapOfAverageDistancesOut = calculateAverageDistancesOut(
-					separatedElements, measure);	
-			this.mapOfSilhouette = getSilhouette(
-					mapOfAverageDistancesIn, mapOfAverageDistancesOut);
-			this.mapOfAverageSilhouette = getAverageSilhouettes(mapOfSilhouette);	
-		}
+	public void calculateSilhouette(ClusterPartition partition, DistanceKernel kernel) {
+		calculateSilhouette(partition, kernel, 1);
 	}
 	
 	/**
-	 * Calculates average silhouette of clusters.
-	 * @param mapOfSilhouette map of silhouette of examples.
-	 * @return map of average silhouette of clusters
+	 * Calculates silhouette of examples of data set and silhouette of clusters.
+	 * For every example the sums of distances to all clusters are accumulated in one sweep,
+	 * a(i) and b(i) are taken from these sums. A symmetric distance is calculated once for every pair.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples addressed by positions of partition
+	 * @param numberOfThreads number of threads
 	 */
-	private Map<String, Double> getAverageSilhouettes(Map<String, Double[]> mapOfSilhouette) {
-		Map<String, Double> mapOfAverageSilhouette = new HashMap<>();
-		for (String key : mapOfSilhouette.keySet()) {
-			mapOfAverageSilhouette.put(key, getAverageSilhouette(mapOfSilhouette.get(key)));
-		}
-		return mapOfAverageSilhouette;
+	public void calculateSilhouette(ClusterPartition partition, DistanceKernel kernel, int numberOfThreads) {
+		calculateSilhouette(partition, kernel, numberOfThreads, null);
 	}
 	
+	/**
+	 * Calculates silhouette of examples of data set and silhouette of clusters. If centroids of a metric
+	 * are given and there are enough clusters, the pruned search of the nearest cluster is tried on a sample
+	 * of examples, which estimates how many distances it needs. Pruning by the triangle inequality is used
+	 * only if it needs fewer distances than the sweep, the result is the same as without pruning.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples addressed by positions of partition
+	 * @param numberOfThreads number of threads
+	 * @param centroids centroids of clusters measured by the same metric as kernel, null to disable pruning
+	 */
+	public void calculateSilhouette(ClusterPartition partition, DistanceKernel kernel, int numberOfThreads, ClusterRepresentatives centroids) {
+		final int numberOfClusters = partition.getNumberOfClusters();
+		this.silhouettes = new double[partition.getNumberOfExamples()];
+		if (numberOfClusters == 1) {
+			Arrays.fill(this.silhouettes, Double.NaN);
+			this.mapOfAverageSilhouette.put(partition.getClusterName(0), 0.0);
+		} else if (numberOfClusters > 1) {
+			final double[] radii = centroids != null && numberOfClusters >= MIN_CLUSTERS_FOR_PRUNING ? getRadii(partition, centroids) : null;
+			if (radii != null) {
+				this.pruningCostRatio = estimatePruningCost(partition, kernel, centroids, radii, numberOfThreads);
+			}
+			if (this.pruningCostRatio < 1.0) {
+				final int[] positions = new int[partition.getNumberOfExamples()];
+				for (int position = 0; position < positions.length; position++) {
+					positions[position] = position;
+				}
+				final long[] counts = new long[3];
+				final double[] prunedSilhouettes = calculatePrunedSilhouettes(partition, kernel, centroids, radii, positions, counts, numberOfThreads);
+				for (int position = 0; position < positions.length; position++) {
+					this.silhouettes[partition.getMember(position)] = prunedSilhouettes[position];
+				}
+				this.numberOfClusterEvaluations = counts[0];
+				this.numberOfPrunedClusters = counts[1];
+				this.calculationName = CALCULATION_PRUNING;
+			} else if (kernel.isSymmetric()) {
+				this.silhouettes = getSilhouette(partition, calculateSymmetricDistanceSums(partition, kernel, numberOfThreads));
+				this.calculationName = CALCULATION_SYMMETRIC_SWEEP;
+			} else {
+				this.silhouettes = getSilhouette(partition, calculateDistanceSums(partition, kernel, numberOfThreads));
+				this.calculationName = CALCULATION_SWEEP;
+			}
+			this.mapOfAverageSilhouette = getAverageSilhouettes(partition, this.silhouettes);	
+		}
+		this.averageSilhouette = getAverageSilhouette(partition, this.mapOfAverageSilhouette);
+		this.numberOfSampledExamples = partition.getNumberOfExamples();
+	}
 	
 	/**
-	 * Calculates average silhouette of given cluster.
-	 * @param clusterSilhouette silhouette of examples of cluster
-	 * @return average silhouette of cluster
+	 * Calculates silhouette of examples of data set and silhouette of clusters in passes over a distance
+	 * matrix in the order of its storage, which suits matrices larger than the memory. Threads visit
+	 * ranges of rows, their number is given by {@link #getNumberOfRanges(boolean, long)}, so the result
+	 * does not depend on the number of threads.
+	 * @param partition examples divided by clusters
+	 * @param matrix distances of examples addressed by row indices
+	 * @param numberOfThreads number of threads
 	 */
-	private Double getAverageSilhouette(Double[] clusterSilhouette) {
-		Double sumOfSilhouettes = 0.0;
-		Double numberOfSilhouette = 0.0;
-		for (Double silhouette : clusterSilhouette) {
-			sumOfSilhouettes = sumOfSilhouettes + silhouette;
-			++numberOfSilhouette;
+	public void calculateSilhouette(ClusterPartition partition, DistanceMatrixData matrix, int numberOfThreads) {
+		final DistanceSums[] rangeSums = new DistanceSums[getNumberOfRanges(matrix.isSymmetric(), getNumberOfSums(partition))];
+		rangeSums[0] = new DistanceSums(partition, matrix.isSymmetric());
+		for (int range = 1; range < rangeSums.length; range++) {
+			rangeSums[range] = rangeSums[0].copy();
 		}
-		if (numberOfSilhouette > 0) {
-			return sumOfSilhouettes / numberOfSilhouette; 
+		if (partition.getNumberOfClusters() > 1) {
+			matrix.visitDistances(rangeSums, numberOfThreads);
 		}
-		return 0.0;
+		calculateSilhouette(partition, rangeSums);
 	}
 	
 	/**
-	 * Calculates silhouette of examples.
-	 * @param mapOfAverageDistancesIn average distances into cluster
-	 * @param mapOfAverageDistancesOut average distances with other clusters
-	 * @return map of silhouette of examples
+	 * Returns number of ranges of rows of a pass over a distance matrix. It depends only on the size
+	 * of sums, so sums are added in the same order for any number of threads. Visitors of ranges of
+	 * an asymmetric matrix share one array of sums, visitors of a symmetric matrix have their own
+	 * sums and the memory of all of them is limited by {@link #MAX_MATRIX_RANGE_SUMS}.
+	 * @param symmetric true if every symmetric distance is visited once
+	 * @param numberOfSums number of sums of distances of one visitor
+	 * @return number of ranges, at least 1
 	 */
-	private Map<String, Double[]> getSilhouette(Map<String, Double[]> mapOfAverageDistancesIn, Map<String, Double[]> mapOfAverageDistancesOut) {
-		final Map<String, Double[]> mapOfSilhouette = new HashMap<>();
-		for (String key : mapOfAverageDistancesIn.keySet()) {
-			final Double[] averageDistanceIn = mapOfAverageDistancesIn.get(key);
-			final Double[] averageDistanceOut = mapOfAverageDistancesOut.get(key);
-			final Double[] silhouettes = new Double[averageDistanceIn.length]; 
-			if (averageDistanceIn.length == 1) {
-				silhouettes[0] = 0.0;
-			} else {
-				for (int i = 0; i < averageDistanceIn.length; i++) {
-					if (averageDistanceIn[i] < averageDistanceOut[i]) {
-						if (averageDistanceOut[i] != 0.0) {
-							silhouettes[i] = 1 - (averageDistanceIn[i] / averageDistanceOut[i]);
-						} else {
-							silhouettes[i] = 0.0;
-						}			
-					} else if (averageDistanceIn[i] > averageDistanceOut[i]) {
-						if (averageDistanceIn[i] != 0.0) {
-							silhouettes[i] = (averageDistanceOut[i] / averageDistanceIn[i]) - 1;
-						} else {
-							silhouettes[i] = 0.0;
-						}		
-					} else if (averageDistanceIn[i] == averageDistanceOut[i]) {
-						silhouettes[i] = 0.0;
-					} 
+	static int getNumberOfRanges(boolean symmetric, long numberOfSums) {
+		if (!symmetric) {
+			return MAX_MATRIX_RANGES;
+		}
+		return (int) Math.max(1, Math.min(MAX_MATRIX_RANGES, MAX_MATRIX_RANGE_SUMS / Math.max(1, numberOfSums)));
+	}
+	
+	/**
+	 * Calculates silhouette of examples of data set and silhouette of clusters from sums of distances
+	 * accumulated in a pass over a distance matrix, e.g. together with other indices or clusterings.
+	 * Own sums of ranges are added in their order, so the result does not depend on the order of threads.
+	 * @param partition examples divided by clusters
+	 * @param rangeSums sums of distances of visitors of ranges of rows in the order of ranges
+	 */
+	public void calculateSilhouette(ClusterPartition partition, DistanceSums[] rangeSums) {
+		final int numberOfClusters = partition.getNumberOfClusters();
+		this.silhouettes = new double[partition.getNumberOfExamples()];
+		if (numberOfClusters == 1) {
+			Arrays.fill(this.silhouettes, Double.NaN);
+			this.mapOfAverageSilhouette.put(partition.getClusterName(0), 0.0);
+		} else if (numberOfClusters > 1) {
+			final double[] distanceSums = rangeSums[0].distanceSums;
+			for (int range = 1; range < rangeSums.length; range++) {
+				if (rangeSums[range].distanceSums == distanceSums) {
+					continue;
+				}
+				for (int i = 0; i < distanceSums.length; i++) {
+					distanceSums[i] += rangeSums[range].distanceSums[i];
 				}
 			}
-			mapOfSilhouette.put(key, silhouettes);
+			this.silhouettes = getSilhouette(partition, distanceSums);
+			this.mapOfAverageSilhouette = getAverageSilhouettes(partition, this.silhouettes);
+			this.calculationName = CALCULATION_MATRIX;
 		}
-		return mapOfSilhouette;
+		this.averageSilhouette = getAverageSilhouette(partition, this.mapOfAverageSilhouette);
+		this.numberOfSampledExamples = partition.getNumberOfExamples();
 	}
 	
+	/**
+	 * Calculates exact silhouette of squared Euclidean distance from distances to centroids, so the cost
+	 * is O(n * k) distances instead of O(n^2). For a cluster C with centroid m the sum of squared distances
+	 * of x to members of C is |C| * (d(x, m) + r), where r is the mean squared distance of members to m.
+	 * The result equals the sweep up to rounding errors if values are not missing.
+	 * @param partition examples divided by clusters
+	 * @param centroids centroids of clusters measured by squared Euclidean distance
+	 * @param numberOfThreads number of threads
+	 */
+	public void calculateSquaredEuclideanSilhouette(final ClusterPartition partition, final ClusterRepresentatives centroids, int numberOfThreads) {
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final int[] members = partition.getMembers();
+		final int[] clusterOfPosition = getClusterOfPosition(partition);
+		this.silhouettes = new double[partition.getNumberOfExamples()];
+		if (numberOfClusters == 1) {
+			Arrays.fill(this.silhouettes, Double.NaN);
+			this.mapOfAverageSilhouette.put(partition.getClusterName(0), 0.0);
+		} else if (numberOfClusters > 1) {
+			final double[] radii = getRadii(partition, centroids);
+			new BlockTask(MIN_BLOCK_SIZE) {
+				
+				@Override
+				protected void process(int from, int to) {
+					final ClusterRepresentatives blockCentroids = centroids.copy();
+					for (int position = from; position < to; position++) {
+						final int cluster = clusterOfPosition[position];
+						final int clusterSize = partition.getClusterSize(cluster);
+						if (clusterSize == 1) {
+							silhouettes[members[position]] = 0.0;
+							continue;
+						}
+						// the distance of the example to itself is 0, so it does not change the sum of its cluster
+						final double averageDistanceIn = (blockCentroids.distance(position, cluster) + radii[cluster]) * clusterSize / (clusterSize - 1);
+						double averageDistanceOut = Double.MAX_VALUE;
+						for (int clusterOut = 0; clusterOut < numberOfClusters; clusterOut++) {
+							if (clusterOut != cluster) {
+								final double averageDistance = blockCentroids.distance(position, clusterOut) + radii[clusterOut];
+								if (averageDistanceOut > averageDistance) {
+									averageDistanceOut = averageDistance;
+								}
+							}
+						}
+						silhouettes[members[position]] = getSilhouette(averageDistanceIn, averageDistanceOut);
+					}
+				}
+			}.execute(partition.getNumberOfExamples(), numberOfThreads);
+			this.mapOfAverageSilhouette = getAverageSilhouettes(partition, this.silhouettes);
+			this.calculationName = CALCULATION_CENTROIDS;
+		}
+		this.averageSilhouette = getAverageSilhouette(partition, this.mapOfAverageSilhouette);
+		this.numberOfSampledExamples = partition.getNumberOfExamples();
+	}
 	
 	/**
-	 * Calculates average distance between examples and nearest clusters. 
-	 * @param separatedMap map of object by clusters
-	 * @param measure selected measure
-	 * @return map of distance between examples and nearest clusters
+	 * Calculates simplified silhouette, a(i) and b(i) are distances to representatives of clusters
+	 * instead of average distances to their members, so the cost is O(n * k).
+	 * @param partition examples divided by clusters
+	 * @param representatives representatives of clusters
+	 * @param numberOfThreads number of threads
 	 */
-	private Map<String, Double[]> calculateAverageDistancesOut(Map<String, List<Example>> separatedMap, DistanceMeasure measure) {
-		final Map<String, Double[]> nearestCluster = findNearestCluster(separatedMap, measure);
-		return nearestCluster;
+	public void calculateSimplifiedSilhouette(ClusterPartition partition, final ClusterRepresentatives representatives, int numberOfThreads) {
+		final int numberOfExamples = partition.getNumberOfExamples();
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final int[] members = partition.getMembers();
+		final int[] clusterOfPosition = getClusterOfPosition(partition);
+		final int[] clusterSizes = new int[numberOfClusters];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			clusterSizes[cluster] = partition.getClusterSize(cluster);
+		}
+		this.representativesName = representatives.getName();
+		this.silhouettes = new double[numberOfExamples];
+		if (numberOfClusters == 1) {
+			Arrays.fill(this.silhouettes, Double.NaN);
+			this.mapOfAverageSilhouette.put(partition.getClusterName(0), 0.0);
+		} else if (numberOfClusters > 1) {
+			new BlockTask(MIN_BLOCK_SIZE) {
+				
+				@Override
+				protected void process(int from, int to) {
+					final ClusterRepresentatives blockRepresentatives = representatives.copy();
+					for (int position = from; position < to; position++) {
+						final int cluster = clusterOfPosition[position];
+						if (clusterSizes[cluster] == 1) {
+							silhouettes[members[position]] = 0.0;
+							continue;
+						}
+						final double distanceIn = blockRepresentatives.distance(position, cluster);
+						double distanceOut = Double.MAX_VALUE;
+						for (int clusterOut = 0; clusterOut < numberOfClusters; clusterOut++) {
+							if (clusterOut != cluster) {
+								distanceOut = Math.min(distanceOut, blockRepresentatives.distance(position, clusterOut));
+							}
+						}
+						silhouettes[members[position]] = getSilhouette(distanceIn, distanceOut);
+					}
+				}
+			}.execute(numberOfExamples, numberOfThreads);
+			this.mapOfAverageSilhouette = getAverageSilhouettes(partition, this.silhouettes);
+		}
+		this.averageSilhouette = getAverageSilhouette(partition, this.mapOfAverageSilhouette);
+		this.numberOfSampledExamples = numberOfExamples;
 	}
 	
+	/**
+	 * Estimates silhouette of clusters from stratified samples of their examples. Silhouette of
+	 * a sampled example is exact, it is calculated against all examples. Samples are enlarged
+	 * until the confidence interval of every cluster is narrower than the given width, the time
+	 * limit is reached or the whole cluster is sampled. Examples which were not sampled get
+	 * missing silhouette.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples addressed by positions of partition
+	 * @param random random generator
+	 * @param confidenceLevel confidence level of intervals
+	 * @param maximumIntervalWidth maximum width of confidence interval of every cluster
+	 * @param timeLimit maximum time of sampling in milliseconds, 0 for no limit
+	 * @param numberOfThreads number of threads
+	 */
+	public void estimateSilhouette(ClusterPartition partition, DistanceKernel kernel, Random random,
+			double confidenceLevel, double maximumIntervalWidth, long timeLimit, int numberOfThreads) {
+		final int numberOfClusters = partition.getNumberOfClusters();
+		if (numberOfClusters < 2) {
+			calculateSilhouette(partition, kernel, numberOfThreads);
+			return;
+		}
+		final long startTime = System.currentTimeMillis();
+		final double z = RunningStatistics.getNormalQuantile(1.0 - (1.0 - confidenceLevel) / 2);
+		final int[] clusterOfPosition = getClusterOfPosition(partition);
+		// positions of every cluster are shuffled lazily, the first sampleSizes[c] ones form the sample
+		final int[] order = new int[partition.getNumberOfExamples()];
+		for (int position = 0; position < order.length; position++) {
+			order[position] = position;
+		}
+		final int[] sampleSizes = new int[numberOfClusters];
+		final RunningStatistics[] statistics = new RunningStatistics[numberOfClusters];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			statistics[cluster] = new RunningStatistics();
+		}
+		this.silhouettes = new double[partition.getNumberOfExamples()];
+		Arrays.fill(this.silhouettes, Double.NaN);
+		this.numberOfSampledExamples = 0;
+		
+		double millisecondsPerExample = 0.0;
+		while (true) {
+			final int[] batchSizes = new int[numberOfClusters];
+			int batchSize = 0;
+			for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+				batchSizes[cluster] = getBatchSize(partition.getClusterSize(cluster), statistics[cluster], z, maximumIntervalWidth);
+				batchSize += batchSizes[cluster];
+			}
+			if (batchSize == 0) {
+				break;
+			}
+			if (timeLimit > 0) {
+				final long remainingTime = startTime + timeLimit - System.currentTimeMillis();
+				if (remainingTime <= 0) {
+					break;
+				}
+				// shrink the batch so that it is expected to finish in time
+				if (millisecondsPerExample * batchSize > remainingTime) {
+					final double scale = remainingTime / (millisecondsPerExample * batchSize);
+					batchSize = 0;
+					for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+						if (batchSizes[cluster] > 0) {
+							batchSizes[cluster] = Math.max(1, (int) (batchSizes[cluster] * scale));
+							batchSize += batchSizes[cluster];
+						}
+					}
+				}
+			}
+			
+			final int[] batch = new int[batchSize];
+			int index = 0;
+			for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+				final int start = partition.getClusterStart(cluster);
+				final int clusterSize = partition.getClusterSize(cluster);
+				for (int i = 0; i < batchSizes[cluster]; i++) {
+					final int drawn = start + sampleSizes[cluster] + random.nextInt(clusterSize - sampleSizes[cluster]);
+					final int next = start + sampleSizes[cluster];
+					final int position = order[drawn];
+					order[drawn] = order[next];
+					order[next] = position;
+					sampleSizes[cluster]++;
+					batch[index++] = position;
+				}
+			}
+			
+			final long batchStartTime = System.currentTimeMillis();
+			final double[] batchSilhouettes = calculateSilhouettes(partition, kernel, clusterOfPosition, batch, numberOfThreads);
+			millisecondsPerExample = (double) (System.currentTimeMillis() - batchStartTime) / batchSize;
+			for (int i = 0; i < batchSize; i++) {
+				statistics[clusterOfPosition[batch[i]]].add(batchSilhouettes[i]);
+				this.silhouettes[partition.getMember(batch[i])] = batchSilhouettes[i];
+			}
+			this.numberOfSampledExamples += batchSize;
+		}
+		
+		this.confidenceLevel = confidenceLevel;
+		this.mapOfAverageSilhouette = new HashMap<>();
+		this.mapOfHalfWidth = new HashMap<>();
+		this.averageSilhouette = 0.0;
+		double averageVariance = 0.0;
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			final int clusterSize = partition.getClusterSize(cluster);
+			final double weight = (double) clusterSize / partition.getNumberOfExamples();
+			final double varianceOfMean = statistics[cluster].getVarianceOfMean(clusterSize);
+			this.mapOfAverageSilhouette.put(partition.getClusterName(cluster), statistics[cluster].getMean());
+			this.mapOfHalfWidth.put(partition.getClusterName(cluster), z * Math.sqrt(varianceOfMean));
+			this.averageSilhouette += weight * statistics[cluster].getMean();
+			averageVariance += weight * weight * varianceOfMean;
+		}
+		this.averageHalfWidth = z * Math.sqrt(averageVariance);
+	}
 	
 	/**
-	 * Calculates average distances between examples and nearest clusters.
-	 * @param separatedMap map of object by clusters
-	 * @param measure selected measure
-	 * @return map of average distances between examples and nearest cluster
+	 * Returns number of examples which should be added to the sample of a cluster.
+	 * The sample grows to the size the current variance needs for the required width,
+	 * at most it is doubled in one step.
+	 * @param clusterSize number of examples of cluster
+	 * @param statistics statistics of sampled silhouettes of cluster
+	 * @param z quantile of normal distribution of confidence level
+	 * @param maximumIntervalWidth maximum width of confidence interval
+	 * @return number of examples to add, 0 if the sample is large enough
 	 */
-	private Map<String, Double[]> findNearestCluster(Map<String, List<Example>> separatedMap, DistanceMeasure measure) {
-		final Set<String> keys = separatedMap.keySet();
-		final Map<String, Double[]> mapOfNearestCluster = new HashMap<>();
-		for (String key : keys) { 
-			mapOfNearestCluster.put(key, getNearestCluster(separatedMap.get(key), key, separatedMap, measure));	
+	private int getBatchSize(int clusterSize, RunningStatistics statistics, double z, double maximumIntervalWidth) {
+		final int sampleSize = (int) statistics.getCount();
+		if (sampleSize >= clusterSize) {
+			return 0;
+		}
+		if (sampleSize < MIN_SAMPLE_SIZE) {
+			return Math.min(MIN_SAMPLE_SIZE, clusterSize) - sampleSize;
 		}
-		return mapOfNearestCluster;
+		final double halfWidth = z * Math.sqrt(statistics.getVarianceOfMean(clusterSize));
+		if (2 * halfWidth <= maximumIntervalWidth) {
+			return 0;
+		}
+		final double maximumHalfWidth = maximumIntervalWidth / 2;
+		final double requiredSize = Math.ceil(z * z * statistics.getVariance() / (maximumHalfWidth * maximumHalfWidth));
+		final int targetSize = (int) Math.min(Math.min(requiredSize, 2.0 * sampleSize), clusterSize);
+		return Math.max(1, targetSize - sampleSize);
 	}
-
+	
+	/**
+	 * Calculates exact silhouette of given examples, each of them sweeps over all examples.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples
+	 * @param clusterOfPosition cluster index of every position
+	 * @param positions positions of examples
+	 * @param numberOfThreads number of threads
+	 * @return silhouette of examples in the order of positions
+	 */
+	private double[] calculateSilhouettes(final ClusterPartition partition, final DistanceKernel kernel,
+			final int[] clusterOfPosition, final int[] positions, int numberOfThreads) {
+		final int numberOfExamples = partition.getNumberOfExamples();
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final double[] batchSilhouettes = new double[positions.length];
+		new BlockTask(1) {
+			
+			@Override
+			protected void process(int from, int to) {
+				final DistanceKernel blockKernel = kernel.copy();
+				final double[] distanceSums = new double[numberOfClusters];
+				for (int i = from; i < to; i++) {
+					final int position = positions[i];
+					Arrays.fill(distanceSums, 0.0);
+					for (int positionOut = 0; positionOut < numberOfExamples; positionOut++) {
+						if (positionOut != position) {
+							distanceSums[clusterOfPosition[positionOut]] += blockKernel.distance(position, positionOut);
+						}
+					}
+					batchSilhouettes[i] = getSilhouette(partition, clusterOfPosition[position], distanceSums, 0);
+				}
+			}
+		}.execute(positions.length, numberOfThreads);
+		return batchSilhouettes;
+	}
+	
 	/**
-	 * Calculates average distances between examples and nearest cluster.
-	 * @param cluster selected cluster
-	 * @param clusterName name of selected cluster
-	 * @param separatedMap map of object by clusters
-	 * @param measure selected measure
-	 * @return average distances between examples and nearest cluster
+	 * Calculates sums of distances between every example and every cluster in one sweep over
+	 * pairs of examples. Every distance is calculated once and added to the sums of both examples.
+	 * Positions are split into blocks whose size depends only on the number of examples, every pair
+	 * of blocks is one tile of the sweep. Tiles are processed in rounds of the circle method of round-robin
+	 * tournaments, so tiles of one round share no block and write disjoint sums, tiles of one round run in
+	 * parallel. Every sum receives its distances in the same order for any number of threads, so the result
+	 * does not depend on the number of threads.
+	 * @param partition examples divided by clusters
+	 * @param kernel symmetric distances of examples
+	 * @param numberOfThreads number of threads
+	 * @return sums of distances, the sum of position p and cluster c is stored at p * k + c
 	 */
-	private Double[] getNearestCluster(List<Example> cluster,
-			String clusterName, 
-			Map<String, List<Example>> separatedMap,
-			DistanceMeasure measure) {
-		Double[] nearestDistances = new Double[cluster.size()];
-		int i = 0;
-		for (Example example : cluster) {
-			double minAverageDistance = Double.MAX_VALUE;
-			for (String key : separatedMap.keySet()) {
-				if (!key.equals(clusterName)) {					
-					Double averageDistance = getAverageDistance(example, separatedMap.get(key), measure);
-					if (minAverageDistance > averageDistance) {
-						minAverageDistance = averageDistance;
+	private double[] calculateSymmetricDistanceSums(ClusterPartition partition, final DistanceKernel kernel, int numberOfThreads) {
+		final int numberOfExamples = partition.getNumberOfExamples();
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final int[] clusterOfPosition = getClusterOfPosition(partition);
+		final double[] distanceSums = new double[getNumberOfSums(partition)];
+		final int blockSize = Math.max(MIN_BLOCK_SIZE, (numberOfExamples + MAX_SWEEP_BLOCKS - 1) / MAX_SWEEP_BLOCKS);
+		final int numberOfBlocks = (numberOfExamples + blockSize - 1) / blockSize;
+		// an even number of slots, a block of the odd one out pauses in its round
+		final int numberOfSlots = numberOfBlocks + numberOfBlocks % 2;
+		final int[] firstBlocks = new int[numberOfBlocks];
+		final int[] secondBlocks = new int[numberOfBlocks];
+		// the first round pairs every block with itself
+		for (int round = -1; round < numberOfSlots - 1; round++) {
+			int numberOfTiles = 0;
+			for (int slot = 0; slot < (round < 0 ? numberOfBlocks : numberOfSlots / 2); slot++) {
+				final int first;
+				final int second;
+				if (round < 0) {
+					first = slot;
+					second = slot;
+				} else if (slot == 0) {
+					first = round;
+					second = numberOfSlots - 1;
+				} else {
+					first = (round + slot) % (numberOfSlots - 1);
+					second = (round - slot + numberOfSlots - 1) % (numberOfSlots - 1);
+				}
+				if (first < numberOfBlocks && second < numberOfBlocks) {
+					firstBlocks[numberOfTiles] = Math.min(first, second);
+					secondBlocks[numberOfTiles] = Math.max(first, second);
+					numberOfTiles++;
+				}
+			}
+			new BlockTask(1) {
+				
+				@Override
+				protected void process(int from, int to) {
+					final DistanceKernel blockKernel = kernel.copy();
+					for (int tile = from; tile < to; tile++) {
+						final int firstBlock = firstBlocks[tile];
+						final int secondBlock = secondBlocks[tile];
+						final int firstEnd = Math.min(numberOfExamples, (firstBlock + 1) * blockSize);
+						final int secondEnd = Math.min(numberOfExamples, (secondBlock + 1) * blockSize);
+						for (int position = firstBlock * blockSize; position < firstEnd; position++) {
+							final int offset = position * numberOfClusters;
+							final int cluster = clusterOfPosition[position];
+							for (int positionOut = firstBlock == secondBlock ? position + 1 : secondBlock * blockSize; positionOut < secondEnd; positionOut++) {
+								final double distance = blockKernel.distance(position, positionOut);
+								distanceSums[offset + clusterOfPosition[positionOut]] += distance;
+								distanceSums[positionOut * numberOfClusters + cluster] += distance;
+							}
+						}
 					}
 				}
+			}.execute(numberOfTiles, numberOfThreads);
+		}
+		return distanceSums;
+	}
+	
+	/**
+	 * Returns number of sums of distances between every example and every cluster.
+	 * @param partition examples divided by clusters
+	 * @return number of examples times number of clusters
+	 * @throws IllegalArgumentException if the sums do not fit into one array
+	 */
+	static int getNumberOfSums(ClusterPartition partition) {
+		final long numberOfSums = (long) partition.getNumberOfExamples() * partition.getNumberOfClusters();
+		if (numberOfSums > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Sums of distances of " + partition.getNumberOfExamples() + " examples and "
+					+ partition.getNumberOfClusters() + " clusters do not fit into one array.");
+		}
+		return (int) numberOfSums;
+	}
+	
+	/**
+	 * Returns mean distance of members of every cluster to its representative.
+	 * @param partition examples divided by clusters
+	 * @param representatives representatives of clusters
+	 * @return mean distances indexed by cluster
+	 */
+	private static double[] getRadii(ClusterPartition partition, ClusterRepresentatives representatives) {
+		final double[] radii = new double[partition.getNumberOfClusters()];
+		for (int cluster = 0; cluster < radii.length; cluster++) {
+			for (int position = partition.getClusterStart(cluster); position < partition.getClusterEnd(cluster); position++) {
+				radii[cluster] += representatives.distance(position, cluster);
 			}
-			nearestDistances[i] = minAverageDistance;
-			++i;
+			radii[cluster] /= partition.getClusterSize(cluster);
+		}
+		return radii;
+	}
+	
+	/**
+	 * Estimates number of distances of pruning relative to the sweep by the pruned search of evenly
+	 * spaced examples. Positions are ordered by clusters, so the sample covers clusters by their sizes.
+	 * Distances to centroids are counted as well.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples, a metric
+	 * @param centroids centroids of clusters
+	 * @param radii mean distance of members of every cluster to its centroid
+	 * @param numberOfThreads number of threads
+	 * @return estimated ratio, pruning is cheaper below 1
+	 */
+	private double estimatePruningCost(ClusterPartition partition, DistanceKernel kernel, ClusterRepresentatives centroids,
+			double[] radii, int numberOfThreads) {
+		final int numberOfExamples = partition.getNumberOfExamples();
+		final int[] sample = new int[Math.min(PRUNING_SAMPLE_SIZE, numberOfExamples)];
+		for (int i = 0; i < sample.length; i++) {
+			sample[i] = (int) ((long) i * numberOfExamples / sample.length);
 		}
-		return nearestDistances;
+		final long[] counts = new long[3];
+		calculatePrunedSilhouettes(partition, kernel, centroids, radii, sample, counts, numberOfThreads);
+		final double prunedDistances = ((double) counts[2] / sample.length + partition.getNumberOfClusters()) * numberOfExamples;
+		final double sweepDistances = (double) numberOfExamples * (numberOfExamples - 1) / (kernel.isSymmetric() ? 2 : 1);
+		return prunedDistances / sweepDistances;
 	}
 	
+	/**
+	 * Calculates silhouette of given examples, clusters which cannot be the nearest one are skipped.
+	 * For a member y of cluster C with centroid m the triangle inequality gives
+	 * d(x, y) &gt;= d(x, m) - d(y, m), averaging over C bounds the average distance of x to C from
+	 * below by d(x, m) minus the mean distance of members to m. Other clusters are visited in the
+	 * order of their bounds and the search stops when the bound reaches the nearest average found.
+	 * Averages are summed in the same order as in {@link #calculateDistanceSums(ClusterPartition, DistanceKernel, int)}.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples, a metric
+	 * @param centroids centroids of clusters
+	 * @param radii mean distance of members of every cluster to its centroid
+	 * @param positions positions of examples
+	 * @param counts receives numbers of evaluated and pruned clusters and of distances of examples
+	 * @param numberOfThreads number of threads
+	 * @return silhouette of examples in the order of positions
+	 */
+	private double[] calculatePrunedSilhouettes(final ClusterPartition partition, final DistanceKernel kernel,
+			final ClusterRepresentatives centroids, final double[] radii, final int[] positions, long[] counts, int numberOfThreads) {
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final int[] clusterOfPosition = getClusterOfPosition(partition);
+		final double[] prunedSilhouettes = new double[positions.length];
+		final AtomicLong evaluations = new AtomicLong();
+		final AtomicLong pruned = new AtomicLong();
+		final AtomicLong distances = new AtomicLong();
+		new BlockTask(MIN_BLOCK_SIZE) {
+			
+			@Override
+			protected void process(int from, int to) {
+				final DistanceKernel blockKernel = kernel.copy();
+				final ClusterRepresentatives blockCentroids = centroids.copy();
+				final double[] lowerBounds = new double[numberOfClusters];
+				final int[] order = new int[numberOfClusters - 1];
+				long blockEvaluations = 0;
+				long blockPruned = 0;
+				long blockDistances = 0;
+				for (int i = from; i < to; i++) {
+					final int position = positions[i];
+					final int cluster = clusterOfPosition[position];
+					final int clusterSize = partition.getClusterSize(cluster);
+					if (clusterSize == 1) {
+						prunedSilhouettes[i] = 0.0;
+						continue;
+					}
+					final double averageDistanceIn = getDistanceSum(blockKernel, position, partition, cluster) / (clusterSize - 1);
+					blockDistances += clusterSize - 1;
+					
+					// other clusters sorted by lower bounds of average distance
+					int numberOfCandidates = 0;
+					for (int clusterOut = 0; clusterOut < numberOfClusters; clusterOut++) {
+						if (clusterOut != cluster) {
+							final double distance = blockCentroids.distance(position, clusterOut);
+							lowerBounds[clusterOut] = distance - radii[clusterOut] - BOUND_TOLERANCE * (distance + radii[clusterOut]);
+							int index = numberOfCandidates++;
+							while (index > 0 && lowerBounds[order[index - 1]] > lowerBounds[clusterOut]) {
+								order[index] = order[index - 1];
+								index--;
+							}
+							order[index] = clusterOut;
+						}
+					}
+					
+					double averageDistanceOut = Double.MAX_VALUE;
+					for (int index = 0; index < numberOfCandidates; index++) {
+						final int clusterOut = order[index];
+						if (lowerBounds[clusterOut] > averageDistanceOut) {
+							blockPruned += numberOfCandidates - index;
+							break;
+						}
+						blockEvaluations++;
+						blockDistances += partition.getClusterSize(clusterOut);
+						final double averageDistance = getDistanceSum(blockKernel, position, partition, clusterOut) / partition.getClusterSize(clusterOut);
+						if (averageDistanceOut > averageDistance) {
+							averageDistanceOut = averageDistance;
+						}
+					}
+					prunedSilhouettes[i] = getSilhouette(averageDistanceIn, averageDistanceOut);
+				}
+				evaluations.addAndGet(blockEvaluations);
+				pruned.addAndGet(blockPruned);
+				distances.addAndGet(blockDistances);
+			}
+		}.execute(positions.length, numberOfThreads);
+		counts[0] = evaluations.get();
+		counts[1] = pruned.get();
+		counts[2] = distances.get();
+		return prunedSilhouettes;
+	}
 	
 	/**
-	 * Calculates average distances between examples in clusters.
-	 * @param separatedMap map of object by clusters
-	 * @param measure selected measure
-	 * @return map of average distances between examples in cluster
+	 * Returns sum of distances of example to members of cluster except the example itself.
+	 * @param kernel distances of examples
+	 * @param position position of example
+	 * @param partition examples divided by clusters
+	 * @param cluster index of cluster
+	 * @return sum of distances
 	 */
-	private Map<String, Double[]> calculateAverageDistancesIn(Map<String, List<Example>> separatedMap, DistanceMeasure measure) {
-		final Set<String> keys = separatedMap.keySet();
-		final Map<String, Double[]> mapOfAverageDistances = new HashMap<>();
-		for (String key : keys) {
-			 mapOfAverageDistances.put(key, getAverageDistancesIn(separatedMap.get(key), measure));			
+	private static double getDistanceSum(DistanceKernel kernel, int position, ClusterPartition partition, int cluster) {
+		double sum = 0.0;
+		for (int positionOut = partition.getClusterStart(cluster); positionOut < partition.getClusterEnd(cluster); positionOut++) {
+			if (positionOut != position) {
+				sum += kernel.distance(position, positionOut);
+			}
 		}
-		return mapOfAverageDistances;
+		return sum;
 	}
 	
 	/**
-	 * Calculates average distances between examples in cluster. 
-	 * @param cluster given cluster
-	 * @param measure selected measure
-	 * @return average distances between examples in given cluster
+	 * Calculates sums of distances between every example and every cluster. Every example sweeps
+	 * over all other examples on its own, so blocks of positions are processed in parallel.
+	 * @param partition examples divided by clusters
+	 * @param kernel distances of examples
+	 * @param numberOfThreads number of threads
+	 * @return sums of distances, the sum of position p and cluster c is stored at p * k + c
 	 */
-	private Double[] getAverageDistancesIn(List<Example> cluster, DistanceMeasure measure) {
-		final Double[] averangeDistances = new Double[cluster.size()];
-		if (cluster.size() == 0) {
+	private double[] calculateDistanceSums(ClusterPartition partition, final DistanceKernel kernel, int numberOfThreads) {
+		final int numberOfExamples = partition.getNumberOfExamples();
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final int[] clusterOfPosition = getClusterOfPosition(partition);
+		final double[] distanceSums = new double[getNumberOfSums(partition)];
+		// every position costs one pass over all examples, so equal blocks of positions are balanced
+		new BlockTask(MIN_BLOCK_SIZE) {
 			
-		} else if (cluster.size() == 1) {
-			averangeDistances[0] = 0.0;
-		} else if (cluster.size() > 1) {
-			int i = 0;
-			for (Example exampleCalculated : cluster) {
-				averangeDistances[i] = getAverageDistance(exampleCalculated, cluster, measure);
-				++i;
+			@Override
+			protected void process(int from, int to) {
+				final DistanceKernel blockKernel = kernel.copy();
+				for (int position = from; position < to; position++) {
+					final int offset = position * numberOfClusters;
+					for (int positionOut = 0; positionOut < numberOfExamples; positionOut++) {
+						if (positionOut != position) {
+							distanceSums[offset + clusterOfPosition[positionOut]] += blockKernel.distance(position, positionOut);
+						}
+					}
+				}
 			}
+		}.execute(numberOfExamples, numberOfThreads);
+		return distanceSums;
+	}
+	
+	/**
+	 * Returns cluster index of every position.
+	 * @param partition examples divided by clusters
+	 * @return cluster indices indexed by position
+	 */
+	private static int[] getClusterOfPosition(ClusterPartition partition) {
+		final int[] clusterOfPosition = new int[partition.getNumberOfExamples()];
+		for (int cluster = 0; cluster < partition.getNumberOfClusters(); cluster++) {
+			Arrays.fill(clusterOfPosition, partition.getClusterStart(cluster), partition.getClusterEnd(cluster), cluster);
+		}
+		return clusterOfPosition;
+	}
+	
+	/**
+	 * Calculates average silhouette of clusters.
+	 * @param partition examples divided by clusters
+	 * @param silhouettes silhouette of examples indexed by row
+	 * @return map of average silhouette of clusters
+	 */
+	private Map<String, Double> getAverageSilhouettes(ClusterPartition partition, double[] silhouettes) {
+		Map<String, Double> mapOfAverageSilhouette = new HashMap<>();
+		for (int cluster = 0; cluster < partition.getNumberOfClusters(); cluster++) {
+			mapOfAverageSilhouette.put(partition.getClusterName(cluster), getAverageSilhouette(partition, cluster, silhouettes));
+		}
+		return mapOfAverageSilhouette;
+	}
+	
+	
+	/**
+	 * Calculates average silhouette of given cluster.
+	 * @param partition examples divided by clusters
+	 * @param cluster index of cluster
+	 * @param silhouettes silhouette of examples indexed by row
+	 * @return average silhouette of cluster
+	 */
+	private double getAverageSilhouette(ClusterPartition partition, int cluster, double[] silhouettes) {
+		final int[] members = partition.getMembers();
+		double sumOfSilhouettes = 0.0;
+		for (int position = partition.getClusterStart(cluster); position < partition.getClusterEnd(cluster); position++) {
+			sumOfSilhouettes += silhouettes[members[position]];
+		}
+		final int numberOfSilhouette = partition.getClusterSize(cluster);
+		if (numberOfSilhouette > 0) {
+			return sumOfSilhouettes / numberOfSilhouette; 
 		}
-		return averangeDistances;
+		return 0.0;
 	}
 	
+	/**
+	 * Calculates average silhouette of all examples from average silhouette of clusters.
+	 * @param partition examples divided by clusters
+	 * @param mapOfAverageSilhouette map of average silhouette of clusters
+	 * @return average silhouette of all examples
+	 */
+	private double getAverageSilhouette(ClusterPartition partition, Map<String, Double> mapOfAverageSilhouette) {
+		double average = 0.0;
+		for (int cluster = 0; cluster < partition.getNumberOfClusters(); cluster++) {
+			average += mapOfAverageSilhouette.get(partition.getClusterName(cluster))
+					* partition.getClusterSize(cluster) / partition.getNumberOfExamples();
+		}
+		return average;
+	}
+	
+	/**
+	 * Calculates silhouette of examples.
+	 * @param partition examples divided by clusters
+	 * @param distanceSums sums of distances between examples and clusters
+	 * @return silhouette of examples indexed by row
+	 */
+	private double[] getSilhouette(ClusterPartition partition, double[] distanceSums) {
+		final int[] members = partition.getMembers();
+		final int numberOfClusters = partition.getNumberOfClusters();
+		final double[] silhouettes = new double[partition.getNumberOfExamples()];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			for (int position = partition.getClusterStart(cluster); position < partition.getClusterEnd(cluster); position++) {
+				silhouettes[members[position]] = getSilhouette(partition, cluster, distanceSums, position * numberOfClusters);
+			}
+		}
+		return silhouettes;
+	}
 	
 	/**
-	 * Calculate average distance between example and given cluster.
-	 * @param example {@link Example}
-	 * @param cluster given cluster
-	 * @param measure selected measure
-	 * @return average distance
+	 * Calculates silhouette of one example from its sums of distances to all clusters.
+	 * @param partition examples divided by clusters
+	 * @param cluster index of cluster of example
+	 * @param distanceSums sums of distances between examples and clusters
+	 * @param offset index of the sum of example and the first cluster
+	 * @return silhouette of example, 0 for example of a cluster of size one
 	 */
-	private Double getAverageDistance(Example example, List<Example> cluster, DistanceMeasure measure) {
-		Double sumOfDistances = 0.0;
-		Double numberOfDistances = 0.0;
-		for (Example exampleOut : cluster) {
-			if (!example.equals(exampleOut)) {
-				sumOfDistances = sumOfDistances + measure.calculateDistance(example, exampleOut);
-				numberOfDistances++;
+	private static double getSilhouette(ClusterPartition partition, int cluster, double[] distanceSums, int offset) {
+		final int clusterSize = partition.getClusterSize(cluster);
+		if (clusterSize == 1) {
+			return 0.0;
+		}
+		final double averageDistanceIn = distanceSums[offset + cluster] / (clusterSize - 1);
+		double averageDistanceOut = Double.MAX_VALUE;
+		for (int clusterOut = 0; clusterOut < partition.getNumberOfClusters(); clusterOut++) {
+			if (clusterOut != cluster) {
+				final double averageDistance = distanceSums[offset + clusterOut] / partition.getClusterSize(clusterOut);
+				if (averageDistanceOut > averageDistance) {
+					averageDistanceOut = averageDistance;
+				}
 			}
 		}
-		if (numberOfDistances > 0.0) {
-			return sumOfDistances / numberOfDistances;
+		return getSilhouette(averageDistanceIn, averageDistanceOut);
+	}
+	
+	/**
+	 * Calculates silhouette of one example.
+	 * @param averageDistanceIn average distance into cluster
+	 * @param averageDistanceOut average distance with nearest cluster
+	 * @return silhouette of example
+	 */
+	static double getSilhouette(double averageDistanceIn, double averageDistanceOut) {
+		if (averageDistanceIn < averageDistanceOut) {
+			if (averageDistanceOut != 0.0) {
+				return 1 - (averageDistanceIn / averageDistanceOut);
+			}
+		} else if (averageDistanceIn > averageDistanceOut) {
+			if (averageDistanceIn != 0.0) {
+				return (averageDistanceOut / averageDistanceIn) - 1;
+			}
 		}
 		return 0.0;
 	}
 	
-	public Map<String, Double[]> getSilhouette () {
-		return mapOfSilhouette;
+	
+	/**
+	 * Returns silhouette of examples indexed by row, missing if silhouette is not defined.
+	 * @return silhouette of examples
+	 */
+	public double[] getSilhouette () {
+		return silhouettes;
 	}
 	
 	public Map<String, Double> getAverageClusterSilhouette() {
 		return mapOfAverageSilhouette;
 	}
 	
+	public Map<String, Double> getClusterHalfWidth() {
+		return mapOfHalfWidth;
+	}
+	
+	public double getAverageSilhouette() {
+		return averageSilhouette;
+	}
+	
+	public double getAverageHalfWidth() {
+		return averageHalfWidth;
+	}
+	
+	/**
+	 * Returns confidence level of intervals.
+	 * @return confidence level, 0 if silhouette was calculated exactly
+	 */
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+	
+	public int getNumberOfSampledExamples() {
+		return numberOfSampledExamples;
+	}
+	
+	public long getNumberOfClusterEvaluations() {
+		return numberOfClusterEvaluations;
+	}
+	
+	public long getNumberOfPrunedClusters() {
+		return numberOfPrunedClusters;
+	}
+	
+	/**
+	 * Returns name of calculation of exact silhouette.
+	 * @return one of the calculation names of this class, null for estimated and simplified silhouette
+	 */
+	public String getCalculationName() {
+		return calculationName;
+	}
+	
+	/**
+	 * Returns estimated number of distances of pruning relative to the sweep.
+	 * @return ratio, NaN if pruning was not considered
+	 */
+	public double getPruningCostRatio() {
+		return pruningCostRatio;
+	}
+	
+	/**
+	 * Returns name of representatives of simplified silhouette.
+	 * @return centroids or medoids, null for silhouette over all examples
+	 */
+	public String getRepresentativesName() {
+		return representativesName;
+	}
+	
 	public ExampleSet getClusterSet() {
 		return clusterSet;
 	}
@@ -262,4 +986,72 @@ public class SilhouetteData {
 		this.clusterSet = clusterSet;
 	}
 	
+	/**
+	 * Visitor accumulating sums of distances between every example and every cluster in a pass over
+	 * a distance matrix, a symmetric distance is added to the sums of both examples. Every visitor
+	 * is used by one thread only. An asymmetric distance is added only to the sums of the first row,
+	 * so visitors of disjoint ranges of rows share one array, a symmetric distance is added to rows of
+	 * other ranges too, so every range has its own array.
+	 */
+	public static final class DistanceSums implements DistanceMatrixData.DistanceVisitor {
+		
+		/** Number of clusters. */
+		private final int numberOfClusters;
+		
+		/** Position of every row of the matrix. */
+		private final int[] positionOfRow;
+		
+		/** Cluster index of every position. */
+		private final int[] clusterOfPosition;
+		
+		/** Symmetry of visited distances. */
+		private final boolean symmetric;
+		
+		/** Sums of distances, the sum of position p and cluster c is stored at p * k + c. */
+		private final double[] distanceSums;
+		
+		/**
+		 * Constructs a new instance with zero sums.
+		 * @param partition examples divided by clusters
+		 * @param symmetric true if every symmetric distance is visited once
+		 */
+		public DistanceSums(ClusterPartition partition, boolean symmetric) {
+			this.numberOfClusters = partition.getNumberOfClusters();
+			this.clusterOfPosition = getClusterOfPosition(partition);
+			this.positionOfRow = new int[partition.getNumberOfExamples()];
+			for (int position = 0; position < positionOfRow.length; position++) {
+				positionOfRow[partition.getMember(position)] = position;
+			}
+			this.symmetric = symmetric;
+			this.distanceSums = new double[getNumberOfSums(partition)];
+		}
+		
+		private DistanceSums(DistanceSums other) {
+			this.numberOfClusters = other.numberOfClusters;
+			this.positionOfRow = other.positionOfRow;
+			this.clusterOfPosition = other.clusterOfPosition;
+			this.symmetric = other.symmetric;
+			this.distanceSums = symmetric ? new double[other.distanceSums.length] : other.distanceSums;
+		}
+		
+		/**
+		 * Returns new visitor of the same partition for another range of rows, with zero sums of its own
+		 * for symmetric distances and sharing the sums otherwise.
+		 * @return {@link DistanceSums}
+		 */
+		public DistanceSums copy() {
+			return new DistanceSums(this);
+		}
+		
+		@Override
+		public void visit(int firstRow, int secondRow, double distance) {
+			final int first = positionOfRow[firstRow];
+			final int second = positionOfRow[secondRow];
+			distanceSums[first * numberOfClusters + clusterOfPosition[second]] += distance;
+			if (symmetric) {
+				distanceSums[second * numberOfClusters + clusterOfPosition[first]] += distance;
+			}
+		}
+	}
+	
 }
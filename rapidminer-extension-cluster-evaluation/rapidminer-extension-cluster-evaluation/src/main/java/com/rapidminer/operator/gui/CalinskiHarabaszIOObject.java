@@ -0,0 +1,64 @@
+package com.rapidminer.operator.gui;
+
+import com.rapidminer.operator.CalinskiHarabaszData;
+import com.rapidminer.operator.ResultObjectAdapter;
+
+/**
+ * IO object for result of Calinski-Harabasz Index operator.
+ * @author Jan Jake
+ *
+ */
+public class CalinskiHarabaszIOObject extends ResultObjectAdapter {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Calinski-Harabasz index value. */
+	private double index;
+
+	/** Within-cluster sum of squares. */
+	private double withinSumOfSquares;
+
+	/** Between-cluster sum of squares. */
+	private double betweenSumOfSquares;
+
+	/**
+	 * Constructs a new instance.
+	 * @param data {@link CalinskiHarabaszData}
+	 */
+	public CalinskiHarabaszIOObject(CalinskiHarabaszData data) {
+		index = data.getCalinskiHarabaszIndex();
+		withinSumOfSquares = data.getWithinSumOfSquares();
+		betweenSumOfSquares = data.getBetweenSumOfSquares();
+	}
+
+	public double getIndex() {
+		return index;
+	}
+
+	public double getWithinSumOfSquares() {
+		return withinSumOfSquares;
+	}
+
+	public double getBetweenSumOfSquares() {
+		return betweenSumOfSquares;
+	}
+
+	/** Prepares data to print. */
+	@Override
+	public String toResultString() {
+		StringBuilder builder = new StringBuilder();
+
+		builder.append("Calinski-Harabasz index of given clustered dataset:\n");
+		builder.append("Value: " + index + "\n");
+		builder.append("Within-cluster sum of squares:\t" + withinSumOfSquares + "\n");
+		builder.append("Between-cluster sum of squares:\t" + betweenSumOfSquares + "\n");
+		return builder.toString();
+	}
+
+	/** Name of IO object. */
+	@Override
+	public String getName() {
+		return "Calinski-Harabasz Index";
+	}
+}
@@ -0,0 +1,96 @@
+package com.rapidminer.operator.gui;
+
+import java.util.Map;
+
+import com.rapidminer.operator.ClusterStabilityData;
+import com.rapidminer.operator.ResultObjectAdapter;
+
+/**
+ * IO object for result of Cluster Stability operator.
+ * @author Jan Jake
+ *
+ */
+public class ClusterStabilityIOObject extends ResultObjectAdapter {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Name of external index of overall stability. */
+	private String indexName;
+
+	/** Number of compared replicates. */
+	private int numberOfReplicates;
+
+	/** Confidence level of intervals. */
+	private double confidenceLevel;
+
+	/** Average index of all replicates. */
+	private double averageIndex;
+
+	/** Half-width of confidence interval of average index. */
+	private double averageHalfWidth;
+
+	/** Average Jaccard coefficient of clusters. */
+	private Map<String, Double> stabilityMap;
+
+	/** Half-widths of confidence intervals of clusters. */
+	private Map<String, Double> halfWidthMap;
+
+	/** Number of replicates containing examples of clusters. */
+	private Map<String, Integer> replicatesMap;
+
+	/**
+	 * Constructs a new instance.
+	 * @param data {@link ClusterStabilityData}
+	 */
+	public ClusterStabilityIOObject(ClusterStabilityData data) {
+		this.indexName = data.getIndexName();
+		this.numberOfReplicates = data.getNumberOfReplicates();
+		this.confidenceLevel = data.getConfidenceLevel();
+		this.averageIndex = data.getAverageIndex();
+		this.averageHalfWidth = data.getAverageHalfWidth();
+		this.stabilityMap = data.getClusterStability();
+		this.halfWidthMap = data.getClusterHalfWidth();
+		this.replicatesMap = data.getClusterReplicates();
+	}
+
+	public double getAverageIndex() {
+		return averageIndex;
+	}
+
+	public double getAverageHalfWidth() {
+		return averageHalfWidth;
+	}
+
+	public Map<String, Double> getStabilityMap() {
+		return stabilityMap;
+	}
+
+	public Map<String, Double> getHalfWidthMap() {
+		return halfWidthMap;
+	}
+
+	/** Prepares data to print. */
+	@Override
+	public String toResultString() {
+		StringBuilder builder = new StringBuilder();
+
+		builder.append("Stability of clusters, average Jaccard coefficient with the most similar cluster of "
+				+ numberOfReplicates + " replicates (" + (confidenceLevel * 100) + "% confidence intervals):\n");
+		for (Map.Entry<String, Double> entry : stabilityMap.entrySet()) {
+			builder.append(entry.getKey() + ":\t" + entry.getValue() + " +- " + halfWidthMap.get(entry.getKey()));
+			if (replicatesMap.get(entry.getKey()) < numberOfReplicates) {
+				builder.append(" (present in " + replicatesMap.get(entry.getKey()) + " replicates)");
+			}
+			builder.append("\n");
+		}
+		builder.append("Average " + indexName.replace('_', ' ') + " of replicates:\t" + averageIndex + " +- " + averageHalfWidth + "\n");
+		return builder.toString();
+	}
+
+	/** Name of IO object. */
+	@Override
+	public String getName() {
+		return "Cluster Stability";
+	}
+}
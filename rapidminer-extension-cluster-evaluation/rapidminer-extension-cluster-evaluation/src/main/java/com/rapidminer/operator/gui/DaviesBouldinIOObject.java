@@ -0,0 +1,64 @@
+package com.rapidminer.operator.gui;
+
+import java.util.Map;
+
+import com.rapidminer.operator.DaviesBouldinData;
+import com.rapidminer.operator.ResultObjectAdapter;
+
+/**
+ * IO object for result of Davies-Bouldin Index operator.
+ * @author Jan Jake
+ *
+ */
+public class DaviesBouldinIOObject extends ResultObjectAdapter {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Davies-Bouldin index value. */
+	private double index;
+
+	/** Highest similarity of every cluster to another cluster. */
+	private Map<String, Double> similarityMap;
+
+	/** Scatter of every cluster. */
+	private Map<String, Double> scatterMap;
+
+	/**
+	 * Constructs a new instance.
+	 * @param data {@link DaviesBouldinData}
+	 */
+	public DaviesBouldinIOObject(DaviesBouldinData data) {
+		index = data.getDaviesBouldinIndex();
+		similarityMap = data.getClusterSimilarity();
+		scatterMap = data.getClusterScatter();
+	}
+
+	public double getIndex() {
+		return index;
+	}
+
+	/** Prepares data to print. */
+	@Override
+	public String toResultString() {
+		StringBuilder builder = new StringBuilder();
+
+		builder.append("Davies-Bouldin index of given clustered dataset:\n");
+		builder.append("Value: " + index + "\n");
+		builder.append("\nScatter (root mean squared distance to centroid) and highest similarity of clusters:\n");
+		for (Map.Entry<String, Double> entry : scatterMap.entrySet()) {
+			builder.append(entry.getKey() + ":\t" + entry.getValue());
+			if (similarityMap.containsKey(entry.getKey())) {
+				builder.append("\t" + similarityMap.get(entry.getKey()));
+			}
+			builder.append("\n");
+		}
+		return builder.toString();
+	}
+
+	/** Name of IO object. */
+	@Override
+	public String getName() {
+		return "Davies-Bouldin Index";
+	}
+}
@@ -1,10 +1,13 @@
 package com.rapidminer.operator.gui;
 
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.DensityData;
+import com.rapidminer.operator.ProfileStatistics;
 import com.rapidminer.operator.ResultObjectAdapter;
 
 /**
@@ -16,6 +19,19 @@ public class DensityIOObject extends ResultObjectAdapter {
 	
 	/** Version. */
 	private static final long serialVersionUID = 1L;
+
+	/** Number of rows of the profile table rendered by {@link #toResultString()}, further rows are rendered by pages. */
+	public static final int PAGE_SIZE = 500;
+
+	/** Headers of columns of rendered rows. */
+	private static final String[] HEADERS = { "Cluster", "Attribute", "Typical value", "Median", "Mean", "Variance",
+			"IQR", "Mode", "Mode frequency", "Entropy", "Error bound" };
+
+	/** Minimum widths of columns of rendered rows. */
+	private static final int[] WIDTHS = { 12, 20, 24, 12, 12, 12, 12, 12, 14, 10, 11 };
+
+	/** Missing value of a statistic. */
+	private static final String MISSING = "?";
 	
 	/** {@link DensityData} */
 	private DensityData data;
@@ -33,63 +49,96 @@ public class DensityIOObject extends ResultObjectAdapter {
 	}
 	
 	
-	/** Prepares data to print. */
+	/** Prepares data to print, the first page of the profile table. */
 	@Override
 	public String toResultString() { 
+		return renderPage(0, PAGE_SIZE);
+	}
+
+	/**
+	 * Renders rows of the profile table, the typical values and statistics of attributes of the whole
+	 * dataset followed by those of every cluster, see {@link DensityData#getNumberOfProfileRows()}.
+	 * @param firstRow first rendered row
+	 * @param numberOfRows maximum number of rendered rows
+	 * @return text of rows
+	 */
+	public String renderPage(int firstRow, int numberOfRows) {
+		final int totalRows = data.getNumberOfProfileRows();
+		final int endRow = (int) Math.min(totalRows, (long) Math.max(0, firstRow) + Math.max(0, numberOfRows));
+		final StringBuilder builder = new StringBuilder();
+		if (data.isApproximate()) {
+			builder.append("Typical values are approximate, medians may differ in rank and counts of nominal values in count by the error bound in examples.\n\n");
+		}
+		builder.append("Typical values and statistics, rows ").append(Math.min(firstRow + 1, endRow)).append('-').append(endRow)
+				.append(" of ").append(totalRows).append(":\n\n");
+		appendRow(builder, HEADERS);
+		final DecimalFormat format = new DecimalFormat("0.######", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+		for (int row = Math.max(0, firstRow); row < endRow; row++) {
+			final ProfileStatistics statistics = data.getProfileStatistics(row);
+			final double errorBound = data.getProfileErrorBound(row);
+			appendRow(builder, new String[] { data.getProfileClusterName(row),
+					data.getProfile().getAttributes()[data.getProfileAttribute(row)].getName(),
+					formatTypicalValues(data.getProfileTypicalValues(row)), formatValue(format, statistics.getMedian()),
+					formatValue(format, statistics.getMean()), formatValue(format, statistics.getVariance()),
+					formatValue(format, statistics.getInterquartileRange()), statistics.getMode() == null ? MISSING : statistics.getMode(),
+					formatValue(format, statistics.getModeFrequency()), formatValue(format, statistics.getEntropy()),
+					errorBound > 0.0 ? format.format(errorBound) : "" });
+		}
+		if (endRow < totalRows) {
+			builder.append("\n").append(totalRows - endRow).append(" more rows, all rows are delivered by the profiles output.\n");
+		}
+		return builder.toString();
+	}
 
-		StringBuilder builder = new StringBuilder();
-		Map<String, List<String>> typicalValue = this.data.getTypicalValues();
-		builder.append("Typical values of example set:\n\n");		
-		builder.append(String.format("%-20s \t %s\n", "Attribute:", "Typical value:"));
-		builder.append("===============================================================\n");
-		for (String key : typicalValue.keySet()) {
-			if (typicalValue.get(key).size() == 0) {
-				builder.append(String.format("%-20s \t (no typical value)\n", key));
-				builder.append("---------------------------------------------------------------\n");
-			} else {
-				builder.append(String.format("%-20s \t ", key));
-				for (int i = 0; i < typicalValue.get(key).size(); i++) {
-					if (i == 0) {
-						builder.append(String.format("%s", typicalValue.get(key).get(i)));
-					} else {
-						builder.append(String.format(", %s", typicalValue.get(key).get(i)));
-					}
-				}	
-				builder.append("\n");
-				builder.append("---------------------------------------------------------------\n");
+	/**
+	 * Appends one row of cells padded to the widths of columns, without trailing spaces.
+	 * @param builder text of result
+	 * @param cells cells of row
+	 */
+	private static void appendRow(StringBuilder builder, String[] cells) {
+		for (int column = 0; column < cells.length; column++) {
+			builder.append(cells[column]);
+			for (int i = cells[column].length(); i <= WIDTHS[column]; i++) {
+				builder.append(' ');
 			}
 		}
-		builder.append("\n\n\n");
-		
-		
-		Map<String, Map<String, List<String>>> typicalValueOfCluster = this.data.getTypicalValuesOfCluster();
-		builder.append("Typical value of clusters:\n\n");
-		for (String cluster : typicalValueOfCluster.keySet()) {
-			builder.append(String.format("Cluster: %s\n", cluster));
-			builder.append(String.format("%-20s \t %s\n", "Attribute:", "Typical value:"));
-			builder.append("===============================================================\n");
-			for (String key : typicalValueOfCluster.get(cluster).keySet()) {
-				if (typicalValueOfCluster.get(cluster).get(key).size() == 0) {
-					builder.append(String.format("%-20s \t (no typical value)\n", key));
-					builder.append("---------------------------------------------------------------\n");
-				} else {
-					builder.append(String.format("%-20s \t ", key));
-					for (int i = 0; i < typicalValueOfCluster.get(cluster).get(key).size(); i++) {
-						if (i == 0) {
-							builder.append(String.format("%s", typicalValueOfCluster.get(cluster).get(key).get(i)));
-						} else {
-							builder.append(String.format(", %s", typicalValueOfCluster.get(cluster).get(key).get(i)));
-						}
-					}
-					builder.append("\n");
-					builder.append("---------------------------------------------------------------\n");
-				}
+		int end = builder.length();
+		while (builder.charAt(end - 1) == ' ') {
+			end--;
+		}
+		builder.setLength(end);
+		builder.append('\n');
+	}
+
+	/**
+	 * Formats typical values of one row.
+	 * @param typicalValues typical values
+	 * @return values separated by commas
+	 */
+	private static String formatTypicalValues(List<String> typicalValues) {
+		if (typicalValues.isEmpty()) {
+			return "(none)";
+		}
+		final StringBuilder builder = new StringBuilder();
+		for (String value : typicalValues) {
+			if (builder.length() > 0) {
+				builder.append(", ");
 			}
-			builder.append("\n\n\n");
+			builder.append(value);
 		}
 		return builder.toString();
 	}
-	
+
+	/**
+	 * Formats statistic.
+	 * @param format number format
+	 * @param value statistic
+	 * @return formatted value, {@link #MISSING} for a missing statistic
+	 */
+	private static String formatValue(DecimalFormat format, double value) {
+		return Double.isNaN(value) ? MISSING : format.format(value);
+	}
+
 	/** Name of IO object. */
 	@Override
 	public String getName() {
@@ -0,0 +1,57 @@
+package com.rapidminer.operator.gui;
+
+import com.rapidminer.operator.DistanceMatrixData;
+import com.rapidminer.operator.MappedDistanceMatrixData;
+import com.rapidminer.operator.ResultObjectAdapter;
+
+/**
+ * IO object for result of Distance Matrix operator.
+ * @author Jan Jake
+ *
+ */
+public class DistanceMatrixIOObject extends ResultObjectAdapter {
+
+	/** Version. */
+	private static final long serialVersionUID = 1L;
+
+	/** Distances of examples. */
+	private DistanceMatrixData distanceMatrix;
+
+	/**
+	 * Constructs a new instance.
+	 * @param data {@link DistanceMatrixData}
+	 */
+	public DistanceMatrixIOObject(DistanceMatrixData data) {
+		this.distanceMatrix = data;
+	}
+
+	public DistanceMatrixData getDistanceMatrix() {
+		return distanceMatrix;
+	}
+
+	/** Prepares data to print. */
+	@Override
+	public String toResultString() {
+		StringBuilder builder = new StringBuilder();
+
+		builder.append("Distance matrix of given dataset:\n");
+		builder.append("Examples: " + distanceMatrix.getNumberOfRows() + "\n");
+		builder.append("Stored distances: " + distanceMatrix.getNumberOfDistances() + "\n");
+		builder.append("Measure: " + distanceMatrix.getMeasureName() + "\n");
+		builder.append("Symmetric: " + distanceMatrix.isSymmetric() + "\n");
+		builder.append("Precision: " + (distanceMatrix.isSinglePrecision() ? "float" : "double"));
+		if (distanceMatrix instanceof MappedDistanceMatrixData) {
+			builder.append("\nFile: " + ((MappedDistanceMatrixData) distanceMatrix).getFile()
+					+ (distanceMatrix.isClosed() ? " (deleted when the process finished)" : " (temporary, cannot be stored)"));
+		}
+
+		return builder.toString();
+	}
+
+	/** Name of IO object. */
+	@Override
+	public String getName() {
+		return "Distance Matrix";
+	}
+
+}
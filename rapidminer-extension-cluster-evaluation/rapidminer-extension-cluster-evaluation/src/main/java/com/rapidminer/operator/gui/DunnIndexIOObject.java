@@ -16,12 +16,20 @@ public class DunnIndexIOObject extends ResultObjectAdapter {
 	/** Dunn Index value. */
 	private Double index;
 	
+	/** Method of calculation of maximum distance in clusters. */
+	private String diameterMethod;
+	
+	/** Method of calculation of distance of clusters, null for the minimum distance of members. */
+	private String separationMethod;
+	
 	/**
 	 * Constructs a new instance.
 	 * @param data {@link DunnIndexData} 
 	 */
 	public DunnIndexIOObject(DunnIndexData data) {
 		index = data.getDunnIndex();
+		diameterMethod = data.getDiameterMethod();
+		separationMethod = data.getSeparationMethod();
 	}
 	
 	/** Prepares data to print. */
@@ -31,6 +39,12 @@ public class DunnIndexIOObject extends ResultObjectAdapter {
 		
 		builder.append("Dunn index of given clustered dataset:\n");
 		builder.append("Value: " + index);
+		if (separationMethod != null) {
+			builder.append("\nDistance of clusters: " + separationMethod);
+		}
+		if (diameterMethod != null) {
+			builder.append("\nMaximum distance in clusters: " + diameterMethod);
+		}
 
 		return builder.toString();
 	}
@@ -1,5 +1,8 @@
 package com.rapidminer.operator.gui;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import com.rapidminer.operator.RandIndexData;
 import com.rapidminer.operator.ResultObjectAdapter;
 
@@ -16,12 +19,45 @@ public class RandIndexIOObject extends ResultObjectAdapter {
 	/** Rand Index value. */
 	private Double index;
 	
+	/** Number of examples of A without a match in B. */
+	private long unmatchedA;
+	
+	/** Number of examples of B without a match in A. */
+	private long unmatchedB;
+	
+	/** Names and values of other external indices in the order of printing. */
+	private Map<String, Double> indices = new LinkedHashMap<>();
+	
 	/**
 	 * Constructs a new instance.
 	 * @param data {@link RandIndexData}
 	 */
 	public RandIndexIOObject(RandIndexData data) {
 		index = data.getRandIndex();
+		unmatchedA = data.getUnmatchedA();
+		unmatchedB = data.getUnmatchedB();
+		indices.put("Adjusted Rand index", data.getAdjustedRandIndex());
+		indices.put("Jaccard index", data.getJaccardIndex());
+		indices.put("Fowlkes-Mallows index", data.getFowlkesMallowsIndex());
+		indices.put("Normalized mutual information", data.getNormalizedMutualInformation());
+		indices.put("Variation of information", data.getVariationOfInformation());
+		indices.put("Homogeneity", data.getHomogeneity());
+		indices.put("Completeness", data.getCompleteness());
+		indices.put("V-measure", data.getVMeasure());
+		indices.put("Purity", data.getPurity());
+		indices.put("F-measure", data.getFMeasure());
+	}
+	
+	public Double getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Returns other external indices.
+	 * @return map of names and values of indices
+	 */
+	public Map<String, Double> getIndices() {
+		return indices;
 	}
 	
 	/** Prepares data to print. */
@@ -35,7 +71,15 @@ public class RandIndexIOObject extends ResultObjectAdapter {
 		} else if (index == -2.0) {
 			builder.append("Input datasets do not have equal elements.");		
 		} else {
-			builder.append("Value: " + index);
+			builder.append("Value: " + index + "\n");
+			if (unmatchedA > 0 || unmatchedB > 0) {
+				builder.append("Examples only in cluster set A: " + unmatchedA + "\n");
+				builder.append("Examples only in cluster set B: " + unmatchedB + "\n");
+			}
+			builder.append("\nOther indices (cluster set A is the reference for homogeneity, completeness, purity and F-measure):\n");
+			for (Map.Entry<String, Double> entry : indices.entrySet()) {
+				builder.append(entry.getKey() + ":\t" + entry.getValue() + "\n");
+			}
 		}
 		return builder.toString();
 	}
@@ -23,6 +23,24 @@ public class SilhouetteIOObject extends ResultObjectAdapter {
 	/** Average silhouette of clusters. */
 	private Map<String, Double> valueMap = new HashMap<String, Double>();
 
+	/** Half-widths of confidence intervals of clusters, empty for exact silhouette. */
+	private Map<String, Double> halfWidthMap = new HashMap<String, Double>();
+	
+	/** Average silhouette of all examples. */
+	private double averageSilhouette;
+	
+	/** Half-width of confidence interval of average silhouette of all examples. */
+	private double averageHalfWidth;
+	
+	/** Confidence level of intervals, 0 for exact silhouette. */
+	private double confidenceLevel;
+	
+	/** Number of examples whose silhouette was calculated. */
+	private int numberOfSampledExamples;
+	
+	/** Name of representatives of simplified silhouette, null for silhouette over all examples. */
+	private String representativesName;
+
 	/** Data set. */
 	private ExampleSet clusterSet;
 	
@@ -33,6 +51,12 @@ public class SilhouetteIOObject extends ResultObjectAdapter {
 	public SilhouetteIOObject(SilhouetteData data) {
 		this.valueMap = data.getAverageClusterSilhouette();
 		this.clusterSet = data.getClusterSet();
+		this.halfWidthMap = data.getClusterHalfWidth();
+		this.averageSilhouette = data.getAverageSilhouette();
+		this.averageHalfWidth = data.getAverageHalfWidth();
+		this.confidenceLevel = data.getConfidenceLevel();
+		this.numberOfSampledExamples = data.getNumberOfSampledExamples();
+		this.representativesName = data.getRepresentativesName();
 	}
 		
 	public Map<String, Double> getValueMap() {
@@ -43,6 +67,30 @@ public class SilhouetteIOObject extends ResultObjectAdapter {
 		valueMap.put(key, value);
 	}
 	
+	public Map<String, Double> getHalfWidthMap() {
+		return halfWidthMap;
+	}
+	
+	public double getAverageSilhouette() {
+		return averageSilhouette;
+	}
+	
+	public double getAverageHalfWidth() {
+		return averageHalfWidth;
+	}
+	
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+	
+	/**
+	 * Returns whether silhouette was estimated from samples.
+	 * @return true for estimated silhouette
+	 */
+	public boolean isEstimated() {
+		return confidenceLevel > 0.0;
+	}
+	
 	public ExampleSet getClusterSet() {
 		return clusterSet;
 	}
@@ -56,12 +104,28 @@ public class SilhouetteIOObject extends ResultObjectAdapter {
 	public String toResultString() {
 		StringBuilder builder = new StringBuilder();
 		
-		builder.append("Average silhouette of clusters:\n");
+		if (isEstimated()) {
+			builder.append("Estimated average silhouette of clusters (" + (confidenceLevel * 100) + "% confidence intervals, "
+					+ numberOfSampledExamples + " of " + clusterSet.size() + " examples sampled):\n");
+		} else if (representativesName != null) {
+			builder.append("Average simplified silhouette of clusters (distances to " + representativesName + "):\n");
+		} else {
+			builder.append("Average silhouette of clusters:\n");
+		}
 		List<String> keys = new ArrayList<>(getValueMap().keySet());
 		Collections.sort(keys);
 		for (String key : keys) {
-			builder.append(key + ":\t" + getValueMap().get(key) + "\n");
+			builder.append(key + ":\t" + getValueMap().get(key));
+			if (isEstimated()) {
+				builder.append(" +- " + halfWidthMap.get(key));
+			}
+			builder.append("\n");
+		}
+		builder.append("Average silhouette of dataset:\t" + averageSilhouette);
+		if (isEstimated()) {
+			builder.append(" +- " + averageHalfWidth);
 		}
+		builder.append("\n");
 		return builder.toString();
 	}
 	
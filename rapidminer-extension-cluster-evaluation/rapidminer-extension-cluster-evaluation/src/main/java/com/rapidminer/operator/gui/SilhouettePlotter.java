@@ -203,7 +203,8 @@ public class SilhouettePlotter extends PlotterAdapter implements MouseListener {
 	
 	
 	/**
-	 * Prepares data for plotter.
+	 * Prepares data for plotter. Rows with missing silhouette, the examples not sampled by the
+	 * sampled mode of Silhouette operator, are not plotted.
 	 */
 	private void prepareData() {
 		dataRows.clear();
@@ -214,6 +215,7 @@ public class SilhouettePlotter extends PlotterAdapter implements MouseListener {
 			this.max[d] = Double.NEGATIVE_INFINITY;
 		}
 		
+		final int columnSilhouette = settings.getDataTable().getColumnIndex("silhouette");
 		synchronized (dataTable) {			
 			Iterator<DataTableRow> i = this.dataTable.iterator();
 			while (i.hasNext()) {
@@ -227,6 +229,9 @@ public class SilhouettePlotter extends PlotterAdapter implements MouseListener {
 			i = this.dataTable.iterator();
 			while (i.hasNext()) {
 				DataTableRow row = i.next();
+				if (columnSilhouette >= 0 && Double.isNaN(row.getValue(columnSilhouette))) {
+					continue;
+				}
 				double[] data = new double[row.getNumberOfValues()];
 				for (int d = 0; d < data.length; d++) {
 					data[d] = row.getValue(d);
@@ -282,7 +287,7 @@ public class SilhouettePlotter extends PlotterAdapter implements MouseListener {
 		int width = getWidth() - 2 * MARGIN;
 		
 		// frame
-		Rectangle2D frame = new Rectangle2D.Double(-1, MARGIN - 1, width + 1, this.dataTable.getNumberOfRows() + 1);
+		Rectangle2D frame = new Rectangle2D.Double(-1, MARGIN - 1, width + 1, this.dataRows.size() + 1);
 		g.setColor(GRID_COLOR);
 		g.draw(frame);
 	
@@ -310,7 +315,7 @@ public class SilhouettePlotter extends PlotterAdapter implements MouseListener {
         // draw weight rect
         if (dataTable.isSupportingColumnWeights()) {
             Color weightColor = getWeightColor(dataTable.getColumnWeight(column), this.maxWeight);
-            Rectangle2D weightRect = new Rectangle2D.Double(0, MARGIN, columnDistance, this.dataTable.getNumberOfRows());
+            Rectangle2D weightRect = new Rectangle2D.Double(0, MARGIN, columnDistance, this.dataRows.size());
             g.setColor(weightColor);
             g.fill(weightRect);
         }
@@ -347,7 +352,7 @@ public class SilhouettePlotter extends PlotterAdapter implements MouseListener {
 			counter++;
 		}
 		g.setColor(Color.black);
-		g.drawLine((int) halfColumnDistance, 0, (int) halfColumnDistance, this.dataTable.getNumberOfRows());
+		g.drawLine((int) halfColumnDistance, 0, (int) halfColumnDistance, this.dataRows.size());
 	}
 	
 	public void mousePressed(MouseEvent e) {}
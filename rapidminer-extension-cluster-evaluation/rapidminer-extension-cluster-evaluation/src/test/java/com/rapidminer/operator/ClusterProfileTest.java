@@ -0,0 +1,115 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests typical values of {@link ClusterProfile}: the median orders missing values last and takes
+ * the lower center of an even count, a nominal value is typical only with at least three
+ * occurrences.
+ * @author Jan Jake
+ *
+ */
+public class ClusterProfileTest {
+
+	/** Number of examples of the large dataset, more than one batch of the scan. */
+	private static final int LARGE_SIZE = 2500;
+
+	@Test
+	public void testTypicalValuesOfFixedDataset() {
+		final ClusterProfile profile = ClusterProfile.create(new ClusterPartition(DensityTest.createFixedClusterSet()));
+		checkFixedDataset(profile);
+	}
+
+	@Test
+	public void testTypicalValuesOfFixedDatasetBySketches() {
+		final ClusterProfile profile = ClusterProfile.createSketches(new ClusterPartition(DensityTest.createFixedClusterSet()), 0.01,
+				0.01, new Random(1));
+		checkFixedDataset(profile);
+	}
+
+	@Test
+	public void testTypicalValuesOfBatches() {
+		final ClusterProfile profile = ClusterProfile.create(new ClusterPartition(createLargeClusterSet()));
+		// numbers 0 to 2499, even numbers in cluster 0 and odd numbers in cluster 1, lower centers of even counts
+		checkTypicalValues(Arrays.asList("1249"), profile.getTypicalValues(0));
+		checkTypicalValues(Arrays.asList("1248"), profile.getTypicalValues(0, 0));
+		checkTypicalValues(Arrays.asList("1249"), profile.getTypicalValues(0, 1));
+		// red 834, green 833, missing 833; cluster 0 red 417, green 416, missing 417; cluster 1 red 417, green 417, missing 416
+		checkTypicalValues(Arrays.asList("red"), profile.getTypicalValues(1));
+		checkTypicalValues(Arrays.asList("red", "?"), profile.getTypicalValues(1, 0));
+		checkTypicalValues(Arrays.asList("red", "green"), profile.getTypicalValues(1, 1));
+	}
+
+	/**
+	 * Checks typical values of profile of {@link DensityTest#createFixedClusterSet()}.
+	 * @param profile profile of the fixed dataset
+	 */
+	private static void checkFixedDataset(ClusterProfile profile) {
+		// numbers 1 2 ? 4 10 in cluster a and 3 9 5 7 in cluster b, the missing value is ordered last
+		checkTypicalValues(Arrays.asList("5"), profile.getTypicalValues(0));
+		checkTypicalValues(Arrays.asList("4"), profile.getTypicalValues(0, 0));
+		checkTypicalValues(Arrays.asList("5"), profile.getTypicalValues(0, 1));
+		// colors red 3, green 1, blue 2, missing 3; cluster a red 3; cluster b blue 2 and missing 2 are not typical
+		checkTypicalValues(Arrays.asList("red", "?"), profile.getTypicalValues(1));
+		checkTypicalValues(Arrays.asList("red"), profile.getTypicalValues(1, 0));
+		checkTypicalValues(Collections.<String> emptyList(), profile.getTypicalValues(1, 1));
+	}
+
+	/**
+	 * Checks typical values, numbers are compared by value.
+	 * @param expected expected typical values
+	 * @param actual typical values of profile
+	 */
+	private static void checkTypicalValues(List<String> expected, List<String> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			if (Character.isDigit(expected.get(i).charAt(0))) {
+				assertEquals(Double.parseDouble(expected.get(i)), Double.parseDouble(actual.get(i)), 0.0);
+			} else {
+				assertEquals(expected.get(i), actual.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Creates dataset of {@link #LARGE_SIZE} examples, numbers equal to rows, colors red, green and
+	 * missing in turn and clusters alternating by rows.
+	 * @return example set with a numerical attribute, a nominal attribute and clusters
+	 */
+	private static ExampleSet createLargeClusterSet() {
+		final List<Attribute> attributes = new ArrayList<>();
+		final Attribute number = AttributeFactory.createAttribute("number", Ontology.REAL);
+		attributes.add(number);
+		final Attribute color = AttributeFactory.createAttribute("color", Ontology.NOMINAL);
+		attributes.add(color);
+		final Attribute cluster = AttributeFactory.createAttribute("cluster", Ontology.NOMINAL);
+		attributes.add(cluster);
+		color.getMapping().mapString("red");
+		color.getMapping().mapString("green");
+		cluster.getMapping().mapString("0");
+		cluster.getMapping().mapString("1");
+		final MemoryExampleTable table = new MemoryExampleTable(attributes);
+		for (int row = 0; row < LARGE_SIZE; row++) {
+			table.addDataRow(new DoubleArrayDataRow(new double[] { row, row % 3 == 2 ? Double.NaN : row % 3, row % 2 }));
+		}
+		final ExampleSet clusterSet = table.createExampleSet();
+		clusterSet.getAttributes().setCluster(cluster);
+		return clusterSet;
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+
+/**
+ * Tests that {@link ClusterStatistics} and the Calinski-Harabasz and Davies-Bouldin index derived
+ * from them do not depend on the number of threads and equal sums of squares of two passes.
+ * @author Jan Jake
+ *
+ */
+public class ClusterStatisticsTest {
+
+	/** Tested numbers of threads. */
+	private static final int[] NUMBERS_OF_THREADS = { 2, 3, 8 };
+
+	/** Maximum relative difference of sums of squares of one and two passes. */
+	private static final double TOLERANCE = 1e-10;
+
+	@Test
+	public void testIndependentOfThreads() {
+		for (boolean withMissing : new boolean[] { false, true }) {
+			final ClusterPartition partition = SilhouetteDataTest.createPartition(7, 20000, 6, withMissing);
+			final ClusterStatistics expected = ClusterStatistics.create(partition, 1);
+			for (int numberOfThreads : NUMBERS_OF_THREADS) {
+				final ClusterStatistics actual = ClusterStatistics.create(partition, numberOfThreads);
+				assertEquals(expected.getWithinSumOfSquares(), actual.getWithinSumOfSquares(), 0.0);
+				assertEquals(expected.getBetweenSumOfSquares(), actual.getBetweenSumOfSquares(), 0.0);
+				assertEquals(getCalinskiHarabaszIndex(expected), getCalinskiHarabaszIndex(actual), 0.0);
+				assertEquals(getDaviesBouldinIndex(partition, expected), getDaviesBouldinIndex(partition, actual), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testSumsOfSquares() {
+		final ClusterPartition partition = SilhouetteDataTest.createPartition(8, 10000, 4, true);
+		final ClusterStatistics statistics = ClusterStatistics.create(partition, 3);
+		double within = 0.0;
+		for (int cluster = 0; cluster < partition.getNumberOfClusters(); cluster++) {
+			final double expected = getWithinSumOfSquares(partition, cluster);
+			assertEquals(expected, statistics.getWithinSumOfSquares(cluster), expected * TOLERANCE);
+			within += expected;
+		}
+		assertEquals(within, statistics.getWithinSumOfSquares(), within * TOLERANCE);
+	}
+
+	/**
+	 * Returns Calinski-Harabasz index of statistics.
+	 * @param statistics statistics of clusters
+	 * @return index
+	 */
+	private static double getCalinskiHarabaszIndex(ClusterStatistics statistics) {
+		final CalinskiHarabaszData data = new CalinskiHarabaszData();
+		data.calculateCalinskiHarabaszIndex(statistics);
+		return data.getCalinskiHarabaszIndex();
+	}
+
+	/**
+	 * Returns Davies-Bouldin index of statistics.
+	 * @param partition examples divided by clusters
+	 * @param statistics statistics of clusters
+	 * @return index
+	 */
+	private static double getDaviesBouldinIndex(ClusterPartition partition, ClusterStatistics statistics) {
+		final DaviesBouldinData data = new DaviesBouldinData();
+		data.calculateDaviesBouldinIndex(partition, statistics);
+		return data.getDaviesBouldinIndex();
+	}
+
+	/**
+	 * Returns sum of squared deviations of members of cluster from their means by two passes,
+	 * missing values are skipped for their attribute only.
+	 * @param partition examples divided by clusters
+	 * @param cluster index of cluster
+	 * @return within-cluster sum of squares
+	 */
+	private static double getWithinSumOfSquares(ClusterPartition partition, int cluster) {
+		double sum = 0.0;
+		for (Attribute attribute : partition.getClusterSet().getAttributes()) {
+			double total = 0.0;
+			int count = 0;
+			for (int row = 0; row < partition.getNumberOfExamples(); row++) {
+				final double value = partition.getClusterSet().getExample(row).getValue(attribute);
+				if (partition.getClusterId(row) == cluster && !Double.isNaN(value)) {
+					total += value;
+					count++;
+				}
+			}
+			final double mean = total / count;
+			for (int row = 0; row < partition.getNumberOfExamples(); row++) {
+				final Example example = partition.getClusterSet().getExample(row);
+				final double value = example.getValue(attribute);
+				if (partition.getClusterId(row) == cluster && !Double.isNaN(value)) {
+					sum += (value - mean) * (value - mean);
+				}
+			}
+		}
+		return sum;
+	}
+}
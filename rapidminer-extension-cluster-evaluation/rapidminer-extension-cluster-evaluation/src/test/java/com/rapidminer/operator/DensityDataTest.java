@@ -0,0 +1,144 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests that {@link DensityData} finds the same typical values, error bounds and statistics for
+ * any number of threads.
+ * @author Jan Jake
+ *
+ */
+public class DensityDataTest {
+
+	/** Tested numbers of threads. */
+	private static final int[] NUMBERS_OF_THREADS = { 3, 8 };
+
+	/** Number of numerical attributes of datasets. */
+	private static final int NUMBER_OF_NUMERICAL_ATTRIBUTES = 3;
+
+	/** Number of different values of the nominal attribute of datasets. */
+	private static final int NUMBER_OF_NOMINAL_VALUES = 5;
+
+	/** Number of clusters of datasets. */
+	private static final int NUMBER_OF_CLUSTERS = 12;
+
+	@Test
+	public void testExactProfile() {
+		for (long seed = 1; seed <= 3; seed++) {
+			final ExampleSet clusterSet = createClusterSet(seed, 3000);
+			final DensityData expected = new DensityData(clusterSet, 1);
+			for (int numberOfThreads : NUMBERS_OF_THREADS) {
+				checkEqual(expected, new DensityData(clusterSet, numberOfThreads));
+			}
+		}
+	}
+
+	@Test
+	public void testApproximateProfile() {
+		for (long seed = 4; seed <= 6; seed++) {
+			final ExampleSet clusterSet = createClusterSet(seed, 20000);
+			final DensityData expected = new DensityData(createSketches(clusterSet, seed), 1);
+			for (int numberOfThreads : NUMBERS_OF_THREADS) {
+				checkEqual(expected, new DensityData(createSketches(clusterSet, seed), numberOfThreads));
+			}
+		}
+	}
+
+	/**
+	 * Checks that two results have equal typical values, error bounds and statistics.
+	 * @param expected result of one thread
+	 * @param actual result of more threads
+	 */
+	private static void checkEqual(DensityData expected, DensityData actual) {
+		assertEquals(expected.getTypicalValues(), actual.getTypicalValues());
+		assertEquals(expected.getTypicalValuesOfCluster(), actual.getTypicalValuesOfCluster());
+		assertEquals(expected.getErrorBounds(), actual.getErrorBounds());
+		assertEquals(expected.getErrorBoundsOfCluster(), actual.getErrorBoundsOfCluster());
+		for (int attribute = 0; attribute < expected.getStatistics().length; attribute++) {
+			checkEqual(expected.getStatistics()[attribute], actual.getStatistics()[attribute]);
+			for (int cluster = 0; cluster < expected.getStatisticsOfCluster().length; cluster++) {
+				checkEqual(expected.getStatisticsOfCluster()[cluster][attribute], actual.getStatisticsOfCluster()[cluster][attribute]);
+			}
+		}
+	}
+
+	/**
+	 * Checks that two statistics are equal.
+	 * @param expected statistics of one thread
+	 * @param actual statistics of more threads
+	 */
+	private static void checkEqual(ProfileStatistics expected, ProfileStatistics actual) {
+		assertEquals(expected.getMedian(), actual.getMedian(), 0.0);
+		assertEquals(expected.getMean(), actual.getMean(), 0.0);
+		assertEquals(expected.getVariance(), actual.getVariance(), 0.0);
+		assertEquals(expected.getInterquartileRange(), actual.getInterquartileRange(), 0.0);
+		assertEquals(expected.getMode(), actual.getMode());
+		assertEquals(expected.getModeFrequency(), actual.getModeFrequency(), 0.0);
+		assertEquals(expected.getEntropy(), actual.getEntropy(), 0.0);
+	}
+
+	/**
+	 * Creates approximate profile with its own random generator.
+	 * @param clusterSet clustered dataset
+	 * @param seed seed of random generator of sketches
+	 * @return {@link ClusterProfile}
+	 */
+	private static ClusterProfile createSketches(ExampleSet clusterSet, long seed) {
+		return ClusterProfile.createSketches(new ClusterPartition(clusterSet), 0.01, 0.01, new Random(seed));
+	}
+
+	/**
+	 * Creates random clustered dataset with numerical and nominal attributes and missing values.
+	 * Clusters have very different sizes, some of them only a few examples.
+	 * @param seed seed of random generator
+	 * @param numberOfExamples number of examples
+	 * @return {@link ExampleSet} with cluster attribute
+	 */
+	static ExampleSet createClusterSet(long seed, int numberOfExamples) {
+		final Random random = new Random(seed);
+		final List<Attribute> attributes = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_NUMERICAL_ATTRIBUTES; i++) {
+			attributes.add(AttributeFactory.createAttribute("numerical" + (i + 1), Ontology.REAL));
+		}
+		final Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		attributes.add(nominal);
+		final Attribute cluster = AttributeFactory.createAttribute("cluster", Ontology.NOMINAL);
+		attributes.add(cluster);
+		for (int i = 0; i < NUMBER_OF_CLUSTERS; i++) {
+			cluster.getMapping().mapString("cluster_" + i);
+		}
+		for (int i = 0; i < NUMBER_OF_NOMINAL_VALUES; i++) {
+			nominal.getMapping().mapString("value" + i);
+		}
+
+		final MemoryExampleTable table = new MemoryExampleTable(attributes);
+		for (int row = 0; row < numberOfExamples; row++) {
+			final double[] values = new double[attributes.size()];
+			// cluster i is chosen with probability proportional to 2^-i
+			final int clusterIndex = Math.min(NUMBER_OF_CLUSTERS - 1, (int) Math.floor(-Math.log(1 - random.nextDouble()) / Math.log(2)));
+			for (int i = 0; i < NUMBER_OF_NUMERICAL_ATTRIBUTES; i++) {
+				values[i] = random.nextDouble() < 0.05 ? Double.NaN : clusterIndex + random.nextGaussian() * (i + 1);
+			}
+			values[NUMBER_OF_NUMERICAL_ATTRIBUTES] = random.nextDouble() < 0.05 ? Double.NaN
+					: (clusterIndex + random.nextInt(3)) % NUMBER_OF_NOMINAL_VALUES;
+			values[NUMBER_OF_NUMERICAL_ATTRIBUTES + 1] = clusterIndex;
+			table.addDataRow(new DoubleArrayDataRow(values));
+		}
+		final ExampleSet clusterSet = table.createExampleSet();
+		clusterSet.getAttributes().setCluster(cluster);
+		return clusterSet;
+	}
+}
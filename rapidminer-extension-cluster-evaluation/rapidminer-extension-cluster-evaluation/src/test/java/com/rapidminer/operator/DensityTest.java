@@ -0,0 +1,241 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.gui.DensityIOObject;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests that cluster profiles created by {@link Density} hold the statistics and error bounds of
+ * {@link DensityData} in the expected columns, and that the statistics of a small fixed dataset
+ * equal hand-computed values.
+ * @author Jan Jake
+ *
+ */
+public class DensityTest {
+
+	/** Expected names of attributes of profiles. */
+	private static final String[] PROFILE_COLUMNS = { "cluster", "attribute", "median", "mean", "variance", "interquartile range", "mode",
+			"mode frequency", "entropy", "error bound" };
+
+	/** Names of clusters of the fixed dataset. */
+	static final String[] FIXED_CLUSTERS = { "a", "b" };
+
+	/** Values of the numerical attribute of the fixed dataset, the first five examples are in cluster a. */
+	static final double[] FIXED_NUMBERS = { 1, 2, Double.NaN, 4, 10, 3, 9, 5, 7 };
+
+	/** Values of the nominal attribute of the fixed dataset, null is missing. */
+	static final String[] FIXED_COLORS = { "red", "red", "red", "green", null, "blue", "blue", null, null };
+
+	/** Number of examples of cluster a of the fixed dataset. */
+	private static final int FIXED_SIZE_OF_A = 5;
+
+	/** Exact values of statistics. */
+	private static final double TOLERANCE = 1e-12;
+
+	@Test
+	public void testStatisticsOfFixedDataset() {
+		final DensityData densityData = new DensityData(createFixedClusterSet());
+		final Attribute[] attributes = densityData.getProfile().getAttributes();
+		assertEquals("number", attributes[0].getName());
+		assertEquals("color", attributes[1].getName());
+
+		// numbers without the missing value: dataset 1 2 3 4 5 7 9 10, cluster a 1 2 4 10, cluster b 3 5 7 9
+		checkNumerical(densityData.getStatistics()[0], 4, 41.0 / 8, (285 - 41.0 * 41.0 / 8) / 7, 7 - 2);
+		checkNumerical(densityData.getStatisticsOfCluster()[0][0], 2, 4.25, 48.75 / 3, 4 - 1);
+		checkNumerical(densityData.getStatisticsOfCluster()[1][0], 5, 6, 20.0 / 3, 7 - 3);
+
+		// colors without missing values: dataset red 3 green 1 blue 2, cluster a red 3 green 1, cluster b blue 2
+		checkNominal(densityData.getStatistics()[1], "red", 3, -(0.5 * log2(0.5) + log2(1.0 / 6) / 6 + log2(1.0 / 3) / 3));
+		checkNominal(densityData.getStatisticsOfCluster()[0][1], "red", 3, -(0.75 * log2(0.75) + 0.25 * log2(0.25)));
+		checkNominal(densityData.getStatisticsOfCluster()[1][1], "blue", 2, 0.0);
+	}
+
+	@Test
+	public void testRenderedPages() {
+		final DensityData densityData = new DensityData(createFixedClusterSet());
+		// number, color and the nominal cluster attribute of the dataset and of both clusters
+		assertEquals(9, densityData.getNumberOfProfileRows());
+		final DensityIOObject densityIOObject = new DensityIOObject(densityData);
+		final String[] allLines = densityIOObject.renderPage(0, 9).split("\n");
+		assertEquals(3 + 9, allLines.length);
+		assertTrue(allLines[3].startsWith("dataset "));
+		assertTrue(allLines[11].startsWith("b "));
+		final String page = densityIOObject.renderPage(3, 3);
+		final String[] lines = page.split("\n");
+		assertTrue(lines[0].endsWith("rows 4-6 of 9:"));
+		assertTrue(lines[3].startsWith("a ") && lines[3].contains("number"));
+		assertTrue(page.endsWith("3 more rows, all rows are delivered by the profiles output.\n"));
+		assertFalse(densityIOObject.toResultString().contains("more rows"));
+	}
+
+	@Test
+	public void testExactProfileSet() {
+		final ExampleSet clusterSet = DensityDataTest.createClusterSet(1, 2000);
+		checkProfileSet(new DensityData(clusterSet));
+	}
+
+	@Test
+	public void testApproximateProfileSet() {
+		final ExampleSet clusterSet = DensityDataTest.createClusterSet(2, 20000);
+		final DensityData densityData = new DensityData(ClusterProfile.createSketches(new ClusterPartition(clusterSet), 0.01, 0.01,
+				new Random(3)));
+		checkProfileSet(densityData);
+	}
+
+	/**
+	 * Checks columns and every example of profiles against statistics and error bounds.
+	 * @param densityData calculated typical values and statistics
+	 */
+	private static void checkProfileSet(DensityData densityData) {
+		final ExampleSet profileSet = Density.createProfileSet(densityData);
+		final Attribute[] columns = new Attribute[PROFILE_COLUMNS.length];
+		final Iterator<Attribute> attributeIterator = profileSet.getAttributes().allAttributes();
+		for (int i = 0; i < columns.length; i++) {
+			assertTrue(attributeIterator.hasNext());
+			columns[i] = attributeIterator.next();
+			assertEquals(PROFILE_COLUMNS[i], columns[i].getName());
+		}
+		assertTrue(!attributeIterator.hasNext());
+
+		final ClusterProfile profile = densityData.getProfile();
+		final ClusterPartition partition = densityData.getPartition();
+		final Attribute[] attributes = profile.getAttributes();
+		assertEquals((partition.getNumberOfClusters() + 1) * attributes.length, profileSet.size());
+		final Iterator<Example> exampleIterator = profileSet.iterator();
+		for (int cluster = -1; cluster < partition.getNumberOfClusters(); cluster++) {
+			for (int attribute = 0; attribute < attributes.length; attribute++) {
+				final Example example = exampleIterator.next();
+				final ProfileStatistics statistics;
+				final double errorBound;
+				if (cluster < 0) {
+					assertEquals("dataset", example.getNominalValue(columns[0]));
+					statistics = densityData.getStatistics()[attribute];
+					errorBound = profile.getErrorBound(attribute);
+				} else {
+					assertEquals(partition.getClusterName(cluster), example.getNominalValue(columns[0]));
+					statistics = densityData.getStatisticsOfCluster()[cluster][attribute];
+					errorBound = profile.getErrorBound(attribute, cluster);
+				}
+				assertEquals(attributes[attribute].getName(), example.getNominalValue(columns[1]));
+				checkValue(statistics.getMedian(), example.getValue(columns[2]));
+				checkValue(statistics.getMean(), example.getValue(columns[3]));
+				checkValue(statistics.getVariance(), example.getValue(columns[4]));
+				checkValue(statistics.getInterquartileRange(), example.getValue(columns[5]));
+				if (statistics.getMode() == null) {
+					assertTrue(Double.isNaN(example.getValue(columns[6])));
+				} else {
+					assertEquals(statistics.getMode(), example.getNominalValue(columns[6]));
+				}
+				checkValue(statistics.getModeFrequency(), example.getValue(columns[7]));
+				checkValue(statistics.getEntropy(), example.getValue(columns[8]));
+				checkValue(errorBound, example.getValue(columns[9]));
+				assertEquals(attributes[attribute].isNominal(), Double.isNaN(statistics.getMean()));
+				assertEquals(attributes[attribute].isNominal(), statistics.getMode() != null);
+			}
+		}
+	}
+
+	/**
+	 * Creates the fixed clustered dataset of {@link #FIXED_NUMBERS} and {@link #FIXED_COLORS}.
+	 * @return example set with a numerical attribute, a nominal attribute and clusters
+	 */
+	static ExampleSet createFixedClusterSet() {
+		final List<Attribute> attributes = new ArrayList<>();
+		final Attribute number = AttributeFactory.createAttribute("number", Ontology.REAL);
+		attributes.add(number);
+		final Attribute color = AttributeFactory.createAttribute("color", Ontology.NOMINAL);
+		attributes.add(color);
+		final Attribute cluster = AttributeFactory.createAttribute("cluster", Ontology.NOMINAL);
+		attributes.add(cluster);
+		for (String name : Arrays.asList("red", "green", "blue")) {
+			color.getMapping().mapString(name);
+		}
+		for (String name : FIXED_CLUSTERS) {
+			cluster.getMapping().mapString(name);
+		}
+		final MemoryExampleTable table = new MemoryExampleTable(attributes);
+		for (int row = 0; row < FIXED_NUMBERS.length; row++) {
+			table.addDataRow(new DoubleArrayDataRow(new double[] { FIXED_NUMBERS[row],
+					FIXED_COLORS[row] == null ? Double.NaN : color.getMapping().mapString(FIXED_COLORS[row]),
+					row < FIXED_SIZE_OF_A ? 0 : 1 }));
+		}
+		final ExampleSet clusterSet = table.createExampleSet();
+		clusterSet.getAttributes().setCluster(cluster);
+		return clusterSet;
+	}
+
+	/**
+	 * Checks statistics of a numerical attribute, its nominal statistics are missing.
+	 * @param statistics statistics of attribute
+	 * @param median expected median
+	 * @param mean expected mean
+	 * @param variance expected sample variance
+	 * @param interquartileRange expected interquartile range
+	 */
+	private static void checkNumerical(ProfileStatistics statistics, double median, double mean, double variance,
+			double interquartileRange) {
+		assertEquals(median, statistics.getMedian(), 0.0);
+		assertEquals(mean, statistics.getMean(), TOLERANCE);
+		assertEquals(variance, statistics.getVariance(), TOLERANCE);
+		assertEquals(interquartileRange, statistics.getInterquartileRange(), 0.0);
+		assertNull(statistics.getMode());
+		assertTrue(Double.isNaN(statistics.getModeFrequency()));
+		assertTrue(Double.isNaN(statistics.getEntropy()));
+	}
+
+	/**
+	 * Checks statistics of a nominal attribute, its numerical statistics are missing.
+	 * @param statistics statistics of attribute
+	 * @param mode expected most frequent value
+	 * @param modeFrequency expected number of occurrences of mode
+	 * @param entropy expected entropy in bits
+	 */
+	private static void checkNominal(ProfileStatistics statistics, String mode, double modeFrequency, double entropy) {
+		assertEquals(mode, statistics.getMode());
+		assertEquals(modeFrequency, statistics.getModeFrequency(), 0.0);
+		assertEquals(entropy, statistics.getEntropy(), TOLERANCE);
+		assertTrue(Double.isNaN(statistics.getMedian()));
+		assertTrue(Double.isNaN(statistics.getMean()));
+		assertTrue(Double.isNaN(statistics.getVariance()));
+		assertTrue(Double.isNaN(statistics.getInterquartileRange()));
+	}
+
+	/**
+	 * Returns binary logarithm.
+	 * @param value positive value
+	 * @return logarithm of value to base 2
+	 */
+	private static double log2(double value) {
+		return Math.log(value) / Math.log(2.0);
+	}
+
+	/**
+	 * Checks that value of profiles equals statistic, both may be missing.
+	 * @param expected statistic
+	 * @param actual value of profiles
+	 */
+	private static void checkValue(double expected, double actual) {
+		assertEquals(Double.isNaN(expected), Double.isNaN(actual));
+		if (!Double.isNaN(expected)) {
+			assertEquals(expected, actual, 0.0);
+		}
+	}
+}
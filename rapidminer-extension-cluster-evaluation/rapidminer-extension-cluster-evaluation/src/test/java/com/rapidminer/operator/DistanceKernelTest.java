@@ -0,0 +1,193 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.ExampleSetFactory;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.divergences.KLDivergence;
+import com.rapidminer.tools.math.similarity.divergences.SquaredEuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.CosineSimilarity;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+/**
+ * Tests that specialized kernels of {@link DistanceKernel} are selected by the class of measure
+ * and calculate the same distances as their {@link DistanceMeasure}.
+ * @author Jan Jake
+ *
+ */
+public class DistanceKernelTest {
+
+	/** Number of examples. */
+	private static final int NUMBER_OF_ROWS = 40;
+
+	/** Number of attributes. */
+	private static final int NUMBER_OF_COLUMNS = 6;
+
+	/** Maximum relative difference of distances. */
+	private static final double TOLERANCE = 1e-12;
+
+	@Test
+	public void testEuclidean() {
+		checkKernel(new EuclideanDistance(), "EuclideanKernel", true);
+	}
+
+	@Test
+	public void testSquaredEuclidean() {
+		checkKernel(new SquaredEuclideanDistance(), "SquaredEuclideanKernel", true);
+	}
+
+	@Test
+	public void testManhattan() {
+		checkKernel(new ManhattanDistance(), "ManhattanKernel", true);
+	}
+
+	@Test
+	public void testChebychev() {
+		checkKernel(new ChebychevNumericalDistance(), "ChebychevKernel", true);
+	}
+
+	@Test
+	public void testCosine() {
+		checkKernel(new CosineSimilarity(), "CosineKernel", true);
+	}
+
+	@Test
+	public void testCosineOfZeroRows() {
+		final double[][] data = { { 0, 0 }, { 0, 0 }, { 1, 2 } };
+		checkDistances(createExampleSet(data), new CosineSimilarity(), "CosineKernel");
+	}
+
+	@Test
+	public void testOtherMeasure() {
+		final DistanceMeasure measure = new DistanceMeasure() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public double calculateDistance(double[] first, double[] second) {
+				return Math.abs(first[0] - second[0]);
+			}
+
+			@Override
+			public double calculateSimilarity(double[] first, double[] second) {
+				return -calculateDistance(first, second);
+			}
+		};
+		checkKernel(measure, "MeasureKernel", false);
+	}
+
+	@Test
+	public void testSubclassOfMeasure() {
+		final DistanceMeasure measure = new EuclideanDistance() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public double calculateDistance(double[] first, double[] second) {
+				return 2 * super.calculateDistance(first, second);
+			}
+		};
+		checkKernel(measure, "MeasureKernel", true);
+	}
+
+	@Test
+	public void testSymmetry() {
+		final FeatureMatrix matrix = new FeatureMatrix(createExampleSet(createData(1, false)));
+		assertTrue(DistanceKernel.create(matrix, new EuclideanDistance()).isSymmetric());
+		assertTrue(DistanceKernel.create(matrix, new SquaredEuclideanDistance()).isSymmetric());
+		assertTrue(DistanceKernel.create(matrix, new CosineSimilarity()).isSymmetric());
+		assertFalse(DistanceKernel.create(matrix, new KLDivergence()).isSymmetric());
+	}
+
+	@Test
+	public void testFamilies() {
+		assertEquals(DistanceFamily.EUCLIDEAN, DistanceFamily.of(new EuclideanDistance()));
+		assertEquals(DistanceFamily.METRIC, DistanceFamily.of(new ManhattanDistance()));
+		assertEquals(DistanceFamily.METRIC, DistanceFamily.of(new ChebychevNumericalDistance()));
+		assertEquals(DistanceFamily.BREGMAN, DistanceFamily.of(new SquaredEuclideanDistance()));
+		assertEquals(DistanceFamily.BREGMAN, DistanceFamily.of(new KLDivergence()));
+		assertEquals(DistanceFamily.OTHER, DistanceFamily.of(new CosineSimilarity()));
+		assertEquals(DistanceFamily.OTHER, DistanceFamily.of(new EuclideanDistance() {
+
+			private static final long serialVersionUID = 1L;
+		}));
+	}
+
+	/**
+	 * Checks kernel of measure on data with and without missing values.
+	 * @param measure measure
+	 * @param kernelName simple name of class of expected kernel
+	 * @param withMissing also check data with missing values
+	 */
+	private static void checkKernel(DistanceMeasure measure, String kernelName, boolean withMissing) {
+		checkDistances(createExampleSet(createData(2, false)), measure, kernelName);
+		if (withMissing) {
+			checkDistances(createExampleSet(createData(3, true)), measure, kernelName);
+		}
+	}
+
+	/**
+	 * Checks that kernel of measure is of expected class and that its distances equal distances of measure.
+	 * @param exampleSet dataset
+	 * @param measure measure
+	 * @param kernelName simple name of class of expected kernel
+	 */
+	private static void checkDistances(ExampleSet exampleSet, DistanceMeasure measure, String kernelName) {
+		final FeatureMatrix matrix = new FeatureMatrix(exampleSet);
+		final DistanceKernel kernel = DistanceKernel.create(matrix, measure);
+		assertEquals(kernelName, kernel.getClass().getSimpleName());
+		final double[] first = new double[matrix.getNumberOfColumns()];
+		final double[] second = new double[matrix.getNumberOfColumns()];
+		for (int firstRow = 0; firstRow < matrix.getNumberOfRows(); firstRow++) {
+			for (int secondRow = 0; secondRow < matrix.getNumberOfRows(); secondRow++) {
+				matrix.copyRow(firstRow, first);
+				matrix.copyRow(secondRow, second);
+				final double expected = measure.calculateDistance(first, second);
+				final double actual = kernel.distance(firstRow, secondRow);
+				assertEquals("distance of rows " + firstRow + " and " + secondRow, expected, actual,
+						TOLERANCE * Math.max(1.0, Math.abs(expected)));
+			}
+		}
+	}
+
+	/**
+	 * Creates random values.
+	 * @param seed seed of random generator
+	 * @param withMissing replace some values by missing values, some rows have no common value
+	 * @return values of examples
+	 */
+	private static double[][] createData(long seed, boolean withMissing) {
+		final Random random = new Random(seed);
+		final double[][] data = new double[NUMBER_OF_ROWS][NUMBER_OF_COLUMNS];
+		for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+			for (int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+				data[row][column] = withMissing && random.nextDouble() < 0.3 ? Double.NaN : random.nextGaussian() * 10;
+			}
+		}
+		if (withMissing) {
+			for (int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+				data[0][column] = column % 2 == 0 ? 1.0 : Double.NaN;
+				data[1][column] = column % 2 == 0 ? Double.NaN : 1.0;
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Creates dataset of regular numerical attributes.
+	 * @param data values of examples
+	 * @return {@link ExampleSet}
+	 */
+	private static ExampleSet createExampleSet(double[][] data) {
+		return ExampleSetFactory.createExampleSet(data);
+	}
+}
@@ -0,0 +1,56 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+/**
+ * Tests that Dunn index of {@link DunnIndexData} found by search trees and pruned diameters equals
+ * Dunn index of all pairs of examples, and that diameters are pruned only together with search trees.
+ * @author Jan Jake
+ *
+ */
+public class DunnIndexDataTest {
+
+	@Test
+	public void testSearchTrees() {
+		final ClusterPartition partition = SilhouetteDataTest.createPartition(1, 600, 8, false);
+		assertEquals("KD-trees", checkDunnIndex(partition, new EuclideanDistance()));
+		assertEquals("vantage-point trees", checkDunnIndex(partition, new ManhattanDistance()));
+		assertEquals("vantage-point trees", checkDunnIndex(partition, new ChebychevNumericalDistance()));
+	}
+
+	@Test
+	public void testAllPairsWithMissingValues() {
+		final ClusterPartition partition = SilhouetteDataTest.createPartition(2, 600, 8, true);
+		assertNull(checkDunnIndex(partition, new EuclideanDistance()));
+		assertNull(checkDunnIndex(partition, new ManhattanDistance()));
+		assertNull(checkDunnIndex(partition, new ChebychevNumericalDistance()));
+	}
+
+	/**
+	 * Checks that Dunn index of search trees equals Dunn index of all pairs of examples.
+	 * @param partition examples divided by clusters
+	 * @param measure metric
+	 * @return name of search trees, null if all pairs were compared
+	 */
+	private static String checkDunnIndex(ClusterPartition partition, DistanceMeasure measure) {
+		final FeatureMatrix matrix = new FeatureMatrix(partition);
+		final DistanceKernel kernel = DistanceKernel.create(matrix, measure);
+		final DunnIndexData expected = new DunnIndexData();
+		expected.calculateDunnIndex(partition, kernel);
+		final DunnIndexData actual = new DunnIndexData();
+		actual.calculateDunnIndex(partition, matrix, kernel, DistanceFamily.of(measure), false);
+		assertEquals(expected.getDunnIndex(), actual.getDunnIndex(), 0.0);
+		assertFalse(expected.isDiameterPruned());
+		assertEquals(actual.getTreeName() != null, actual.isDiameterPruned());
+		return actual.getTreeName();
+	}
+}
@@ -0,0 +1,145 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that counts of {@link FrequencySketch} are lower than exact counts by at most
+ * {@link FrequencySketch#getCountErrorBound()}.
+ * @author Jan Jake
+ *
+ */
+public class FrequencySketchTest {
+
+	/** Number of different values. */
+	private static final int NUMBER_OF_DIFFERENT_VALUES = 1000;
+
+	/** Number of values of streams. */
+	private static final int NUMBER_OF_VALUES = 100000;
+
+	/** Number of counters of tested sketches. */
+	private static final int NUMBER_OF_COUNTERS = 50;
+
+	@Test
+	public void testExactWithEnoughCounters() {
+		final Random random = new Random(1);
+		final int[] values = new int[10000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextInt(NUMBER_OF_COUNTERS);
+		}
+		final FrequencySketch sketch = createSketch(values, 0, values.length);
+		assertEquals(0, sketch.getCountErrorBound());
+		final int[] exactCounts = getExactCounts(values);
+		for (int value = 0; value < exactCounts.length; value++) {
+			final Integer count = sketch.getCounts().get(value);
+			assertEquals("value " + value, exactCounts[value], count == null ? 0 : count.intValue());
+		}
+	}
+
+	@Test
+	public void testSkewedValues() {
+		final int[] values = createSkewedValues(new Random(2));
+		final FrequencySketch sketch = createSketch(values, 0, values.length);
+		assertEquals(values.length, sketch.getSize());
+		checkSketch(sketch, values);
+	}
+
+	@Test
+	public void testUniformValues() {
+		final Random random = new Random(3);
+		final int[] values = new int[NUMBER_OF_VALUES];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextInt(NUMBER_OF_DIFFERENT_VALUES);
+		}
+		checkSketch(createSketch(values, 0, values.length), values);
+	}
+
+	@Test
+	public void testMergedSketches() {
+		final int[] values = createSkewedValues(new Random(4));
+		// parts have different frequent values, so merging has to decrease counts
+		for (int i = values.length / 2; i < values.length; i++) {
+			values[i] = (values[i] + NUMBER_OF_DIFFERENT_VALUES / 2) % NUMBER_OF_DIFFERENT_VALUES;
+		}
+		final int numberOfParts = 7;
+		final FrequencySketch sketch = new FrequencySketch(NUMBER_OF_COUNTERS);
+		for (int part = 0; part < numberOfParts; part++) {
+			sketch.merge(createSketch(values, part * values.length / numberOfParts, (part + 1) * values.length / numberOfParts));
+		}
+		assertEquals(values.length, sketch.getSize());
+		checkSketch(sketch, values);
+	}
+
+	@Test
+	public void testNumberOfCounters() {
+		for (double frequencyError : new double[] { 0.1, 0.01, 0.001 }) {
+			final int numberOfCounters = FrequencySketch.getNumberOfCounters(frequencyError);
+			assertTrue(1.0 / (numberOfCounters + 1) <= frequencyError);
+		}
+	}
+
+	/**
+	 * Checks counts of sketch against exact counts.
+	 * @param sketch sketch of all values
+	 * @param values values added to sketch
+	 */
+	private static void checkSketch(FrequencySketch sketch, int[] values) {
+		final long bound = sketch.getCountErrorBound();
+		assertTrue("bound " + bound, bound <= values.length / (NUMBER_OF_COUNTERS + 1));
+		final Map<Integer, Integer> counts = sketch.getCounts();
+		assertTrue(counts.size() <= NUMBER_OF_COUNTERS);
+		final int[] exactCounts = getExactCounts(values);
+		for (int value = 0; value < exactCounts.length; value++) {
+			final Integer count = counts.get(value);
+			final long difference = exactCounts[value] - (count == null ? 0 : count.intValue());
+			assertTrue("value " + value + " exact " + exactCounts[value] + " counted " + count + " bound " + bound,
+					difference >= 0 && difference <= bound);
+		}
+	}
+
+	/**
+	 * Returns exact count of every value.
+	 * @param values values
+	 * @return counts indexed by value
+	 */
+	private static int[] getExactCounts(int[] values) {
+		final int[] counts = new int[NUMBER_OF_DIFFERENT_VALUES];
+		for (int value : values) {
+			counts[value]++;
+		}
+		return counts;
+	}
+
+	/**
+	 * Creates values whose frequencies decrease with their index roughly as 1 / index.
+	 * @param random random generator
+	 * @return values
+	 */
+	private static int[] createSkewedValues(Random random) {
+		final int[] values = new int[NUMBER_OF_VALUES];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (int) Math.min(NUMBER_OF_DIFFERENT_VALUES - 1, Math.floor(Math.exp(random.nextDouble() * Math.log(NUMBER_OF_DIFFERENT_VALUES))) - 1);
+		}
+		return values;
+	}
+
+	/**
+	 * Creates sketch of range of values.
+	 * @param values values
+	 * @param from first index of range
+	 * @param to index after the last index of range
+	 * @return {@link FrequencySketch}
+	 */
+	private static FrequencySketch createSketch(int[] values, int from, int to) {
+		final FrequencySketch sketch = new FrequencySketch(NUMBER_OF_COUNTERS);
+		for (int i = from; i < to; i++) {
+			sketch.add(values[i]);
+		}
+		return sketch;
+	}
+}
@@ -0,0 +1,65 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+
+/**
+ * Tests that {@link MappedDistanceMatrixData} stores the same distances as {@link PackedDistanceMatrixData}
+ * and that closing the matrix unmaps and deletes its temporary file.
+ * @author Jan Jake
+ *
+ */
+public class MappedDistanceMatrixDataTest {
+
+	/** Number of examples. */
+	private static final int NUMBER_OF_ROWS = 120;
+
+	@Test
+	public void testDistances() throws IOException {
+		final DistanceKernel kernel = createKernel();
+		final DistanceMatrixData expected = new PackedDistanceMatrixData(NUMBER_OF_ROWS, true, "EuclideanDistance", false);
+		expected.calculateDistances(kernel, 1);
+		final MappedDistanceMatrixData actual = new MappedDistanceMatrixData(NUMBER_OF_ROWS, true, "EuclideanDistance", false, null);
+		try {
+			actual.calculateDistances(kernel, 3);
+			for (int firstRow = 0; firstRow < NUMBER_OF_ROWS; firstRow++) {
+				for (int secondRow = 0; secondRow < NUMBER_OF_ROWS; secondRow++) {
+					assertEquals(expected.getDistance(firstRow, secondRow), actual.getDistance(firstRow, secondRow), 0.0);
+				}
+			}
+		} finally {
+			actual.close();
+		}
+	}
+
+	@Test
+	public void testCloseDeletesFile() throws IOException {
+		final DistanceKernel kernel = createKernel();
+		final MappedDistanceMatrixData matrix = new MappedDistanceMatrixData(NUMBER_OF_ROWS, false, "EuclideanDistance", true, null);
+		matrix.calculateDistances(kernel, 1);
+		final File file = matrix.getFile();
+		assertTrue(file.exists());
+		assertFalse(matrix.isClosed());
+		matrix.close();
+		assertTrue(matrix.isClosed());
+		assertFalse(file.exists());
+		matrix.close();
+	}
+
+	/**
+	 * Returns Euclidean distances of a small random dataset.
+	 * @return {@link DistanceKernel}
+	 */
+	private static DistanceKernel createKernel() {
+		final FeatureMatrix matrix = new FeatureMatrix(SilhouetteDataTest.createPartition(3, NUMBER_OF_ROWS, 4, false));
+		return DistanceKernel.create(matrix, new EuclideanDistance());
+	}
+}
@@ -0,0 +1,174 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that {@link OrderStatistics} selects the same values as {@link Arrays#sort(double[])}.
+ * @author Jan Jake
+ *
+ */
+public class OrderStatisticsTest {
+
+	/** Probabilities of tested quantiles. */
+	private static final double[] QUANTILES = { 0.0, 0.01, 0.25, 0.5, 0.75, 0.9, 0.99, 1.0 };
+
+	@Test
+	public void testSelectRandom() {
+		final Random random = new Random(1);
+		for (int size = 1; size < 100; size++) {
+			checkAllRanks(createValues(random, size, 1000, 0.0));
+		}
+	}
+
+	@Test
+	public void testSelectDuplicates() {
+		final Random random = new Random(2);
+		for (int size = 1; size < 100; size++) {
+			checkAllRanks(createValues(random, size, 3, 0.0));
+		}
+	}
+
+	@Test
+	public void testSelectAllEqual() {
+		for (int size = 1; size < 50; size++) {
+			final double[] values = new double[size];
+			Arrays.fill(values, 7.0);
+			checkAllRanks(values);
+		}
+	}
+
+	@Test
+	public void testSelectMissing() {
+		final Random random = new Random(3);
+		for (int size = 1; size < 100; size++) {
+			checkAllRanks(createValues(random, size, 10, 0.3));
+		}
+		final double[] values = new double[10];
+		Arrays.fill(values, Double.NaN);
+		checkAllRanks(values);
+	}
+
+	@Test
+	public void testSelectOrderedInputs() {
+		final int size = 1000;
+		final double[] ascending = new double[size];
+		final double[] descending = new double[size];
+		final double[] organPipe = new double[size];
+		final double[] sawtooth = new double[size];
+		for (int i = 0; i < size; i++) {
+			ascending[i] = i;
+			descending[i] = size - i;
+			organPipe[i] = Math.min(i, size - i);
+			sawtooth[i] = i % 17;
+		}
+		checkAllRanks(ascending);
+		checkAllRanks(descending);
+		checkAllRanks(organPipe);
+		checkAllRanks(sawtooth);
+	}
+
+	@Test
+	public void testSelectRange() {
+		final Random random = new Random(4);
+		final double[] values = createValues(random, 60, 20, 0.1);
+		final int from = 10;
+		final int to = 45;
+		for (int rank = 0; rank < to - from; rank++) {
+			final double[] copy = values.clone();
+			final double[] sorted = Arrays.copyOfRange(values, from, to);
+			Arrays.sort(sorted);
+			assertEquals("rank " + rank, sorted[rank], OrderStatistics.select(copy, from, to, rank), 0.0);
+			for (int i = 0; i < values.length; i++) {
+				if (i < from || i >= to) {
+					assertEquals("index " + i, values[i], copy[i], 0.0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMedian() {
+		final Random random = new Random(5);
+		for (int size = 1; size < 100; size++) {
+			final double[] values = createValues(random, size, size % 2 == 0 ? 5 : 1000, size % 3 == 0 ? 0.2 : 0.0);
+			final double[] sorted = values.clone();
+			Arrays.sort(sorted);
+			assertEquals("size " + size, sorted[OrderStatistics.getCenterIndex(size)],
+					OrderStatistics.median(values.clone(), 0, size), 0.0);
+		}
+		assertTrue(Double.isNaN(OrderStatistics.median(new double[0], 0, 0)));
+	}
+
+	@Test
+	public void testQuantile() {
+		final Random random = new Random(6);
+		for (int size = 1; size < 100; size++) {
+			final double[] values = createValues(random, size, 50, size % 4 == 0 ? 0.2 : 0.0);
+			final double[] sorted = values.clone();
+			Arrays.sort(sorted);
+			for (double quantile : QUANTILES) {
+				final int rank = Math.max(0, (int) Math.ceil(quantile * size) - 1);
+				assertEquals("size " + size + ", quantile " + quantile, sorted[rank],
+						OrderStatistics.quantile(values.clone(), 0, size, quantile), 0.0);
+			}
+		}
+		assertTrue(Double.isNaN(OrderStatistics.quantile(new double[0], 0, 0, 0.5)));
+	}
+
+	@Test
+	public void testCenterIndex() {
+		assertEquals(0, OrderStatistics.getCenterIndex(0));
+		assertEquals(0, OrderStatistics.getCenterIndex(1));
+		assertEquals(0, OrderStatistics.getCenterIndex(2));
+		assertEquals(1, OrderStatistics.getCenterIndex(3));
+		assertEquals(1, OrderStatistics.getCenterIndex(4));
+	}
+
+	/**
+	 * Checks every rank of values against sorted values, and that selection partitions the values.
+	 * @param values values
+	 */
+	private static void checkAllRanks(double[] values) {
+		final double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		for (int rank = 0; rank < values.length; rank++) {
+			final double[] copy = values.clone();
+			final double selected = OrderStatistics.select(copy, 0, copy.length, rank);
+			assertEquals("rank " + rank + " of " + Arrays.toString(values), sorted[rank], selected, 0.0);
+			if (!Double.isNaN(selected)) {
+				for (int i = 0; i < copy.length; i++) {
+					if (i < rank) {
+						assertTrue("index " + i + " before rank " + rank, copy[i] <= selected);
+					} else if (i > rank) {
+						assertTrue("index " + i + " after rank " + rank, !(copy[i] < selected));
+					}
+				}
+			}
+			final double[] reordered = copy.clone();
+			Arrays.sort(reordered);
+			assertTrue("values changed", Arrays.equals(sorted, reordered));
+		}
+	}
+
+	/**
+	 * Creates random integral values.
+	 * @param random random generator
+	 * @param size number of values
+	 * @param range number of different values
+	 * @param missingRatio probability of missing value
+	 * @return values
+	 */
+	private static double[] createValues(Random random, int size, int range, double missingRatio) {
+		final double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = random.nextDouble() < missingRatio ? Double.NaN : random.nextInt(range) - range / 2;
+		}
+		return values;
+	}
+}
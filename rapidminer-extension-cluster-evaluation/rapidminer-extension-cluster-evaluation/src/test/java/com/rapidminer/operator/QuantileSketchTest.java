@@ -0,0 +1,191 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that ranks of values returned by {@link QuantileSketch} differ from exact ranks by at most
+ * {@link QuantileSketch#getRankErrorBound()}.
+ * @author Jan Jake
+ *
+ */
+public class QuantileSketchTest {
+
+	/** Normalized rank error of tested sketches. */
+	private static final double RANK_ERROR = 0.01;
+
+	/** Number of values of large streams. */
+	private static final int NUMBER_OF_VALUES = 100000;
+
+	/** Number of checked ranks of large streams. */
+	private static final int NUMBER_OF_RANKS = 200;
+
+	@Test
+	public void testExactBeforeCompaction() {
+		final Random random = new Random(1);
+		final QuantileSketch sketch = new QuantileSketch(200, new Random(2));
+		final double[] values = new double[100];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextGaussian();
+			sketch.add(values[i]);
+		}
+		Arrays.sort(values);
+		assertEquals(0.0, sketch.getRankErrorBound(), 0.0);
+		for (int rank = 0; rank < values.length; rank++) {
+			assertEquals("rank " + rank, values[rank], sketch.getValue(rank), 0.0);
+		}
+	}
+
+	@Test
+	public void testRandomValues() {
+		final Random random = new Random(3);
+		final double[] values = new double[NUMBER_OF_VALUES];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextGaussian();
+		}
+		checkSketch(createSketch(values, 0, values.length, 4), values);
+	}
+
+	@Test
+	public void testSortedValues() {
+		final double[] values = new double[NUMBER_OF_VALUES];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i;
+		}
+		checkSketch(createSketch(values, 0, values.length, 5), values);
+	}
+
+	@Test
+	public void testDuplicates() {
+		final Random random = new Random(6);
+		final double[] values = new double[NUMBER_OF_VALUES];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextInt(7);
+		}
+		checkSketch(createSketch(values, 0, values.length, 7), values);
+	}
+
+	@Test
+	public void testMissingValues() {
+		final Random random = new Random(8);
+		final double[] values = new double[NUMBER_OF_VALUES];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextDouble() < 0.2 ? Double.NaN : random.nextDouble();
+		}
+		final QuantileSketch sketch = createSketch(values, 0, values.length, 9);
+		assertEquals(values.length, sketch.getSize());
+		checkSketch(sketch, values);
+	}
+
+	@Test
+	public void testMergedSketches() {
+		final Random random = new Random(10);
+		final double[] values = new double[NUMBER_OF_VALUES];
+		for (int i = 0; i < values.length; i++) {
+			// parts have different distributions, so merging matters
+			values[i] = i < values.length / 2 ? random.nextGaussian() : 3 + random.nextDouble();
+			if (random.nextDouble() < 0.05) {
+				values[i] = Double.NaN;
+			}
+		}
+		final int numberOfParts = 7;
+		final QuantileSketch sketch = new QuantileSketch(QuantileSketch.getCapacity(RANK_ERROR), new Random(11));
+		for (int part = 0; part < numberOfParts; part++) {
+			sketch.merge(createSketch(values, part * values.length / numberOfParts, (part + 1) * values.length / numberOfParts, 12 + part));
+		}
+		assertEquals(values.length, sketch.getSize());
+		checkSketch(sketch, values);
+	}
+
+	@Test
+	public void testEmpty() {
+		final QuantileSketch sketch = new QuantileSketch(100, new Random(13));
+		assertTrue(Double.isNaN(sketch.getMedian()));
+		assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+		sketch.add(Double.NaN);
+		assertEquals(1, sketch.getSize());
+		assertTrue(Double.isNaN(sketch.getMedian()));
+		assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+	}
+
+	@Test
+	public void testCapacity() {
+		for (double rankError : new double[] { 0.1, 0.01, 0.001 }) {
+			assertTrue(QuantileSketch.getRankError(QuantileSketch.getCapacity(rankError)) <= rankError);
+		}
+	}
+
+	/**
+	 * Checks ranks of values, median and quantiles of sketch against exact ranks.
+	 * @param sketch sketch of all values
+	 * @param values values added to sketch
+	 */
+	private static void checkSketch(QuantileSketch sketch, double[] values) {
+		final double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int count = 0;
+		while (count < sorted.length && !Double.isNaN(sorted[count])) {
+			count++;
+		}
+		final double bound = sketch.getRankErrorBound();
+		assertTrue(bound <= Math.ceil(QuantileSketch.getRankError(QuantileSketch.getCapacity(RANK_ERROR)) * count));
+		for (int i = 0; i < NUMBER_OF_RANKS; i++) {
+			final long rank = (long) i * count / NUMBER_OF_RANKS;
+			checkRank(sorted, count, rank, sketch.getValue(rank), bound);
+		}
+		checkRank(sorted, count, count - 1, sketch.getValue(count - 1), bound);
+		assertTrue(Double.isNaN(sketch.getValue(count)));
+
+		final int center = OrderStatistics.getCenterIndex(sorted.length);
+		if (center < count) {
+			checkRank(sorted, count, center, sketch.getMedian(), bound);
+		}
+		for (double quantile : new double[] { 0.0, 0.1, 0.5, 0.9, 1.0 }) {
+			final long rank = Math.max(0, (long) Math.ceil(quantile * count) - 1);
+			checkRank(sorted, count, rank, sketch.getQuantile(quantile), bound);
+		}
+	}
+
+	/**
+	 * Checks that the exact ranks of value are at most bound away from the required rank.
+	 * @param sorted sorted values
+	 * @param count number of values without missing ones
+	 * @param rank required rank
+	 * @param value value returned by sketch
+	 * @param bound rank error bound of sketch
+	 */
+	private static void checkRank(double[] sorted, int count, long rank, double value, double bound) {
+		int first = 0;
+		while (first < count && sorted[first] < value) {
+			first++;
+		}
+		int last = first;
+		while (last < count && sorted[last] == value) {
+			last++;
+		}
+		assertTrue("value " + value + " is not in the values", last > first);
+		final long error = rank < first ? first - rank : Math.max(0, rank - (last - 1));
+		assertTrue("rank " + rank + " returned ranks " + first + " to " + (last - 1) + ", bound " + bound, error <= bound);
+	}
+
+	/**
+	 * Creates sketch of range of values.
+	 * @param values values
+	 * @param from first index of range
+	 * @param to index after the last index of range
+	 * @param seed seed of random generator of sketch
+	 * @return {@link QuantileSketch}
+	 */
+	private static QuantileSketch createSketch(double[] values, int from, int to, long seed) {
+		final QuantileSketch sketch = new QuantileSketch(QuantileSketch.getCapacity(RANK_ERROR), new Random(seed));
+		for (int i = from; i < to; i++) {
+			sketch.add(values[i]);
+		}
+		return sketch;
+	}
+}
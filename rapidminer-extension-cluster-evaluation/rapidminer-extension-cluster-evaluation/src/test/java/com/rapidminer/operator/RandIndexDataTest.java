@@ -0,0 +1,141 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests external indices of {@link RandIndexData} on the six-point example of scikit-learn, with
+ * classes [0, 0, 0, 1, 1, 1] as cluster set A and clusters [0, 0, 1, 1, 2, 2] as cluster set B.
+ * @author Jan Jake
+ *
+ */
+public class RandIndexDataTest {
+
+	/** Classes of examples, cluster set A. */
+	private static final int[] CLASSES = { 0, 0, 0, 1, 1, 1 };
+
+	/** Clusters of examples, cluster set B. */
+	private static final int[] CLUSTERS = { 0, 0, 1, 1, 2, 2 };
+
+	/** Maximum difference of indices. */
+	private static final double TOLERANCE = 1e-12;
+
+	@Test
+	public void testPairCounts() {
+		final ContingencyTable table = createTable(CLASSES, CLUSTERS);
+		assertEquals(6, table.getTotal());
+		assertEquals(15, table.getNumberOfPairs());
+		assertEquals(2, table.getPairsTogetherInBoth());
+		assertEquals(6, table.getPairsTogetherInRows());
+		assertEquals(3, table.getPairsTogetherInColumns());
+	}
+
+	@Test
+	public void testIndices() {
+		final RandIndexData data = calculate(CLASSES, CLUSTERS);
+		assertEquals(10.0 / 15, data.getRandIndex(), TOLERANCE);
+		assertEquals(8.0 / 33, data.getAdjustedRandIndex(), TOLERANCE);
+		assertEquals(2.0 / 7, data.getJaccardIndex(), TOLERANCE);
+		assertEquals(0.47140452079103173, data.getFowlkesMallowsIndex(), TOLERANCE);
+		assertEquals(0.6666666666666666, data.getHomogeneity(), TOLERANCE);
+		assertEquals(0.42061983571430506, data.getCompleteness(), TOLERANCE);
+		assertEquals(0.5158037429793889, data.getVMeasure(), TOLERANCE);
+		assertEquals(Math.sqrt(data.getHomogeneity() * data.getCompleteness()), data.getNormalizedMutualInformation(), TOLERANCE);
+		assertEquals(Math.log(3) - Math.log(2) / 3, data.getVariationOfInformation(), TOLERANCE);
+		assertEquals(5.0 / 6, data.getPurity(), TOLERANCE);
+		assertEquals(0.8, data.getFMeasure(), TOLERANCE);
+	}
+
+	@Test
+	public void testSwappedClusterings() {
+		final RandIndexData data = calculate(CLASSES, CLUSTERS);
+		final RandIndexData swapped = calculate(CLUSTERS, CLASSES);
+		assertEquals(data.getRandIndex(), swapped.getRandIndex(), TOLERANCE);
+		assertEquals(data.getAdjustedRandIndex(), swapped.getAdjustedRandIndex(), TOLERANCE);
+		assertEquals(data.getNormalizedMutualInformation(), swapped.getNormalizedMutualInformation(), TOLERANCE);
+		assertEquals(data.getHomogeneity(), swapped.getCompleteness(), TOLERANCE);
+		assertEquals(data.getCompleteness(), swapped.getHomogeneity(), TOLERANCE);
+		assertEquals(4.0 / 6, swapped.getPurity(), TOLERANCE);
+	}
+
+	@Test
+	public void testUnbalancedClasses() {
+		// classes of 4 and 2 examples, the larger class has the larger weight in F-measure
+		final RandIndexData data = calculate(new int[] { 0, 0, 0, 0, 1, 1 }, new int[] { 0, 0, 0, 1, 1, 1 });
+		assertEquals(4.0 / 7 + 4.0 / 15, data.getFMeasure(), TOLERANCE);
+		assertEquals(5.0 / 6, data.getPurity(), TOLERANCE);
+		assertEquals(10.0 / 15, data.getRandIndex(), TOLERANCE);
+	}
+
+	@Test
+	public void testEqualClusterings() {
+		final RandIndexData data = calculate(CLUSTERS, new int[] { 2, 2, 0, 0, 1, 1 });
+		assertEquals(1.0, data.getRandIndex(), TOLERANCE);
+		assertEquals(1.0, data.getAdjustedRandIndex(), TOLERANCE);
+		assertEquals(1.0, data.getJaccardIndex(), TOLERANCE);
+		assertEquals(1.0, data.getFowlkesMallowsIndex(), TOLERANCE);
+		assertEquals(1.0, data.getNormalizedMutualInformation(), TOLERANCE);
+		assertEquals(0.0, data.getVariationOfInformation(), TOLERANCE);
+		assertEquals(1.0, data.getVMeasure(), TOLERANCE);
+		assertEquals(1.0, data.getPurity(), TOLERANCE);
+		assertEquals(1.0, data.getFMeasure(), TOLERANCE);
+	}
+
+	@Test
+	public void testTrivialClusterings() {
+		final int[] single = new int[6];
+		final RandIndexData data = calculate(single, single);
+		assertEquals(1.0, data.getAdjustedRandIndex(), TOLERANCE);
+		assertEquals(1.0, data.getJaccardIndex(), TOLERANCE);
+		assertEquals(1.0, data.getFowlkesMallowsIndex(), TOLERANCE);
+		assertEquals(1.0, data.getNormalizedMutualInformation(), TOLERANCE);
+		assertEquals(1.0, data.getVMeasure(), TOLERANCE);
+
+		final int[] singletons = { 0, 1, 2, 3, 4, 5 };
+		final RandIndexData separated = calculate(singletons, singletons);
+		assertEquals(1.0, separated.getAdjustedRandIndex(), TOLERANCE);
+		assertEquals(1.0, separated.getJaccardIndex(), TOLERANCE);
+		assertEquals(1.0, separated.getFowlkesMallowsIndex(), TOLERANCE);
+		assertEquals(1.0, separated.getNormalizedMutualInformation(), TOLERANCE);
+	}
+
+	/**
+	 * Calculates indices of two clusterings.
+	 * @param first cluster of every example in cluster set A
+	 * @param second cluster of every example in cluster set B
+	 * @return {@link RandIndexData}
+	 */
+	private static RandIndexData calculate(int[] first, int[] second) {
+		final RandIndexData data = new RandIndexData();
+		data.calculateRandIndex(createTable(first, second));
+		return data;
+	}
+
+	/**
+	 * Creates contingency table of two clusterings.
+	 * @param first cluster of every example in the first clustering
+	 * @param second cluster of every example in the second clustering
+	 * @return {@link ContingencyTable}
+	 */
+	private static ContingencyTable createTable(int[] first, int[] second) {
+		return ContingencyTable.create(first, getNames(first), second, getNames(second));
+	}
+
+	/**
+	 * Returns names of clusters numbered from 0.
+	 * @param clusters cluster of every example
+	 * @return names of clusters
+	 */
+	private static String[] getNames(int[] clusters) {
+		int numberOfClusters = 0;
+		for (int cluster : clusters) {
+			numberOfClusters = Math.max(numberOfClusters, cluster + 1);
+		}
+		final String[] names = new String[numberOfClusters];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			names[cluster] = "cluster_" + cluster;
+		}
+		return names;
+	}
+}
@@ -0,0 +1,154 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.ExampleSetFactory;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+
+/**
+ * Tests that exact silhouette of {@link SilhouetteData} does not depend on the number of threads
+ * and on the way of its calculation.
+ * @author Jan Jake
+ *
+ */
+public class SilhouetteDataTest {
+
+	/** Tested numbers of threads. */
+	private static final int[] NUMBERS_OF_THREADS = { 2, 3, 8 };
+
+	/** Number of attributes. */
+	private static final int NUMBER_OF_COLUMNS = 4;
+
+	/** Maximum difference of silhouettes calculated in different ways. */
+	private static final double TOLERANCE = 1e-12;
+
+	@Test
+	public void testSymmetricSweepIndependentOfThreads() {
+		final ClusterPartition partition = createPartition(1, 700, 5, false);
+		final DistanceKernel kernel = DistanceKernel.create(new FeatureMatrix(partition), new EuclideanDistance());
+		final SilhouetteData expected = new SilhouetteData();
+		expected.calculateSilhouette(partition, kernel, 1);
+		assertEquals(SilhouetteData.CALCULATION_SYMMETRIC_SWEEP, expected.getCalculationName());
+		for (int numberOfThreads : NUMBERS_OF_THREADS) {
+			final SilhouetteData actual = new SilhouetteData();
+			actual.calculateSilhouette(partition, kernel, numberOfThreads);
+			checkSilhouettes(expected, actual, 0.0);
+		}
+	}
+
+	@Test
+	public void testMatrixPassIndependentOfThreads() {
+		final ClusterPartition partition = createPartition(5, 500, 4, false);
+		final DistanceKernel kernel = DistanceKernel.create(new FeatureMatrix(partition.getClusterSet()), new EuclideanDistance());
+		for (boolean symmetric : new boolean[] { true, false }) {
+			final DistanceMatrixData matrix = new PackedDistanceMatrixData(partition.getNumberOfExamples(), symmetric, "EuclideanDistance", false);
+			matrix.calculateDistances(kernel, 1);
+			final SilhouetteData expected = new SilhouetteData();
+			expected.calculateSilhouette(partition, matrix, 1);
+			assertEquals(SilhouetteData.CALCULATION_MATRIX, expected.getCalculationName());
+			for (int numberOfThreads : NUMBERS_OF_THREADS) {
+				final SilhouetteData actual = new SilhouetteData();
+				actual.calculateSilhouette(partition, matrix, numberOfThreads);
+				checkSilhouettes(expected, actual, 0.0);
+			}
+			final SilhouetteData sweep = new SilhouetteData();
+			sweep.calculateSilhouette(partition, DistanceKernel.create(matrix, partition), 1);
+			checkSilhouettes(sweep, expected, TOLERANCE);
+		}
+	}
+
+	@Test
+	public void testNumberOfRanges() {
+		assertEquals(SilhouetteData.MAX_MATRIX_RANGES, SilhouetteData.getNumberOfRanges(false, Integer.MAX_VALUE));
+		assertEquals(SilhouetteData.MAX_MATRIX_RANGES, SilhouetteData.getNumberOfRanges(true, 1000));
+		assertEquals(4, SilhouetteData.getNumberOfRanges(true, SilhouetteData.MAX_MATRIX_RANGE_SUMS / 4));
+		assertEquals(1, SilhouetteData.getNumberOfRanges(true, SilhouetteData.MAX_MATRIX_RANGE_SUMS * 2));
+	}
+
+	@Test
+	public void testSymmetricSweepEqualsSweep() {
+		for (int numberOfExamples : new int[] { 2, 17, 40, 333 }) {
+			final ClusterPartition partition = createPartition(numberOfExamples, numberOfExamples, 3, false);
+			final DistanceKernel kernel = DistanceKernel.create(new FeatureMatrix(partition), new EuclideanDistance());
+			final SilhouetteData expected = new SilhouetteData();
+			expected.calculateSilhouette(partition, createAsymmetricKernel(kernel), 1);
+			assertEquals(SilhouetteData.CALCULATION_SWEEP, expected.getCalculationName());
+			final SilhouetteData actual = new SilhouetteData();
+			actual.calculateSilhouette(partition, kernel, 3);
+			checkSilhouettes(expected, actual, TOLERANCE);
+		}
+	}
+
+	/**
+	 * Checks that silhouettes of examples and clusters are equal.
+	 * @param expected expected silhouette
+	 * @param actual calculated silhouette
+	 * @param tolerance maximum difference
+	 */
+	private static void checkSilhouettes(SilhouetteData expected, SilhouetteData actual, double tolerance) {
+		assertEquals(expected.getSilhouette().length, actual.getSilhouette().length);
+		for (int row = 0; row < expected.getSilhouette().length; row++) {
+			assertEquals("row " + row, expected.getSilhouette()[row], actual.getSilhouette()[row], tolerance);
+		}
+		assertEquals(expected.getAverageClusterSilhouette().keySet(), actual.getAverageClusterSilhouette().keySet());
+		for (String cluster : expected.getAverageClusterSilhouette().keySet()) {
+			assertEquals(cluster, expected.getAverageClusterSilhouette().get(cluster), actual.getAverageClusterSilhouette().get(cluster), tolerance);
+		}
+		assertEquals(expected.getAverageSilhouette(), actual.getAverageSilhouette(), tolerance);
+	}
+
+	/**
+	 * Creates kernel of the same distances which claims to be asymmetric, so silhouette is calculated
+	 * by the sweep calculating every distance twice.
+	 * @param kernel symmetric kernel
+	 * @return {@link DistanceKernel}
+	 */
+	private static DistanceKernel createAsymmetricKernel(final DistanceKernel kernel) {
+		return new DistanceKernel() {
+
+			@Override
+			public double distance(int first, int second) {
+				return kernel.distance(first, second);
+			}
+
+			@Override
+			public DistanceKernel copy() {
+				return createAsymmetricKernel(kernel.copy());
+			}
+
+			@Override
+			public boolean isSymmetric() {
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Creates random examples divided by clusters, members of a cluster are shifted by its index.
+	 * @param seed seed of random generator
+	 * @param numberOfExamples number of examples
+	 * @param numberOfClusters number of clusters
+	 * @param withMissing replace some values by missing values
+	 * @return {@link ClusterPartition}
+	 */
+	static ClusterPartition createPartition(long seed, int numberOfExamples, int numberOfClusters, boolean withMissing) {
+		final Random random = new Random(seed);
+		final double[][] data = new double[numberOfExamples][NUMBER_OF_COLUMNS];
+		final int[] clusterIds = new int[numberOfExamples];
+		for (int row = 0; row < numberOfExamples; row++) {
+			clusterIds[row] = row < numberOfClusters ? row : random.nextInt(numberOfClusters);
+			for (int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+				data[row][column] = withMissing && random.nextDouble() < 0.2 ? Double.NaN : clusterIds[row] * 1.5 + random.nextGaussian();
+			}
+		}
+		final String[] clusterNames = new String[numberOfClusters];
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+			clusterNames[cluster] = "cluster_" + cluster;
+		}
+		return new ClusterPartition(ExampleSetFactory.createExampleSet(data), clusterIds, clusterNames);
+	}
+}
@@ -0,0 +1,67 @@
+package com.rapidminer.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.divergences.SquaredEuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+/**
+ * Tests that exact silhouette calculated by {@link Silhouette} with pruning or centroids equals
+ * the silhouette of the sweep over all pairs of examples.
+ * @author Jan Jake
+ *
+ */
+public class SilhouetteTest {
+
+	/** Maximum difference of silhouettes. */
+	private static final double TOLERANCE = 1e-12;
+
+	@Test
+	public void testPruning() {
+		final ClusterPartition partition = SilhouetteDataTest.createPartition(1, 2000, 20, false);
+		assertEquals(SilhouetteData.CALCULATION_PRUNING, checkSilhouette(partition, new EuclideanDistance()));
+		assertEquals(SilhouetteData.CALCULATION_PRUNING, checkSilhouette(partition, new ManhattanDistance()));
+	}
+
+	@Test
+	public void testNoPruningWithMissingValues() {
+		final ClusterPartition partition = SilhouetteDataTest.createPartition(2, 2000, 20, true);
+		assertTrue(!SilhouetteData.CALCULATION_PRUNING.equals(checkSilhouette(partition, new EuclideanDistance())));
+		assertTrue(!SilhouetteData.CALCULATION_PRUNING.equals(checkSilhouette(partition, new ManhattanDistance())));
+	}
+
+	@Test
+	public void testSquaredEuclideanCentroids() {
+		final ClusterPartition partition = SilhouetteDataTest.createPartition(3, 500, 4, false);
+		assertEquals(SilhouetteData.CALCULATION_CENTROIDS, checkSilhouette(partition, new SquaredEuclideanDistance()));
+	}
+
+	@Test
+	public void testNoSquaredEuclideanCentroidsWithMissingValues() {
+		final ClusterPartition partition = SilhouetteDataTest.createPartition(4, 500, 4, true);
+		assertEquals(SilhouetteData.CALCULATION_SYMMETRIC_SWEEP, checkSilhouette(partition, new SquaredEuclideanDistance()));
+	}
+
+	/**
+	 * Checks that silhouette calculated by the operator equals silhouette of the sweep.
+	 * @param partition examples divided by clusters
+	 * @param measure measure
+	 * @return name of calculation of the operator
+	 */
+	private static String checkSilhouette(ClusterPartition partition, DistanceMeasure measure) {
+		final SilhouetteData expected = new SilhouetteData();
+		expected.calculateSilhouette(partition, DistanceKernel.create(new FeatureMatrix(partition), measure), 1);
+		final SilhouetteData actual = new SilhouetteData();
+		Silhouette.calculateSilhouette(actual, partition, measure, 3);
+		for (int row = 0; row < expected.getSilhouette().length; row++) {
+			assertEquals("row " + row, expected.getSilhouette()[row], actual.getSilhouette()[row], TOLERANCE);
+		}
+		assertEquals(expected.getAverageSilhouette(), actual.getAverageSilhouette(), TOLERANCE);
+		return actual.getCalculationName();
+	}
+}